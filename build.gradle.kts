@@ -1,5 +1,6 @@
 plugins {
     id("java")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "at.tuwien"
@@ -20,6 +21,54 @@ tasks.test {
     useJUnitPlatform()
 }
 
+//Solves all closed talon endgames up to a number of cards per hand, e.g. ./gradlew generateEndgameTablebase -PtablebaseCards=3
+//Agents use the file when it is passed with -Dschnapsen.tablebase=<file>
+tasks.register<JavaExec>("generateEndgameTablebase") {
+    group = "application"
+    description = "Generates the memory-mapped endgame tablebase"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("shared_schnapsen.Endgame_Tablebase_Generator_Schnapsen")
+    args(
+        (project.findProperty("tablebaseFile") ?: "endgame-tablebase.bin").toString(),
+        (project.findProperty("tablebaseCards") ?: "3").toString()
+    )
+}
+
+//Plays agents against each other without the engine, e.g. ./gradlew tournament -PagentA=Is_Mcts_Agent_Schnapsen -PagentB=Iimc_Agent_Schnapsen -Pgames=1000
+tasks.register<JavaExec>("tournament") {
+    group = "application"
+    description = "Plays a headless tournament between two agents"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("tournament_schnapsen.Tournament_Runner_Schnapsen")
+    args(
+        (project.findProperty("agentA") ?: "Is_Mcts_Agent_Schnapsen").toString(),
+        (project.findProperty("agentB") ?: "Random_Agent_Schnapsen").toString(),
+        (project.findProperty("games") ?: "100").toString(),
+        (project.findProperty("computationTime") ?: "1000").toString(),
+        (project.findProperty("parallelGames") ?: Runtime.getRuntime().availableProcessors()).toString(),
+        (project.findProperty("seed") ?: "1").toString(),
+        (project.findProperty("agentThreads") ?: "1").toString()
+    )
+    //-Psprt=elo0,elo1[,alpha,beta] stops as soon as a sequential probability ratio test is decided, games is then the maximum
+    project.findProperty("sprt")?.let { args(it.toString().split(",")) }
+    //-PmoveStatistics=dir writes the latency, slack and iteration histograms of every agent as CSV and JSON into dir
+    project.findProperty("moveStatistics")?.let { systemProperty("schnapsen.moveStatistics", it.toString()) }
+}
+
+//Benchmarks of the hot paths in src/jmh/java on seeded fixtures, e.g. ./gradlew jmh -PjmhIncludes=Playout_Benchmark
+//Reports ops/s and the allocation rate of the gc profiler, the results are written to build/results/jmh/results.json
+jmh {
+    jmhVersion.set("1.37")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    benchmarkMode.set(listOf("thrpt"))
+    timeUnit.set("s")
+    profilers.set(listOf("gc"))
+    resultFormat.set("JSON")
+    project.findProperty("jmhIncludes")?.let { includes.set(listOf(it.toString())) }
+}
+
 //var agent = "Random_Agent_Schnapsen"
 //var package_path = "random_agent"
 
@@ -0,0 +1,96 @@
+package alpha_beta_agent;
+
+import game.Schnapsen;
+import game.board.SchnapsenBoard;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import shared_schnapsen.Benchmark_Fixtures_Schnapsen;
+import shared_schnapsen.Determinizer_Schnapsen;
+import shared_schnapsen.Playout_State_Schnapsen;
+import shared_schnapsen.Transposition_Table_Schnapsen;
+import shared_schnapsen.Zobrist_Hash_Schnapsen;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class Alpha_Beta_Benchmark_Schnapsen {
+
+    //A small table, it is cleared before every search so that each search evaluates the same nodes
+    private static final int TABLE_LOG2_SIZE = 16;
+
+    @Param({"4", "6", "8"})
+    public int depth;
+
+    @Param({"0", "6"})
+    public int actionsPlayed;
+
+    private Transposition_Table_Schnapsen transpositionTable;
+    private Alpha_Beta_Search_Schnapsen search;
+    private int playerId;
+    private long rootHash;
+    private long legalMoves;
+
+    /**
+     * The evaluated nodes are reported as an additional throughput next to the searches per second
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        Schnapsen game = Benchmark_Fixtures_Schnapsen.playedPosition(Benchmark_Fixtures_Schnapsen.SEED, actionsPlayed);
+        playerId = game.getCurrentPlayer();
+        transpositionTable = new Transposition_Table_Schnapsen(TABLE_LOG2_SIZE);
+        search = new Alpha_Beta_Search_Schnapsen(transpositionTable, () -> false);
+
+        //the search never changes its root state, so the world is determinized once
+        Determinizer_Schnapsen determinizer = new Determinizer_Schnapsen(game.getBoard(), playerId);
+        SchnapsenBoard generatedBoard = determinizer.generateMissingInformation(new Random(Benchmark_Fixtures_Schnapsen.SEED), search.getPileOrder());
+        Playout_State_Schnapsen rootState = search.getRootState();
+        rootState.loadFrom(new Schnapsen(generatedBoard), search.getPileOrder(), determinizer.getCardsLeftInPile());
+        rootHash = Zobrist_Hash_Schnapsen.hash(rootState);
+        legalMoves = rootState.getLegalMoves();
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        transpositionTable.clear();
+    }
+
+    /**
+     * A fixed depth search of all root moves with a full window, as one iteration of the iterative deepening
+     * @param nodes the counter of the evaluated nodes
+     * @return the best value of the root moves
+     */
+    @Benchmark
+    public double search(Nodes nodes) {
+        search.newSearch(playerId);
+        search.newIteration();
+        double bestValue = -Double.MAX_VALUE;
+        for (long moves = legalMoves; moves != 0; moves &= moves - 1) {
+            int move = Long.numberOfTrailingZeros(moves);
+            bestValue = Math.max(bestValue, search.searchRootMove(depth - 1, rootHash, move, -Double.MAX_VALUE, Double.MAX_VALUE));
+        }
+        nodes.nodes += search.getNodesEvaluated();
+        return bestValue;
+    }
+}
@@ -0,0 +1,111 @@
+package is_mcts_agent;
+
+import game.Schnapsen;
+import game.board.SchnapsenBoard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import shared_schnapsen.Benchmark_Fixtures_Schnapsen;
+import shared_schnapsen.Card_Bits_Schnapsen;
+import shared_schnapsen.Determinizer_Schnapsen;
+import shared_schnapsen.Search_Profiler_Schnapsen;
+import shared_schnapsen.Talon_Closing_Schnapsen;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class Is_Mcts_Benchmark_Schnapsen {
+
+    //Iterations that grow the tree before the backpropagation is measured
+    private static final int WARMUP_TREE_ITERATIONS = 2000;
+
+    private Benchmark_Agent agent;
+    private Determinizer_Schnapsen determinizer;
+    private int[] pileOrder;
+    private Random random;
+    //The fixture has an open talon, the descents record a closing in the tree
+    private final Talon_Closing_Schnapsen closing = new Talon_Closing_Schnapsen();
+    private Is_Mcts_Node_Schnapsen rootNode;
+    private Is_Mcts_Node_Schnapsen leafNode;
+
+    @Setup
+    public void setUp() {
+        Schnapsen game = Benchmark_Fixtures_Schnapsen.dealRound(Benchmark_Fixtures_Schnapsen.SEED);
+        agent = new Benchmark_Agent();
+        determinizer = new Determinizer_Schnapsen(game.getBoard(), game.getCurrentPlayer());
+        pileOrder = new int[Card_Bits_Schnapsen.DECK_SIZE];
+        random = new Random(Benchmark_Fixtures_Schnapsen.SEED);
+    }
+
+    /**
+     * Every measurement iteration starts with a new tree, so that its size depends only on the duration of the iteration
+     */
+    @Setup(Level.Iteration)
+    public void newTree() {
+        rootNode = new Is_Mcts_Node_Schnapsen(null, null);
+        for (int i = 0; i < WARMUP_TREE_ITERATIONS; i++) {
+            leafNode = agent.selectAndExpand(rootNode, determinize(), false, closing, Search_Profiler_Schnapsen.Recorder.DISABLED);
+            agent.backPropagateNode(leafNode, random.nextDouble(), false);
+        }
+    }
+
+    /**
+     * Selection and expansion of one iteration on a new determinization, followed by the backpropagation of a random score
+     * @return the expanded node
+     */
+    @Benchmark
+    public Is_Mcts_Node_Schnapsen selectAndExpand() {
+        Is_Mcts_Node_Schnapsen expandedNode = agent.selectAndExpand(rootNode, determinize(), false, closing, Search_Profiler_Schnapsen.Recorder.DISABLED);
+        agent.backPropagateNode(expandedNode, random.nextDouble(), false);
+        return expandedNode;
+    }
+
+    /**
+     * Selection with virtual loss, as done by the tree parallel search
+     * @return the expanded node
+     */
+    @Benchmark
+    public Is_Mcts_Node_Schnapsen selectAndExpandVirtualLoss() {
+        Is_Mcts_Node_Schnapsen expandedNode = agent.selectAndExpand(rootNode, determinize(), true, closing, Search_Profiler_Schnapsen.Recorder.DISABLED);
+        agent.backPropagateNode(expandedNode, random.nextDouble(), true);
+        return expandedNode;
+    }
+
+    /**
+     * The backpropagation from the last expanded node of the tree setup to the root
+     * @return the root node
+     */
+    @Benchmark
+    public Is_Mcts_Node_Schnapsen backPropagateNode() {
+        agent.backPropagateNode(leafNode, 0.5, false);
+        return rootNode;
+    }
+
+    /**
+     * Creates the game of a new determinization of the fixture
+     * @return the determinized game
+     */
+    private Schnapsen determinize() {
+        SchnapsenBoard generatedBoard = determinizer.generateMissingInformation(random, pileOrder);
+        return new Schnapsen(generatedBoard);
+    }
+
+    /**
+     * The agent with timers that never run out during a benchmark
+     */
+    private static final class Benchmark_Agent extends Is_Mcts_Agent_Schnapsen {
+        private Benchmark_Agent() {
+            super(Benchmark_Fixtures_Schnapsen.logger());
+            setUp(2, 0);
+            setTimers(1, TimeUnit.HOURS);
+        }
+    }
+}
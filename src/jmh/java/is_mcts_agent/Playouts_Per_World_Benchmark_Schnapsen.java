@@ -0,0 +1,92 @@
+package is_mcts_agent;
+
+import game.Schnapsen;
+import game.action.SchnapsenAction;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import shared_schnapsen.Action_Ids_Schnapsen;
+import shared_schnapsen.Benchmark_Fixtures_Schnapsen;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class Playouts_Per_World_Benchmark_Schnapsen {
+
+    //The computation time of a measured move and of the reference move
+    private static final long MOVE_MILLIS = 100;
+    private static final long REFERENCE_MILLIS = 5000;
+
+    @Param({"0", "6"})
+    public int actionsPlayed;
+
+    @Param({"1", "4", "16"})
+    public int playoutsPerWorld;
+
+    private Schnapsen game;
+    //The action of a long search with a new determinization every iteration
+    private SchnapsenAction referenceAction;
+
+    /**
+     * The counters are reported per second like the moves: iterations is the iteration rate of the search,
+     * agreements divided by the move rate is the share of moves that chose the reference action
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Move_Counters {
+        public long iterations;
+        public long agreements;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            iterations = 0;
+            agreements = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        game = Benchmark_Fixtures_Schnapsen.playedPosition(Benchmark_Fixtures_Schnapsen.SEED, actionsPlayed);
+        Benchmark_Agent referenceAgent = new Benchmark_Agent(game.getCurrentPlayer(), 1);
+        referenceAction = referenceAgent.computeNextAction(game, REFERENCE_MILLIS, TimeUnit.MILLISECONDS);
+        referenceAgent.destroy();
+    }
+
+    /**
+     * A move of a new agent on the fixture, so that no tree is reused between the moves
+     * @param counters the iterations of the move and whether it chose the reference action are added to them
+     * @return the chosen action
+     */
+    @Benchmark
+    public SchnapsenAction computeNextAction(Move_Counters counters) {
+        Benchmark_Agent agent = new Benchmark_Agent(game.getCurrentPlayer(), playoutsPerWorld);
+        SchnapsenAction action = agent.computeNextAction(game, MOVE_MILLIS, TimeUnit.MILLISECONDS);
+        counters.iterations += agent.getMoveIterations();
+        if (Action_Ids_Schnapsen.idOf(action) == Action_Ids_Schnapsen.idOf(referenceAction)) {
+            counters.agreements++;
+        }
+        agent.destroy();
+        return action;
+    }
+
+    /**
+     * The agent searching on the calling thread, with a given number of iterations per determinization
+     */
+    private static final class Benchmark_Agent extends Is_Mcts_Agent_Schnapsen {
+        private Benchmark_Agent(int playerId, int playoutsPerWorld) {
+            super(Benchmark_Fixtures_Schnapsen.logger());
+            setUp(2, playerId);
+            setNumberOfThreads(1);
+            setPlayoutsPerWorld(playoutsPerWorld);
+        }
+    }
+}
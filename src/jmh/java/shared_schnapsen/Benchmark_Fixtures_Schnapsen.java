@@ -0,0 +1,84 @@
+package shared_schnapsen;
+
+import at.ac.tuwien.ifs.sge.engine.Logger;
+import game.Schnapsen;
+import game.action.SchnapsenAction;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+public final class Benchmark_Fixtures_Schnapsen {
+
+    //The seed of all boards and random choices of the benchmarks, so that every run measures the same positions
+    public static final long SEED = 0x5C4A95E4L;
+
+    //The benchmarked agents only show warnings and errors, as in the tournament
+    private static final int LOG_LEVEL = 1;
+
+    private Benchmark_Fixtures_Schnapsen() {
+    }
+
+    /**
+     * Deals a new round with a fixed distribution of the cards
+     * @param seed the seed of the distribution
+     * @return a game at the start of the round, player 0 has to move
+     */
+    public static Schnapsen dealRound(long seed) {
+        return Seeded_Deal_Schnapsen.dealRound(seed);
+    }
+
+    /**
+     * Deals a round and plays seeded random actions, a position later in the round exercises the tricks, marriages and the closed talon
+     * @param seed the seed of the distribution and of the actions
+     * @param actions the number of actions to be played, fewer are played if the round would end before
+     * @return a game in the middle of the round
+     */
+    public static Schnapsen playedPosition(long seed, int actions) {
+        Schnapsen game = dealRound(seed);
+        Random random = new Random(seed);
+        double utilityPlayer0 = game.getUtilityValue(0);
+        double utilityPlayer1 = game.getUtilityValue(1);
+        for (int i = 0; i < actions; i++) {
+            Schnapsen nextGame = (Schnapsen) game.doAction(randomAction(game, random));
+            if (nextGame.isGameOver() || isRoundOver(nextGame, utilityPlayer0, utilityPlayer1)) {
+                break;
+            }
+            game = nextGame;
+        }
+        return game;
+    }
+
+    /**
+     * Chooses a random action, the actions are ordered by their ids first so that a seed always leads to the same action
+     * @param game the current state
+     * @param random the source of randomness
+     * @return one of the possible actions
+     */
+    public static SchnapsenAction randomAction(Schnapsen game, Random random) {
+        List<SchnapsenAction> actions = new ArrayList<>(game.getPossibleActions());
+        actions.sort(Comparator.comparingInt(Action_Ids_Schnapsen::idOf));
+        return actions.get(random.nextInt(actions.size()));
+    }
+
+    /**
+     * Creates the logger of a benchmarked agent, the agents log every move and need a logger like the one the engine passes
+     * @return a logger that prints warnings and errors to System.err
+     */
+    public static Logger logger() {
+        return new Logger(LOG_LEVEL, "[benchmark ", "", "trace]: ", System.out, "", "debug]: ", System.out, "",
+                "info]: ", System.out, "", "warn]: ", System.err, "", "error]: ", System.err, "");
+    }
+
+    /**
+     * The round is over once the Bummerl values of a player changed, the same check as in the agents
+     * @param game the current state
+     * @param utilityPlayer0 the utility value of player 0 at the start of the round
+     * @param utilityPlayer1 the utility value of player 1 at the start of the round
+     * @return true if the round of the given utility values is over
+     */
+    public static boolean isRoundOver(Schnapsen game, double utilityPlayer0, double utilityPlayer1) {
+        return (long) game.getUtilityValue(0) != (long) utilityPlayer0 || (long) game.getUtilityValue(1) != (long) utilityPlayer1;
+    }
+}
@@ -0,0 +1,59 @@
+package shared_schnapsen;
+
+import game.Schnapsen;
+import game.board.SchnapsenBoard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class Determinizer_Benchmark_Schnapsen {
+
+    //0 actions: full pile, 6 actions: three tricks played, 12 actions: the pile is nearly exhausted or the talon was closed
+    @Param({"0", "6", "12"})
+    public int actionsPlayed;
+
+    private SchnapsenBoard board;
+    private int playerId;
+    private Determinizer_Schnapsen determinizer;
+    private Random random;
+    private int[] pileOrder;
+
+    @Setup
+    public void setUp() {
+        Schnapsen game = Benchmark_Fixtures_Schnapsen.playedPosition(Benchmark_Fixtures_Schnapsen.SEED, actionsPlayed);
+        board = game.getBoard();
+        playerId = game.getCurrentPlayer();
+        determinizer = new Determinizer_Schnapsen(board, playerId);
+        random = new Random(Benchmark_Fixtures_Schnapsen.SEED);
+        pileOrder = new int[Card_Bits_Schnapsen.DECK_SIZE];
+    }
+
+    /**
+     * One determinization as done by the agents in every iteration
+     * @return the generated board
+     */
+    @Benchmark
+    public SchnapsenBoard generateMissingInformation() {
+        return determinizer.generateMissingInformation(random, pileOrder);
+    }
+
+    /**
+     * Collecting the known information of a board, which is done once per turn
+     * @return the determinizer of the board
+     */
+    @Benchmark
+    public Determinizer_Schnapsen createDeterminizer() {
+        return new Determinizer_Schnapsen(board, playerId);
+    }
+}
@@ -0,0 +1,142 @@
+package shared_schnapsen;
+
+import game.Schnapsen;
+import game.board.SchnapsenBoard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class Playout_Benchmark_Schnapsen {
+
+    //The same value as in the heuristic agents
+    private static final double EPSILON_GREEDY = 0.3;
+
+    //Length of the doAction chains, which is about half of a round
+    private static final int CHAIN_LENGTH = 10;
+
+    @Param({"0", "6"})
+    public int actionsPlayed;
+
+    private Schnapsen game;
+    private double utilityPlayer0;
+    private double utilityPlayer1;
+    private Determinizer_Schnapsen determinizer;
+    private int[] pileOrder;
+    private Random random;
+    private Playout_State_Schnapsen rootState;
+    private Playout_State_Schnapsen playoutState;
+
+    @Setup
+    public void setUp() {
+        game = Benchmark_Fixtures_Schnapsen.playedPosition(Benchmark_Fixtures_Schnapsen.SEED, actionsPlayed);
+        utilityPlayer0 = game.getUtilityValue(0);
+        utilityPlayer1 = game.getUtilityValue(1);
+        random = new Random(Benchmark_Fixtures_Schnapsen.SEED);
+
+        //the playout states start from a determinization of the board, as in the agents
+        determinizer = new Determinizer_Schnapsen(game.getBoard(), game.getCurrentPlayer());
+        pileOrder = new int[Card_Bits_Schnapsen.DECK_SIZE];
+        SchnapsenBoard generatedBoard = determinizer.generateMissingInformation(random, pileOrder);
+        rootState = new Playout_State_Schnapsen();
+        rootState.loadFrom(new Schnapsen(generatedBoard), pileOrder, determinizer.getCardsLeftInPile());
+        playoutState = new Playout_State_Schnapsen();
+    }
+
+    /**
+     * A chain of engine actions, every action copies the game as in the playouts of the agents before the bitmask state
+     * @return the game after the chain
+     */
+    @Benchmark
+    public Schnapsen doActionChain() {
+        Schnapsen current = game;
+        for (int i = 0; i < CHAIN_LENGTH && !current.isGameOver() && !Benchmark_Fixtures_Schnapsen.isRoundOver(current, utilityPlayer0, utilityPlayer1); i++) {
+            current = (Schnapsen) current.doAction(Benchmark_Fixtures_Schnapsen.randomAction(current, random));
+        }
+        return current;
+    }
+
+    /**
+     * A random playout of the engine game until the end of the round
+     * @return the game at the end of the round
+     */
+    @Benchmark
+    public Schnapsen gamePlayout() {
+        Schnapsen current = game;
+        while (!current.isGameOver() && !Benchmark_Fixtures_Schnapsen.isRoundOver(current, utilityPlayer0, utilityPlayer1)) {
+            current = (Schnapsen) current.doAction(Benchmark_Fixtures_Schnapsen.randomAction(current, random));
+        }
+        return current;
+    }
+
+    /**
+     * Loading a determinized board into the bitmask state, which is done once per playout
+     * @return the loaded state
+     */
+    @Benchmark
+    public Playout_State_Schnapsen loadPlayoutState() {
+        SchnapsenBoard generatedBoard = determinizer.generateMissingInformation(random, pileOrder);
+        playoutState.loadFrom(new Schnapsen(generatedBoard), pileOrder, determinizer.getCardsLeftInPile());
+        return playoutState;
+    }
+
+    /**
+     * A random playout of the bitmask state until the end of the round, without the endgame solver
+     * @return the game points of the round
+     */
+    @Benchmark
+    public int randomPlayout() {
+        playoutState.copyFrom(rootState);
+        playoutState.playRandomly(random);
+        return playoutState.getGamePoints();
+    }
+
+    /**
+     * A random playout that is solved exactly once the talon is closed or the pile is exhausted, as in the IS-MCTS and IIMC agents
+     * @return the game points of the round
+     */
+    @Benchmark
+    public int solvedPlayout() {
+        playoutState.copyFrom(rootState);
+        while (!playoutState.isRoundOver()) {
+            if (Endgame_Solver_Schnapsen.isSolvable(playoutState)) {
+                playoutState.solveEndgame();
+                break;
+            }
+            playoutState.applyMove(Playout_Policy_Schnapsen.randomMove(playoutState, random));
+        }
+        return playoutState.getGamePoints();
+    }
+
+    /**
+     * A playout of the heuristic agents, which choose the heuristic move with the probability 1 - EPSILON_GREEDY
+     * @return the game points of the round
+     */
+    @Benchmark
+    public int heuristicPlayout() {
+        playoutState.copyFrom(rootState);
+        while (!playoutState.isRoundOver()) {
+            playoutState.applyMove(Playout_Policy_Schnapsen.epsilonGreedyMove(playoutState, EPSILON_GREEDY, random));
+        }
+        return playoutState.getGamePoints();
+    }
+
+    /**
+     * A single move choice of the heuristic, on the position of the fixture
+     * @return the chosen move
+     */
+    @Benchmark
+    public int heuristicMove() {
+        return Playout_Policy_Schnapsen.heuristicMove(rootState, random);
+    }
+}
@@ -0,0 +1,157 @@
+package shared_schnapsen;
+
+import game.Schnapsen;
+import game.action.SchnapsenAction;
+import game.board.SchnapsenBoard;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class Variance_Benchmark_Schnapsen {
+
+    //The worlds of one estimate, about as many as IIMC samples in a short move
+    private static final int WORLDS = 32;
+    //The worlds of the reference value, which is computed once per fork
+    private static final int REFERENCE_WORLDS = 32_768;
+    //The same sequence of stratum positions as in the IIMC agents
+    private static final double GOLDEN_RATIO_FRACTION = 0.6180339887498949;
+
+    @Param({"0", "6"})
+    public int actionsPlayed;
+
+    //false: independent worlds and playouts as in the default IIMC agents, true: common random numbers and trump strata as with setVarianceReduction
+    @Param({"false", "true"})
+    public boolean varianceReduction;
+
+    private int playerId;
+    private Determinizer_Schnapsen determinizer;
+    private int[] pileOrder;
+    private Random random;
+    private Random commonRandom;
+    private double stratumPosition;
+    private Playout_State_Schnapsen worldState;
+    private Playout_State_Schnapsen playoutState;
+    //The two root moves that are compared, the first two actions of the fixture by id
+    private int firstMove;
+    private int secondMove;
+    //The difference of both moves estimated with many independent worlds
+    private double reference;
+
+    /**
+     * The squared errors of the estimates against the reference value, divided by the number of estimates they give the mean squared error of an estimate.
+     * The ratio of the mean squared errors of both modes is the factor of worlds the variance reduction saves for the same precision.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Error_Counters {
+        public double squaredError;
+        public long estimates;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            squaredError = 0.0;
+            estimates = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        Schnapsen game = Benchmark_Fixtures_Schnapsen.playedPosition(Benchmark_Fixtures_Schnapsen.SEED, actionsPlayed);
+        playerId = game.getCurrentPlayer();
+        determinizer = new Determinizer_Schnapsen(game.getBoard(), playerId);
+        pileOrder = new int[Card_Bits_Schnapsen.DECK_SIZE];
+        worldState = new Playout_State_Schnapsen();
+        playoutState = new Playout_State_Schnapsen();
+        commonRandom = new Random();
+
+        List<SchnapsenAction> actions = new ArrayList<>(game.getPossibleActions());
+        actions.sort(Comparator.comparingInt(Action_Ids_Schnapsen::idOf));
+        firstMove = Action_Ids_Schnapsen.idOf(actions.get(0));
+        secondMove = Action_Ids_Schnapsen.idOf(actions.get(Math.min(1, actions.size() - 1)));
+
+        //both modes are unbiased, so they share the reference of the independent sampling
+        random = new Random(Benchmark_Fixtures_Schnapsen.SEED);
+        double sum = 0.0;
+        for (int i = 0; i < REFERENCE_WORLDS / WORLDS; i++) {
+            sum += estimateDifference(false);
+        }
+        reference = sum / (REFERENCE_WORLDS / WORLDS);
+        stratumPosition = random.nextDouble();
+    }
+
+    /**
+     * Estimates the score difference of two root moves from WORLDS sampled worlds, as IIMC does for every pair of root actions
+     * @param counters the squared error of the estimate is added to them
+     * @return the estimated difference
+     */
+    @Benchmark
+    public double estimateDifference(Error_Counters counters) {
+        double estimate = estimateDifference(varianceReduction);
+        counters.squaredError += (estimate - reference) * (estimate - reference);
+        counters.estimates++;
+        return estimate;
+    }
+
+    /**
+     * Samples WORLDS worlds and plays out both moves in each of them
+     * @param reduceVariance true to stratify the worlds by the trumps in the opponents hand and to share the playout random numbers of a world
+     * @return the average score difference of the first move over the second
+     */
+    private double estimateDifference(boolean reduceVariance) {
+        double sum = 0.0;
+        for (int world = 0; world < WORLDS; world++) {
+            SchnapsenBoard generatedBoard;
+            if (reduceVariance) {
+                stratumPosition = (stratumPosition + GOLDEN_RATIO_FRACTION) % 1.0;
+                generatedBoard = determinizer.generateMissingInformation(random, pileOrder, determinizer.trumpStratumAt(stratumPosition));
+            } else {
+                generatedBoard = determinizer.generateMissingInformation(random, pileOrder);
+            }
+            worldState.loadFrom(new Schnapsen(generatedBoard), pileOrder, determinizer.getCardsLeftInPile());
+            long worldSeed = random.nextLong();
+            sum += playout(firstMove, reduceVariance, worldSeed) - playout(secondMove, reduceVariance, worldSeed);
+        }
+        return sum / WORLDS;
+    }
+
+    /**
+     * Plays out a root move in the current world with the endgame solver, as in the IIMC agents
+     * @param move the root move
+     * @param reduceVariance true to draw the playout moves from the random numbers of the world
+     * @param worldSeed the seed of the random numbers of the world
+     * @return the score of the player to move at the end of the round
+     */
+    private double playout(int move, boolean reduceVariance, long worldSeed) {
+        Random playoutRandom = random;
+        if (reduceVariance) {
+            commonRandom.setSeed(worldSeed);
+            playoutRandom = commonRandom;
+        }
+        playoutState.copyFrom(worldState);
+        playoutState.applyMove(move);
+        while (!playoutState.isRoundOver()) {
+            if (Endgame_Solver_Schnapsen.isSolvable(playoutState)) {
+                playoutState.solveEndgame();
+                break;
+            }
+            playoutState.applyMove(Playout_Policy_Schnapsen.randomMove(playoutState, playoutRandom));
+        }
+        return playoutState.getScore(playerId);
+    }
+}
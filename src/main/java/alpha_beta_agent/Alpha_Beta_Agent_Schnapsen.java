@@ -5,20 +5,50 @@ import at.ac.tuwien.ifs.sge.agent.GameAgent;
 import at.ac.tuwien.ifs.sge.engine.Logger;
 import game.Schnapsen;
 import game.action.SchnapsenAction;
-import game.board.PlayingCard;
 import game.board.SchnapsenBoard;
+import shared_schnapsen.Action_Ids_Schnapsen;
+import shared_schnapsen.Agent_Turn_Schnapsen;
+import shared_schnapsen.Determinizer_Schnapsen;
+import shared_schnapsen.Playout_State_Schnapsen;
+import shared_schnapsen.Talon_Closing_Schnapsen;
+import shared_schnapsen.Time_Manager_Schnapsen;
+import shared_schnapsen.Transposition_Table_Schnapsen;
+import shared_schnapsen.Zobrist_Hash_Schnapsen;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 public class Alpha_Beta_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, SchnapsenAction> implements GameAgent<Schnapsen, SchnapsenAction> {
 
-    //These variables are used for the end of round check
-    private double oldUtilityPlayer0;
-    private double oldUtilityPlayer1;
+    private static final int MAX_PLY = Alpha_Beta_Search_Schnapsen.MAX_PLY;
 
-    //This variable is used to track how many nodes were evaluated
-    private int nodesEvaluated;
+    //The transposition table is kept across determinizations and moves, 2^20 slots take 16 MB
+    //In the multi world mode all workers share it, so that positions that several worlds have in common are solved once
+    private static final int TRANSPOSITION_TABLE_LOG2_SIZE = 20;
+    private final Transposition_Table_Schnapsen transpositionTable = new Transposition_Table_Schnapsen(TRANSPOSITION_TABLE_LOG2_SIZE);
+
+    //The search of the single world mode
+    private final Alpha_Beta_Search_Schnapsen search = new Alpha_Beta_Search_Schnapsen(transpositionTable, this::shouldStopComputation);
+
+    //Perfect Information Monte Carlo: many determinized worlds are solved in parallel and the values of the root actions are averaged over them
+    private boolean usePimc = false;
+    private int numberOfThreads = Runtime.getRuntime().availableProcessors();
+    private ForkJoinPool searchPool;
+    //One search per worker, the states and move ordering tables of a search are not shared
+    private Alpha_Beta_Search_Schnapsen[] workerSearches;
+
+    //The deadline, time management, move statistics and talon closing around every turn
+    private final Agent_Turn_Schnapsen turn = new Agent_Turn_Schnapsen(getClass().getSimpleName(), null);
+    //Who closed the talon of the current round, the board does not tell it and the searched states need it for the result of a closed round
+    private final Talon_Closing_Schnapsen talonClosing = turn.getTalonClosing();
+
+    //Stops the search of easy or settled moves before the deadline, the deepening needs no stopping rule as it already stops once the world is solved
+    private final Time_Manager_Schnapsen timeManager = turn.getTimeManager();
 
     /**
      * Constructor for testing without a logger object
@@ -35,17 +65,44 @@ public class Alpha_Beta_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Sch
     }
 
 
+    /**
+     * Sets the agent up for a match and reports an endgame tablebase that could not be loaded
+     * @param numberOfPlayers the number of players of the match
+     * @param playerId the id of the agent's player
+     */
+    @Override
+    public void setUp(int numberOfPlayers, int playerId) {
+        super.setUp(numberOfPlayers, playerId);
+        turn.setUp(log);
+    }
+
     /**
      * This method will be called by the engine everytime the agent has its turn.
-     * In this method the agent creates one possible determinization and runs an alpha-beta pruning algorithm on it
      * @param schnapsen the games state as given by the engine (may include hidden information)
      * @param l the maximum available time the agent is allowed to take to think about its next action
      * @param timeUnit the unit in which the l parameter is measured
-     * @return a  SchnapsenAction chosen from the agents available ones after determinizing the imperfect information once and running an alpha-beta algorithm
+     * @return the SchnapsenAction chosen by searchNextAction
      */
     @Override
     public SchnapsenAction computeNextAction(Schnapsen schnapsen, long l, TimeUnit timeUnit) {
+        return turn.play(schnapsen, playerId, timeUnit.toNanos(l), () -> searchNextAction(schnapsen, l, timeUnit));
+    }
+
+    /**
+     * This method is called by computeNextAction everytime the agent has its turn.
+     * In this method the agent creates one possible determinization and runs an alpha-beta pruning algorithm on it.
+     * <p>
+     * The search is iteratively deepened: every iteration searches one ply deeper and evaluates the positions at the depth horizon
+     * with a static evaluator. When the time runs out the best action of the last completed iteration is returned,
+     * the iterations stop early once the round was solved until its end.
+     * @param schnapsen the games state as given by the engine (may include hidden information)
+     * @param l the maximum available time the agent is allowed to take to think about its next action
+     * @param timeUnit the unit in which the l parameter is measured
+     * @return a  SchnapsenAction chosen from the agents available ones after determinizing the imperfect information once and running an alpha-beta algorithm
+     */
+    private SchnapsenAction searchNextAction(Schnapsen schnapsen, long l, TimeUnit timeUnit) {
         SchnapsenBoard board = schnapsen.getBoard();
+        turn.observeTurn(board, playerId);
         Set<SchnapsenAction> availableActions = schnapsen.getPossibleActions();
 
         //single choice actions can be returned immediately
@@ -55,400 +112,340 @@ public class Alpha_Beta_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Sch
 
         //This method is provided by the AbstractGame interface and used to track remaining computation time with shouldStopComputation()
         setTimers(l,  timeUnit);
+        turn.startSearch(board, availableActions, START_TIME, TIMEOUT, timeUnit.toNanos(l));
 
-        //set the utility values for end of round check in simulations
-        oldUtilityPlayer0 = schnapsen.getUtilityValue(0);
-        oldUtilityPlayer1 = schnapsen.getUtilityValue(1);
+        //The determinizer collects the known information of the board once, setting the boolean on trump cards to true if suit matches
+        Determinizer_Schnapsen determinizer = new Determinizer_Schnapsen(board, playerId);
 
-        //This list is a one time generation of the cards in the game, setting the boolean on trump card to true if suit matches
-        List<PlayingCard> deckOfCards = generateFullDeck(board.getTrumpCard().getSuit());
+        if(usePimc) {
+            return computeNextActionPimc(determinizer, availableActions);
+        }
 
         //This board is a new board based on the newly generated Information, which does not include any more hidden Information and is therefore playable
-        SchnapsenBoard generatedBoard = generateMissingInformation(board, deckOfCards);
-        //We also need to generate a new Schnapsen object with the new board
+        int[] pileOrder = search.getPileOrder();
+        SchnapsenBoard generatedBoard = determinizer.generateMissingInformation(ThreadLocalRandom.current(), pileOrder);
+        //We also need to generate a new Schnapsen object with the new board, which is loaded into the state of the root
         Schnapsen generatedSchnapsen = new Schnapsen(generatedBoard);
-
-        //Initializing values for alpha-beta min-max
-        double bestActionValue = -Double.MAX_VALUE;
-        SchnapsenAction bestAction = null;
-
-        double alpha = -Double.MAX_VALUE;
-        double beta = Double.MAX_VALUE;
-
-        //track how many nodes have been evaluated
-        nodesEvaluated = 0;
-        log.debug("--- Alpha-Beta Action Statistics ---");
-
-        for(SchnapsenAction action : availableActions)
-        {
-            Schnapsen afterAction = (Schnapsen) generatedSchnapsen.doAction(action);
-            double actionValue = alphaBeta_min_max(afterAction, alpha, beta);
-
-            log._debugf("Action: %-20s | Minimax Eval: %5.3f", action.toString(), actionValue);
-
-            //Check if we found a better action
-            if(actionValue > bestActionValue)
-            {
-                bestActionValue = actionValue;
-                bestAction = action;
+        Playout_State_Schnapsen rootState = search.getRootState();
+        rootState.loadFrom(generatedSchnapsen, pileOrder, determinizer.getCardsLeftInPile(), talonClosing);
+        long rootHash = Zobrist_Hash_Schnapsen.hash(rootState);
+        long legalMoves = rootState.getLegalMoves();
+
+        //The root actions in search order, the best action of an iteration is searched first in the next one
+        List<SchnapsenAction> rootActions = new ArrayList<>();
+        for(SchnapsenAction action : availableActions) {
+            if((legalMoves & (1L << Action_Ids_Schnapsen.idOf(action))) != 0) {
+                rootActions.add(action);
+            } else {
+                log._debugf("Action: %-20s | not legal in the determinization, skipped", action.toString());
             }
-            //We have to adjust the alpha value if we found a better action
-            alpha = Math.max(alpha, bestActionValue);
-
         }
-
-        log.debug("---------------------------------------");
-        log._debugf("Alpha-Beta searched %d nodes.", nodesEvaluated);
-
-        if(bestAction != null)
-        {
-            log._debugf("--> CHOSEN ACTION: %s", bestAction.toString());
-            return bestAction;
-        } else {
-            //As a fallback we choose the next possible Action in the list
+        if(rootActions.isEmpty()) {
             return availableActions.iterator().next();
         }
-    }
 
-    /**
-     * This method is running an alpha-beta minimax algorithm with pruning functionality recursively.
-     * It ends when the end of a round or the end of the game is reached. It also is limited by the computation budget (time left)
-     * @param currentSchnapsen the current games state
-     * @param alpha the alpha value of the min-maxing algorithm = The current best value for the maximizing player
-     * @param beta the beta value of the min-maxing algorithm = The current lowest (= good) value for the minimizing player
-     * @return the score for this nodes game state, lower values are better for the minimizing player, higher for the maximizing one
-     */
-    private double alphaBeta_min_max(Schnapsen currentSchnapsen, double alpha, double beta){
-        this.nodesEvaluated++;
+        //track how many nodes have been evaluated and how often the transposition table knew the position
+        search.newSearch(playerId);
+        transpositionTable.newSearch();
+        transpositionTable.resetStatistics();
 
-        //When we reached a leaf (end of round or end of game) or there is no more time left in our budget we return the score for the current games state
-        if(currentSchnapsen.isGameOver() || isRoundOver(currentSchnapsen) || shouldStopComputation())
+        //The best action is always valid, before the first iteration is completed it is the first possible action
+        SchnapsenAction bestAction = rootActions.getFirst();
+        double bestActionValue = 0.0;
+        int completedDepth = 0;
+        boolean solved = false;
+
+        for(int depth = 1; depth <= MAX_PLY && !solved; depth++)
         {
-            return simulationScore(currentSchnapsen);
-        }
+            search.newIteration();
 
-        //Track all possible actions
-        Set<SchnapsenAction> possibleActions = currentSchnapsen.getPossibleActions();
+            //Initializing values for alpha-beta min-max
+            double iterationBestValue = -Double.MAX_VALUE;
+            SchnapsenAction iterationBestAction = null;
+            double alpha = -Double.MAX_VALUE;
+            double beta = Double.MAX_VALUE;
 
-        //We have to check if we are minimizing or maximizing based on who's turn it is
-        if(playerId == currentSchnapsen.getCurrentPlayer())
-        {
-            //The maximizing player wants to find the highest possible score, therefore a low initialisation is necessary
-            double maximumValue = -Double.MAX_VALUE;
-            for(SchnapsenAction action : possibleActions){
-                //Apply the action and recursively evaluate the state afterward
-                Schnapsen afterAction = (Schnapsen) currentSchnapsen.doAction(action);
-                double actionValue = alphaBeta_min_max(afterAction, alpha, beta);
-
-                //We have to check if we found a new maximum, if so we update our alpha
-                maximumValue = Math.max(maximumValue, actionValue);
-                alpha = Math.max(alpha, maximumValue);
-
-                //This is the pruning part:
-                //If there is a branch with a lower score (beta) for the minimizer we will not see this branch happening and can prune it
-                if (beta <= alpha) {
+            for(SchnapsenAction action : rootActions)
+            {
+                double actionValue = search.searchRootMove(depth - 1, rootHash, Action_Ids_Schnapsen.idOf(action), alpha, beta);
+                if(search.isSearchAborted()) {
                     break;
                 }
-            }
-            return maximumValue;
-        } else {
-            //The minimizing player wants to find the lowest possible score, therefore a high initialisation is necessary
-            double minValue = Double.MAX_VALUE;
-            for(SchnapsenAction action : possibleActions){
-                //Apply the action and recursively evaluate the state afterward
-                Schnapsen afterAction = (Schnapsen) currentSchnapsen.doAction(action);
-                double actionValue = alphaBeta_min_max(afterAction, alpha, beta);
-
-                //We have to check if we found a new minimum, if so we update our beta
-                minValue = Math.min(minValue, actionValue);
-                beta = Math.min(beta, minValue);
-
-                //This is the pruning part:
-                //If there is a branch with a higher score (alpha) for the maximizer we will not see this branch happening and can prune it
-                if (beta <= alpha) {
-                    break;
+
+                //Check if we found a better action
+                if(actionValue > iterationBestValue)
+                {
+                    iterationBestValue = actionValue;
+                    iterationBestAction = action;
                 }
+                //We have to adjust the alpha value if we found a better action
+                alpha = Math.max(alpha, iterationBestValue);
             }
-            return minValue;
-        }
-
-    }
 
-    /**
-     * This method takes all available information of the given board and randomizes the unknown cards into the drafting pile and opposing players hand
-     * @param board the actual game board with hidden information
-     * @return a new deep copied board with the given information and randomized cards for all unknown cards in the pile and opposing players hand
-     */
-    private SchnapsenBoard generateMissingInformation(SchnapsenBoard board, List<PlayingCard> cachedDeck) {
-        List<PlayingCard> unknownCards = new ArrayList<>(cachedDeck);
-        //Getting the players hand and all the marriage cards declared by the other player
-        List<PlayingCard> playerCards = new ArrayList<>();
-        List<PlayingCard> marriageCards = new ArrayList<>();
-        List<PlayingCard> otherPlayersCards = new ArrayList<>();
-        if(playerId == 0)
-        {
-            playerCards = board.getPlayer0Cards();
-            marriageCards = board.getPlayer1Marriages();
-        } else {
-            playerCards = board.getPlayer1Cards();
-            marriageCards = board.getPlayer0Marriages();
-        }
-
-        //Getting the trumpCard and the leading card
-        PlayingCard trumpCard = board.getTrumpCard();
-        PlayingCard leadingCard = board.getLeadingCard();
-
-        //Checking if there was an exchange of trumps
-        PlayingCard oldTrumpCard = board.getOldTrumpCard();
-
-        //Getting already played cards
-        List<PlayingCard> trickCards = new ArrayList<>();
-        List<PlayingCard[]> player0Tricks = board.getPlayer0Tricks();
-        List<PlayingCard[]> player1Tricks = board.getPlayer1Tricks();
-
-        //Getting both players cards that have been taken in a past trick
-        for(PlayingCard[] trick: player0Tricks){
-            trickCards.add(trick[0]);
-            trickCards.add(trick[1]);
-        }
-        for(PlayingCard[] trick: player1Tricks){
-            trickCards.add(trick[0]);
-            trickCards.add(trick[1]);
-        }
-
-        //Check if "exchanged" trump card has been played
-        //(if not, check if they are in the opposing players hand == not in my hand)
-        if(oldTrumpCard != null) {
-
-            boolean isLeading = (leadingCard != null && leadingCard.equals(oldTrumpCard));
-
-            if (!trickCards.contains(oldTrumpCard) && !isLeading) {
-                if (!playerCards.contains(oldTrumpCard)) {
-                    otherPlayersCards.add(oldTrumpCard);
-                }
+            //an interrupted iteration is discarded, its values are based on a partial search
+            if(search.isSearchAborted() || iterationBestAction == null) {
+                break;
             }
-        }
 
-        //check if opposing player played all of their declared marriageCards
-        for(PlayingCard marriageCard: marriageCards){
+            bestAction = iterationBestAction;
+            bestActionValue = iterationBestValue;
+            completedDepth = depth;
+            solved = search.isSolved();
 
-            boolean isLeading =  (leadingCard != null && leadingCard.equals(marriageCard));
+            rootActions.remove(bestAction);
+            rootActions.addFirst(bestAction);
 
-            if(!trickCards.contains(marriageCard) && !isLeading && !otherPlayersCards.contains(marriageCard)) {
-                otherPlayersCards.add(marriageCard);
+            //a completed iteration is the natural checkpoint, a best action that survives the deeper iterations ends the search early
+            if(timeManager.checkpoint(Action_Ids_Schnapsen.idOf(bestAction))) {
+                break;
             }
         }
 
-        //Reduce the number of unknown Cards by all findings
-
-        //Remove players cards
-
-        unknownCards.removeAll(playerCards);
-
-        //Remove trumpCard
-        unknownCards.remove(trumpCard);
+        log._debugf("Alpha-Beta searched %d nodes to depth %d%s, transposition table hit rate %.1f%% (%d of %d probes).",
+                search.getNodesEvaluated(), completedDepth, solved ? " (solved)" : "", transpositionTable.getHitRate() * 100.0,
+                transpositionTable.getHits(), transpositionTable.getProbes());
+        turn.setMoveIterations(search.getNodesEvaluated());
+        log._debugf("--> CHOSEN ACTION: %s (Minimax Eval: %5.3f)", bestAction.toString(), bestActionValue);
+        return bestAction;
+    }
 
-        //Remove leadingCard
-        if(leadingCard != null) {
-            unknownCards.remove(leadingCard);
+    /**
+     * Perfect Information Monte Carlo: the workers of a fork join pool repeatedly determinize the hidden information and solve
+     * the resulting world with the iteratively deepened alpha-beta search, until the time runs out.
+     * Every root action that is legal in a world is searched with a full window, so its minimax value in that world is exact up to the depth horizon.
+     * The action with the highest value averaged over all worlds is chosen.
+     * @param determinizer the determinizer of the current board
+     * @param availableActions the actions that are possible in the real game
+     * @return the action with the best average minimax value
+     */
+    private SchnapsenAction computeNextActionPimc(Determinizer_Schnapsen determinizer, Set<SchnapsenAction> availableActions) {
+        SchnapsenAction[] rootActions = availableActions.toArray(new SchnapsenAction[0]);
+        int[] rootMoves = new int[rootActions.length];
+        for(int i = 0; i < rootActions.length; i++) {
+            rootMoves[i] = Action_Ids_Schnapsen.idOf(rootActions[i]);
         }
 
-        //Remove all of otherPlayers cards
-        unknownCards.removeAll(otherPlayersCards);
-
-        //Remove already played cards
-        unknownCards.removeAll(trickCards);
+        double[] valueSums = new double[rootActions.length];
+        int[] worldCounts = new int[rootActions.length];
+        double[][] workerValues = new double[numberOfThreads][rootActions.length];
 
+        transpositionTable.newSearch();
+        transpositionTable.resetStatistics();
+        ForkJoinPool pool = getSearchPool();
 
-        //Fill up all the hidden card-slots with random available cards
+        int worldsSolved = 0;
+        int worldsSolvedToEnd = 0;
+        long completedDepths = 0;
+        long nodesEvaluated = 0;
+        List<ForkJoinTask<Integer>> worlds = new ArrayList<>(numberOfThreads);
 
-        //shuffle the unknown cards
-        Collections.shuffle(unknownCards);
-
-        int numberOfHandCards = playerCards.size();
-        int numberOfOtherPlayersHandCards = numberOfHandCards;
-        int cardsLeftInPile = board.playingCardsLeftInPile();
+        //Every batch solves one world per worker, the workers stop their world as soon as the time runs out
+        while(!shouldStopComputation())
+        {
+            worlds.clear();
+            for(int w = 0; w < numberOfThreads; w++) {
+                Alpha_Beta_Search_Schnapsen workerSearch = workerSearches[w];
+                double[] worldValues = workerValues[w];
+                worlds.add(pool.submit(() -> solveWorld(workerSearch, determinizer, rootMoves, worldValues)));
+            }
 
-        //other player has one Card less, because they led the trick
-        if(leadingCard != null) {
-            numberOfOtherPlayersHandCards--;
+            for(int w = 0; w < numberOfThreads; w++) {
+                int completedDepth;
+                try {
+                    completedDepth = worlds.get(w).get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log._debugf("Interrupted while waiting for worker %d", w);
+                    continue;
+                } catch (ExecutionException e) {
+                    log._debugf("Worker %d failed: %s", w, e.getCause());
+                    continue;
+                }
+                nodesEvaluated += workerSearches[w].getNodesEvaluated();
+                //a world without a completed iteration has no values
+                if(completedDepth == 0) {
+                    continue;
+                }
+                worldsSolved++;
+                completedDepths += completedDepth;
+                if(!workerSearches[w].isSearchAborted() && workerSearches[w].isSolved()) {
+                    worldsSolvedToEnd++;
+                }
+                for(int i = 0; i < rootActions.length; i++) {
+                    //actions that are not legal in this world have no value
+                    if(!Double.isNaN(workerValues[w][i])) {
+                        valueSums[i] += workerValues[w][i];
+                        worldCounts[i]++;
+                    }
+                }
+            }
+            if(Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            if(timeManager.isCheckpointDue()) {
+                timeManager.checkpoint(bestAverageActionId(rootMoves, valueSums, worldCounts));
+            }
         }
-
-        //first fill up the playingCardPile
-        LinkedList<PlayingCard> playingCardPile = new LinkedList<>();
-
-
-        for (int i = 0; i < cardsLeftInPile-1; i++) {
-            playingCardPile.add(unknownCards.removeFirst());
+        //the last batch of worlds was joined
+        turn.markJoined();
+
+        double seconds = Math.max(nanosElapsed(), 1L) / 1e9;
+        log._debugf("PIMC solved %d worlds (%d until the end of the round, average depth %.1f) on %d threads, %.1f worlds/s, %d nodes.",
+                worldsSolved, worldsSolvedToEnd, worldsSolved == 0 ? 0.0 : completedDepths / (double) worldsSolved,
+                numberOfThreads, worldsSolved / seconds, nodesEvaluated);
+        turn.setMoveIterations(nodesEvaluated);
+        log._debugf("Transposition table hit rate %.1f%% (%d of %d probes).", transpositionTable.getHitRate() * 100.0,
+                transpositionTable.getHits(), transpositionTable.getProbes());
+
+        //The best action is always valid, if no world was solved it is the first possible action
+        SchnapsenAction bestAction = rootActions[0];
+        double bestActionValue = -Double.MAX_VALUE;
+        for(int i = 0; i < rootActions.length; i++) {
+            if(worldCounts[i] == 0) {
+                log._debugf("Action: %-20s | Worlds: %6d", rootActions[i].toString(), 0);
+                continue;
+            }
+            double averageValue = valueSums[i] / worldCounts[i];
+            log._debugf("Action: %-20s | Worlds: %6d | Average Minimax Eval: %5.3f", rootActions[i].toString(), worldCounts[i], averageValue);
+            if(averageValue > bestActionValue) {
+                bestActionValue = averageValue;
+                bestAction = rootActions[i];
+            }
         }
+        log._debugf("--> CHOSEN ACTION: %s", bestAction.toString());
+        return bestAction;
+    }
 
-        // Add trumpCard as last if pile was not empty yet
-        if(cardsLeftInPile > 0) {
-            playingCardPile.addLast(trumpCard);
-        } else {
-            boolean inMyHand = playerCards.contains(trumpCard);
-            boolean inTricks = trickCards.contains(trumpCard);
-            boolean isLeading = (leadingCard != null && leadingCard.equals(trumpCard));
-            boolean alreadyAdded = otherPlayersCards.contains(trumpCard);
-
-            if(!inMyHand && !inTricks && !isLeading && !alreadyAdded) {
-                otherPlayersCards.add(trumpCard);
+    /**
+     * Finds the action PIMC would choose after the worlds solved so far
+     * @param rootMoves the action ids of the root actions
+     * @param valueSums the summed up minimax values of the root actions
+     * @param worldCounts the number of worlds in which the root actions were solved
+     * @return the action id with the best average minimax value, -1 if no world was solved yet
+     */
+    private static int bestAverageActionId(int[] rootMoves, double[] valueSums, int[] worldCounts) {
+        int bestActionId = -1;
+        double bestActionValue = -Double.MAX_VALUE;
+        for(int i = 0; i < rootMoves.length; i++) {
+            if(worldCounts[i] > 0 && valueSums[i] / worldCounts[i] > bestActionValue) {
+                bestActionValue = valueSums[i] / worldCounts[i];
+                bestActionId = rootMoves[i];
             }
         }
+        return bestActionId;
+    }
 
-        //the remaining cards should fit into the opponents hand
-        if((otherPlayersCards.size() + unknownCards.size()) != numberOfOtherPlayersHandCards) {
-            throw new IllegalStateException("Calculated wrong: Opponent has " +
-                    (otherPlayersCards.size() + unknownCards.size()) +
-                    " but should have " + numberOfOtherPlayersHandCards);
-        } else {
-            otherPlayersCards.addAll(unknownCards);
-        }
+    /**
+     * Determinizes one world and searches it with iterative deepening until it is solved or the time runs out.
+     * The values of the last completed iteration are written into worldValues.
+     * @param worldSearch the search of the worker
+     * @param determinizer the determinizer of the current board
+     * @param rootMoves the encoded root actions
+     * @param worldValues receives the minimax value of every root action, NaN if the action is not legal in this world
+     * @return the depth of the last completed iteration, 0 if none was completed
+     */
+    private int solveWorld(Alpha_Beta_Search_Schnapsen worldSearch, Determinizer_Schnapsen determinizer, int[] rootMoves, double[] worldValues) {
+        Arrays.fill(worldValues, Double.NaN);
+        worldSearch.newSearch(playerId);
+
+        int[] pileOrder = worldSearch.getPileOrder();
+        SchnapsenBoard generatedBoard = determinizer.generateMissingInformation(ThreadLocalRandom.current(), pileOrder);
+        Playout_State_Schnapsen rootState = worldSearch.getRootState();
+        rootState.loadFrom(new Schnapsen(generatedBoard), pileOrder, determinizer.getCardsLeftInPile(), talonClosing);
+        long rootHash = Zobrist_Hash_Schnapsen.hash(rootState);
+        long legalMoves = rootState.getLegalMoves();
+
+        double[] iterationValues = new double[rootMoves.length];
+        int completedDepth = 0;
+        for(int depth = 1; depth <= MAX_PLY; depth++)
+        {
+            worldSearch.newIteration();
+            Arrays.fill(iterationValues, Double.NaN);
+            for(int i = 0; i < rootMoves.length && !worldSearch.isSearchAborted(); i++) {
+                if((legalMoves & (1L << rootMoves[i])) != 0) {
+                    iterationValues[i] = worldSearch.searchRootMove(depth - 1, rootHash, rootMoves[i], -Double.MAX_VALUE, Double.MAX_VALUE);
+                }
+            }
 
-        //create a board based on the findings and randomly assumed cards
-        SchnapsenBoard filledBoard;
-        if(playerId == 0) {
-            filledBoard = new SchnapsenBoard(board, playerCards, otherPlayersCards, playingCardPile);
-        } else {
-            filledBoard = new SchnapsenBoard(board, otherPlayersCards, playerCards, playingCardPile);
+            //an interrupted iteration is discarded, its values are based on a partial search
+            if(worldSearch.isSearchAborted()) {
+                break;
+            }
+            System.arraycopy(iterationValues, 0, worldValues, 0, rootMoves.length);
+            completedDepth = depth;
+            if(worldSearch.isSolved()) {
+                break;
+            }
         }
-
-        return filledBoard;
+        return completedDepth;
     }
 
     /**
-     * This method is used to generate a full deck. The trump suit is used to set the trump status for cards with matching suits
-     * @param trumpSuit the trump suit of the current round
-     * @return a complete deck of cards with correctly set cards of trump status
+     * Creates the fork join pool and the searches of its workers when they are needed for the first time
+     * @return a fork join pool with numberOfThreads workers
      */
-    private List<PlayingCard> generateFullDeck(SchnapsenBoard.cardSuits trumpSuit) {
-        //creating and filling a list with of all not known cards
-        LinkedList<PlayingCard> deckOfCards = new LinkedList<>();
-
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.SPADES, SchnapsenBoard.cardNames.JackOfSpades, 2));
-        //Adding possible marriages to the spades cards
-        PlayingCard queenSpades = new PlayingCard(SchnapsenBoard.cardSuits.SPADES, SchnapsenBoard.cardNames.QueenOfSpades, 3);
-        PlayingCard kingSpades = new PlayingCard(SchnapsenBoard.cardSuits.SPADES, SchnapsenBoard.cardNames.KingOfSpades, 4);
-        queenSpades.setPossibleMarriage(kingSpades);
-        kingSpades.setPossibleMarriage(queenSpades);
-        deckOfCards.add(queenSpades);
-        deckOfCards.add(kingSpades);
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.SPADES, SchnapsenBoard.cardNames.TenOfSpades, 10));
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.SPADES, SchnapsenBoard.cardNames.AceOfSpades, 11));
-
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.HEARTS, SchnapsenBoard.cardNames.JackOfHearts, 2));
-        //Adding possible marriages to the hearts cards
-        PlayingCard queenHearts = new PlayingCard(SchnapsenBoard.cardSuits.HEARTS, SchnapsenBoard.cardNames.QueenOfHearts, 3);
-        PlayingCard kingHearts = new PlayingCard(SchnapsenBoard.cardSuits.HEARTS, SchnapsenBoard.cardNames.KingOfHearts, 4);
-        queenHearts.setPossibleMarriage(kingHearts);
-        kingHearts.setPossibleMarriage(queenHearts);
-        deckOfCards.add(queenHearts);
-        deckOfCards.add(kingHearts);
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.HEARTS, SchnapsenBoard.cardNames.TenOfHearts, 10));
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.HEARTS, SchnapsenBoard.cardNames.AceOfHearts, 11));
-
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.DIAMONDS, SchnapsenBoard.cardNames.JackOfDiamonds, 2));
-        //Adding possible marriages to the hearts cards
-        PlayingCard queenDiamonds = new PlayingCard(SchnapsenBoard.cardSuits.DIAMONDS, SchnapsenBoard.cardNames.QueenOfDiamonds, 3);
-        PlayingCard kingDiamonds = new PlayingCard(SchnapsenBoard.cardSuits.DIAMONDS, SchnapsenBoard.cardNames.KingOfDiamonds, 4);
-        queenDiamonds.setPossibleMarriage(kingDiamonds);
-        kingDiamonds.setPossibleMarriage(queenDiamonds);
-        deckOfCards.add(queenDiamonds);
-        deckOfCards.add(kingDiamonds);
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.DIAMONDS, SchnapsenBoard.cardNames.TenOfDiamonds, 10));
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.DIAMONDS, SchnapsenBoard.cardNames.AceOfDiamonds, 11));
-
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.CLUBS, SchnapsenBoard.cardNames.JackOfClubs, 2));
-        //Adding possible marriages to the hearts cards
-        PlayingCard queenClubs = new PlayingCard(SchnapsenBoard.cardSuits.CLUBS, SchnapsenBoard.cardNames.QueenOfClubs, 3);
-        PlayingCard kingClubs = new PlayingCard(SchnapsenBoard.cardSuits.CLUBS, SchnapsenBoard.cardNames.KingOfClubs, 4);
-        queenClubs.setPossibleMarriage(kingClubs);
-        kingClubs.setPossibleMarriage(queenClubs);
-        deckOfCards.add(queenClubs);
-        deckOfCards.add(kingClubs);
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.CLUBS, SchnapsenBoard.cardNames.TenOfClubs, 10));
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.CLUBS, SchnapsenBoard.cardNames.AceOfClubs, 11));
-
-        for(PlayingCard card :  deckOfCards){
-            if(trumpSuit == card.getSuit()){
-                card.setIsTrumpSuit(true);
+    private ForkJoinPool getSearchPool() {
+        if (searchPool == null) {
+            searchPool = new ForkJoinPool(numberOfThreads, pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("alpha-beta-worker-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            }, null, false);
+            workerSearches = new Alpha_Beta_Search_Schnapsen[numberOfThreads];
+            for (int w = 0; w < numberOfThreads; w++) {
+                workerSearches[w] = new Alpha_Beta_Search_Schnapsen(transpositionTable, this::shouldStopComputation);
             }
         }
-        return deckOfCards;
+        return searchPool;
     }
 
     /**
-     * This check is used to find out if since the last action taken a new round has started on the board.
-     * This is used to not simulate into new rounds as the new round shuffles new cards,
-     * but the random object of an agents view is not synchronised with the actual boards random object.
-     * Therefore, it is meaningless to simulate into upcoming rounds.
-     * @param schnapsen the games state that is compared to the state of the game passed by the engine
-     * @return a boolean that states if the games has started into a different round than the one passed by the engine
+     * Switches between searching a single determinized world and the Perfect Information Monte Carlo mode, which solves many worlds in parallel
+     * @param usePimc true to average the minimax values of the root actions over many worlds
      */
-    private boolean isRoundOver(Schnapsen schnapsen){
-        long oldBummerlValuePlayer0 = (long) oldUtilityPlayer0;
-        long oldBummerlValuePlayer1 = (long) oldUtilityPlayer1;
-        long newBummerlValuePlayer0 = (long) schnapsen.getUtilityValue(0);
-        long newBummerlValuePlayer1 =  (long) schnapsen.getUtilityValue(1);
+    public void setUsePimc(boolean usePimc) {
+        this.usePimc = usePimc;
+    }
 
-        if(oldBummerlValuePlayer0 != newBummerlValuePlayer0 || oldBummerlValuePlayer1 != newBummerlValuePlayer1)
-        {
-            return true;
+    /**
+     * Sets the number of worker threads of the Perfect Information Monte Carlo mode, a running pool is shut down and recreated on the next search
+     * @param numberOfThreads the number of worker threads, by default the number of available processors
+     */
+    public void setNumberOfThreads(int numberOfThreads) {
+        if (searchPool != null) {
+            searchPool.shutdownNow();
+            searchPool = null;
         }
+        this.numberOfThreads = Math.max(numberOfThreads, 1);
+    }
 
-        return false;
+    /**
+     * The search stops at the deadline of the turn, which leaves room for the wind-down of the move
+     * @return true if the search has to stop
+     */
+    @Override
+    protected boolean shouldStopComputation() {
+        return turn.shouldStop();
     }
 
     /**
-     * This method calculates a score in the range of 0.0 and 1.0 to represent the winning state of the agents player
-     * @param currentGame The Schnapsen games state that needs calculation
-     * @return a score representing either a win (1.0) or a loss (0.0). If the round is not over the score is based on the difference in the current round score of the players
+     * The worker threads are stopped and the move statistics are exported when the match is over
      */
-    private double simulationScore(Schnapsen currentGame) {
-        SchnapsenBoard board = currentGame.getBoard();
-        //If game is over we just have to check if our agents player has won, therefore not reached the maximum Bummerl points
-        if(currentGame.isGameOver()){
-            if(playerId == 0)
-            {
-                if(board.getPlayer0BummerlAmount() < board.getBummerlMax())
-                {
-                    return 1.0;
-                } else {
-                    return 0.0;
-                }
-            }
-            else {
-                if(board.getPlayer1BummerlAmount() < board.getBummerlMax())
-                {
-                    return 1.0;
-                } else {
-                    return 0.0;
-                }
-            }
-        } else if(!this.isRoundOver(currentGame))
-        {
-            //Special case where we look at the difference in scores in the ongoing round
-            double myUtilValue = currentGame.getUtilityValue(playerId) % 1.0;
-            double theirUtilValue = currentGame.getUtilityValue(1-playerId) % 1.0;
-            double utilValue = (myUtilValue - theirUtilValue + 1.0) / 2.0;
-            return utilValue;
-        } else {
-            //Here we check who won the last round
-            if (playerId == 0) {
-                long newUtilValuePlayer0 = (long) currentGame.getUtilityValue(0);
-                if (newUtilValuePlayer0 > oldUtilityPlayer0) {
-                    return 1.0;
-                } else {
-                    return 0.0;
-                }
-            } else {
-                long newUtilValuePlayer1 = (long) currentGame.getUtilityValue(1);
-                if (newUtilValuePlayer1 > oldUtilityPlayer1) {
-                    return 1.0;
-                } else {
-                    return 0.0;
-                }
-            }
+    @Override
+    public void tearDown() {
+        turn.tearDown(playerId, log);
+        if (searchPool != null) {
+            searchPool.shutdownNow();
+            searchPool = null;
         }
     }
+
+    /**
+     * The worker threads are stopped when the agent is destroyed
+     */
+    @Override
+    public void destroy() {
+        tearDown();
+    }
 }
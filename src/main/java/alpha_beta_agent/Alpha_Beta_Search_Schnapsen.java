@@ -0,0 +1,342 @@
+package alpha_beta_agent;
+
+import shared_schnapsen.Card_Bits_Schnapsen;
+import shared_schnapsen.Endgame_Solver_Schnapsen;
+import shared_schnapsen.Endgame_Tablebase_Schnapsen;
+import shared_schnapsen.Playout_State_Schnapsen;
+import shared_schnapsen.Static_Evaluator_Schnapsen;
+import shared_schnapsen.Transposition_Table_Schnapsen;
+import shared_schnapsen.Zobrist_Hash_Schnapsen;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+public class Alpha_Beta_Search_Schnapsen {
+
+    //A round has at most 20 card plays, the trump exchange and closing the talon
+    public static final int MAX_PLY = 32;
+
+    //The table may be shared by several searches running in parallel, it tolerates concurrent writes
+    private final Transposition_Table_Schnapsen transpositionTable;
+    //Checked in every node, the search is aborted as soon as it returns true
+    private final BooleanSupplier stopCondition;
+    //Endgame positions of the tablebase are exact leaves, null if no tablebase is configured
+    private final Endgame_Tablebase_Schnapsen tablebase = Endgame_Tablebase_Schnapsen.getShared();
+
+    //The search runs on bitmask states, one per ply, so that applying a move does neither copy the game nor allocate
+    private final Playout_State_Schnapsen[] states = new Playout_State_Schnapsen[MAX_PLY + 1];
+    private final int[] pileOrder = new int[Card_Bits_Schnapsen.DECK_SIZE];
+
+    //The player whose score is maximized
+    private int playerId;
+
+    //This variable is used to track how many nodes were evaluated
+    private long nodesEvaluated;
+
+    //Values found after the time ran out are not exact and must not be stored in the transposition table
+    private boolean searchAborted;
+
+    //Counts the positions that were evaluated at the depth horizon, a search without horizon leaves solved the round
+    private int horizonLeaves;
+
+    //Move ordering: two killer moves per ply, which caused a cutoff in a sibling position, and the history scores of moves per player
+    private final int[][] killerMoves = new int[MAX_PLY + 1][2];
+    private final int[][] historyScores = new int[2][Playout_State_Schnapsen.NUMBER_OF_MOVES];
+    //One move list per ply, so that ordering the moves does not allocate
+    private final int[][] orderedMoves = new int[MAX_PLY + 1][Playout_State_Schnapsen.NUMBER_OF_MOVES];
+    private final int[][] moveScores = new int[MAX_PLY + 1][Playout_State_Schnapsen.NUMBER_OF_MOVES];
+
+    //Ordering bonuses, the move of the transposition table (the principal variation of the previous iteration) is searched first
+    private static final int TABLE_MOVE_SCORE = Integer.MAX_VALUE;
+    private static final int KILLER_MOVE_SCORE = Integer.MAX_VALUE / 2;
+
+    /**
+     * Creates a search with its own states and move ordering tables
+     * @param transpositionTable the transposition table, may be shared with other searches
+     * @param stopCondition returns true when the search has to stop, usually when the time ran out
+     */
+    public Alpha_Beta_Search_Schnapsen(Transposition_Table_Schnapsen transpositionTable, BooleanSupplier stopCondition) {
+        this.transpositionTable = transpositionTable;
+        this.stopCondition = stopCondition;
+        for (int ply = 0; ply < states.length; ply++) {
+            states[ply] = new Playout_State_Schnapsen();
+        }
+    }
+
+    /**
+     * Prepares a new search of a position, the move ordering tables and the counters are reset
+     * @param playerId the player whose score is maximized
+     */
+    public void newSearch(int playerId) {
+        this.playerId = playerId;
+        this.nodesEvaluated = 0;
+        this.searchAborted = false;
+        for (int[] killers : killerMoves) {
+            Arrays.fill(killers, -1);
+        }
+        for (int[] scores : historyScores) {
+            Arrays.fill(scores, 0);
+        }
+    }
+
+    /**
+     * Resets the horizon leaves counter, which has to be done at the start of every iteration
+     */
+    public void newIteration() {
+        horizonLeaves = 0;
+    }
+
+    /**
+     * Returns the state the search starts from, it has to be loaded before searching
+     * @return the state of ply 0
+     */
+    public Playout_State_Schnapsen getRootState() {
+        return states[0];
+    }
+
+    /**
+     * Returns the pile order array the determinizer writes the pile of the root state into
+     * @return the pile order of this search
+     */
+    public int[] getPileOrder() {
+        return pileOrder;
+    }
+
+    /**
+     * Searches a move of the root state
+     * @param depth the remaining depth of the state after the move
+     * @param rootHash the Zobrist hash of the root state
+     * @param move the encoded move
+     * @param alpha the alpha value of the min-maxing algorithm
+     * @param beta the beta value of the min-maxing algorithm
+     * @return the score of the state after the move
+     */
+    public double searchRootMove(int depth, long rootHash, int move, double alpha, double beta) {
+        return searchMove(0, depth, rootHash, move, alpha, beta);
+    }
+
+    /**
+     * Returns whether the stop condition interrupted the search, the values of the current iteration are then not reliable
+     * @return true if the search was aborted
+     */
+    public boolean isSearchAborted() {
+        return searchAborted;
+    }
+
+    /**
+     * Returns whether the current iteration reached any position at the depth horizon
+     * @return true if every line was searched until the end of the round
+     */
+    public boolean isSolved() {
+        return horizonLeaves == 0;
+    }
+
+    /**
+     * Returns how many nodes were evaluated since the last call of newSearch
+     * @return the number of evaluated nodes
+     */
+    public long getNodesEvaluated() {
+        return nodesEvaluated;
+    }
+
+    /**
+     * Applies a move to the state of the ply and evaluates the resulting state
+     * @param ply the ply of the state the move is applied to
+     * @param depth the remaining depth of the state after the move
+     * @param hash the Zobrist hash of the state of the ply
+     * @param move the encoded move
+     * @param alpha the alpha value of the min-maxing algorithm
+     * @param beta the beta value of the min-maxing algorithm
+     * @return the score of the state after the move
+     */
+    private double searchMove(int ply, int depth, long hash, int move, double alpha, double beta) {
+        Playout_State_Schnapsen childState = states[ply + 1];
+        childState.copyFrom(states[ply]);
+        childState.applyMove(move);
+        long childHash = Zobrist_Hash_Schnapsen.update(hash, states[ply], childState);
+        return alphaBeta_min_max(ply + 1, depth, childHash, alpha, beta);
+    }
+
+    /**
+     * This method is running an alpha-beta minimax algorithm with pruning functionality recursively.
+     * It ends when the end of a round or the depth horizon is reached. It also is limited by the computation budget (time left)
+     * <p>
+     * Positions that were already searched at least as deep in another branch, iteration, determinization or move are looked up in the transposition table.
+     * The stored value either decides the position, or narrows the alpha-beta window.
+     * The moves are ordered by the best move of the transposition table, the killer moves of the ply and the history scores.
+     * @param ply the ply of the current state in the states array
+     * @param depth the remaining depth until the static evaluator is used
+     * @param hash the Zobrist hash of the current state
+     * @param alpha the alpha value of the min-maxing algorithm = The current best value for the maximizing player
+     * @param beta the beta value of the min-maxing algorithm = The current lowest (= good) value for the minimizing player
+     * @return the score for this nodes game state, lower values are better for the minimizing player, higher for the maximizing one
+     */
+    private double alphaBeta_min_max(int ply, int depth, long hash, double alpha, double beta){
+        this.nodesEvaluated++;
+        Playout_State_Schnapsen state = states[ply];
+
+        //When we reached a leaf (end of round) we return the score for the current games state
+        if(state.isRoundOver())
+        {
+            return state.getScore(playerId);
+        }
+        //The tablebase knows the outcome of small endgames, they do not have to be searched
+        if(tablebase != null && state.isStrictPlay())
+        {
+            int result = tablebase.probe(state);
+            if(result != Endgame_Tablebase_Schnapsen.NOT_FOUND) {
+                return Endgame_Solver_Schnapsen.getWinner(result) == playerId ? 1.0 : 0.0;
+            }
+        }
+        //At the horizon or when there is no more time left in our budget we estimate the score
+        if(depth <= 0 || ply >= MAX_PLY)
+        {
+            horizonLeaves++;
+            return Static_Evaluator_Schnapsen.evaluate(state, playerId);
+        }
+        if(searchAborted || stopCondition.getAsBoolean())
+        {
+            searchAborted = true;
+            return Static_Evaluator_Schnapsen.evaluate(state, playerId);
+        }
+
+        //The transposition table may already know the value of this position, or at least a bound of it
+        int tableMove = -1;
+        long entry = transpositionTable.probe(hash);
+        if(entry != Transposition_Table_Schnapsen.NO_ENTRY)
+        {
+            tableMove = Transposition_Table_Schnapsen.getBestMove(entry);
+            int tableDepth = Transposition_Table_Schnapsen.getDepth(entry);
+            if(tableDepth >= depth) {
+                double tableValue = Transposition_Table_Schnapsen.getValue(entry);
+                int flag = Transposition_Table_Schnapsen.getFlag(entry);
+                if(flag == Transposition_Table_Schnapsen.LOWER_BOUND) {
+                    alpha = Math.max(alpha, tableValue);
+                } else if(flag == Transposition_Table_Schnapsen.UPPER_BOUND) {
+                    beta = Math.min(beta, tableValue);
+                }
+                if(flag == Transposition_Table_Schnapsen.EXACT || beta <= alpha) {
+                    //a stored value that is based on the static evaluator counts like a horizon leaf
+                    if(tableDepth != Transposition_Table_Schnapsen.MAX_DEPTH) {
+                        horizonLeaves++;
+                    }
+                    return tableValue;
+                }
+            }
+        }
+
+        //The bound flag of the result is relative to the window after the table narrowed it
+        double originalAlpha = alpha;
+        double originalBeta = beta;
+
+        //We have to check if we are minimizing or maximizing based on who's turn it is
+        int player = state.getCurrentPlayer();
+        boolean maximizing = playerId == player;
+        int moveCount = orderMoves(ply, player, state.getLegalMoves(), tableMove);
+        int horizonLeavesBefore = horizonLeaves;
+
+        //The maximizing player wants to find the highest possible score, the minimizing the lowest, therefore the initialisation is the opposite
+        double bestValue = maximizing ? -Double.MAX_VALUE : Double.MAX_VALUE;
+        int bestMove = -1;
+        for(int i = 0; i < moveCount; i++)
+        {
+            int move = nextMove(ply, i, moveCount);
+            //Apply the move and recursively evaluate the state afterward
+            double moveValue = searchMove(ply, depth - 1, hash, move, alpha, beta);
+
+            //We have to check if we found a new maximum or minimum, if so we update our alpha or beta
+            if(maximizing ? moveValue > bestValue : moveValue < bestValue) {
+                bestValue = moveValue;
+                bestMove = move;
+            }
+            if(maximizing) {
+                alpha = Math.max(alpha, bestValue);
+            } else {
+                beta = Math.min(beta, bestValue);
+            }
+
+            //This is the pruning part:
+            //If there is a branch with a better score for the other player we will not see this branch happening and can prune it
+            if(beta <= alpha) {
+                //The move that caused the cutoff is tried early in the sibling positions and whenever the player has it again
+                if(killerMoves[ply][0] != move) {
+                    killerMoves[ply][1] = killerMoves[ply][0];
+                    killerMoves[ply][0] = move;
+                }
+                historyScores[player][move] += depth * depth;
+                break;
+            }
+        }
+
+        if(!searchAborted)
+        {
+            int flag;
+            if(bestValue <= originalAlpha) {
+                flag = Transposition_Table_Schnapsen.UPPER_BOUND;
+            } else if(bestValue >= originalBeta) {
+                flag = Transposition_Table_Schnapsen.LOWER_BOUND;
+            } else {
+                flag = Transposition_Table_Schnapsen.EXACT;
+            }
+            //A subtree without horizon leaves was searched until the end of the round, its value holds for every depth
+            int storedDepth = horizonLeaves == horizonLeavesBefore ? Transposition_Table_Schnapsen.MAX_DEPTH : depth;
+            transpositionTable.store(hash, bestValue, storedDepth, flag, bestMove);
+        }
+        return bestValue;
+    }
+
+    /**
+     * Writes the legal moves of a ply into its move list and scores them for the move ordering
+     * @param ply the ply of the current state
+     * @param player the player who moves
+     * @param legalMoves the bitmask of legal moves
+     * @param tableMove the best move of the transposition table, -1 if there is none
+     * @return the number of moves
+     */
+    private int orderMoves(int ply, int player, long legalMoves, int tableMove) {
+        int[] moves = orderedMoves[ply];
+        int[] scores = moveScores[ply];
+        int moveCount = 0;
+        for(long remaining = legalMoves; remaining != 0; remaining &= remaining - 1) {
+            int move = Long.numberOfTrailingZeros(remaining);
+            int score;
+            if(move == tableMove) {
+                score = TABLE_MOVE_SCORE;
+            } else if(move == killerMoves[ply][0] || move == killerMoves[ply][1]) {
+                score = KILLER_MOVE_SCORE;
+            } else {
+                score = historyScores[player][move];
+            }
+            moves[moveCount] = move;
+            scores[moveCount] = score;
+            moveCount++;
+        }
+        return moveCount;
+    }
+
+    /**
+     * Selects the best scored of the remaining moves and swaps it to the position i.
+     * Usually only the first moves are needed before a cutoff, therefore the list is not sorted up front.
+     * @param ply the ply of the current state
+     * @param i the position in the move list
+     * @param moveCount the number of moves in the list
+     * @return the move at position i
+     */
+    private int nextMove(int ply, int i, int moveCount) {
+        int[] moves = orderedMoves[ply];
+        int[] scores = moveScores[ply];
+        int best = i;
+        for(int j = i + 1; j < moveCount; j++) {
+            if(scores[j] > scores[best]) {
+                best = j;
+            }
+        }
+        int move = moves[best];
+        moves[best] = moves[i];
+        moves[i] = move;
+        int score = scores[best];
+        scores[best] = scores[i];
+        scores[i] = score;
+        return move;
+    }
+}
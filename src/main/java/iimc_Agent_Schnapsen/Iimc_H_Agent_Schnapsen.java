@@ -3,13 +3,28 @@ package iimc_Agent_Schnapsen;
 import at.ac.tuwien.ifs.sge.agent.AbstractGameAgent;
 import at.ac.tuwien.ifs.sge.agent.GameAgent;
 import at.ac.tuwien.ifs.sge.engine.Logger;
-import at.ac.tuwien.ifs.sge.util.Util;
 import game.Schnapsen;
 import game.action.SchnapsenAction;
-import game.board.PlayingCard;
 import game.board.SchnapsenBoard;
+import shared_schnapsen.Action_Ids_Schnapsen;
+import shared_schnapsen.Agent_Turn_Schnapsen;
+import shared_schnapsen.Bernstein_Rule_Schnapsen;
+import shared_schnapsen.Card_Bits_Schnapsen;
+import shared_schnapsen.Determinizer_Schnapsen;
+import shared_schnapsen.Endgame_Solver_Schnapsen;
+import shared_schnapsen.Playout_Policy_Schnapsen;
+import shared_schnapsen.Playout_State_Schnapsen;
+import shared_schnapsen.Root_Statistics_Schnapsen;
+import shared_schnapsen.Search_Profiler_Schnapsen;
+import shared_schnapsen.Talon_Closing_Schnapsen;
+import shared_schnapsen.Time_Manager_Schnapsen;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 public class Iimc_H_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, SchnapsenAction> implements GameAgent<Schnapsen, SchnapsenAction> {
@@ -18,6 +33,48 @@ public class Iimc_H_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schnaps
     private double oldUtilityPlayer0;
     private double oldUtilityPlayer1;
 
+    //These objects are re-used by every playout of the calling thread, so that the simulation phase does not allocate
+    private final Playout_State_Schnapsen playoutState = new Playout_State_Schnapsen();
+    private final int[] pileOrder = new int[Card_Bits_Schnapsen.DECK_SIZE];
+    private int pileOrderLength;
+
+    //The deadline, time management, move statistics and talon closing around every turn
+    private final Agent_Turn_Schnapsen turn = new Agent_Turn_Schnapsen(getClass().getSimpleName(), new Bernstein_Rule_Schnapsen(STOPPING_DELTA));
+    // Who closed the talon of the current round, the board does not tell it and the playouts need it for the result of a closed round
+    private final Talon_Closing_Schnapsen talonClosing = turn.getTalonClosing();
+
+    //The sampled worlds are independent, therefore every worker samples and evaluates its own worlds
+    private int numberOfThreads = Runtime.getRuntime().availableProcessors();
+    private ExecutorService searchExecutor;
+    //The statistics of every worker of a parallel move, the checkpoints of the first worker sum them up, null while sampling on one thread
+    private double[][] workerValues;
+    private double[][] workerSquares;
+    private int[][] workerVisits;
+    private boolean[][] workerSurviving;
+
+    //Successive halving of the root actions: the worlds of a phase are shared by the surviving actions and the worse half is dropped after every phase
+    //Every phase is as long as all previous ones together, so that the playouts of a phase stay about the same while the survivors get more of them
+    private boolean successiveHalving = false;
+    private static final int FIRST_PHASE_WORLDS = 64;
+    //The last two actions are compared until the time runs out
+    private static final int MIN_SURVIVORS = 2;
+
+    //Variance reduction: all root actions of a world share the random numbers of their playouts (common random numbers),
+    //and the worlds walk through the numbers of unknown trumps in the opponents hand in proportion to their probabilities (stratified sampling)
+    private boolean varianceReduction = false;
+    //The fractional part of the golden ratio, the positions of consecutive worlds spread evenly over the strata
+    private static final double GOLDEN_RATIO_FRACTION = 0.6180339887498949;
+
+    //Splits the time of every search into its phases, disabled unless switched on with setProfiling or the system property
+    private final Search_Profiler_Schnapsen profiler = new Search_Profiler_Schnapsen();
+
+    //Stops the search of easy or settled moves before the deadline, and of every move whose best average is separated from all others
+    //The probability of stopping on a wrong best action per move
+    private static final double STOPPING_DELTA = 0.01;
+    private final Time_Manager_Schnapsen timeManager = turn.getTimeManager();
+    //The root statistics collected at the checkpoints of the time manager
+    private final Root_Statistics_Schnapsen rootStatistics = new Root_Statistics_Schnapsen();
+
     //epsilon-greedy limit if heuristics should be used or random simulation should occur
     private static double EPSILON_GREEDY = 0.3;
 
@@ -29,8 +86,31 @@ public class Iimc_H_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schnaps
         super(log);
     }
 
+    /**
+     * Sets the agent up for a match and reports an endgame tablebase that could not be loaded
+     * @param numberOfPlayers the number of players of the match
+     * @param playerId the id of the agent's player
+     */
+    @Override
+    public void setUp(int numberOfPlayers, int playerId) {
+        super.setUp(numberOfPlayers, playerId);
+        turn.setUp(log);
+    }
+
     /**
      * This method will be called by the engine everytime the agent has its turn.
+     * @param schnapsen the games state as given by the engine (may include hidden information)
+     * @param l the maximum available time the agent is allowed to take to think about its next action
+     * @param timeUnit the unit in which the l parameter is measured
+     * @return the SchnapsenAction chosen by searchNextAction
+     */
+    @Override
+    public SchnapsenAction computeNextAction(Schnapsen schnapsen, long l, TimeUnit timeUnit) {
+        return turn.play(schnapsen, playerId, timeUnit.toNanos(l), () -> searchNextAction(schnapsen, l, timeUnit));
+    }
+
+    /**
+     * This method is called by computeNextAction everytime the agent has its turn.
      * In this method the agent creates a new determinization every iteration. We do not use a tree in this algorithm but store the
      * visits and scores to each possible action. The simulation or playout starts from the possible actions.
      * Through many iterations we can then calculate an average score for each action based on all information gathered in the determinized "worlds".
@@ -40,10 +120,10 @@ public class Iimc_H_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schnaps
      * @param timeUnit the unit in which the l parameter is measured
      * @return a  SchnapsenAction chosen from the agents available ones after running an Imperfect Information Monte Carlo algorithm
      */
-    @Override
-    public SchnapsenAction computeNextAction(Schnapsen schnapsen, long l, TimeUnit timeUnit) {
+    private SchnapsenAction searchNextAction(Schnapsen schnapsen, long l, TimeUnit timeUnit) {
 
         SchnapsenBoard board = schnapsen.getBoard();
+        turn.observeTurn(board, playerId);
         Set<SchnapsenAction> availableActions = schnapsen.getPossibleActions();
 
         // Single choice actions can be returned immediately
@@ -53,65 +133,61 @@ public class Iimc_H_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schnaps
 
         //This method is provided by the AbstractGame interface and used to track remaining computation time with shouldStopComputation()
         setTimers(l, timeUnit);
+        turn.startSearch(board, availableActions, START_TIME, TIMEOUT, timeUnit.toNanos(l));
+        profiler.startMove();
 
         // Set the utility values for end of round check in simulations
         oldUtilityPlayer0 = schnapsen.getUtilityValue(0);
         oldUtilityPlayer1 = schnapsen.getUtilityValue(1);
 
-        List<PlayingCard> deckOfCards = generateFullDeck(board.getTrumpCard().getSuit());
+        //The determinizer collects the known information of the board once and is used for every sampled world
+        Determinizer_Schnapsen determinizer = new Determinizer_Schnapsen(board, playerId);
+        pileOrderLength = determinizer.getCardsLeftInPile();
 
         // Setting starting values for Imperfect Information Monte Carlo
-        Map<SchnapsenAction, Double> value = new HashMap<>();
-        Map<SchnapsenAction, Integer> visits = new HashMap<>();
-        for (SchnapsenAction action : availableActions) {
-            value.put(action, 0.0);
-            visits.put(action, 0);
-        }
+        // the statistics are stored in arrays, where the index of an action is its position in rootActions
+        SchnapsenAction[] rootActions = availableActions.toArray(new SchnapsenAction[0]);
+        double[] value = new double[rootActions.length];
+        int[] visits = new int[rootActions.length];
+        // the squared scores are only needed by the stopping rule, therefore the parallel workers keep them to themselves
+        double[] squares = new double[rootActions.length];
+        // without successive halving all actions survive
+        boolean[] surviving = new boolean[rootActions.length];
+        Arrays.fill(surviving, true);
 
         // track how often we sample = how many "worlds"
-        int worldsSampled = 0;
-
-        // let the algorithm sample till the time limit is reached
-        while (!shouldStopComputation()) {
-
-            // create a new perfect information board and game (sample world)
-            SchnapsenBoard generatedBoard = generateMissingInformation(board, deckOfCards);
-            Schnapsen sampleWorld = new Schnapsen(generatedBoard);
-
-            // every move should be tried till reaching a game over or round end state
-            for (SchnapsenAction m : availableActions) {
-                if (shouldStopComputation()) break;
-
-                //The simulation or playout of this action
-                double v = finishedGameValue(sampleWorld, m);
-
-                //We track each actions value
-                value.put(m, value.get(m) + v);
-                visits.put(m, visits.get(m) + 1);
-            }
-
-            worldsSampled++;
+        int worldsSampled;
+        if (numberOfThreads > 1) {
+            worldsSampled = sampleWorldsInParallel(determinizer, rootActions, value, visits, surviving);
+        } else {
+            worldsSampled = sampleWorlds(determinizer, rootActions, value, squares, visits, surviving, playoutState, pileOrder, true);
         }
 
-        log._debugf("IIMC completed %d sampled worlds", worldsSampled);
+        log._debugf("IIMC completed %d sampled worlds on %d threads", worldsSampled, numberOfThreads);
+        turn.setMoveIterations(worldsSampled);
+        if (profiler.isEnabled()) {
+            log.info(profiler.getReport("IIMC-H"));
+        }
 
         // select the best action based on their statistics
         log.debug("--- Action Statistics ---");
         SchnapsenAction bestAction = null;
         double bestAverageScore = -1.0;
 
-        for (SchnapsenAction action : availableActions) {
-            int actionVisits = visits.get(action);
-            double score = value.get(action);
+        for (int i = 0; i < rootActions.length; i++) {
+            SchnapsenAction action = rootActions[i];
+            int actionVisits = visits[i];
+            double score = value[i];
             //check for 0 division
             double avgScore = (actionVisits > 0) ? (score / actionVisits) : 0.0;
 
-            log._debugf("Action: %-20s | Playouts: %6d | Expected Value: %5.2f",
+            log._debugf("Action: %-20s | Playouts: %6d | Expected Value: %5.2f%s",
                     action.toString(),
                     actionVisits,
-                    avgScore);
+                    avgScore,
+                    surviving[i] ? "" : " | dropped by successive halving");
 
-            if (avgScore > bestAverageScore) {
+            if (surviving[i] && avgScore > bestAverageScore) {
                 bestAverageScore = avgScore;
                 bestAction = action;
             }
@@ -127,132 +203,325 @@ public class Iimc_H_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schnaps
     }
 
     /**
-     * Represents one possible playout (till end of game or end of round) for the action and game passed in the method
-     * <p>
-     * We use an epsilon greedy approach, where we play our heuristic action if the random number between 0.0 and 1.0 is higher than EPSILON_GREEDY.
-     * Therefore, if EPSILON_GREEDY is 0.3 we choose the heuristic action about ~70% of the time.
-     * @param schnapsen the current game state
-     * @param schnapsenAction the action to be evaluated
-     * @return a double containing the score at the end of the simulation
+     * Samples worlds until the time limit is reached and plays out every root action in each of them.
+     * @param determinizer the determinizer of the current board
+     * @param rootActions the actions available to the agent
+     * @param value the summed up scores of the root actions, which are updated by this method
+     * @param squares the summed up squared scores of the root actions, which are updated by this method
+     * @param visits the number of playouts of the root actions, which are updated by this method
+     * @param surviving the root actions that are still played out, with successive halving this method drops the worse half after every phase
+     * @param workerPlayoutState the playout state of the calling thread
+     * @param workerPileOrder the pile order buffer of the calling thread
+     * @param managesTime if this thread reports the best root action to the time manager, only one thread of a move may do so
+     * @return the number of sampled worlds
      */
-    private double finishedGameValue(Schnapsen schnapsen, SchnapsenAction schnapsenAction) {
-
-        Schnapsen playoutSchnapsen = (Schnapsen) schnapsen.doAction(schnapsenAction);
+    private int sampleWorlds(Determinizer_Schnapsen determinizer, SchnapsenAction[] rootActions, double[] value, double[] squares, int[] visits,
+                             boolean[] surviving, Playout_State_Schnapsen workerPlayoutState, int[] workerPileOrder, boolean managesTime) {
+        int worldsSampled = 0;
+        // without a tree the profiler only sees determinization, simulation and the update of the root statistics
+        Search_Profiler_Schnapsen.Recorder recorder = profiler.getRecorder();
+        Talon_Closing_Schnapsen actionClosing = new Talon_Closing_Schnapsen();
+        int survivors = 0;
+        for (boolean survivor : surviving) {
+            if (survivor) survivors++;
+        }
+        long phaseEnd = FIRST_PHASE_WORLDS;
+        // with variance reduction the playouts of a world are re-seeded before every action, and every worker starts at its own stratum position
+        Random commonRandom = varianceReduction ? new Random() : null;
+        double stratumPosition = ThreadLocalRandom.current().nextDouble();
 
-        while (!shouldStopComputation() && !playoutSchnapsen.isGameOver() && !isRoundOver(playoutSchnapsen)) {
+        // let the algorithm sample till the time limit is reached
+        while (!shouldStopComputation()) {
+            recorder.start();
 
-            // Here we add our heuristic playout based on the epsilon greedy approach
-            Set<SchnapsenAction> possibleActions = playoutSchnapsen.getPossibleActions();
-            SchnapsenAction playoutAction;
-            if(Math.random() < EPSILON_GREEDY) {
-                // we select a random action
-                playoutAction = Util.selectRandom(possibleActions);
+            // create a new perfect information board and game (sample world)
+            SchnapsenBoard generatedBoard;
+            if (varianceReduction) {
+                stratumPosition = (stratumPosition + GOLDEN_RATIO_FRACTION) % 1.0;
+                generatedBoard = determinizer.generateMissingInformation(ThreadLocalRandom.current(), workerPileOrder, determinizer.trumpStratumAt(stratumPosition));
+            } else {
+                generatedBoard = determinizer.generateMissingInformation(ThreadLocalRandom.current(), workerPileOrder);
             }
-            else {
-                // Here we let the algorithm choose the heuristical playout
-                playoutAction = getHeuristicAction(playoutSchnapsen);
+            Schnapsen sampleWorld = new Schnapsen(generatedBoard);
+            long worldSeed = ThreadLocalRandom.current().nextLong();
+            recorder.lap(Search_Profiler_Schnapsen.DETERMINIZATION);
+
+            // every move should be tried till reaching a game over or round end state
+            for (int i = 0; i < rootActions.length; i++) {
+                if (shouldStopComputation()) break;
+                if (!surviving[i]) continue;
+
+                //The simulation or playout of this action, with common random numbers every action starts from the same random state
+                Random playoutRandom = ThreadLocalRandom.current();
+                if (commonRandom != null) {
+                    commonRandom.setSeed(worldSeed);
+                    playoutRandom = commonRandom;
+                }
+                double v = finishedGameValue(sampleWorld, rootActions[i], workerPlayoutState, workerPileOrder, playoutRandom, actionClosing, recorder);
+
+                //We track each actions value
+                value[i] += v;
+                squares[i] += v * v;
+                visits[i]++;
+                recorder.recordIteration(1, false);
             }
+            //one lap per world instead of two per action, the additions of the values are far shorter than a lap and are counted into the simulation
+            recorder.lap(Search_Profiler_Schnapsen.SIMULATION);
 
-            //We have to apply the action to the board on either choice
-            playoutSchnapsen = (Schnapsen) playoutSchnapsen.doAction(playoutAction);
+            worldsSampled++;
+            if (successiveHalving && survivors > MIN_SURVIVORS && worldsSampled >= phaseEnd) {
+                survivors = dropWorseHalf(value, visits, surviving, survivors);
+                phaseEnd = 2L * worldsSampled;
+            }
+            if (managesTime && timeManager.isCheckpointDue()) {
+                if (workerVisits != null) {
+                    // the other workers are still sampling, their statistics are read without synchronisation as an estimate
+                    reportCheckpoint(rootActions, workerValues, workerSquares, workerVisits, workerSurviving);
+                } else {
+                    reportCheckpoint(rootActions, new double[][]{value}, new double[][]{squares}, new int[][]{visits}, new boolean[][]{surviving});
+                }
+            }
+        }
+        return worldsSampled;
+    }
 
+    /**
+     * Drops the surviving root actions with the lower half of the average scores, at least MIN_SURVIVORS actions are kept
+     * @param value the summed up scores of the root actions
+     * @param visits the number of playouts of the root actions
+     * @param surviving the root actions that are still played out, which are updated by this method
+     * @param survivors the number of surviving actions
+     * @return the number of surviving actions after the halving
+     */
+    private static int dropWorseHalf(double[] value, int[] visits, boolean[] surviving, int survivors) {
+        int keep = Math.max(survivors - survivors / 2, MIN_SURVIVORS);
+        for (; survivors > keep; survivors--) {
+            int worst = -1;
+            for (int i = 0; i < surviving.length; i++) {
+                if (surviving[i] && (worst < 0 || value[i] / Math.max(visits[i], 1) < value[worst] / Math.max(visits[worst], 1))) {
+                    worst = i;
+                }
+            }
+            surviving[worst] = false;
         }
+        return survivors;
+    }
 
-        // return the simulations score
-        return simulationScore(playoutSchnapsen);
+    /**
+     * Reports the root action with the highest average score and the root statistics of all workers to the time manager
+     * @param rootActions the actions available to the agent
+     * @param values the summed up scores of the root actions, one row per worker
+     * @param squares the summed up squared scores of the root actions, one row per worker
+     * @param visits the number of playouts of the root actions, one row per worker
+     * @param surviving the root actions that are still played out per worker, actions that no worker plays out any more are not reported
+     */
+    private void reportCheckpoint(SchnapsenAction[] rootActions, double[][] values, double[][] squares, int[][] visits, boolean[][] surviving) {
+        rootStatistics.clear();
+        long playouts = 0;
+        for (int i = 0; i < rootActions.length; i++) {
+            boolean survivor = false;
+            long actionVisits = 0;
+            double actionValue = 0.0;
+            double actionSquares = 0.0;
+            for (int w = 0; w < visits.length; w++) {
+                survivor |= surviving[w][i];
+                actionVisits += visits[w][i];
+                actionValue += values[w][i];
+                actionSquares += squares[w][i];
+            }
+            playouts += actionVisits;
+            if (!survivor) continue;
+            rootStatistics.add(Action_Ids_Schnapsen.idOf(rootActions[i]), actionVisits, actionValue, actionSquares);
+        }
+        int best = rootStatistics.getBestMean();
+        timeManager.checkpoint(best < 0 ? -1 : rootStatistics.getActionId(best), rootStatistics, playouts);
     }
 
     /**
-     * This method checks the current games situation for the best action based on some rules (heuristics)
-     * @param playoutSchnapsen the current game state
-     * @return an action out of the current game state, selected based on some rules
+     * Samples worlds on several threads. Every worker accumulates into its own arrays, which are merged once after the time limit is reached.
+     * @param determinizer the determinizer of the current board
+     * @param rootActions the actions available to the agent
+     * @param value the summed up scores of the root actions, which receive the merged scores of all workers
+     * @param visits the number of playouts of the root actions, which receive the merged playouts of all workers
+     * @param surviving the root actions that survived the successive halving of at least one worker, which is updated by this method
+     * @return the number of sampled worlds over all workers
      */
-    private SchnapsenAction getHeuristicAction(Schnapsen playoutSchnapsen) {
-        Set<SchnapsenAction> possibleActions = playoutSchnapsen.getPossibleActions();
+    private int sampleWorldsInParallel(Determinizer_Schnapsen determinizer, SchnapsenAction[] rootActions, double[] value, int[] visits, boolean[] surviving) {
+        double[][] workerValues = new double[numberOfThreads][rootActions.length];
+        double[][] workerSquares = new double[numberOfThreads][rootActions.length];
+        int[][] workerVisits = new int[numberOfThreads][rootActions.length];
+        // every worker halves the actions by its own statistics
+        boolean[][] workerSurviving = new boolean[numberOfThreads][];
+        for (int w = 0; w < numberOfThreads; w++) {
+            workerSurviving[w] = surviving.clone();
+        }
+        this.workerValues = workerValues;
+        this.workerSquares = workerSquares;
+        this.workerVisits = workerVisits;
+        this.workerSurviving = workerSurviving;
+        List<Future<Integer>> workerWorlds = new ArrayList<>(numberOfThreads);
+        for (int w = 0; w < numberOfThreads; w++) {
+            double[] workerValue = workerValues[w];
+            double[] workerSquare = workerSquares[w];
+            int[] workerVisit = workerVisits[w];
+            boolean[] workerSurvivor = workerSurviving[w];
+            //the first worker reports the summed up statistics of all workers to the time manager
+            boolean managesTime = w == 0;
+            workerWorlds.add(getSearchExecutor().submit(() ->
+                    sampleWorlds(determinizer, rootActions, workerValue, workerSquare, workerVisit, workerSurvivor, new Playout_State_Schnapsen(), new int[Card_Bits_Schnapsen.DECK_SIZE], managesTime)));
+        }
 
-        //if only one action is available instantly return it
-        if(possibleActions.size() == 1) {
-            return possibleActions.iterator().next();
+        int worldsSampled = 0;
+        Arrays.fill(surviving, false);
+        for (int w = 0; w < numberOfThreads; w++) {
+            try {
+                worldsSampled += workerWorlds.get(w).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log._debugf("Interrupted while waiting for worker %d", w);
+                continue;
+            } catch (ExecutionException e) {
+                log._debugf("Worker %d failed: %s", w, e.getCause());
+                continue;
+            }
+            //the worker is done, its statistics can be merged without further synchronisation
+            for (int i = 0; i < rootActions.length; i++) {
+                value[i] += workerValues[w][i];
+                visits[i] += workerVisits[w][i];
+                surviving[i] |= workerSurviving[w][i];
+            }
         }
+        //the statistics of every worker were merged as soon as it returned, the join includes the merge
+        turn.markJoined();
+        this.workerValues = null;
+        this.workerSquares = null;
+        this.workerVisits = null;
+        this.workerSurviving = null;
+        return worldsSampled;
+    }
 
-        int playerId = playoutSchnapsen.getCurrentPlayer();
-        SchnapsenBoard board =  playoutSchnapsen.getBoard();
-        PlayingCard leadingCard = board.getLeadingCard();
-        PlayingCard trumpCard = board.getTrumpCard();
-        List<PlayingCard> playersCards = new ArrayList<>();
-        if(playerId == 0)
-        {
-            playersCards = board.getPlayer0Cards();
-        }   else
-        {
-            playersCards = board.getPlayer1Cards();
+    /**
+     * Returns the thread pool of the sampling workers, which is created when it is first needed
+     * @return an executor with numberOfThreads daemon threads
+     */
+    private ExecutorService getSearchExecutor() {
+        if (searchExecutor == null) {
+            searchExecutor = Executors.newFixedThreadPool(numberOfThreads, runnable -> {
+                Thread thread = new Thread(runnable, "iimc-h-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
         }
+        return searchExecutor;
+    }
 
-        //We check if we are the following player or the leading one
-        boolean selfLeading = false;
-        if(leadingCard == null){
-            selfLeading = true;
+    /**
+     * Sets how many threads sample worlds. With one thread the sampling runs on the calling thread.
+     * @param numberOfThreads the number of worker threads, by default the number of available processors
+     */
+    public void setNumberOfThreads(int numberOfThreads) {
+        if (searchExecutor != null) {
+            searchExecutor.shutdownNow();
+            searchExecutor = null;
         }
+        this.numberOfThreads = Math.max(numberOfThreads, 1);
+    }
 
-        // Rule 1: Always exchange trump or declare marriage if possible (only possible if leading)
-        if(selfLeading)
-        {
-            for(SchnapsenAction action : possibleActions) {
-                if(action.toString().contains("Marriage") || action.toString().contains("Exchange")) {
-                    return action;
-                }
-            }
+    /**
+     * Switches the successive halving of the root actions on or off
+     * @param successiveHalving true to concentrate the playouts on the better root actions, false to play out every action in every world
+     */
+    public void setSuccessiveHalving(boolean successiveHalving) {
+        this.successiveHalving = successiveHalving;
+    }
 
-            //Rule 2: Passive Leading with a low valued non-trump card
-            PlayingCard lowestLead = null;
-            for(PlayingCard playerCard : playersCards) {
-                if(!playerCard.getSuit().equals(trumpCard.getSuit())) {
-                    if(lowestLead == null || playerCard.getCardValue() < lowestLead.getCardValue()) {
-                        lowestLead = playerCard;
-                    }
-                }
-            }
-            if(lowestLead != null) {
-                for (SchnapsenAction action : possibleActions) {
-                    if (action.toString().contains(lowestLead.toString())) {
-                        return action;
-                    }
-                }
-            }
-        } else {
-            //Rule 3: try taking 10 or Aces from non-trump color by also using trump cards
-            PlayingCard takeTA = null;
-            if(!board.isTalonClosed())
-            {
-                if(leadingCard.getCardValue() >= 10 && leadingCard.getSuit() != trumpCard.getSuit()) {
-                    for (PlayingCard playerCard : playersCards) {
-                        //If having the Ace over the Ten just take the trick with the Ace
-                        if( playerCard.getSuit().equals(leadingCard.getSuit()) && playerCard.getCardValue() > leadingCard.getCardValue()) {
-                            takeTA = playerCard;
-                            break;
-                        }
-
-                        //we use the lowest trump to take the Ten or Ace
-                        if(playerCard.getSuit().equals(trumpCard.getSuit())) {
-                            if(takeTA == null || playerCard.getCardValue() < takeTA.getCardValue()) {
-                                takeTA = playerCard;
-                            }
-                        }
-                    }
-                }
-            }
+    /**
+     * Switches the variance reduction of the sampled worlds on or off
+     * @param varianceReduction true to share the playout random numbers between the root actions of a world and to stratify the worlds by the trumps in the opponents hand
+     */
+    public void setVarianceReduction(boolean varianceReduction) {
+        this.varianceReduction = varianceReduction;
+    }
 
-            if(takeTA != null) {
-                for(SchnapsenAction action : possibleActions) {
-                    if(action.toString().contains(takeTA.toString())) {
-                        return action;
-                    }
-                }
+    /**
+     * Switches the search profiler on or off, an enabled profiler logs the time and allocations of every phase after each move
+     * @param profiling true to profile the following moves
+     */
+    public void setProfiling(boolean profiling) {
+        profiler.setEnabled(profiling);
+    }
+
+    /**
+     * The search stops at the deadline of the turn, which leaves room for the wind-down of the move
+     * @return true if the search has to stop
+     */
+    @Override
+    protected boolean shouldStopComputation() {
+        return turn.shouldStop();
+    }
+
+    /**
+     * The worker threads are stopped and the move statistics are exported when the match is over
+     */
+    @Override
+    public void tearDown() {
+        turn.tearDown(playerId, log);
+        if (searchExecutor != null) {
+            searchExecutor.shutdownNow();
+            searchExecutor = null;
+        }
+    }
+
+    /**
+     * The worker threads are stopped when the agent is destroyed
+     */
+    @Override
+    public void destroy() {
+        tearDown();
+    }
+
+    /**
+     * Represents one possible playout (till end of game or end of round) for the action and game passed in the method.
+     * After the evaluated action the playout runs on a mutable bitmask state, which applies the moves in place instead of copying the game for every move.
+     * <p>
+     * We use an epsilon greedy approach, where we play our heuristic move if the random number between 0.0 and 1.0 is higher than EPSILON_GREEDY.
+     * Therefore, if EPSILON_GREEDY is 0.3 we choose the heuristic move about ~70% of the time.
+     * @param schnapsen the current game state
+     * @param schnapsenAction the action to be evaluated
+     * @param workerPlayoutState the playout state of the calling thread
+     * @param workerPileOrder the pile order of the sampled world of the calling thread
+     * @param random the source of the random playout moves
+     * @param closing the buffer of the calling thread for the closing of the talon, it is set to the closing of the round and the evaluated action
+     * @param recorder the profiler recorder of the calling thread, which receives the length of the playout
+     * @return a double containing the score at the end of the simulation
+     */
+    private double finishedGameValue(Schnapsen schnapsen, SchnapsenAction schnapsenAction, Playout_State_Schnapsen workerPlayoutState, int[] workerPileOrder,
+                                     Random random, Talon_Closing_Schnapsen closing, Search_Profiler_Schnapsen.Recorder recorder) {
+
+        closing.copyFrom(talonClosing);
+        closing.observeAction(schnapsen.getCurrentPlayer(), schnapsen.getBoard(), schnapsenAction);
+        Schnapsen playoutSchnapsen = (Schnapsen) schnapsen.doAction(schnapsenAction);
+
+        //the action itself might end the round
+        if (playoutSchnapsen.isGameOver() || isRoundOver(playoutSchnapsen)) {
+            return simulationScore(playoutSchnapsen);
+        }
+
+        workerPlayoutState.loadFrom(playoutSchnapsen, workerPileOrder, pileOrderLength, closing);
+
+        while (!shouldStopComputation() && !workerPlayoutState.isRoundOver()) {
+            // with the strict rules the rest of the round is solved exactly
+            if (Endgame_Solver_Schnapsen.isSolvable(workerPlayoutState)) {
+                workerPlayoutState.solveEndgame();
+                break;
             }
+            // we select a heuristic or random move and apply it to the state
+            workerPlayoutState.applyMove(Playout_Policy_Schnapsen.epsilonGreedyMove(workerPlayoutState, EPSILON_GREEDY, random));
         }
+        recorder.recordPlayout(workerPlayoutState.getMovesApplied());
 
-        // Fallback if no rule is applied we select a random action
-        return Util.selectRandom(possibleActions);
+        // return the simulations score
+        return workerPlayoutState.getScore(playerId);
     }
 
     /**
@@ -308,209 +577,6 @@ public class Iimc_H_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schnaps
         }
     }
 
-    /**
-     * This method takes all available information of the given board and randomizes the unknown cards into the drafting pile and opposing players hand
-     * @param board the actual game board with hidden information
-     * @return a new deep copied board with the given information and randomized cards for all unknown cards in the pile and opposing players hand
-     */
-    private SchnapsenBoard generateMissingInformation(SchnapsenBoard board, List<PlayingCard> cachedDeck) {
-        List<PlayingCard> unknownCards = new ArrayList<>(cachedDeck);
-        //Getting the players hand and all the marriage cards declared by the other player
-        List<PlayingCard> playerCards = new ArrayList<>();
-        List<PlayingCard> marriageCards = new ArrayList<>();
-        List<PlayingCard> otherPlayersCards = new ArrayList<>();
-        if(playerId == 0)
-        {
-            playerCards = board.getPlayer0Cards();
-            marriageCards = board.getPlayer1Marriages();
-        } else {
-            playerCards = board.getPlayer1Cards();
-            marriageCards = board.getPlayer0Marriages();
-        }
-
-        //Getting the trumpCard and the leading card
-        PlayingCard trumpCard = board.getTrumpCard();
-        PlayingCard leadingCard = board.getLeadingCard();
-
-        //Checking if there was an exchange of trumps
-        PlayingCard oldTrumpCard = board.getOldTrumpCard();
-
-        //Getting already played cards
-        List<PlayingCard> trickCards = new ArrayList<>();
-        List<PlayingCard[]> player0Tricks = board.getPlayer0Tricks();
-        List<PlayingCard[]> player1Tricks = board.getPlayer1Tricks();
-
-        //Getting both players cards that have been taken in a past trick
-        for(PlayingCard[] trick: player0Tricks){
-            trickCards.add(trick[0]);
-            trickCards.add(trick[1]);
-        }
-        for(PlayingCard[] trick: player1Tricks){
-            trickCards.add(trick[0]);
-            trickCards.add(trick[1]);
-        }
-
-        //Check if "exchanged" trump card has been played
-        //(if not, check if they are in the opposing players hand == not in my hand)
-        if(oldTrumpCard != null) {
-
-            boolean isLeading = (leadingCard != null && leadingCard.equals(oldTrumpCard));
-
-            if (!trickCards.contains(oldTrumpCard) && !isLeading) {
-                if (!playerCards.contains(oldTrumpCard)) {
-                    otherPlayersCards.add(oldTrumpCard);
-                }
-            }
-        }
-
-        //check if opposing player played all of their declared marriageCards
-        for(PlayingCard marriageCard: marriageCards){
-
-            boolean isLeading =  (leadingCard != null && leadingCard.equals(marriageCard));
-
-            if(!trickCards.contains(marriageCard) && !isLeading && !otherPlayersCards.contains(marriageCard)) {
-                otherPlayersCards.add(marriageCard);
-            }
-        }
-
-        //Reduce the number of unknown Cards by all findings
-
-        //Remove players cards
-
-        unknownCards.removeAll(playerCards);
-
-        //Remove trumpCard
-        unknownCards.remove(trumpCard);
-
-        //Remove leadingCard
-        if(leadingCard != null) {
-            unknownCards.remove(leadingCard);
-        }
-
-        //Remove all of otherPlayers cards
-        unknownCards.removeAll(otherPlayersCards);
-
-        //Remove already played cards
-        unknownCards.removeAll(trickCards);
-
-
-        //Fill up all the hidden card-slots with random available cards
-
-        //shuffle the unknown cards
-        Collections.shuffle(unknownCards);
-
-        int numberOfHandCards = playerCards.size();
-        int numberOfOtherPlayersHandCards = numberOfHandCards;
-        int cardsLeftInPile = board.playingCardsLeftInPile();
-
-        //other player has one Card less, because they led the trick
-        if(leadingCard != null) {
-            numberOfOtherPlayersHandCards--;
-        }
-
-        //first fill up the playingCardPile
-        LinkedList<PlayingCard> playingCardPile = new LinkedList<>();
-
-
-        for (int i = 0; i < cardsLeftInPile-1; i++) {
-            playingCardPile.add(unknownCards.removeFirst());
-        }
-
-        // Add trumpCard as last if pile was not empty yet
-        if(cardsLeftInPile > 0) {
-            playingCardPile.addLast(trumpCard);
-        } else {
-            boolean inMyHand = playerCards.contains(trumpCard);
-            boolean inTricks = trickCards.contains(trumpCard);
-            boolean isLeading = (leadingCard != null && leadingCard.equals(trumpCard));
-            boolean alreadyAdded = otherPlayersCards.contains(trumpCard);
-
-            if(!inMyHand && !inTricks && !isLeading && !alreadyAdded) {
-                otherPlayersCards.add(trumpCard);
-            }
-        }
-
-        //the remaining cards should fit into the opponents hand
-        if((otherPlayersCards.size() + unknownCards.size()) != numberOfOtherPlayersHandCards) {
-            throw new IllegalStateException("Calculated wrong: Opponent has " +
-                    (otherPlayersCards.size() + unknownCards.size()) +
-                    " but should have " + numberOfOtherPlayersHandCards);
-        } else {
-            otherPlayersCards.addAll(unknownCards);
-        }
-
-        //create a board based on the findings and randomly assumed cards
-        SchnapsenBoard filledBoard;
-        if(playerId == 0) {
-            filledBoard = new SchnapsenBoard(board, playerCards, otherPlayersCards, playingCardPile);
-        } else {
-            filledBoard = new SchnapsenBoard(board, otherPlayersCards, playerCards, playingCardPile);
-        }
-
-        return filledBoard;
-    }
-
-    /**
-     * This method is used to generate a full deck. The trump suit is used to set the trump status for cards with matching suits
-     * @param trumpSuit the trump suit of the current round
-     * @return a complete deck of cards with correctly set cards of trump status
-     */
-    private List<PlayingCard> generateFullDeck(SchnapsenBoard.cardSuits trumpSuit) {
-        //creating and filling a list with of all not known cards
-        LinkedList<PlayingCard> deckOfCards = new LinkedList<>();
-
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.SPADES, SchnapsenBoard.cardNames.JackOfSpades, 2));
-        //Adding possible marriages to the spades cards
-        PlayingCard queenSpades = new PlayingCard(SchnapsenBoard.cardSuits.SPADES, SchnapsenBoard.cardNames.QueenOfSpades, 3);
-        PlayingCard kingSpades = new PlayingCard(SchnapsenBoard.cardSuits.SPADES, SchnapsenBoard.cardNames.KingOfSpades, 4);
-        queenSpades.setPossibleMarriage(kingSpades);
-        kingSpades.setPossibleMarriage(queenSpades);
-        deckOfCards.add(queenSpades);
-        deckOfCards.add(kingSpades);
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.SPADES, SchnapsenBoard.cardNames.TenOfSpades, 10));
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.SPADES, SchnapsenBoard.cardNames.AceOfSpades, 11));
-
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.HEARTS, SchnapsenBoard.cardNames.JackOfHearts, 2));
-        //Adding possible marriages to the hearts cards
-        PlayingCard queenHearts = new PlayingCard(SchnapsenBoard.cardSuits.HEARTS, SchnapsenBoard.cardNames.QueenOfHearts, 3);
-        PlayingCard kingHearts = new PlayingCard(SchnapsenBoard.cardSuits.HEARTS, SchnapsenBoard.cardNames.KingOfHearts, 4);
-        queenHearts.setPossibleMarriage(kingHearts);
-        kingHearts.setPossibleMarriage(queenHearts);
-        deckOfCards.add(queenHearts);
-        deckOfCards.add(kingHearts);
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.HEARTS, SchnapsenBoard.cardNames.TenOfHearts, 10));
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.HEARTS, SchnapsenBoard.cardNames.AceOfHearts, 11));
-
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.DIAMONDS, SchnapsenBoard.cardNames.JackOfDiamonds, 2));
-        //Adding possible marriages to the hearts cards
-        PlayingCard queenDiamonds = new PlayingCard(SchnapsenBoard.cardSuits.DIAMONDS, SchnapsenBoard.cardNames.QueenOfDiamonds, 3);
-        PlayingCard kingDiamonds = new PlayingCard(SchnapsenBoard.cardSuits.DIAMONDS, SchnapsenBoard.cardNames.KingOfDiamonds, 4);
-        queenDiamonds.setPossibleMarriage(kingDiamonds);
-        kingDiamonds.setPossibleMarriage(queenDiamonds);
-        deckOfCards.add(queenDiamonds);
-        deckOfCards.add(kingDiamonds);
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.DIAMONDS, SchnapsenBoard.cardNames.TenOfDiamonds, 10));
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.DIAMONDS, SchnapsenBoard.cardNames.AceOfDiamonds, 11));
-
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.CLUBS, SchnapsenBoard.cardNames.JackOfClubs, 2));
-        //Adding possible marriages to the hearts cards
-        PlayingCard queenClubs = new PlayingCard(SchnapsenBoard.cardSuits.CLUBS, SchnapsenBoard.cardNames.QueenOfClubs, 3);
-        PlayingCard kingClubs = new PlayingCard(SchnapsenBoard.cardSuits.CLUBS, SchnapsenBoard.cardNames.KingOfClubs, 4);
-        queenClubs.setPossibleMarriage(kingClubs);
-        kingClubs.setPossibleMarriage(queenClubs);
-        deckOfCards.add(queenClubs);
-        deckOfCards.add(kingClubs);
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.CLUBS, SchnapsenBoard.cardNames.TenOfClubs, 10));
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.CLUBS, SchnapsenBoard.cardNames.AceOfClubs, 11));
-
-        for(PlayingCard card :  deckOfCards){
-            if(trumpSuit == card.getSuit()){
-                card.setIsTrumpSuit(true);
-            }
-        }
-        return deckOfCards;
-    }
-
     /**
      * This check is used to find out if since the last action taken a new round has started on the board.
      * This is used to not simulate into new rounds as the new round shuffles new cards,
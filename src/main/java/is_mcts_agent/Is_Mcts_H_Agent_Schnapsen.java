@@ -3,13 +3,28 @@ package is_mcts_agent;
 import at.ac.tuwien.ifs.sge.agent.AbstractGameAgent;
 import at.ac.tuwien.ifs.sge.agent.GameAgent;
 import at.ac.tuwien.ifs.sge.engine.Logger;
-import at.ac.tuwien.ifs.sge.util.Util;
 import game.Schnapsen;
 import game.action.SchnapsenAction;
-import game.board.PlayingCard;
 import game.board.SchnapsenBoard;
+import shared_schnapsen.Action_Ids_Schnapsen;
+import shared_schnapsen.Agent_Turn_Schnapsen;
+import shared_schnapsen.Card_Bits_Schnapsen;
+import shared_schnapsen.Determinizer_Schnapsen;
+import shared_schnapsen.Endgame_Solver_Schnapsen;
+import shared_schnapsen.Playout_Policy_Schnapsen;
+import shared_schnapsen.Playout_State_Schnapsen;
+import shared_schnapsen.Root_Statistics_Schnapsen;
+import shared_schnapsen.Search_Profiler_Schnapsen;
+import shared_schnapsen.Talon_Closing_Schnapsen;
+import shared_schnapsen.Time_Manager_Schnapsen;
+import shared_schnapsen.Unreachable_Visits_Rule_Schnapsen;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 public class Is_Mcts_H_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, SchnapsenAction> implements GameAgent<Schnapsen, SchnapsenAction> {
@@ -24,9 +39,32 @@ public class Is_Mcts_H_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schn
     private double oldUtilityPlayer0;
     private double oldUtilityPlayer1;
 
+    //These objects are re-used by every playout of the calling thread, so that the simulation phase does not allocate
+    private final Playout_State_Schnapsen playoutState = new Playout_State_Schnapsen();
+    private final int[] pileOrder = new int[Card_Bits_Schnapsen.DECK_SIZE];
+    private int pileOrderLength;
+
+    //The deadline, time management, move statistics and talon closing around every turn
+    private final Agent_Turn_Schnapsen turn = new Agent_Turn_Schnapsen(getClass().getSimpleName(), new Unreachable_Visits_Rule_Schnapsen());
+    //Who closed the talon of the current round, the board does not tell it and the playouts need it for the result of a closed round
+    private final Talon_Closing_Schnapsen talonClosing = turn.getTalonClosing();
+
     //used for Tree re-use
     private Is_Mcts_Node_Schnapsen currentRootNode;
 
+    //The tree parallel search lets all workers descend the re-used tree together, without it the search runs on the calling thread
+    private int numberOfThreads = Runtime.getRuntime().availableProcessors();
+    private boolean treeParallel = false;
+    private ExecutorService searchExecutor;
+
+    //Splits the time of every search into its phases, disabled unless switched on with setProfiling or the system property
+    private final Search_Profiler_Schnapsen profiler = new Search_Profiler_Schnapsen();
+
+    //Stops the search of easy or settled moves before the deadline, and of every move whose most visited action can no longer be overtaken
+    private final Time_Manager_Schnapsen timeManager = turn.getTimeManager();
+    //The root statistics collected at the checkpoints of the time manager
+    private final Root_Statistics_Schnapsen rootStatistics = new Root_Statistics_Schnapsen();
+
     /**
      * Constructor for the Strategy Game Engine
      * @param log a logger object passed by the engine
@@ -42,8 +80,31 @@ public class Is_Mcts_H_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schn
         super();
     }
 
+    /**
+     * Sets the agent up for a match and reports an endgame tablebase that could not be loaded
+     * @param numberOfPlayers the number of players of the match
+     * @param playerId the id of the agent's player
+     */
+    @Override
+    public void setUp(int numberOfPlayers, int playerId) {
+        super.setUp(numberOfPlayers, playerId);
+        turn.setUp(log);
+    }
+
     /**
      * This method will be called by the engine everytime the agent has its turn.
+     * @param schnapsen the games state as given by the engine (may include hidden information)
+     * @param l the maximum available time the agent is allowed to take to think about its next action
+     * @param timeUnit the unit in which the l parameter is measured
+     * @return the SchnapsenAction chosen by searchNextAction
+     */
+    @Override
+    public SchnapsenAction computeNextAction(Schnapsen schnapsen, long l, TimeUnit timeUnit) {
+        return turn.play(schnapsen, playerId, timeUnit.toNanos(l), () -> searchNextAction(schnapsen, l, timeUnit));
+    }
+
+    /**
+     * This method is called by computeNextAction everytime the agent has its turn.
      * In this method the agent creates a new determinization every iteration and creates information sets.
      * In such a set the participating nodes statistics are saved throughout the determinization.
      * Over a period of time all possible constellations will be looked at and the best action over all of these possible scenarios is chosen.
@@ -55,10 +116,10 @@ public class Is_Mcts_H_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schn
      * @param timeUnit the unit in which the l parameter is measured
      * @return a  SchnapsenAction chosen from the agents available ones after running an Information Set MCTS algorithm
      */
-    @Override
-    public SchnapsenAction computeNextAction(Schnapsen schnapsen, long l, TimeUnit timeUnit) {
+    private SchnapsenAction searchNextAction(Schnapsen schnapsen, long l, TimeUnit timeUnit) {
 
         SchnapsenBoard board = schnapsen.getBoard();
+        turn.observeTurn(board, playerId);
         Set<SchnapsenAction> availableActions = schnapsen.getPossibleActions();
 
         //set the utility values for end of round check in simulations
@@ -72,6 +133,8 @@ public class Is_Mcts_H_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schn
 
         //This method is provided by the AbstractGame interface and used to track remaining computation time with shouldStopComputation()
         setTimers(l,  timeUnit);
+        turn.startSearch(board, availableActions, START_TIME, TIMEOUT, timeUnit.toNanos(l));
+        profiler.startMove();
 
         // Detect if this is the start of a completely new Round
         boolean isNewRound = board.getPlayer0Score() == 0 && board.getPlayer1Score() == 0
@@ -87,7 +150,7 @@ public class Is_Mcts_H_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schn
 
                 //to re-use the tree when we have repeat turns (marriage or closing talon) or won a trick after not leading we do not have to change the root
                 //as we should be on the correct one already
-                boolean isAgainOurTurn = this.currentRootNode.getParentAction() != null && this.currentRootNode.getParentAction().equals(lastAction);
+                boolean isAgainOurTurn = this.currentRootNode.getActionId() == Action_Ids_Schnapsen.idOf(lastAction);
 
                 if(isAgainOurTurn)
                 {
@@ -111,48 +174,33 @@ public class Is_Mcts_H_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schn
         }
 
         //we can prune actions that are now not available with the updated board states
-        int prunedActions = 0;
-
-        Iterator<Is_Mcts_Node_Schnapsen> iterator = this.currentRootNode.getChildNodes().iterator();
-
         //We look at every stored action of this node and prune the ones that are not actually available
-        while(iterator.hasNext()) {
-            Is_Mcts_Node_Schnapsen currentChildNode = iterator.next();
-            if(!availableActions.contains(currentChildNode.getParentAction())) {
-                iterator.remove();
-                prunedActions++;
-            }
-        }
+        long availableMask = Action_Ids_Schnapsen.toMask(availableActions);
+        int prunedActions = this.currentRootNode.pruneChildren(availableMask);
 
         if(prunedActions > 0) {
             log._debugf("Filtering the root node: Pruned %d actions from re-used tree.", prunedActions);
         }
 
-        //This list is a one time generation of the cards in the game, setting the boolean on trump card to true if suit matches
-        List<PlayingCard> deckOfCards = generateFullDeck(board.getTrumpCard().getSuit());
+        //The determinizer collects the known information of the board once, setting the boolean on trump cards to true if suit matches
+        Determinizer_Schnapsen determinizer = new Determinizer_Schnapsen(board, playerId);
+        pileOrderLength = determinizer.getCardsLeftInPile();
 
 
         //used for keeping track of iterations = how many simulations could be run
-        int iterations = 0;
         //We are starting the IS-MCTS Algorithm -> it will run as long as possible
-        while(!shouldStopComputation())
-        {
-            //Create a random determinization of the available board for each iteration
-            SchnapsenBoard generatedBoard = generateMissingInformation(board,  deckOfCards);
-            //We also need to generate a new Schnapsen object with the new board
-            Schnapsen generatedSchnapsen = new Schnapsen(generatedBoard);
-
-            //We select a new node through this method, with the adapted selection formula for ISMCTS and expand it if necessary
-            //The generated Schnapsen state matches the one of the selected/expanded node
-            Is_Mcts_Node_Schnapsen expandedNode = selectAndExpand(this.currentRootNode, generatedSchnapsen); //, maxDepth, depth);
-            //For this altered game state we simulate a playout and get a score
-            double simulationScore = simulateNode(generatedSchnapsen); // depthTillRoundEnd);
-            //The score needs to be propagated to all participating nodes and their parents
-            backPropagateNode(expandedNode, simulationScore);
-            iterations++;
+        int iterations;
+        if(numberOfThreads > 1 && treeParallel) {
+            iterations = runTreeParallelSearch(determinizer);
+        } else {
+            iterations = runSearch(this.currentRootNode, determinizer, playoutState, pileOrder, false, true);
         }
 
-        log.debugf("IS-MCTS completed %d iterations", iterations);
+        log.debugf("IS-MCTS completed %d iterations on %d threads", iterations, treeParallel ? numberOfThreads : 1);
+        turn.setMoveIterations(iterations);
+        if(profiler.isEnabled()) {
+            log.info(profiler.getReport("IS-MCTS-H"));
+        }
 
         //Here we are finding out which action was the best and returning it
         //For this purpose we choose the child with the most visits, the most robust child
@@ -166,7 +214,7 @@ public class Is_Mcts_H_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schn
             for (Is_Mcts_Node_Schnapsen child : this.currentRootNode.getChildNodes()) {
                 // win rate calculation for logging
                 double winRate = (child.getVisitations() > 0) ? (child.getScore() / child.getVisitations()) : 0.0;
-                if(availableActions.contains(child.getParentAction())) {
+                if((availableMask & Action_Ids_Schnapsen.bitOf(child.getActionId())) != 0) {
                     // %-20s pads the action string to 20 chars for a clean table look
                     log._debugf("Action: %-20s | Visits: %6d | WinRate: %5.2f%% | Avail: %d",
                             child.getParentAction().toString(),
@@ -214,144 +262,225 @@ public class Is_Mcts_H_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schn
     }
 
     /**
-     * This method uses the score of the simulation and adds it to the nodes score. The visitation counter is also incremented.
-     * This is repeated for all the nodes parents to update all involved nodes accordingly
-     * @param expandedNode the node which was last expanded and received the simulationScore
-     * @param simulationScore the score of the playout simulation for this node
+     * Runs IS-MCTS iterations on the given tree until the computation budget is used up.
+     * Every iteration creates a new determinization, selects and expands a node, simulates a playout and backpropagates the score.
+     * @param rootNode the root of the tree that is grown by this search
+     * @param determinizer the determinizer of the current board
+     * @param workerPlayoutState the playout state of the calling thread
+     * @param workerPileOrder the pile order buffer of the calling thread
+     * @param useVirtualLoss if other threads search the same tree at the same time
+     * @param managesTime if this thread reports the most visited root action to the time manager, only one thread of a move may do so
+     * @return the number of completed iterations
      */
-    private void backPropagateNode(Is_Mcts_Node_Schnapsen expandedNode, double simulationScore) {
-        Is_Mcts_Node_Schnapsen propagationNode = expandedNode;
-        while (propagationNode != null) {
-            propagationNode.incrementVisitations();
-            propagationNode.addScore(simulationScore);
-            propagationNode = propagationNode.getParentNode();
+    private int runSearch(Is_Mcts_Node_Schnapsen rootNode, Determinizer_Schnapsen determinizer, Playout_State_Schnapsen workerPlayoutState, int[] workerPileOrder,
+                          boolean useVirtualLoss, boolean managesTime) {
+        int iterations = 0;
+        Search_Profiler_Schnapsen.Recorder recorder = profiler.getRecorder();
+        Talon_Closing_Schnapsen descentClosing = new Talon_Closing_Schnapsen();
+        while(!shouldStopComputation())
+        {
+            recorder.start();
+            //Create a random determinization of the available board for each iteration
+            SchnapsenBoard generatedBoard = determinizer.generateMissingInformation(ThreadLocalRandom.current(), workerPileOrder);
+            //We also need to generate a new Schnapsen object with the new board
+            Schnapsen generatedSchnapsen = new Schnapsen(generatedBoard);
+            descentClosing.copyFrom(talonClosing);
+            recorder.lap(Search_Profiler_Schnapsen.DETERMINIZATION);
+
+            //We select a new node through this method, with the adapted selection formula for ISMCTS and expand it if necessary
+            //The generated Schnapsen state matches the one of the selected/expanded node
+            Is_Mcts_Node_Schnapsen expandedNode = selectAndExpand(rootNode, generatedSchnapsen, useVirtualLoss, descentClosing, recorder);
+            recorder.lap(Search_Profiler_Schnapsen.SELECTION);
+            boolean expanded = expandedNode.getVisitations() == 0;
+            //For this altered game state we simulate a playout and get a score
+            double simulationScore = simulateNode(generatedSchnapsen, workerPlayoutState, workerPileOrder, descentClosing, recorder);
+            recorder.lap(Search_Profiler_Schnapsen.SIMULATION);
+            //The score needs to be propagated to all participating nodes and their parents
+            int pathLength = backPropagateNode(expandedNode, simulationScore, useVirtualLoss);
+            recorder.lap(Search_Profiler_Schnapsen.BACKPROPAGATION);
+            recorder.recordIteration(pathLength - 1, expanded);
+            iterations++;
+            if(managesTime && timeManager.isCheckpointDue()) {
+                //in a shared tree the other workers add their playouts as well
+                reportCheckpoint(rootNode, useVirtualLoss ? (long) iterations * numberOfThreads : iterations);
+            }
         }
+        return iterations;
     }
 
     /**
-     * This method uses the current games state to simulate a complete playthrough till the end of the current round, end of game or the end of calculation time budget
-     * <p>
-     * We use an epsilon greedy approach, where we play our heuristic action if the random number between 0.0 and 1.0 is higher than EPSILON_GREEDY.
-     * Therefore, if EPSILON_GREEDY is 0.3 we choose the heuristic action about ~70% of the time.
-     * @param schnapsen the games current state
-     * @return a score in the range of 0 and 1, where 1 is a win and 0 is a loss. In between scores represent the score difference to the opposing player in an ongoing round
+     * Reports the most visited root action and the root statistics to the time manager, the root children are safe to read while other threads expand them
+     * @param rootNode the root of the searched tree
+     * @param playouts the playouts of this move that went into the tree so far
      */
-    private double simulateNode(Schnapsen schnapsen) { //,  int  maxDepth) {
-
-        //randomly play actions
-        while(!shouldStopComputation() && !schnapsen.isGameOver() && !this.isRoundOver(schnapsen)){ //&& simulationDepth < maxDepth){
+    private void reportCheckpoint(Is_Mcts_Node_Schnapsen rootNode, long playouts) {
+        rootStatistics.clear();
+        for(Is_Mcts_Node_Schnapsen child : rootNode.getChildNodes()) {
+            rootStatistics.add(child.getActionId(), child.getVisitations(), child.getScore(), Double.NaN);
+        }
+        int best = rootStatistics.getMostVisited();
+        timeManager.checkpoint(best < 0 ? -1 : rootStatistics.getActionId(best), rootStatistics, playouts);
+    }
 
-            // Here we add our heuristic playout based on the epsilon greedy approach
-            Set<SchnapsenAction> possibleActions = schnapsen.getPossibleActions();
+    /**
+     * Runs the search on several threads, which all descend the re-used tree concurrently.
+     * The node statistics are updated atomically and virtual losses keep the threads from all following the same path.
+     * @param determinizer the determinizer of the current board
+     * @return the number of completed iterations over all workers
+     */
+    private int runTreeParallelSearch(Determinizer_Schnapsen determinizer) {
+        List<Future<Integer>> workerIterations = new ArrayList<>(numberOfThreads);
+        for(int i = 0; i < numberOfThreads; i++) {
+            boolean managesTime = i == 0;
+            workerIterations.add(getSearchExecutor().submit(() ->
+                    runSearch(this.currentRootNode, determinizer, new Playout_State_Schnapsen(), new int[Card_Bits_Schnapsen.DECK_SIZE], true, managesTime)));
+        }
 
-            SchnapsenAction playoutAction;
-            if(Math.random() < EPSILON_GREEDY) {
-                // we select a random action
-                playoutAction = Util.selectRandom(possibleActions);
-            }
-            else {
-                // Here we let the algorithm choose the heuristical playout
-                playoutAction = getHeuristicAction(schnapsen);
+        int iterations = 0;
+        for(int i = 0; i < workerIterations.size(); i++) {
+            try {
+                iterations += workerIterations.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log._debugf("Interrupted while waiting for worker %d", i);
+            } catch (ExecutionException e) {
+                log._debugf("Worker %d failed: %s", i, e.getCause());
             }
-
-            //We have to apply the action to the board on either choice
-            schnapsen = (Schnapsen) schnapsen.doAction(playoutAction);
         }
-
-        return simulationScore(schnapsen);
+        turn.markJoined();
+        return iterations;
     }
 
     /**
-     * This method checks the current games situation for the best action based on some rules (heuristics)
-     * @param playoutSchnapsen the current game state
-     * @return an action out of the current game state, selected based on some rules
+     * Returns the thread pool of the search workers, which is created when it is first needed
+     * @return an executor with numberOfThreads daemon threads
      */
-    private SchnapsenAction getHeuristicAction(Schnapsen playoutSchnapsen) {
-        Set<SchnapsenAction> possibleActions = playoutSchnapsen.getPossibleActions();
+    private ExecutorService getSearchExecutor() {
+        if(searchExecutor == null) {
+            searchExecutor = Executors.newFixedThreadPool(numberOfThreads, runnable -> {
+                Thread thread = new Thread(runnable, "is-mcts-h-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return searchExecutor;
+    }
 
-        //if only one action is available instantly return it
-        if(possibleActions.size() == 1) {
-            return possibleActions.iterator().next();
+    /**
+     * Sets how many threads are used for the tree parallel search, see setTreeParallel. With one thread the search runs on the calling thread.
+     * @param numberOfThreads the number of worker threads, by default the number of available processors
+     */
+    public void setNumberOfThreads(int numberOfThreads) {
+        if(searchExecutor != null) {
+            searchExecutor.shutdownNow();
+            searchExecutor = null;
         }
+        this.numberOfThreads = Math.max(numberOfThreads, 1);
+    }
 
-        int playerId = playoutSchnapsen.getCurrentPlayer();
-        SchnapsenBoard board =  playoutSchnapsen.getBoard();
-        PlayingCard leadingCard = board.getLeadingCard();
-        PlayingCard trumpCard = board.getTrumpCard();
-        List<PlayingCard> playersCards = new ArrayList<>();
-        if(playerId == 0)
-        {
-            playersCards = board.getPlayer0Cards();
-        }   else
-        {
-            playersCards = board.getPlayer1Cards();
-        }
+    /**
+     * Switches the tree parallel mode on or off, where all workers share one tree. By default the search runs on the calling thread.
+     * @param treeParallel true to let numberOfThreads workers search the same tree
+     */
+    public void setTreeParallel(boolean treeParallel) {
+        this.treeParallel = treeParallel;
+    }
+
+    /**
+     * Switches the search profiler on or off, an enabled profiler logs the time and allocations of every phase after each move
+     * @param profiling true to profile the following moves
+     */
+    public void setProfiling(boolean profiling) {
+        profiler.setEnabled(profiling);
+    }
+
+    /**
+     * The search stops at the deadline of the turn, which leaves room for the wind-down of the move
+     * @return true if the search has to stop
+     */
+    @Override
+    protected boolean shouldStopComputation() {
+        return turn.shouldStop();
+    }
 
-        //We check if we are the following player or the leading one
-        boolean selfLeading = false;
-        if(leadingCard == null){
-            selfLeading = true;
+    /**
+     * The worker threads are stopped and the move statistics are exported when the match is over
+     */
+    @Override
+    public void tearDown() {
+        turn.tearDown(playerId, log);
+        if(searchExecutor != null) {
+            searchExecutor.shutdownNow();
+            searchExecutor = null;
         }
+    }
 
-        // Rule 1: Always exchange trump or declare marriage if possible (only possible if leading)
-        if(selfLeading)
-        {
-            for(SchnapsenAction action : possibleActions) {
-                if(action.toString().contains("Marriage") || action.toString().contains("Exchange")) {
-                    return action;
-                }
-            }
+    /**
+     * The worker threads are stopped when the agent is destroyed
+     */
+    @Override
+    public void destroy() {
+        tearDown();
+    }
 
-            //Rule 2: Passive Leading with a low valued non-trump card
-            PlayingCard lowestLead = null;
-            for(PlayingCard playerCard : playersCards) {
-                if(!playerCard.getSuit().equals(trumpCard.getSuit())) {
-                    if(lowestLead == null || playerCard.getCardValue() < lowestLead.getCardValue()) {
-                        lowestLead = playerCard;
-                    }
-                }
-            }
-            if(lowestLead != null) {
-                for (SchnapsenAction action : possibleActions) {
-                    if (action.toString().contains(lowestLead.toString())) {
-                        return action;
-                    }
-                }
-            }
-        } else {
-            //Rule 3: try taking 10 or Aces from non-trump color by also using trump cards
-            PlayingCard takeTA = null;
-            if(!board.isTalonClosed())
-            {
-                if(leadingCard.getCardValue() >= 10 && leadingCard.getSuit() != trumpCard.getSuit()) {
-                    for (PlayingCard playerCard : playersCards) {
-                        //If having the Ace over the Ten just take the trick with the Ace
-                        if( playerCard.getSuit().equals(leadingCard.getSuit()) && playerCard.getCardValue() > leadingCard.getCardValue()) {
-                            takeTA = playerCard;
-                            break;
-                        }
-
-                        //we use the lowest trump to take the Ten or Ace
-                        if(playerCard.getSuit().equals(trumpCard.getSuit())) {
-                            if(takeTA == null || playerCard.getCardValue() < takeTA.getCardValue()) {
-                                takeTA = playerCard;
-                            }
-                        }
-                    }
-                }
+    /**
+     * This method uses the score of the simulation and adds it to the nodes score. The visitation counter is also incremented.
+     * This is repeated for all the nodes parents to update all involved nodes accordingly
+     * @param expandedNode the node which was last expanded and received the simulationScore
+     * @param simulationScore the score of the playout simulation for this node
+     * @param useVirtualLoss if the virtual losses added during the selection have to be removed again
+     * @return the number of updated nodes, which is the depth of the expanded node plus one
+     */
+    private int backPropagateNode(Is_Mcts_Node_Schnapsen expandedNode, double simulationScore, boolean useVirtualLoss) {
+        int pathLength = 0;
+        Is_Mcts_Node_Schnapsen propagationNode = expandedNode;
+        while (propagationNode != null) {
+            pathLength++;
+            propagationNode.incrementVisitations();
+            propagationNode.addScore(simulationScore);
+            if (useVirtualLoss) {
+                propagationNode.removeVirtualLoss();
             }
+            propagationNode = propagationNode.getParentNode();
+        }
+        return pathLength;
+    }
 
-            if(takeTA != null) {
-                for(SchnapsenAction action : possibleActions) {
-                    if(action.toString().contains(takeTA.toString())) {
-                        return action;
-                    }
-                }
+    /**
+     * This method uses the current games state to simulate a complete playthrough till the end of the current round, end of game or the end of calculation time budget.
+     * The playout runs on a mutable bitmask state, which applies the moves in place instead of copying the game for every move.
+     * <p>
+     * We use an epsilon greedy approach, where we play our heuristic move if the random number between 0.0 and 1.0 is higher than EPSILON_GREEDY.
+     * Therefore, if EPSILON_GREEDY is 0.3 we choose the heuristic move about ~70% of the time.
+     * @param schnapsen the games current state
+     * @param workerPlayoutState the playout state of the calling thread
+     * @param workerPileOrder the pile order of the determinization of the calling thread
+     * @param closing the closing of the talon of the game
+     * @param recorder the profiler recorder of the calling thread, which receives the length of the playout
+     * @return a score in the range of 0 and 1, where 1 is a win and 0 is a loss. In between scores represent the score difference to the opposing player in an ongoing round
+     */
+    private double simulateNode(Schnapsen schnapsen, Playout_State_Schnapsen workerPlayoutState, int[] workerPileOrder,
+                                Talon_Closing_Schnapsen closing, Search_Profiler_Schnapsen.Recorder recorder) {
+        //a leaf does not need a playout
+        if(schnapsen.isGameOver() || this.isRoundOver(schnapsen)) {
+            return simulationScore(schnapsen);
+        }
+
+        workerPlayoutState.loadFrom(schnapsen, workerPileOrder, pileOrderLength, closing);
+        Random random = ThreadLocalRandom.current();
+
+        //heuristically or randomly play moves until the round is over
+        while(!shouldStopComputation() && !workerPlayoutState.isRoundOver()){
+            //the endgame is finished by perfect play of both players instead of the heuristic
+            if(Endgame_Solver_Schnapsen.isSolvable(workerPlayoutState)){
+                workerPlayoutState.solveEndgame();
+                break;
             }
+            workerPlayoutState.applyMove(Playout_Policy_Schnapsen.epsilonGreedyMove(workerPlayoutState, EPSILON_GREEDY, random));
         }
+        recorder.recordPlayout(workerPlayoutState.getMovesApplied());
 
-        // Fallback if no rule is applied we select a random action
-        return Util.selectRandom(possibleActions);
+        return workerPlayoutState.getScore(playerId);
     }
 
     /**
@@ -413,14 +542,25 @@ public class Is_Mcts_H_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schn
      * If there are no untried actions we continue finding the best fit child based on the modified UCT formula for Information Sets.
      * We repeat this process for every newly selected node until we reach the game or round end or should stop the computation because we reach the end of the budget.
      *
+     * <p>
+     * If several threads search the same tree, every node on the path gets a virtual loss, which is removed again in the backpropagation.
+     *
      * @param rootNode the trees root node, where we start the search or selection process
      * @param schnapsen the games current state
+     * @param useVirtualLoss if the nodes on the selected path should be marked with a virtual loss
+     * @param closing the closing of the talon of the game, a closing on the selected path is recorded in it
+     * @param recorder the profiler recorder of the calling thread, which receives the selection time before an expansion
      * @return the node we expanded or a leaf node, or a node that could not be entirely checked because of time constraints
      */
-    private Is_Mcts_Node_Schnapsen selectAndExpand(Is_Mcts_Node_Schnapsen rootNode, Schnapsen schnapsen) { //, int maxDepth, int[] depth) {
+    private Is_Mcts_Node_Schnapsen selectAndExpand(Is_Mcts_Node_Schnapsen rootNode, Schnapsen schnapsen, boolean useVirtualLoss,
+                                                   Talon_Closing_Schnapsen closing, Search_Profiler_Schnapsen.Recorder recorder) {
         Is_Mcts_Node_Schnapsen selectedNode = rootNode;
         SchnapsenBoard board = schnapsen.getBoard();
 
+        if(useVirtualLoss) {
+            rootNode.addVirtualLoss();
+        }
+
         //When reaching a leaf we can instantly return
         if(schnapsen.isGameOver() || this.isRoundOver(schnapsen))
         {
@@ -432,34 +572,37 @@ public class Is_Mcts_H_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schn
             //and ones which are already part of the tree
             Set<SchnapsenAction> possibleActions = schnapsen.getPossibleActions();
 
+            long possibleMask = Action_Ids_Schnapsen.toMask(possibleActions);
+            long childMask = selectedNode.getChildMask();
+
             //increment availability counts of all possible actions and therefore available children
+            //We also track the nodes children who have a corresponding action
+            List<Is_Mcts_Node_Schnapsen> childrenWithAction = new ArrayList<>();
             for(Is_Mcts_Node_Schnapsen child : selectedNode.getChildNodes())
             {
-                if (possibleActions.contains(child.getParentAction())) {
+                if ((possibleMask & Action_Ids_Schnapsen.bitOf(child.getActionId())) != 0) {
                     child.incrementAvailabilityCount();
+                    childrenWithAction.add(child);
                 }
             }
 
-            //We track the untried actions and the nodes children who have a corresponding action
-            List<SchnapsenAction> notTriedActions = new ArrayList<>();
-            List<Is_Mcts_Node_Schnapsen> childrenWithAction = new ArrayList<>();
-
-            for (SchnapsenAction action : possibleActions) {
-                Is_Mcts_Node_Schnapsen possibleChild = selectedNode.findChildWithAction(action);
-                if (possibleChild == null) {
-                    notTriedActions.add(action);
-                } else {
-                    childrenWithAction.add(possibleChild);
-                }
-            }
+            //The untried actions are the possible actions without a child
+            long notTriedMask = possibleMask & ~childMask;
 
             //Here we expand not yet tried actions by randomly choosing one if there are more available to choose and applying it to the games state
-            if(!notTriedActions.isEmpty()) {
-                SchnapsenAction chosenAction = Util.selectRandom(notTriedActions);
-                Is_Mcts_Node_Schnapsen expandedNode = new  Is_Mcts_Node_Schnapsen(chosenAction, selectedNode);
-                selectedNode.addChild(expandedNode);
+            if(notTriedMask != 0) {
+                recorder.lap(Search_Profiler_Schnapsen.SELECTION);
+                //the possible mask was built with idOf, therefore every untried action is in the reverse table
+                SchnapsenAction chosenAction = Action_Ids_Schnapsen.actionOf(Playout_State_Schnapsen.selectRandomMove(notTriedMask, ThreadLocalRandom.current()));
+                //another thread might have expanded the same action in the meantime, then we continue with its node
+                Is_Mcts_Node_Schnapsen expandedNode = selectedNode.addChildIfAbsent(chosenAction);
+                if(useVirtualLoss) {
+                    expandedNode.addVirtualLoss();
+                }
 
+                closing.observeAction(schnapsen.getCurrentPlayer(), board, chosenAction);
                 chosenAction.doAction(board);
+                recorder.lap(Search_Profiler_Schnapsen.EXPANSION);
                 return expandedNode;
 
             }
@@ -469,7 +612,7 @@ public class Is_Mcts_H_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schn
 
             //We once more have to check if we are playing or the opposing player has their turn
             boolean opponentAction = schnapsen.getCurrentPlayer() != this.playerId;
-            double bestUCT = Double.MIN_VALUE;
+            double bestUCT = Double.NEGATIVE_INFINITY;
             for (Is_Mcts_Node_Schnapsen child : childrenWithAction) {
                 double currentUCT = getUCT(child, opponentAction);
                 if (currentUCT > bestUCT) {
@@ -477,8 +620,12 @@ public class Is_Mcts_H_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schn
                     bestUCT = currentUCT;
                 }
             }
+            if(useVirtualLoss) {
+                selectedNode.addVirtualLoss();
+            }
 
             //After the selection of the best UCT fitting child we apply their action to the game
+            closing.observeAction(schnapsen.getCurrentPlayer(), board, selectedNode.getParentAction());
             selectedNode.getParentAction().doAction(board);
 
         }
@@ -490,237 +637,39 @@ public class Is_Mcts_H_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schn
 
     /**
      * Here we use the adapted UCT formula for ISMCTS to steer our selection process. We expect our opponent to choose the action that is worst for us
+     * <p>
+     * Virtual losses of threads that are currently descending through the child count as visits that were lost for the player choosing the child.
      * @param child a child node of a fully expanded node
      * @param opponentAction a boolean that states if the action is from the enemy player
      * @return a score based on the UCT formula for the current child
      */
     private double getUCT(Is_Mcts_Node_Schnapsen child, boolean opponentAction) {
+        int virtualLoss = child.getVirtualLoss();
+        int visitations = child.getVisitations() + virtualLoss;
+
         //unvisited children should be prioritized
-        if(child.getVisitations() < 1)
+        if(visitations < 1)
         {
             return Double.POSITIVE_INFINITY;
         }
 
         //This is the exploitation part of the UCT formula -> the better this part the more often it will be chosen
-        double exploitationPart = child.getScore() / child.getVisitations();
+        double exploitationPart = child.getScore() / visitations;
 
         //To calculate opponent actions we calculate a score inverted.
         //The better the score would be for us, the worse it is for selection purposes, if it is the enemy's turn
         if(opponentAction) {
-            exploitationPart = 1.0 - exploitationPart;
+            exploitationPart = 1.0 - (child.getScore() + virtualLoss) / visitations;
         }
 
         //This part helps the tree to not be too focused on winning branches and explore different scenarios. With more simulations this part gets less significance
         //Here we also include the availability of the node. If it was available often but never visited it means it has not been explored often.
-        double explorationPart = MCTS_EXPLORATION * Math.sqrt(Math.log(child.getAvailabilityCount()) / (child.getVisitations()));
+        double explorationPart = MCTS_EXPLORATION * Math.sqrt(Math.log(child.getAvailabilityCount()) / visitations);
 
         return  exploitationPart + explorationPart;
     }
 
 
-    /**
-     * This method takes all available information of the given board and randomizes the unknown cards into the drafting pile and opposing players hand
-     * @param board the actual game board with hidden information
-     * @return a new deep copied board with the given information and randomized cards for all unknown cards in the pile and opposing players hand
-     */
-    private SchnapsenBoard generateMissingInformation(SchnapsenBoard board, List<PlayingCard> cachedDeck) {
-        List<PlayingCard> unknownCards = new ArrayList<>(cachedDeck);
-        //Getting the players hand and all the marriage cards declared by the other player
-        List<PlayingCard> playerCards = new ArrayList<>();
-        List<PlayingCard> marriageCards = new ArrayList<>();
-        List<PlayingCard> otherPlayersCards = new ArrayList<>();
-        if(playerId == 0)
-        {
-            playerCards = board.getPlayer0Cards();
-            marriageCards = board.getPlayer1Marriages();
-        } else {
-            playerCards = board.getPlayer1Cards();
-            marriageCards = board.getPlayer0Marriages();
-        }
-
-        //Getting the trumpCard and the leading card
-        PlayingCard trumpCard = board.getTrumpCard();
-        PlayingCard leadingCard = board.getLeadingCard();
-
-        //Checking if there was an exchange of trumps
-        PlayingCard oldTrumpCard = board.getOldTrumpCard();
-
-        //Getting already played cards
-        List<PlayingCard> trickCards = new ArrayList<>();
-        List<PlayingCard[]> player0Tricks = board.getPlayer0Tricks();
-        List<PlayingCard[]> player1Tricks = board.getPlayer1Tricks();
-
-        //Getting both players cards that have been taken in a past trick
-        for(PlayingCard[] trick: player0Tricks){
-            trickCards.add(trick[0]);
-            trickCards.add(trick[1]);
-        }
-        for(PlayingCard[] trick: player1Tricks){
-            trickCards.add(trick[0]);
-            trickCards.add(trick[1]);
-        }
-
-        //Check if "exchanged" trump card has been played
-        //(if not, check if they are in the opposing players hand == not in my hand)
-        if(oldTrumpCard != null) {
-
-            boolean isLeading = (leadingCard != null && leadingCard.equals(oldTrumpCard));
-
-            if (!trickCards.contains(oldTrumpCard) && !isLeading) {
-                if (!playerCards.contains(oldTrumpCard)) {
-                    otherPlayersCards.add(oldTrumpCard);
-                }
-            }
-        }
-
-        //check if opposing player played all of their declared marriageCards
-        for(PlayingCard marriageCard: marriageCards){
-
-            boolean isLeading =  (leadingCard != null && leadingCard.equals(marriageCard));
-
-            if(!trickCards.contains(marriageCard) && !isLeading && !otherPlayersCards.contains(marriageCard)) {
-                otherPlayersCards.add(marriageCard);
-            }
-        }
-
-        //Reduce the number of unknown Cards by all findings
-
-        //Remove players cards
-
-        unknownCards.removeAll(playerCards);
-
-        //Remove trumpCard
-        unknownCards.remove(trumpCard);
-
-        //Remove leadingCard
-        if(leadingCard != null) {
-            unknownCards.remove(leadingCard);
-        }
-
-        //Remove all of otherPlayers cards
-        unknownCards.removeAll(otherPlayersCards);
-
-        //Remove already played cards
-        unknownCards.removeAll(trickCards);
-
-
-        //Fill up all the hidden card-slots with random available cards
-
-        //shuffle the unknown cards
-        Collections.shuffle(unknownCards);
-
-        int numberOfHandCards = playerCards.size();
-        int numberOfOtherPlayersHandCards = numberOfHandCards;
-        int cardsLeftInPile = board.playingCardsLeftInPile();
-
-        //other player has one Card less, because they led the trick
-        if(leadingCard != null) {
-            numberOfOtherPlayersHandCards--;
-        }
-
-        //first fill up the playingCardPile
-        LinkedList<PlayingCard> playingCardPile = new LinkedList<>();
-
-
-        for (int i = 0; i < cardsLeftInPile-1; i++) {
-            playingCardPile.add(unknownCards.removeFirst());
-        }
-
-        // Add trumpCard as last if pile was not empty yet
-        if(cardsLeftInPile > 0) {
-            playingCardPile.addLast(trumpCard);
-        } else {
-            boolean inMyHand = playerCards.contains(trumpCard);
-            boolean inTricks = trickCards.contains(trumpCard);
-            boolean isLeading = (leadingCard != null && leadingCard.equals(trumpCard));
-            boolean alreadyAdded = otherPlayersCards.contains(trumpCard);
-
-            if(!inMyHand && !inTricks && !isLeading && !alreadyAdded) {
-                otherPlayersCards.add(trumpCard);
-            }
-        }
-
-        //the remaining cards should fit into the opponents hand
-        if((otherPlayersCards.size() + unknownCards.size()) != numberOfOtherPlayersHandCards) {
-            throw new IllegalStateException("Calculated wrong: Opponent has " +
-                    (otherPlayersCards.size() + unknownCards.size()) +
-                    " but should have " + numberOfOtherPlayersHandCards);
-        } else {
-            otherPlayersCards.addAll(unknownCards);
-        }
-
-        //create a board based on the findings and randomly assumed cards
-        SchnapsenBoard filledBoard;
-        if(playerId == 0) {
-            filledBoard = new SchnapsenBoard(board, playerCards, otherPlayersCards, playingCardPile);
-        } else {
-            filledBoard = new SchnapsenBoard(board, otherPlayersCards, playerCards, playingCardPile);
-        }
-
-        return filledBoard;
-    }
-
-    /**
-     * This method is used to generate a full deck. The trump suit is used to set the trump status for cards with matching suits
-     * @param trumpSuit the trump suit of the current round
-     * @return a complete deck of cards with correctly set cards of trump status
-     */
-    private List<PlayingCard> generateFullDeck(SchnapsenBoard.cardSuits trumpSuit) {
-        //creating and filling a list with of all not known cards
-        LinkedList<PlayingCard> deckOfCards = new LinkedList<>();
-
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.SPADES, SchnapsenBoard.cardNames.JackOfSpades, 2));
-        //Adding possible marriages to the spades cards
-        PlayingCard queenSpades = new PlayingCard(SchnapsenBoard.cardSuits.SPADES, SchnapsenBoard.cardNames.QueenOfSpades, 3);
-        PlayingCard kingSpades = new PlayingCard(SchnapsenBoard.cardSuits.SPADES, SchnapsenBoard.cardNames.KingOfSpades, 4);
-        queenSpades.setPossibleMarriage(kingSpades);
-        kingSpades.setPossibleMarriage(queenSpades);
-        deckOfCards.add(queenSpades);
-        deckOfCards.add(kingSpades);
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.SPADES, SchnapsenBoard.cardNames.TenOfSpades, 10));
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.SPADES, SchnapsenBoard.cardNames.AceOfSpades, 11));
-
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.HEARTS, SchnapsenBoard.cardNames.JackOfHearts, 2));
-        //Adding possible marriages to the hearts cards
-        PlayingCard queenHearts = new PlayingCard(SchnapsenBoard.cardSuits.HEARTS, SchnapsenBoard.cardNames.QueenOfHearts, 3);
-        PlayingCard kingHearts = new PlayingCard(SchnapsenBoard.cardSuits.HEARTS, SchnapsenBoard.cardNames.KingOfHearts, 4);
-        queenHearts.setPossibleMarriage(kingHearts);
-        kingHearts.setPossibleMarriage(queenHearts);
-        deckOfCards.add(queenHearts);
-        deckOfCards.add(kingHearts);
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.HEARTS, SchnapsenBoard.cardNames.TenOfHearts, 10));
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.HEARTS, SchnapsenBoard.cardNames.AceOfHearts, 11));
-
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.DIAMONDS, SchnapsenBoard.cardNames.JackOfDiamonds, 2));
-        //Adding possible marriages to the hearts cards
-        PlayingCard queenDiamonds = new PlayingCard(SchnapsenBoard.cardSuits.DIAMONDS, SchnapsenBoard.cardNames.QueenOfDiamonds, 3);
-        PlayingCard kingDiamonds = new PlayingCard(SchnapsenBoard.cardSuits.DIAMONDS, SchnapsenBoard.cardNames.KingOfDiamonds, 4);
-        queenDiamonds.setPossibleMarriage(kingDiamonds);
-        kingDiamonds.setPossibleMarriage(queenDiamonds);
-        deckOfCards.add(queenDiamonds);
-        deckOfCards.add(kingDiamonds);
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.DIAMONDS, SchnapsenBoard.cardNames.TenOfDiamonds, 10));
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.DIAMONDS, SchnapsenBoard.cardNames.AceOfDiamonds, 11));
-
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.CLUBS, SchnapsenBoard.cardNames.JackOfClubs, 2));
-        //Adding possible marriages to the hearts cards
-        PlayingCard queenClubs = new PlayingCard(SchnapsenBoard.cardSuits.CLUBS, SchnapsenBoard.cardNames.QueenOfClubs, 3);
-        PlayingCard kingClubs = new PlayingCard(SchnapsenBoard.cardSuits.CLUBS, SchnapsenBoard.cardNames.KingOfClubs, 4);
-        queenClubs.setPossibleMarriage(kingClubs);
-        kingClubs.setPossibleMarriage(queenClubs);
-        deckOfCards.add(queenClubs);
-        deckOfCards.add(kingClubs);
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.CLUBS, SchnapsenBoard.cardNames.TenOfClubs, 10));
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.CLUBS, SchnapsenBoard.cardNames.AceOfClubs, 11));
-
-        for(PlayingCard card :  deckOfCards){
-            if(trumpSuit == card.getSuit()){
-                card.setIsTrumpSuit(true);
-            }
-        }
-        return deckOfCards;
-    }
-
     /**
      * This check is used to find out if since the last action taken a new round has started on the board.
      * This is used to not simulate into new rounds as the new round shuffles new cards,
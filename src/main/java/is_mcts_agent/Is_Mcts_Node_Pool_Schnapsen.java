@@ -0,0 +1,305 @@
+package is_mcts_agent;
+
+import game.action.SchnapsenAction;
+import shared_schnapsen.Action_Ids_Schnapsen;
+
+import java.util.Arrays;
+
+public class Is_Mcts_Node_Pool_Schnapsen {
+
+    //Index that marks a missing parent, child or sibling
+    public static final int NO_NODE = -1;
+
+    //The memory of one node in the arrays: parent, first child, next sibling, action id, visitations, availability count, the score and the child mask
+    public static final int BYTES_PER_NODE = 6 * Integer.BYTES + Double.BYTES + Long.BYTES;
+
+    private static final int INITIAL_CAPACITY = 1 << 12;
+
+    //Every node is an index into these arrays, the children of a node are a linked list over firstChild and nextSibling
+    private int[] parent;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int[] actionId;
+    private int[] visitations;
+    private int[] availabilityCount;
+    private double[] score;
+    //the action ids of the children of a node as bitmask
+    private long[] childMask;
+
+    //the amount of nodes that are currently used
+    private int size;
+
+    //One action per dense action id, the nodes only store the id
+    private final SchnapsenAction[] actions = new SchnapsenAction[Action_Ids_Schnapsen.NUMBER_OF_ACTIONS];
+
+    /**
+     * Creates an empty pool with room for a few thousand nodes, the arrays grow when they are full
+     */
+    public Is_Mcts_Node_Pool_Schnapsen() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Removes all nodes and actions of the pool. The arrays are kept, so that the next round does not have to grow them again.
+     */
+    public void reset() {
+        size = 0;
+        Arrays.fill(actions, null);
+    }
+
+    /**
+     * Creates a new node without a parent and action
+     * @return the index of the new root node
+     */
+    public int createRoot() {
+        return createNode(NO_NODE, NO_NODE);
+    }
+
+    /**
+     * Creates a new child for the passed action and links it to the front of the parents children
+     * @param parentNode the index of the parent node
+     * @param action the action leading from the parent to the child
+     * @return the index of the new child node
+     */
+    public int addChild(int parentNode, SchnapsenAction action) {
+        int id = Action_Ids_Schnapsen.idOf(action);
+        if (actions[id] == null) {
+            actions[id] = action;
+        }
+        int childNode = createNode(parentNode, id);
+        nextSibling[childNode] = firstChild[parentNode];
+        firstChild[parentNode] = childNode;
+        childMask[parentNode] |= Action_Ids_Schnapsen.bitOf(id);
+        return childNode;
+    }
+
+    /**
+     * This method lets us search all the children's actions and return the one that matches the passed action
+     * @param node the index of the node whose children are searched
+     * @param action the passed action that we want to find in the children of the node
+     * @return the index of the child with this action, NO_NODE if there is none
+     */
+    public int findChildWithAction(int node, SchnapsenAction action) {
+        return findChildWithActionId(node, Action_Ids_Schnapsen.idOf(action));
+    }
+
+    /**
+     * Returns the child whose parent action has the passed action id
+     * @param node the index of the node whose children are searched
+     * @param id the dense id of the action
+     * @return the index of the child with this action id, NO_NODE if there is none
+     */
+    public int findChildWithActionId(int node, int id) {
+        if ((childMask[node] & Action_Ids_Schnapsen.bitOf(id)) == 0) {
+            return NO_NODE;
+        }
+        for (int child = firstChild[node]; child != NO_NODE; child = nextSibling[child]) {
+            if (actionId[child] == id) {
+                return child;
+            }
+        }
+        return NO_NODE;
+    }
+
+    /**
+     * Unlinks a child from the children of its parent. The memory of the child is only freed on the next reset.
+     * @param parentNode the index of the parent node
+     * @param childNode the index of the child to be removed
+     */
+    public void removeChild(int parentNode, int childNode) {
+        if (firstChild[parentNode] == childNode) {
+            firstChild[parentNode] = nextSibling[childNode];
+        } else {
+            for (int sibling = firstChild[parentNode]; sibling != NO_NODE; sibling = nextSibling[sibling]) {
+                if (nextSibling[sibling] == childNode) {
+                    nextSibling[sibling] = nextSibling[childNode];
+                    break;
+                }
+            }
+        }
+        childMask[parentNode] &= ~Action_Ids_Schnapsen.bitOf(actionId[childNode]);
+        parent[childNode] = NO_NODE;
+        nextSibling[childNode] = NO_NODE;
+    }
+
+    /**
+     * Cuts the node off its parent, so that it can be used as a new root
+     * @param node the index of the new root node
+     */
+    public void detachFromParent(int node) {
+        parent[node] = NO_NODE;
+    }
+
+    /**
+     * Returns the action ids of all children of the node
+     * @param node the index of the node
+     * @return a bitmask of the children's action ids
+     */
+    public long getChildMask(int node) {
+        return childMask[node];
+    }
+
+    /**
+     * Returns the dense id of the action that led to this node's game state
+     * @param node the index of the node
+     * @return the id of the parent action, NO_NODE for a root
+     */
+    public int getActionId(int node) {
+        return actionId[node];
+    }
+
+    /**
+     * Returns the index of the first child of the node
+     * @param node the index of the node
+     * @return the index of the first child, NO_NODE if the node has no children
+     */
+    public int getFirstChild(int node) {
+        return firstChild[node];
+    }
+
+    /**
+     * Returns the index of the next child of the same parent
+     * @param node the index of the node
+     * @return the index of the next sibling, NO_NODE if this was the last child
+     */
+    public int getNextSibling(int node) {
+        return nextSibling[node];
+    }
+
+    /**
+     * Returns the index of the parent of the node
+     * @param node the index of the node
+     * @return the index of the parent, NO_NODE if the node is a root
+     */
+    public int getParent(int node) {
+        return parent[node];
+    }
+
+    /**
+     * Returns the action that led to this node's game state
+     * @param node the index of the node
+     * @return a SchnapsenAction that represents the action taken to get to this node from the parents game state, null for a root
+     */
+    public SchnapsenAction getParentAction(int node) {
+        int id = actionId[node];
+        return id == NO_NODE ? null : actions[id];
+    }
+
+    /**
+     * Returns the visitation number of the node
+     * @param node the index of the node
+     * @return int representing the visitation number
+     */
+    public int getVisitations(int node) {
+        return visitations[node];
+    }
+
+    /**
+     * Returns the summed up scores of the node
+     * @param node the index of the node
+     * @return a double representing the scores of this node
+     */
+    public double getScore(int node) {
+        return score[node];
+    }
+
+    /**
+     * Returns the amount that this node has been available
+     * @param node the index of the node
+     * @return int representing the availability count of this node
+     */
+    public int getAvailabilityCount(int node) {
+        return availabilityCount[node];
+    }
+
+    /**
+     * Used to increase the visitation score of this node and to add the score of a playout
+     * @param node the index of the node
+     * @param playoutScore to be added to the nodes score
+     */
+    public void addPlayout(int node, double playoutScore) {
+        visitations[node]++;
+        score[node] += playoutScore;
+    }
+
+    /**
+     * Used to increase the amount of availabilities of this node
+     * @param node the index of the node
+     */
+    public void incrementAvailabilityCount(int node) {
+        availabilityCount[node]++;
+    }
+
+    /**
+     * Returns the amount of nodes in the pool, including the ones that are no longer reachable from the root
+     * @return the number of used nodes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the memory that is allocated by the node arrays
+     * @return the allocated memory in bytes
+     */
+    public long getAllocatedBytes() {
+        return (long) parent.length * BYTES_PER_NODE;
+    }
+
+    /**
+     * Calculates how many of the used nodes fit into one megabyte of the allocated arrays
+     * @return the number of nodes per megabyte
+     */
+    public double getNodesPerMegabyte() {
+        return size / (getAllocatedBytes() / (1024.0 * 1024.0));
+    }
+
+    /**
+     * Creates a node at the end of the used part of the arrays and grows them if necessary
+     * @param parentNode the index of the parent node
+     * @param id the id of the parent action
+     * @return the index of the new node
+     */
+    private int createNode(int parentNode, int id) {
+        if (size == parent.length) {
+            allocate(parent.length * 2);
+        }
+        int node = size++;
+        parent[node] = parentNode;
+        firstChild[node] = NO_NODE;
+        nextSibling[node] = NO_NODE;
+        actionId[node] = id;
+        visitations[node] = 0;
+        score[node] = 0.0;
+        childMask[node] = 0L;
+        //when creating a node it is automatically available
+        availabilityCount[node] = 1;
+        return node;
+    }
+
+    /**
+     * Allocates or grows the node arrays, the used nodes are copied
+     * @param capacity the new number of nodes that fit into the arrays
+     */
+    private void allocate(int capacity) {
+        if (parent == null) {
+            parent = new int[capacity];
+            firstChild = new int[capacity];
+            nextSibling = new int[capacity];
+            actionId = new int[capacity];
+            visitations = new int[capacity];
+            availabilityCount = new int[capacity];
+            score = new double[capacity];
+            childMask = new long[capacity];
+        } else {
+            parent = Arrays.copyOf(parent, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            actionId = Arrays.copyOf(actionId, capacity);
+            visitations = Arrays.copyOf(visitations, capacity);
+            availabilityCount = Arrays.copyOf(availabilityCount, capacity);
+            score = Arrays.copyOf(score, capacity);
+            childMask = Arrays.copyOf(childMask, capacity);
+        }
+    }
+}
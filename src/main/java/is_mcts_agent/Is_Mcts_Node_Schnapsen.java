@@ -1,18 +1,43 @@
 package is_mcts_agent;
 
 import game.action.SchnapsenAction;
+import shared_schnapsen.Action_Ids_Schnapsen;
 
-import java.util.ArrayList;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class Is_Mcts_Node_Schnapsen {
 
+    //The statistics are updated atomically through these handles, so that several threads can search the same tree
+    private static final VarHandle VISITATIONS;
+    private static final VarHandle SCORE;
+    private static final VarHandle AVAILABILITY_COUNT;
+    private static final VarHandle VIRTUAL_LOSS;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            VISITATIONS = lookup.findVarHandle(Is_Mcts_Node_Schnapsen.class, "visitations", int.class);
+            SCORE = lookup.findVarHandle(Is_Mcts_Node_Schnapsen.class, "score", double.class);
+            AVAILABILITY_COUNT = lookup.findVarHandle(Is_Mcts_Node_Schnapsen.class, "availabilityCount", int.class);
+            VIRTUAL_LOSS = lookup.findVarHandle(Is_Mcts_Node_Schnapsen.class, "virtualLoss", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     //Used to track the parentAction leading to this child
     private SchnapsenAction parentAction;
+    //The dense id of the parentAction, -1 for a root node
+    private final int actionId;
     //Used to get to the parent of this node
     private Is_Mcts_Node_Schnapsen parentNode;
-    //A list of all children of this node
+    //A list of all children of this node, reading threads always see a consistent snapshot while a child is added
     private List<Is_Mcts_Node_Schnapsen> childNodes;
+    //The action ids of all children as bitmask, so that untried actions are found with a bit operation
+    private volatile long childMask;
 
     //These variables are used for the backpropagation of the node, the track the score and the amount of visitations of this node
     private int visitations;
@@ -21,6 +46,9 @@ public class Is_Mcts_Node_Schnapsen {
     //The availability counter is used in the ISMCTS selection formula
     private int availabilityCount;
 
+    //The number of threads currently descending through this node, each of them counts as a lost visit in the selection
+    private int virtualLoss;
+
     /**
      * This constructor creates a new node. When we create a new node its availability is already 1.
      * @param parentAction The action leading to this nodes state
@@ -28,8 +56,9 @@ public class Is_Mcts_Node_Schnapsen {
      */
     public Is_Mcts_Node_Schnapsen(SchnapsenAction parentAction, Is_Mcts_Node_Schnapsen parentNode) {
         this.parentAction = parentAction;
+        this.actionId = parentAction == null ? -1 : Action_Ids_Schnapsen.idOf(parentAction);
         this.parentNode = parentNode;
-        this.childNodes = new ArrayList<>();
+        this.childNodes = new CopyOnWriteArrayList<>();
         //when creating a node it is automatically available
         this.availabilityCount = 1;
     }
@@ -38,8 +67,32 @@ public class Is_Mcts_Node_Schnapsen {
      * We add a new child to this nodes list of children
      * @param childNode the node to be child of this node
      */
-    public void addChild(Is_Mcts_Node_Schnapsen childNode) {
+    public synchronized void addChild(Is_Mcts_Node_Schnapsen childNode) {
         this.childNodes.add(childNode);
+        this.childMask |= Action_Ids_Schnapsen.bitOf(childNode.getActionId());
+    }
+
+    /**
+     * Adds a child for the passed action unless another thread already added one.
+     * The lookup is repeated under the lock of this node, so that each action has at most one child.
+     * @param action the action leading to the child
+     * @return the newly created child, or the existing child with this action
+     */
+    public Is_Mcts_Node_Schnapsen addChildIfAbsent(SchnapsenAction action) {
+        Is_Mcts_Node_Schnapsen existingChild = findChildWithAction(action);
+        if (existingChild != null) {
+            return existingChild;
+        }
+        synchronized (this) {
+            existingChild = findChildWithAction(action);
+            if (existingChild != null) {
+                return existingChild;
+            }
+            Is_Mcts_Node_Schnapsen childNode = new Is_Mcts_Node_Schnapsen(action, this);
+            this.childNodes.add(childNode);
+            this.childMask |= Action_Ids_Schnapsen.bitOf(childNode.getActionId());
+            return childNode;
+        }
     }
 
     /**
@@ -49,34 +102,98 @@ public class Is_Mcts_Node_Schnapsen {
      */
     public Is_Mcts_Node_Schnapsen findChildWithAction(SchnapsenAction action) {
         if (action == null) return null;
+        return findChildWithActionId(Action_Ids_Schnapsen.idOf(action));
+    }
+
+    /**
+     * Returns the child whose parentAction has the passed action id
+     * @param id the dense id of the action
+     * @return the child with this action id. Null if no child was found
+     */
+    public Is_Mcts_Node_Schnapsen findChildWithActionId(int id) {
+        if ((childMask & Action_Ids_Schnapsen.bitOf(id)) == 0) {
+            return null;
+        }
         for (Is_Mcts_Node_Schnapsen child : childNodes) {
-            if(child.getParentAction().equals(action)) {
+            if (child.actionId == id) {
                 return child;
             }
         }
         return null;
     }
 
+    /**
+     * Removes all children whose action is not part of the passed action mask
+     * @param availableMask the bitmask of the ids of the actions that are still available
+     * @return the number of removed children
+     */
+    public synchronized int pruneChildren(long availableMask) {
+        int childrenBeforePruning = this.childNodes.size();
+        this.childNodes.removeIf(child -> (availableMask & Action_Ids_Schnapsen.bitOf(child.actionId)) == 0);
+        this.childMask &= availableMask;
+        return childrenBeforePruning - this.childNodes.size();
+    }
+
+    /**
+     * Returns the action ids of all children of this node
+     * @return a bitmask of the children's action ids
+     */
+    public long getChildMask() {
+        return childMask;
+    }
+
     /**
      * This returns the number of visitations of the node
      * @return int representing the visitation number
      */
     public int getVisitations() {
-        return visitations;
+        return (int) VISITATIONS.getOpaque(this);
     }
 
     /**
      * Used to increase the visitation score of this node
      */
     public void incrementVisitations() {
-        this.visitations++;
+        VISITATIONS.getAndAdd(this, 1);
     }
 
     /**
      * Used to increase the amount of visitations of this node
      */
     public void incrementAvailabilityCount() {
-        this.availabilityCount++;
+        AVAILABILITY_COUNT.getAndAdd(this, 1);
+    }
+
+    /**
+     * Marks that a thread descends through this node, which makes the node less attractive for the other threads until the playout is backpropagated
+     */
+    public void addVirtualLoss() {
+        VIRTUAL_LOSS.getAndAdd(this, 1);
+    }
+
+    /**
+     * Removes the mark of a thread that descended through this node after its score was backpropagated
+     */
+    public void removeVirtualLoss() {
+        VIRTUAL_LOSS.getAndAdd(this, -1);
+    }
+
+    /**
+     * Returns the amount of threads that are currently descending through this node
+     * @return int representing the virtual losses of this node
+     */
+    public int getVirtualLoss() {
+        return (int) VIRTUAL_LOSS.getOpaque(this);
+    }
+
+    /**
+     * Adds the statistics of another node for the same action to this node, which is used to merge trees of parallel searches
+     * @param otherNode a node of another tree with the same parentAction
+     */
+    public void mergeStatistics(Is_Mcts_Node_Schnapsen otherNode) {
+        VISITATIONS.getAndAdd(this, otherNode.getVisitations());
+        addScore(otherNode.getScore());
+        AVAILABILITY_COUNT.getAndAdd(this, otherNode.getAvailabilityCount());
     }
 
     /**
@@ -84,7 +201,7 @@ public class Is_Mcts_Node_Schnapsen {
      * @return a double representing the scores of this node
      */
     public double getScore() {
-        return score;
+        return (double) SCORE.getOpaque(this);
     }
 
     /**
@@ -92,7 +209,11 @@ public class Is_Mcts_Node_Schnapsen {
      * @param score to be added to the nodes score
      */
     public void addScore(double score) {
-        this.score += score;
+        //there is no atomic add for doubles, therefore we retry until no other thread changed the score in between
+        double currentScore;
+        do {
+            currentScore = (double) SCORE.getVolatile(this);
+        } while (!SCORE.compareAndSet(this, currentScore, currentScore + score));
     }
 
     /**
@@ -128,11 +249,19 @@ public class Is_Mcts_Node_Schnapsen {
         return parentAction;
     }
 
+    /**
+     * Returns the dense id of the action that led to this node's game state
+     * @return the id of the parentAction, -1 for a root node
+     */
+    public int getActionId() {
+        return actionId;
+    }
+
     /**
      * Returns the amount that this node has been available
      * @return int representing the availability count of this node
      */
     public int getAvailabilityCount() {
-        return availabilityCount;
+        return (int) AVAILABILITY_COUNT.getOpaque(this);
     }
 }
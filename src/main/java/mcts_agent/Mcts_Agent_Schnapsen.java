@@ -3,13 +3,23 @@ package mcts_agent;
 import at.ac.tuwien.ifs.sge.agent.AbstractGameAgent;
 import at.ac.tuwien.ifs.sge.agent.GameAgent;
 import at.ac.tuwien.ifs.sge.engine.Logger;
-import at.ac.tuwien.ifs.sge.util.Util;
 import game.Schnapsen;
 import game.action.SchnapsenAction;
-import game.board.PlayingCard;
 import game.board.SchnapsenBoard;
+import shared_schnapsen.Action_Ids_Schnapsen;
+import shared_schnapsen.Agent_Turn_Schnapsen;
+import shared_schnapsen.Card_Bits_Schnapsen;
+import shared_schnapsen.Determinizer_Schnapsen;
+import shared_schnapsen.Playout_Policy_Schnapsen;
+import shared_schnapsen.Playout_State_Schnapsen;
+import shared_schnapsen.Root_Statistics_Schnapsen;
+import shared_schnapsen.Search_Profiler_Schnapsen;
+import shared_schnapsen.Talon_Closing_Schnapsen;
+import shared_schnapsen.Time_Manager_Schnapsen;
+import shared_schnapsen.Unreachable_Visits_Rule_Schnapsen;
 
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 public class Mcts_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, SchnapsenAction> implements GameAgent<Schnapsen, SchnapsenAction> {
@@ -21,6 +31,26 @@ public class Mcts_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schnapsen
     private double oldUtilityPlayer0;
     private double oldUtilityPlayer1;
 
+    //These objects are re-used by every playout, so that the simulation phase does not allocate
+    private final Playout_State_Schnapsen playoutState = new Playout_State_Schnapsen();
+    private final int[] pileOrder = new int[Card_Bits_Schnapsen.DECK_SIZE];
+    private int pileOrderLength;
+
+    //The deadline, time management, move statistics and talon closing around every turn
+    private final Agent_Turn_Schnapsen turn = new Agent_Turn_Schnapsen(getClass().getSimpleName(), new Unreachable_Visits_Rule_Schnapsen());
+    //Who closed the talon of the current round, the board does not tell it and the playouts need it for the result of a closed round
+    private final Talon_Closing_Schnapsen talonClosing = turn.getTalonClosing();
+    //The closing of the talon of the simulated node, a closing in the tree is taken from the path to it
+    private final Talon_Closing_Schnapsen nodeClosing = new Talon_Closing_Schnapsen();
+
+    //Splits the time of every search into its phases, disabled unless switched on with setProfiling or the system property
+    private final Search_Profiler_Schnapsen profiler = new Search_Profiler_Schnapsen();
+
+    //Stops the search of easy or settled moves before the deadline, and of every move whose most visited action can no longer be overtaken
+    private final Time_Manager_Schnapsen timeManager = turn.getTimeManager();
+    //The root statistics collected at the checkpoints of the time manager
+    private final Root_Statistics_Schnapsen rootStatistics = new Root_Statistics_Schnapsen();
+
     /**
      * Constructor for the Strategy Game Engine
      * @param log a logger object passed by the engine
@@ -38,16 +68,28 @@ public class Mcts_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schnapsen
 
     /**
      * This method will be called by the engine everytime the agent has its turn.
-     * In this method the agent looks at one possible determinization and runs an MCTS algorithm on it
      * @param schnapsen the games state as given by the engine (may include hidden information)
      * @param l the maximum available time the agent is allowed to take to think about its next action
      * @param timeUnit the unit in which the l parameter is measured
-     * @return a  SchnapsenAction chosen from the agents available ones after determinizing the imperfect information once and running a UCT algorithm
+     * @return the SchnapsenAction chosen by searchNextAction
      */
     @Override
     public SchnapsenAction computeNextAction(Schnapsen schnapsen, long l, TimeUnit timeUnit) {
+        return turn.play(schnapsen, playerId, timeUnit.toNanos(l), () -> searchNextAction(schnapsen, l, timeUnit));
+    }
+
+    /**
+     * This method is called by computeNextAction everytime the agent has its turn.
+     * In this method the agent looks at one possible determinization and runs an MCTS algorithm on it
+     * @param schnapsen the games state as given by the engine (may include hidden information)
+     * @param l the maximum available time the agent is allowed to take to think about its next action
+     * @param timeUnit the unit in which the l parameter is measured
+     * @return a  SchnapsenAction chosen from the agents available ones after determinizing the imperfect information once and running a UCT algorithm
+     */
+    private SchnapsenAction searchNextAction(Schnapsen schnapsen, long l, TimeUnit timeUnit) {
 
         SchnapsenBoard board = schnapsen.getBoard();
+        turn.observeTurn(board, playerId);
         Set<SchnapsenAction> availableActions = schnapsen.getPossibleActions();
 
         //single choice actions can be returned immediately
@@ -57,18 +99,24 @@ public class Mcts_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schnapsen
 
         //This method is provided by the AbstractGame interface and used to track remaining computation time with shouldStopComputation()
         setTimers(l,  timeUnit);
+        turn.startSearch(board, availableActions, START_TIME, TIMEOUT, timeUnit.toNanos(l));
+        profiler.startMove();
+        Search_Profiler_Schnapsen.Recorder recorder = profiler.getRecorder();
+        recorder.start();
 
         //set the utility values for end of round check in simulations
         oldUtilityPlayer0 = schnapsen.getUtilityValue(0);
         oldUtilityPlayer1 = schnapsen.getUtilityValue(1);
 
-        //This list is a one time generation of the cards in the game, setting the boolean on trump card to true if suit matches
-        List<PlayingCard> deckOfCards = generateFullDeck(board.getTrumpCard().getSuit());
+        //The determinizer collects the known information of the board once, setting the boolean on trump cards to true if suit matches
+        Determinizer_Schnapsen determinizer = new Determinizer_Schnapsen(board, playerId);
+        pileOrderLength = determinizer.getCardsLeftInPile();
 
         //This board is a new board based on the newly generated Information, which does not include any more hidden Information and is therefore playable
-        SchnapsenBoard generatedBoard = generateMissingInformation(board, deckOfCards);
+        SchnapsenBoard generatedBoard = determinizer.generateMissingInformation(ThreadLocalRandom.current(), pileOrder);
         //We also need to generate a new Schnapsen object with the new board
         Schnapsen generatedSchnapsen = new Schnapsen(generatedBoard);
+        recorder.lap(Search_Profiler_Schnapsen.DETERMINIZATION);
 
         //The root node used to track the tree
         Mcts_Node_Schnapsen rootNode = new  Mcts_Node_Schnapsen(null, null, generatedSchnapsen);
@@ -78,13 +126,26 @@ public class Mcts_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schnapsen
         //starting the MCTS Algorithm -> it will run as long as possible (given the time constraint)
         while(!shouldStopComputation())
         {
+            recorder.start();
             Mcts_Node_Schnapsen selectedNode = selectNode(rootNode);
+            recorder.lap(Search_Profiler_Schnapsen.SELECTION);
             Mcts_Node_Schnapsen expandedNode = expandNode(selectedNode);
-            double simulationScore = simulateNode(expandedNode);
-            backPropagateNode(expandedNode, simulationScore);
+            recorder.lap(Search_Profiler_Schnapsen.EXPANSION);
+            double simulationScore = simulateNode(expandedNode, recorder);
+            recorder.lap(Search_Profiler_Schnapsen.SIMULATION);
+            int pathLength = backPropagateNode(expandedNode, simulationScore);
+            recorder.lap(Search_Profiler_Schnapsen.BACKPROPAGATION);
+            recorder.recordIteration(pathLength - 1, expandedNode != selectedNode);
             iteration++;
+            if(timeManager.isCheckpointDue()) {
+                reportCheckpoint(rootNode, iteration);
+            }
         }
         log._debugf("MCTS completed %d iterations", iteration);
+        turn.setMoveIterations(iteration);
+        if(profiler.isEnabled()) {
+            log.info(profiler.getReport("MCTS"));
+        }
 
         //finding out which action was the best and returning it, based on the most robust child:
         //The child with the most visits
@@ -120,36 +181,112 @@ public class Mcts_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schnapsen
         return bestAction;
     }
 
+    /**
+     * Reports the most visited root action and the root statistics to the time manager
+     * @param rootNode the root of the searched tree
+     * @param playouts the playouts of this move so far
+     */
+    private void reportCheckpoint(Mcts_Node_Schnapsen rootNode, long playouts) {
+        rootStatistics.clear();
+        for(Mcts_Node_Schnapsen child : rootNode.getChildNodes()) {
+            rootStatistics.add(Action_Ids_Schnapsen.idOf(child.getParentAction()), child.getVisitations(), child.getScore(), Double.NaN);
+        }
+        int best = rootStatistics.getMostVisited();
+        timeManager.checkpoint(best < 0 ? -1 : rootStatistics.getActionId(best), rootStatistics, playouts);
+    }
+
+    /**
+     * Switches the search profiler on or off, an enabled profiler logs the time and allocations of every phase after each move
+     * @param profiling true to profile the following moves
+     */
+    public void setProfiling(boolean profiling) {
+        profiler.setEnabled(profiling);
+    }
+
+    /**
+     * The search stops at the deadline of the turn, which leaves room for the wind-down of the move
+     * @return true if the search has to stop
+     */
+    @Override
+    protected boolean shouldStopComputation() {
+        return turn.shouldStop();
+    }
+
+    /**
+     * The move statistics are exported when the match is over
+     */
+    @Override
+    public void tearDown() {
+        turn.tearDown(playerId, log);
+    }
+
+    /**
+     * The move statistics are exported when the agent is destroyed
+     */
+    @Override
+    public void destroy() {
+        tearDown();
+    }
+
     /**
      * This method uses the score of the simulation and adds it to the nodes score. The visitation counter is also incremented.
      * This is repeated for all the nodes parents to update all involved nodes accordingly
      * @param expandedNode the node which was last expanded and received the simulationScore
      * @param simulationScore the score of the playout simulation for this node
+     * @return the number of updated nodes, which is the depth of the expanded node plus one
      */
-    private void backPropagateNode(Mcts_Node_Schnapsen expandedNode, double simulationScore) {
+    private int backPropagateNode(Mcts_Node_Schnapsen expandedNode, double simulationScore) {
+        int pathLength = 0;
         Mcts_Node_Schnapsen propagationNode = expandedNode;
         while (propagationNode != null) {
+            pathLength++;
             propagationNode.incrementVisitations();
             propagationNode.addScore(simulationScore);
             propagationNode = propagationNode.getParentNode();
         }
+        return pathLength;
     }
 
     /**
-     * This method uses the expandedNode to simulate a complete playthrough till the end of the current round, end of game or the end of calculation time budget
+     * This method uses the expandedNode to simulate a complete playthrough till the end of the current round, end of game or the end of calculation time budget.
+     * The playout runs on a mutable bitmask state, which applies the moves in place instead of copying the game for every move.
      * @param expandedNode the last expanded node
+     * @param recorder the profiler recorder, which receives the length of the playout
      * @return a score in the range of 0 and 1, where 1 is a win and 0 is a loss. In between scores represent the score difference to the opposing player in an ongoing round
      */
-    private double simulateNode(Mcts_Node_Schnapsen expandedNode) {
-        //randomly play actions until game or round is over
+    private double simulateNode(Mcts_Node_Schnapsen expandedNode, Search_Profiler_Schnapsen.Recorder recorder) {
         Schnapsen currentGame = expandedNode.getGame();
-        while(!shouldStopComputation() && !currentGame.isGameOver() && !isRoundOver(currentGame)) {
-            Set<SchnapsenAction> possibleActions = currentGame.getPossibleActions();
-            SchnapsenAction action = Util.selectRandom(possibleActions);
-            currentGame = (Schnapsen) currentGame.doAction(action);
+        //a leaf does not need a playout
+        if(currentGame.isGameOver() || isRoundOver(currentGame)) {
+            return simulationScore(currentGame);
         }
 
-        return simulationScore(currentGame);
+        //randomly play moves until the round is over
+        playoutState.loadFrom(currentGame, pileOrder, pileOrderLength, closingOf(expandedNode));
+        Random random = ThreadLocalRandom.current();
+        while(!shouldStopComputation() && !playoutState.isRoundOver()) {
+            playoutState.applyMove(Playout_Policy_Schnapsen.randomMove(playoutState, random));
+        }
+        recorder.recordPlayout(playoutState.getMovesApplied());
+
+        return playoutState.getScore(playerId);
+    }
+
+    /**
+     * Finds the closing of the talon of a node, which is the closing of the round or a closing on the path from the root to the node
+     * @param node the node of the tree
+     * @return the closing of the game of the node, it is overwritten by the next call
+     */
+    private Talon_Closing_Schnapsen closingOf(Mcts_Node_Schnapsen node) {
+        nodeClosing.copyFrom(talonClosing);
+        for(Mcts_Node_Schnapsen child = node; child.getParentNode() != null; child = child.getParentNode()) {
+            if(Action_Ids_Schnapsen.idOf(child.getParentAction()) == Playout_State_Schnapsen.MOVE_CLOSE_TALON) {
+                Schnapsen parentGame = child.getParentNode().getGame();
+                nodeClosing.observeAction(parentGame.getCurrentPlayer(), parentGame.getBoard(), child.getParentAction());
+                break;
+            }
+        }
+        return nodeClosing;
     }
 
     /**
@@ -275,209 +412,6 @@ public class Mcts_Agent_Schnapsen extends AbstractGameAgent<Schnapsen, Schnapsen
         return  exploitationPart + explorationPart;
     }
 
-    /**
-     * This method takes all available information of the given board and randomizes the unknown cards into the drafting pile and opposing players hand
-     * @param board the actual game board with hidden information
-     * @return a new deep copied board with the given information and randomized cards for all unknown cards in the pile and opposing players hand
-     */
-    private SchnapsenBoard generateMissingInformation(SchnapsenBoard board, List<PlayingCard> cachedDeck) {
-        List<PlayingCard> unknownCards = new ArrayList<>(cachedDeck);
-        //Getting the players hand and all the marriage cards declared by the other player
-        List<PlayingCard> playerCards = new ArrayList<>();
-        List<PlayingCard> marriageCards = new ArrayList<>();
-        List<PlayingCard> otherPlayersCards = new ArrayList<>();
-        if(playerId == 0)
-        {
-            playerCards = board.getPlayer0Cards();
-            marriageCards = board.getPlayer1Marriages();
-        } else {
-            playerCards = board.getPlayer1Cards();
-            marriageCards = board.getPlayer0Marriages();
-        }
-
-        //Getting the trumpCard and the leading card
-        PlayingCard trumpCard = board.getTrumpCard();
-        PlayingCard leadingCard = board.getLeadingCard();
-
-        //Checking if there was an exchange of trumps
-        PlayingCard oldTrumpCard = board.getOldTrumpCard();
-
-        //Getting already played cards
-        List<PlayingCard> trickCards = new ArrayList<>();
-        List<PlayingCard[]> player0Tricks = board.getPlayer0Tricks();
-        List<PlayingCard[]> player1Tricks = board.getPlayer1Tricks();
-
-        //Getting both players cards that have been taken in a past trick
-        for(PlayingCard[] trick: player0Tricks){
-            trickCards.add(trick[0]);
-            trickCards.add(trick[1]);
-        }
-        for(PlayingCard[] trick: player1Tricks){
-            trickCards.add(trick[0]);
-            trickCards.add(trick[1]);
-        }
-
-        //Check if "exchanged" trump card has been played
-        //(if not, check if they are in the opposing players hand == not in my hand)
-        if(oldTrumpCard != null) {
-
-            boolean isLeading = (leadingCard != null && leadingCard.equals(oldTrumpCard));
-
-            if (!trickCards.contains(oldTrumpCard) && !isLeading) {
-                if (!playerCards.contains(oldTrumpCard)) {
-                    otherPlayersCards.add(oldTrumpCard);
-                }
-            }
-        }
-
-        //check if opposing player played all of their declared marriageCards
-        for(PlayingCard marriageCard: marriageCards){
-
-            boolean isLeading =  (leadingCard != null && leadingCard.equals(marriageCard));
-
-            if(!trickCards.contains(marriageCard) && !isLeading && !otherPlayersCards.contains(marriageCard)) {
-                otherPlayersCards.add(marriageCard);
-            }
-        }
-
-        //Reduce the number of unknown Cards by all findings
-
-        //Remove players cards
-
-        unknownCards.removeAll(playerCards);
-
-        //Remove trumpCard
-        unknownCards.remove(trumpCard);
-
-        //Remove leadingCard
-        if(leadingCard != null) {
-            unknownCards.remove(leadingCard);
-        }
-
-        //Remove all of otherPlayers cards
-        unknownCards.removeAll(otherPlayersCards);
-
-        //Remove already played cards
-        unknownCards.removeAll(trickCards);
-
-
-        //Fill up all the hidden card-slots with random available cards
-
-        //shuffle the unknown cards
-        Collections.shuffle(unknownCards);
-
-        int numberOfHandCards = playerCards.size();
-        int numberOfOtherPlayersHandCards = numberOfHandCards;
-        int cardsLeftInPile = board.playingCardsLeftInPile();
-
-        //other player has one Card less, because they led the trick
-        if(leadingCard != null) {
-            numberOfOtherPlayersHandCards--;
-        }
-
-        //first fill up the playingCardPile
-        LinkedList<PlayingCard> playingCardPile = new LinkedList<>();
-
-
-        for (int i = 0; i < cardsLeftInPile-1; i++) {
-            playingCardPile.add(unknownCards.removeFirst());
-        }
-
-        // Add trumpCard as last if pile was not empty yet
-        if(cardsLeftInPile > 0) {
-            playingCardPile.addLast(trumpCard);
-        } else {
-            boolean inMyHand = playerCards.contains(trumpCard);
-            boolean inTricks = trickCards.contains(trumpCard);
-            boolean isLeading = (leadingCard != null && leadingCard.equals(trumpCard));
-            boolean alreadyAdded = otherPlayersCards.contains(trumpCard);
-
-            if(!inMyHand && !inTricks && !isLeading && !alreadyAdded) {
-                otherPlayersCards.add(trumpCard);
-            }
-        }
-
-        //the remaining cards should fit into the opponents hand
-        if((otherPlayersCards.size() + unknownCards.size()) != numberOfOtherPlayersHandCards) {
-            throw new IllegalStateException("Calculated wrong: Opponent has " +
-                    (otherPlayersCards.size() + unknownCards.size()) +
-                    " but should have " + numberOfOtherPlayersHandCards);
-        } else {
-            otherPlayersCards.addAll(unknownCards);
-        }
-
-        //create a board based on the findings and randomly assumed cards
-        SchnapsenBoard filledBoard;
-        if(playerId == 0) {
-            filledBoard = new SchnapsenBoard(board, playerCards, otherPlayersCards, playingCardPile);
-        } else {
-            filledBoard = new SchnapsenBoard(board, otherPlayersCards, playerCards, playingCardPile);
-        }
-
-        return filledBoard;
-    }
-
-    /**
-     * This method is used to generate a full deck. The trump suit is used to set the trump status for cards with matching suits
-     * @param trumpSuit the trump suit of the current round
-     * @return a complete deck of cards with correctly set cards of trump status
-     */
-    private List<PlayingCard> generateFullDeck(SchnapsenBoard.cardSuits trumpSuit) {
-        //creating and filling a list with of all not known cards
-        LinkedList<PlayingCard> deckOfCards = new LinkedList<>();
-
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.SPADES, SchnapsenBoard.cardNames.JackOfSpades, 2));
-        //Adding possible marriages to the spades cards
-        PlayingCard queenSpades = new PlayingCard(SchnapsenBoard.cardSuits.SPADES, SchnapsenBoard.cardNames.QueenOfSpades, 3);
-        PlayingCard kingSpades = new PlayingCard(SchnapsenBoard.cardSuits.SPADES, SchnapsenBoard.cardNames.KingOfSpades, 4);
-        queenSpades.setPossibleMarriage(kingSpades);
-        kingSpades.setPossibleMarriage(queenSpades);
-        deckOfCards.add(queenSpades);
-        deckOfCards.add(kingSpades);
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.SPADES, SchnapsenBoard.cardNames.TenOfSpades, 10));
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.SPADES, SchnapsenBoard.cardNames.AceOfSpades, 11));
-
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.HEARTS, SchnapsenBoard.cardNames.JackOfHearts, 2));
-        //Adding possible marriages to the hearts cards
-        PlayingCard queenHearts = new PlayingCard(SchnapsenBoard.cardSuits.HEARTS, SchnapsenBoard.cardNames.QueenOfHearts, 3);
-        PlayingCard kingHearts = new PlayingCard(SchnapsenBoard.cardSuits.HEARTS, SchnapsenBoard.cardNames.KingOfHearts, 4);
-        queenHearts.setPossibleMarriage(kingHearts);
-        kingHearts.setPossibleMarriage(queenHearts);
-        deckOfCards.add(queenHearts);
-        deckOfCards.add(kingHearts);
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.HEARTS, SchnapsenBoard.cardNames.TenOfHearts, 10));
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.HEARTS, SchnapsenBoard.cardNames.AceOfHearts, 11));
-
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.DIAMONDS, SchnapsenBoard.cardNames.JackOfDiamonds, 2));
-        //Adding possible marriages to the hearts cards
-        PlayingCard queenDiamonds = new PlayingCard(SchnapsenBoard.cardSuits.DIAMONDS, SchnapsenBoard.cardNames.QueenOfDiamonds, 3);
-        PlayingCard kingDiamonds = new PlayingCard(SchnapsenBoard.cardSuits.DIAMONDS, SchnapsenBoard.cardNames.KingOfDiamonds, 4);
-        queenDiamonds.setPossibleMarriage(kingDiamonds);
-        kingDiamonds.setPossibleMarriage(queenDiamonds);
-        deckOfCards.add(queenDiamonds);
-        deckOfCards.add(kingDiamonds);
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.DIAMONDS, SchnapsenBoard.cardNames.TenOfDiamonds, 10));
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.DIAMONDS, SchnapsenBoard.cardNames.AceOfDiamonds, 11));
-
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.CLUBS, SchnapsenBoard.cardNames.JackOfClubs, 2));
-        //Adding possible marriages to the hearts cards
-        PlayingCard queenClubs = new PlayingCard(SchnapsenBoard.cardSuits.CLUBS, SchnapsenBoard.cardNames.QueenOfClubs, 3);
-        PlayingCard kingClubs = new PlayingCard(SchnapsenBoard.cardSuits.CLUBS, SchnapsenBoard.cardNames.KingOfClubs, 4);
-        queenClubs.setPossibleMarriage(kingClubs);
-        kingClubs.setPossibleMarriage(queenClubs);
-        deckOfCards.add(queenClubs);
-        deckOfCards.add(kingClubs);
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.CLUBS, SchnapsenBoard.cardNames.TenOfClubs, 10));
-        deckOfCards.add(new PlayingCard(SchnapsenBoard.cardSuits.CLUBS, SchnapsenBoard.cardNames.AceOfClubs, 11));
-
-        for(PlayingCard card :  deckOfCards){
-            if(trumpSuit == card.getSuit()){
-                card.setIsTrumpSuit(true);
-            }
-        }
-        return deckOfCards;
-    }
-
     /**
      * This check is used to find out if since the last action taken a new round has started on the board.
      * This is used to not simulate into new rounds as the new round shuffles new cards,
@@ -0,0 +1,145 @@
+package shared_schnapsen;
+
+import game.action.SchnapsenAction;
+import game.board.PlayingCard;
+import game.board.SchnapsenBoard;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public final class Action_Ids_Schnapsen {
+
+    //The action ids are the move encoding of the playout state: a card index, a card index plus 20 for a marriage, exchanging the trump and closing the talon
+    public static final int NUMBER_OF_ACTIONS = Playout_State_Schnapsen.NUMBER_OF_MOVES;
+
+    //The actions of the engine do not expose their card, therefore the id is parsed from the string of the action once and cached afterward.
+    //The string contract, which Action_Ids_Test_Schnapsen checks: an action names its card with the string of the PlayingCard, a marriage contains
+    //"Marriage", the trump exchange "Exchange" and closing the talon "close" in any case and no card
+    //The string of a card may depend on whether its suit is trump, the distinct strings of all trump suits are searched once per action
+    private static final String[] CARD_NAMES;
+    //The card of every name, AMBIGUOUS_NAME if the same string names different cards depending on the trump suit
+    private static final int[] CARD_NAME_IDS;
+    private static final int AMBIGUOUS_NAME = -2;
+    private static final Map<SchnapsenAction, Integer> CACHED_IDS = new ConcurrentHashMap<>();
+    //The reverse table of idOf, the first action seen with an id stands for all equal actions
+    private static final AtomicReferenceArray<SchnapsenAction> ACTIONS_BY_ID = new AtomicReferenceArray<>(NUMBER_OF_ACTIONS);
+
+    //Actions are equal across determinizations, the limit only protects against actions without value based equality
+    private static final int MAX_CACHED_IDS = 4 * NUMBER_OF_ACTIONS;
+
+    static {
+        Map<String, Integer> cardNames = new LinkedHashMap<>();
+        for (SchnapsenBoard.cardSuits trumpSuit : SchnapsenBoard.cardSuits.values()) {
+            PlayingCard[] deckOfCards = Card_Bits_Schnapsen.generateFullDeck(trumpSuit);
+            for (int card = 0; card < Card_Bits_Schnapsen.DECK_SIZE; card++) {
+                cardNames.merge(deckOfCards[card].toString(), card, (known, other) -> known.equals(other) ? known : AMBIGUOUS_NAME);
+            }
+        }
+        CARD_NAMES = cardNames.keySet().toArray(new String[0]);
+        CARD_NAME_IDS = cardNames.values().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private Action_Ids_Schnapsen() {
+    }
+
+    /**
+     * Returns the dense id of an action, which is the same for equal actions of different game states
+     * @param action an action of the engine
+     * @return the id of the action in the range of 0 to NUMBER_OF_ACTIONS - 1
+     * @throws IllegalArgumentException if the action can not be recognized from its string
+     */
+    public static int idOf(SchnapsenAction action) {
+        Integer cachedId = CACHED_IDS.get(action);
+        if (cachedId != null) {
+            return cachedId;
+        }
+        int id = parseId(action.toString());
+        if (CACHED_IDS.size() < MAX_CACHED_IDS) {
+            CACHED_IDS.put(action, id);
+        }
+        ACTIONS_BY_ID.compareAndSet(id, null, action);
+        return id;
+    }
+
+    /**
+     * Returns an action of an id, the reverse of idOf. Actions are equal across game states, so the returned action can be applied to every
+     * state in which an action with this id is possible.
+     * @param id the id of the action
+     * @return the first action whose id was requested with idOf, null if no action with this id was seen yet
+     */
+    public static SchnapsenAction actionOf(int id) {
+        return ACTIONS_BY_ID.get(id);
+    }
+
+    /**
+     * Returns the bit of an action id in an action mask
+     * @param id the id of the action
+     * @return the bitmask containing only this action
+     */
+    public static long bitOf(int id) {
+        return 1L << id;
+    }
+
+    /**
+     * Converts a set of actions, for example the possible actions of a game, into a bitmask of their ids
+     * @param actions the actions to be converted
+     * @return a bitmask where the id of each action is set
+     */
+    public static long toMask(Collection<SchnapsenAction> actions) {
+        long mask = 0L;
+        for (SchnapsenAction action : actions) {
+            mask |= 1L << idOf(action);
+        }
+        return mask;
+    }
+
+    /**
+     * Parses the id from the string of an action. The trump exchange, closing the talon and marriages are named in the string,
+     * every action except closing the talon contains the played card. If several cards are named (a marriage may name both cards), the first one is used.
+     * Each distinct card string is searched once, which is at most 80 scans for an action that is not cached yet.
+     * @param actionString the string of the action
+     * @return the id of the action
+     * @throws IllegalArgumentException if the string names no known action, or a card whose name depends on the trump suit
+     */
+    static int parseId(String actionString) {
+        if (actionString.contains("Exchange")) {
+            return Playout_State_Schnapsen.MOVE_EXCHANGE_TRUMP;
+        }
+
+        int playedCard = -1;
+        int firstPosition = Integer.MAX_VALUE;
+        int firstLength = 0;
+        for (int name = 0; name < CARD_NAMES.length; name++) {
+            int position = actionString.indexOf(CARD_NAMES[name]);
+            //of two names at the same position the longer one is the card, the shorter one is only its prefix
+            if (position < 0 || position > firstPosition || (position == firstPosition && CARD_NAMES[name].length() <= firstLength)) {
+                continue;
+            }
+            playedCard = CARD_NAME_IDS[name];
+            firstPosition = position;
+            firstLength = CARD_NAMES[name].length();
+        }
+        if (playedCard == AMBIGUOUS_NAME) {
+            throw new IllegalArgumentException("Action names a card whose name depends on the trump suit: " + actionString);
+        }
+
+        boolean closesTalon = actionString.toLowerCase(Locale.ROOT).contains("close");
+        if (playedCard < 0) {
+            if (closesTalon) {
+                return Playout_State_Schnapsen.MOVE_CLOSE_TALON;
+            }
+            throw new IllegalArgumentException("Unknown action: " + actionString);
+        }
+        if (closesTalon) {
+            throw new IllegalArgumentException("Action names a card and closing the talon: " + actionString);
+        }
+        if (actionString.contains("Marriage")) {
+            return Playout_State_Schnapsen.MOVE_MARRIAGE_OFFSET + playedCard;
+        }
+        return playedCard;
+    }
+}
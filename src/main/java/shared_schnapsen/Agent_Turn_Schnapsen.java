@@ -0,0 +1,155 @@
+package shared_schnapsen;
+
+import at.ac.tuwien.ifs.sge.engine.Logger;
+import game.Schnapsen;
+import game.action.SchnapsenAction;
+import game.board.SchnapsenBoard;
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+public final class Agent_Turn_Schnapsen {
+
+    //Stops the search early enough to leave the measured wind-down of the move before the computation time is over
+    private final Deadline_Controller_Schnapsen deadline = new Deadline_Controller_Schnapsen();
+    //Stops the search of easy or settled moves before the deadline, and of moves the stopping rule of the agent finds decided
+    private final Time_Manager_Schnapsen timeManager;
+    //Latency, slack and iterations of every move, exported as CSV and JSON when the match is torn down
+    private final Move_Statistics_Schnapsen moveStatistics;
+    //Who closed the talon of the current round, the board does not tell it and the searches need it for the result of a closed round
+    private final Talon_Closing_Schnapsen talonClosing = new Talon_Closing_Schnapsen();
+    //The iterations, sampled worlds or searched nodes of the current move
+    private long moveIterations;
+
+    /**
+     * Creates the turn bookkeeping of one agent
+     * @param agentName the name used for the exported move statistics
+     * @param stoppingRule the rule that stops a move once its best action is decided, null if the agent has none
+     */
+    public Agent_Turn_Schnapsen(String agentName, Stopping_Rule_Schnapsen stoppingRule) {
+        this.timeManager = new Time_Manager_Schnapsen(deadline, stoppingRule);
+        this.moveStatistics = new Move_Statistics_Schnapsen(agentName);
+    }
+
+    /**
+     * Reports an endgame tablebase that could not be loaded, once the agent is set up for a match
+     * @param log the logger of the agent, null if it was built without one
+     */
+    public void setUp(Logger log) {
+        if (log != null) {
+            Endgame_Tablebase_Schnapsen.reportShared(log);
+        }
+    }
+
+    /**
+     * Plays one turn of the agent: the deadline is started before the search and finished after it, the chosen action is shown to the
+     * talon closing, and the latency, iterations, stop reason and the cause of a missed deadline are recorded in the move statistics
+     * @param schnapsen the games state as given by the engine
+     * @param playerId the id of the agent's player
+     * @param budgetNanos the computation time the engine gave the agent
+     * @param search the search of the agent, which returns the chosen action
+     * @return the action returned by the search
+     */
+    public SchnapsenAction play(Schnapsen schnapsen, int playerId, long budgetNanos, Supplier<SchnapsenAction> search) {
+        long moveStart = System.nanoTime();
+        moveIterations = 0;
+        deadline.startMove(moveStart, budgetNanos);
+        SchnapsenAction action = search.get();
+        talonClosing.observeAction(playerId, schnapsen.getBoard(), action);
+        Deadline_Controller_Schnapsen.Miss_Cause missCause = deadline.finishMove();
+        long latency = System.nanoTime() - moveStart;
+        moveStatistics.recordMove(latency, budgetNanos, moveIterations);
+        if (missCause != null) {
+            moveStatistics.recordMissCause(missCause);
+        }
+        moveStatistics.recordStop(timeManager.finishMove(), latency, budgetNanos);
+        return action;
+    }
+
+    /**
+     * Observes the board at the start of the agent's turn, so that a closing of the talon by the opponent is noticed
+     * @param board the board of the agent's turn as given by the engine
+     * @param playerId the id of the agent's player
+     */
+    public void observeTurn(SchnapsenBoard board, int playerId) {
+        talonClosing.observeTurn(board, playerId);
+    }
+
+    /**
+     * Starts the time management of a move that has to be searched. The timeout of the engine limits the deadline,
+     * and the move is classified by its board and its available actions
+     * @param board the board of the agent's turn
+     * @param availableActions the actions the agent can choose from
+     * @param startNanos the start of the engine timers
+     * @param timeoutNanos the timeout of the engine timers, relative to their start
+     * @param budgetNanos the computation time the engine gave the agent
+     */
+    public void startSearch(SchnapsenBoard board, Set<SchnapsenAction> availableActions, long startNanos, long timeoutNanos, long budgetNanos) {
+        deadline.limitTo(startNanos + timeoutNanos);
+        timeManager.startMove(Time_Manager_Schnapsen.classify(board, Action_Ids_Schnapsen.toMask(availableActions)), startNanos, budgetNanos);
+    }
+
+    /**
+     * Checks the deadline of the controller, which leaves room for the wind-down of the move before the timeout of the engine
+     * @return true if the search has to stop
+     */
+    public boolean shouldStop() {
+        return deadline.shouldStop();
+    }
+
+    /**
+     * Marks that all workers of a parallel search returned, a missed deadline is then attributed to the join or to what followed it
+     */
+    public void markJoined() {
+        deadline.markJoined();
+    }
+
+    /**
+     * Marks that the trees of the root parallel workers were merged, a missed deadline is then attributed to the merge or to what followed it
+     */
+    public void markMerged() {
+        deadline.markMerged();
+    }
+
+    /**
+     * Exports the move statistics of the match and forgets the closing of the talon
+     * @param playerId the seat of the agent in the match
+     * @param log the logger of the agent, null if it was built without one
+     */
+    public void tearDown(int playerId, Logger log) {
+        moveStatistics.export(playerId, log);
+        talonClosing.clear();
+    }
+
+    /**
+     * Sets the iterations of the current move, recorded in the move statistics once the move is played
+     * @param moveIterations the iterations, sampled worlds or searched nodes of the move
+     */
+    public void setMoveIterations(long moveIterations) {
+        this.moveIterations = moveIterations;
+    }
+
+    /**
+     * Returns the iterations of the last move
+     * @return the iterations, sampled worlds or searched nodes of the move
+     */
+    public long getMoveIterations() {
+        return moveIterations;
+    }
+
+    /**
+     * Returns the time manager, whose checkpoints the search of the agent calls
+     * @return the time manager of the agent
+     */
+    public Time_Manager_Schnapsen getTimeManager() {
+        return timeManager;
+    }
+
+    /**
+     * Returns the closing of the talon in the current round, the searches copy it into their simulated states
+     * @return the talon closing of the agent
+     */
+    public Talon_Closing_Schnapsen getTalonClosing() {
+        return talonClosing;
+    }
+}
@@ -0,0 +1,54 @@
+package shared_schnapsen;
+
+public final class Bernstein_Rule_Schnapsen implements Stopping_Rule_Schnapsen {
+
+    private final double delta;
+
+    /**
+     * Creates the rule for searches that choose the action with the highest average score
+     * @param delta the probability of stopping on a wrong best action during a move, e.g. 0.01
+     */
+    public Bernstein_Rule_Schnapsen(double delta) {
+        this.delta = delta;
+    }
+
+    /**
+     * The action with the highest average is decided once its lower confidence bound lies above the upper bounds of all other actions.
+     * The bounds are the empirical Bernstein bounds of Maurer and Pontil for scores between 0 and 1, which shrink much faster than the Hoeffding bound
+     * when the scores of an action vary little. The confidence delta is split over all actions and all checkpoints of a move.
+     * @param root the statistics of the root actions at a checkpoint, with squared scores
+     * @param remainingPlayouts not needed, the bounds only depend on the playouts so far
+     * @return true if the best action is separated from all others
+     */
+    @Override
+    public boolean isDecided(Root_Statistics_Schnapsen root, long remainingPlayouts) {
+        int best = root.getBestMean();
+        if (best < 0 || root.size() < 2) {
+            return false;
+        }
+        double logTerm = Math.log(2.0 * root.size() * Time_Manager_Schnapsen.CHECKPOINTS / delta);
+        double bestLower = root.getMean(best) - radius(root, best, logTerm);
+        for (int i = 0; i < root.size(); i++) {
+            if (i != best && root.getMean(i) + radius(root, i, logTerm) >= bestLower) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the width of the confidence interval of an action
+     * @param root the statistics of the root actions
+     * @param index the index of the action
+     * @param logTerm the logarithm of the inverse split confidence
+     * @return the radius of the interval, infinite if the action has less than two playouts
+     */
+    private static double radius(Root_Statistics_Schnapsen root, int index, double logTerm) {
+        double variance = root.getVariance(index);
+        if (Double.isNaN(variance)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        long n = root.getVisits(index);
+        return Math.sqrt(2.0 * variance * logTerm / n) + 7.0 * logTerm / (3.0 * (n - 1));
+    }
+}
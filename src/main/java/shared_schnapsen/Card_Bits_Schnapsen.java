@@ -0,0 +1,207 @@
+package shared_schnapsen;
+
+import game.board.PlayingCard;
+import game.board.SchnapsenBoard;
+
+import java.util.List;
+
+public final class Card_Bits_Schnapsen {
+
+    //The Schnapsen deck has 20 cards, which fit into the lower bits of an int
+    public static final int DECK_SIZE = 20;
+    public static final int FULL_DECK = (1 << DECK_SIZE) - 1;
+
+    //Every suit has 5 cards, the rank index is ordered by strength (Jack, Queen, King, Ten, Ace)
+    public static final int CARDS_PER_SUIT = 5;
+    public static final int NUMBER_OF_SUITS = 4;
+
+    public static final int RANK_JACK = 0;
+    public static final int RANK_QUEEN = 1;
+    public static final int RANK_KING = 2;
+    public static final int RANK_TEN = 3;
+    public static final int RANK_ACE = 4;
+
+    //The points of a card indexed by its rank
+    private static final int[] RANK_POINTS = {2, 3, 4, 10, 11};
+
+    //The points of a card indexed by its card index
+    public static final int[] CARD_POINTS = new int[DECK_SIZE];
+
+    //The bitmask of all cards of a suit indexed by the suit index
+    public static final int[] SUIT_MASKS = new int[NUMBER_OF_SUITS];
+
+    static {
+        for (int card = 0; card < DECK_SIZE; card++) {
+            CARD_POINTS[card] = RANK_POINTS[rankOf(card)];
+        }
+        for (int suit = 0; suit < NUMBER_OF_SUITS; suit++) {
+            SUIT_MASKS[suit] = ((1 << CARDS_PER_SUIT) - 1) << (suit * CARDS_PER_SUIT);
+        }
+    }
+
+    private Card_Bits_Schnapsen() {
+    }
+
+    /**
+     * Returns the suit index of a card index
+     * @param card the card index in the range of 0 to 19
+     * @return the suit index in the range of 0 to 3
+     */
+    public static int suitOf(int card) {
+        return card / CARDS_PER_SUIT;
+    }
+
+    /**
+     * Returns the rank index of a card index, higher ranks beat lower ranks of the same suit
+     * @param card the card index in the range of 0 to 19
+     * @return the rank index in the range of 0 (Jack) to 4 (Ace)
+     */
+    public static int rankOf(int card) {
+        return card % CARDS_PER_SUIT;
+    }
+
+    /**
+     * Returns the card index for a suit and rank
+     * @param suit the suit index
+     * @param rank the rank index
+     * @return the card index in the range of 0 to 19
+     */
+    public static int cardOf(int suit, int rank) {
+        return suit * CARDS_PER_SUIT + rank;
+    }
+
+    /**
+     * Maps the suits of the board to the suit index used in the bitmasks.
+     * The order is the same as in the deck that is generated by generateFullDeck
+     * @param suit the suit of a card
+     * @return the suit index in the range of 0 to 3
+     */
+    public static int suitIndex(SchnapsenBoard.cardSuits suit) {
+        switch (suit) {
+            case SPADES:
+                return 0;
+            case HEARTS:
+                return 1;
+            case DIAMONDS:
+                return 2;
+            default:
+                return 3;
+        }
+    }
+
+    /**
+     * Maps the value of a card to its rank index. As each rank has a unique value in Schnapsen this is a bijection
+     * @param cardValue the value of the card (2, 3, 4, 10 or 11)
+     * @return the rank index in the range of 0 to 4
+     */
+    public static int rankIndex(int cardValue) {
+        switch (cardValue) {
+            case 2:
+                return RANK_JACK;
+            case 3:
+                return RANK_QUEEN;
+            case 4:
+                return RANK_KING;
+            case 10:
+                return RANK_TEN;
+            default:
+                return RANK_ACE;
+        }
+    }
+
+    /**
+     * Returns the card index of a playing card
+     * @param card the playing card of the board
+     * @return the card index in the range of 0 to 19
+     */
+    public static int cardIndex(PlayingCard card) {
+        return cardOf(suitIndex(card.getSuit()), rankIndex(card.getCardValue()));
+    }
+
+    /**
+     * Returns the bit of a single playing card, a missing card is represented by an empty mask
+     * @param card the playing card of the board, may be null
+     * @return the bitmask containing only this card or 0 if the card is null
+     */
+    public static int cardBit(PlayingCard card) {
+        return card == null ? 0 : 1 << cardIndex(card);
+    }
+
+    /**
+     * Converts a list of cards into a bitmask
+     * @param cards the cards to be converted
+     * @return a bitmask where each card of the list is set
+     */
+    public static int toMask(List<PlayingCard> cards) {
+        int mask = 0;
+        for (PlayingCard card : cards) {
+            mask |= 1 << cardIndex(card);
+        }
+        return mask;
+    }
+
+    /**
+     * Converts all cards of a list of tricks into a bitmask
+     * @param tricks the tricks as stored on the board, each trick holding two cards
+     * @return a bitmask where each card of every trick is set
+     */
+    public static int trickMask(List<PlayingCard[]> tricks) {
+        int mask = 0;
+        for (PlayingCard[] trick : tricks) {
+            mask |= cardBit(trick[0]);
+            mask |= cardBit(trick[1]);
+        }
+        return mask;
+    }
+
+    /**
+     * This method is used to generate a full deck. The trump suit is used to set the trump status for cards with matching suits.
+     * The returned array is indexed by the card index, so that bitmasks can be converted back into cards
+     * @param trumpSuit the trump suit of the current round
+     * @return a complete deck of cards with correctly set cards of trump status
+     */
+    public static PlayingCard[] generateFullDeck(SchnapsenBoard.cardSuits trumpSuit) {
+        PlayingCard[] deckOfCards = new PlayingCard[DECK_SIZE];
+
+        addSuit(deckOfCards, SchnapsenBoard.cardSuits.SPADES, SchnapsenBoard.cardNames.JackOfSpades, SchnapsenBoard.cardNames.QueenOfSpades,
+                SchnapsenBoard.cardNames.KingOfSpades, SchnapsenBoard.cardNames.TenOfSpades, SchnapsenBoard.cardNames.AceOfSpades);
+        addSuit(deckOfCards, SchnapsenBoard.cardSuits.HEARTS, SchnapsenBoard.cardNames.JackOfHearts, SchnapsenBoard.cardNames.QueenOfHearts,
+                SchnapsenBoard.cardNames.KingOfHearts, SchnapsenBoard.cardNames.TenOfHearts, SchnapsenBoard.cardNames.AceOfHearts);
+        addSuit(deckOfCards, SchnapsenBoard.cardSuits.DIAMONDS, SchnapsenBoard.cardNames.JackOfDiamonds, SchnapsenBoard.cardNames.QueenOfDiamonds,
+                SchnapsenBoard.cardNames.KingOfDiamonds, SchnapsenBoard.cardNames.TenOfDiamonds, SchnapsenBoard.cardNames.AceOfDiamonds);
+        addSuit(deckOfCards, SchnapsenBoard.cardSuits.CLUBS, SchnapsenBoard.cardNames.JackOfClubs, SchnapsenBoard.cardNames.QueenOfClubs,
+                SchnapsenBoard.cardNames.KingOfClubs, SchnapsenBoard.cardNames.TenOfClubs, SchnapsenBoard.cardNames.AceOfClubs);
+
+        for (PlayingCard card : deckOfCards) {
+            if (trumpSuit == card.getSuit()) {
+                card.setIsTrumpSuit(true);
+            }
+        }
+        return deckOfCards;
+    }
+
+    /**
+     * Adds the five cards of one suit to the deck, including the possible marriage between Queen and King
+     * @param deckOfCards the deck indexed by card index
+     * @param suit the suit of the added cards
+     * @param jack the name of the Jack of this suit
+     * @param queen the name of the Queen of this suit
+     * @param king the name of the King of this suit
+     * @param ten the name of the Ten of this suit
+     * @param ace the name of the Ace of this suit
+     */
+    private static void addSuit(PlayingCard[] deckOfCards, SchnapsenBoard.cardSuits suit, SchnapsenBoard.cardNames jack, SchnapsenBoard.cardNames queen,
+                                SchnapsenBoard.cardNames king, SchnapsenBoard.cardNames ten, SchnapsenBoard.cardNames ace) {
+        int suitIndex = suitIndex(suit);
+        PlayingCard queenCard = new PlayingCard(suit, queen, 3);
+        PlayingCard kingCard = new PlayingCard(suit, king, 4);
+        queenCard.setPossibleMarriage(kingCard);
+        kingCard.setPossibleMarriage(queenCard);
+
+        deckOfCards[cardOf(suitIndex, RANK_JACK)] = new PlayingCard(suit, jack, 2);
+        deckOfCards[cardOf(suitIndex, RANK_QUEEN)] = queenCard;
+        deckOfCards[cardOf(suitIndex, RANK_KING)] = kingCard;
+        deckOfCards[cardOf(suitIndex, RANK_TEN)] = new PlayingCard(suit, ten, 10);
+        deckOfCards[cardOf(suitIndex, RANK_ACE)] = new PlayingCard(suit, ace, 11);
+    }
+}
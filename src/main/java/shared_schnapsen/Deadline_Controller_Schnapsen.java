@@ -0,0 +1,305 @@
+package shared_schnapsen;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class Deadline_Controller_Schnapsen {
+
+    public enum Miss_Cause {
+        //the search itself did not stop before the end of the move
+        SEARCH,
+        //the workers of a parallel search were still being joined
+        JOIN,
+        //the trees of the root parallel workers were still being merged
+        MERGE,
+        //the action was being chosen, logged or pondered on after the search
+        RESULT,
+        //a collection paused the move for at least as long as the move overran
+        COLLECTION
+    }
+
+    //The wind-down after the search (choosing the action, logging, re-rooting, starting to ponder) gets twice its measured duration, but at least 1 ms
+    private static final double RESERVE_FACTOR = 2.0;
+    private static final long MIN_RESERVE_NANOS = 1_000_000L;
+    //Until the first moves were measured, the first moves also keep the whole MAX_RESERVE_SHARE of their budget,
+    //as the wind-down of a cold JVM (class loading, compilation) is not known before it was measured
+    private static final long INITIAL_WIND_DOWN_NANOS = 2_000_000L;
+    private static final long INITIAL_GC_PAUSE_NANOS = 5_000_000L;
+    private static final int WARM_UP_MOVES = 3;
+    //The estimates keep the largest sample and shrink by this factor every move, so that a single slow move is forgotten slowly
+    private static final double DECAY = 0.99;
+    //The reserve and the collection margin together never take more than this share of the budget
+    private static final double MAX_RESERVE_SHARE = 0.25;
+    //The floor of the reserve covers this percentile of all wind-downs measured so far plus the estimated collection pause,
+    //a tail that the decaying estimate alone would forget after a few fast moves
+    private static final double FLOOR_PERCENTILE = 99.99;
+
+    //Every thread reads the clock only every few calls, the interval adapts so that the clock is read about every 20 microseconds
+    //The cap keeps the gap short when a thread switches from cheap calls in the playout to expensive calls in the selection
+    private static final long TARGET_CHECK_NANOS = 20_000L;
+    private static final int MAX_CHECK_INTERVAL = 64;
+
+    //A young collection is expected soon once the eden is filled this much
+    private static final double EDEN_FULL = 0.85;
+
+    //Null if the collector has no eden pool, then only the measured wind-down is reserved
+    private static final MemoryPoolMXBean EDEN = edenPool();
+    //The collectors that pause the application, the concurrent cycles of G1 and ZGC are not pauses
+    private static final List<GarbageCollectorMXBean> PAUSING_COLLECTORS = pausingCollectors();
+
+    //Absolute System.nanoTime values of the current move, between moves only the timeout of setTimers limits a search
+    private volatile long deadlineNanos = Long.MAX_VALUE;
+    private volatile long collectionDeadlineNanos = Long.MAX_VALUE;
+    private long moveEndNanos;
+
+    //Set by the first thread that sees the deadline, from then on every thread stops without reading the clock
+    private volatile boolean stopped;
+    private volatile long stopNanos;
+    //When the workers were joined and their trees merged, 0 if the search of the move has no such phase
+    private long joinedNanos;
+    private long mergedNanos;
+
+    private long windDownEstimateNanos = INITIAL_WIND_DOWN_NANOS;
+    private final Hdr_Histogram_Schnapsen windDownNanos = new Hdr_Histogram_Schnapsen();
+    private int measuredMoves;
+    private long gcPauseEstimateNanos = INITIAL_GC_PAUSE_NANOS;
+    private long collectionsAtStart;
+    private long collectionMillisAtStart;
+
+    private final ThreadLocal<Check_Counter> checkCounters = ThreadLocal.withInitial(Check_Counter::new);
+
+    /**
+     * Starts the deadline of a move. The search stops early enough to leave the estimated wind-down, and if the eden is nearly full also the estimated pause of a collection.
+     * Until WARM_UP_MOVES wind-downs were measured, the largest reserve is kept, afterwards the reserve never falls below the floor of the measured wind-downs.
+     * @param startNanos the System.nanoTime value when the engine called computeNextAction
+     * @param budgetNanos the computation time of the move
+     */
+    public void startMove(long startNanos, long budgetNanos) {
+        long maxReserve = (long) (budgetNanos * MAX_RESERVE_SHARE);
+        long reserve = measuredMoves < WARM_UP_MOVES
+                ? maxReserve
+                : Math.min(Math.max(Math.max((long) (windDownEstimateNanos * RESERVE_FACTOR), getFloorReserveNanos()), MIN_RESERVE_NANOS), maxReserve);
+        moveEndNanos = startNanos + budgetNanos;
+        deadlineNanos = moveEndNanos - reserve;
+        collectionDeadlineNanos = deadlineNanos - Math.min(gcPauseEstimateNanos, maxReserve - reserve);
+        stopNanos = 0;
+        stopped = false;
+        joinedNanos = 0;
+        mergedNanos = 0;
+
+        collectionsAtStart = 0;
+        collectionMillisAtStart = 0;
+        for (GarbageCollectorMXBean collector : PAUSING_COLLECTORS) {
+            collectionsAtStart += Math.max(collector.getCollectionCount(), 0);
+            collectionMillisAtStart += Math.max(collector.getCollectionTime(), 0);
+        }
+    }
+
+    /**
+     * Limits the deadline of the current move further, e.g. to the timeout of setTimers, which leaves a larger margin for long computation times
+     * @param limitNanos an absolute System.nanoTime value, after which the search has to stop
+     */
+    public void limitTo(long limitNanos) {
+        if (limitNanos < deadlineNanos) {
+            collectionDeadlineNanos -= deadlineNanos - limitNanos;
+            deadlineNanos = limitNanos;
+        }
+    }
+
+    /**
+     * Checks if the search has to stop. The clock is only read every few calls of the calling thread, the other calls cost a counter increment.
+     * The search also stops before the deadline if the remaining time would not cover a collection that is about to happen.
+     * @return true if the deadline is reached or the calling thread was interrupted
+     */
+    public boolean shouldStop() {
+        if (stopped) {
+            return true;
+        }
+        Check_Counter counter = checkCounters.get();
+        if (++counter.calls < counter.interval) {
+            return false;
+        }
+        counter.calls = 0;
+        long now = System.nanoTime();
+        long sinceLastCheck = now - counter.lastCheckNanos;
+        counter.lastCheckNanos = now;
+        if (sinceLastCheck < TARGET_CHECK_NANOS / 2 && counter.interval < MAX_CHECK_INTERVAL) {
+            counter.interval <<= 1;
+        } else if (sinceLastCheck > TARGET_CHECK_NANOS * 2 && counter.interval > 1) {
+            counter.interval >>= 1;
+        }
+
+        if (now >= deadlineNanos || (now >= collectionDeadlineNanos && isCollectionImminent())) {
+            stopNanos = now;
+            stopped = true;
+            return true;
+        }
+        return Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Marks the point in time, at which all workers of a parallel search returned
+     */
+    public void markJoined() {
+        joinedNanos = System.nanoTime();
+    }
+
+    /**
+     * Marks the point in time, at which the trees of the root parallel workers were merged into the root
+     */
+    public void markMerged() {
+        mergedNanos = System.nanoTime();
+    }
+
+    /**
+     * Measures the wind-down and the collection pauses of the move, which set the reserve of the following moves.
+     * Has to be called right before computeNextAction returns.
+     * @return the phase of the move that was running when its budget ran out, null if the move ended in time
+     */
+    public Miss_Cause finishMove() {
+        long now = System.nanoTime();
+        if (stopped) {
+            windDownNanos.record(now - stopNanos);
+            windDownEstimateNanos = Math.max(now - stopNanos, (long) (windDownEstimateNanos * DECAY));
+            measuredMoves = Math.min(measuredMoves + 1, WARM_UP_MOVES);
+        }
+        //a missed deadline widens the reserve by the overrun at once
+        if (now > moveEndNanos) {
+            windDownEstimateNanos += now - moveEndNanos;
+        }
+
+        long collections = 0;
+        long collectionMillis = 0;
+        for (GarbageCollectorMXBean collector : PAUSING_COLLECTORS) {
+            collections += Math.max(collector.getCollectionCount(), 0);
+            collectionMillis += Math.max(collector.getCollectionTime(), 0);
+        }
+        long averagePause = 0;
+        if (collections > collectionsAtStart) {
+            averagePause = (collectionMillis - collectionMillisAtStart) * 1_000_000L / (collections - collectionsAtStart);
+        }
+        gcPauseEstimateNanos = Math.max(averagePause, Math.max((long) (gcPauseEstimateNanos * DECAY), MIN_RESERVE_NANOS));
+
+        Miss_Cause cause = null;
+        if (now > moveEndNanos) {
+            cause = attributeMiss(now, (collectionMillis - collectionMillisAtStart) * 1_000_000L);
+        }
+        deadlineNanos = Long.MAX_VALUE;
+        collectionDeadlineNanos = Long.MAX_VALUE;
+        stopped = false;
+        return cause;
+    }
+
+    /**
+     * Finds the phase of a missed move that was running when the budget ran out. A phase without a mark ends where the previous one ended,
+     * a search that was never stopped ran until the first mark or the end of the move.
+     * @param now the end of the move
+     * @param collectionPauseNanos the time the pausing collectors spent during the move
+     * @return the cause of the miss
+     */
+    private Miss_Cause attributeMiss(long now, long collectionPauseNanos) {
+        if (collectionPauseNanos >= now - moveEndNanos) {
+            return Miss_Cause.COLLECTION;
+        }
+        long searchEnd = stopped ? stopNanos : (joinedNanos != 0 ? joinedNanos : (mergedNanos != 0 ? mergedNanos : now));
+        long joinEnd = joinedNanos != 0 ? joinedNanos : searchEnd;
+        long mergeEnd = mergedNanos != 0 ? mergedNanos : joinEnd;
+        if (moveEndNanos < searchEnd) {
+            return Miss_Cause.SEARCH;
+        } else if (moveEndNanos < joinEnd) {
+            return Miss_Cause.JOIN;
+        } else if (moveEndNanos < mergeEnd) {
+            return Miss_Cause.MERGE;
+        }
+        return Miss_Cause.RESULT;
+    }
+
+    /**
+     * Returns the point in time, at which the search of the current move stops at the latest
+     * @return an absolute System.nanoTime value, Long.MAX_VALUE between moves
+     */
+    public long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+
+    /**
+     * Returns the margin that is currently kept for the wind-down
+     * @return the estimated wind-down in nanoseconds, before it is multiplied with the safety factor
+     */
+    public long getWindDownEstimateNanos() {
+        return windDownEstimateNanos;
+    }
+
+    /**
+     * Returns the reserve that is kept after the warm-up in any case
+     * @return the FLOOR_PERCENTILE of the measured wind-downs plus the estimated collection pause in nanoseconds, 0 before a wind-down was measured
+     */
+    public long getFloorReserveNanos() {
+        if (windDownNanos.getCount() == 0) {
+            return 0;
+        }
+        return windDownNanos.getValueAtPercentile(FLOOR_PERCENTILE) + gcPauseEstimateNanos;
+    }
+
+    /**
+     * Returns the margin that is kept for a collection when the eden is nearly full
+     * @return the estimated collection pause in nanoseconds
+     */
+    public long getGcPauseEstimateNanos() {
+        return gcPauseEstimateNanos;
+    }
+
+    /**
+     * Checks the fill level of the eden, reading the pool allocates, therefore it is only done within the collection margin
+     * @return true if a young collection is expected soon
+     */
+    private static boolean isCollectionImminent() {
+        if (EDEN == null) {
+            return false;
+        }
+        MemoryUsage usage = EDEN.getUsage();
+        long capacity = usage.getMax() > 0 ? usage.getMax() : usage.getCommitted();
+        return capacity > 0 && usage.getUsed() >= EDEN_FULL * capacity;
+    }
+
+    /**
+     * Finds the eden pool of the heap
+     * @return the eden pool, null if the collector has none
+     */
+    private static MemoryPoolMXBean edenPool() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getName().contains("Eden")) {
+                return pool;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Collects the collectors whose collection time is spent in pauses
+     * @return the collectors without the concurrent ones
+     */
+    private static List<GarbageCollectorMXBean> pausingCollectors() {
+        List<GarbageCollectorMXBean> collectors = new ArrayList<>();
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!collector.getName().contains("Concurrent") && !collector.getName().contains("Cycles")) {
+                collectors.add(collector);
+            }
+        }
+        return collectors;
+    }
+
+    /**
+     * The clock reads of one thread
+     */
+    private static final class Check_Counter {
+        private int calls;
+        private int interval = 1;
+        private long lastCheckNanos;
+    }
+}
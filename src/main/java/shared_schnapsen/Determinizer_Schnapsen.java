@@ -0,0 +1,374 @@
+package shared_schnapsen;
+
+import game.board.PlayingCard;
+import game.board.SchnapsenBoard;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class Determinizer_Schnapsen {
+
+    //The board as given by the engine, used as template for all generated boards
+    private final SchnapsenBoard board;
+    private final int playerId;
+
+    //The deck indexed by card index, the unknown cards are taken from it
+    private final PlayingCard[] deckOfCards;
+    private final List<PlayingCard> playerCards;
+
+    //These bitmasks hold everything we know about the location of the cards
+    private final int playerMask;
+    private final int trickMask;
+    private final int leadingMask;
+    private final int opponentKnownMask;
+    private final int unknownMask;
+    private final int trumpIndex;
+
+    //The unknown cards as card indices, these are shuffled into the pile and the opponents hand
+    private final int[] unknownCards;
+    private final int cardsLeftInPile;
+    private final int opponentHandSize;
+
+    //The unknown cards split by the trump suit, the stratified determinization first decides how many unknown trumps the opponent holds
+    private final int[] unknownTrumpCards;
+    private final int[] unknownOtherCards;
+    //The cumulative probability of every number of unknown trumps in the opponents hand, indexed by that number
+    private final double[] trumpStrataCumulative;
+
+    /**
+     * This constructor collects all available information of the given board once, so that each sample only has to distribute the unknown cards.
+     * Cards that are known to be in the opponents hand are the exchanged trump card and the remaining cards of their declared marriages.
+     * @param board the actual game board with hidden information
+     * @param playerId the id of the player whose hand is known
+     */
+    public Determinizer_Schnapsen(SchnapsenBoard board, int playerId) {
+        this.board = board;
+        this.playerId = playerId;
+
+        PlayingCard trumpCard = board.getTrumpCard();
+        this.deckOfCards = Card_Bits_Schnapsen.generateFullDeck(trumpCard.getSuit());
+
+        List<PlayingCard> marriageCards;
+        if (playerId == 0) {
+            this.playerCards = board.getPlayer0Cards();
+            marriageCards = board.getPlayer1Marriages();
+        } else {
+            this.playerCards = board.getPlayer1Cards();
+            marriageCards = board.getPlayer0Marriages();
+        }
+
+        this.playerMask = Card_Bits_Schnapsen.toMask(playerCards);
+        this.trickMask = Card_Bits_Schnapsen.trickMask(board.getPlayer0Tricks()) | Card_Bits_Schnapsen.trickMask(board.getPlayer1Tricks());
+        this.leadingMask = Card_Bits_Schnapsen.cardBit(board.getLeadingCard());
+        this.trumpIndex = Card_Bits_Schnapsen.cardIndex(trumpCard);
+        int trumpMask = 1 << trumpIndex;
+
+        //Every card that is neither in our hand, nor played, nor on the table
+        int notPlayed = Card_Bits_Schnapsen.FULL_DECK & ~playerMask & ~trickMask & ~leadingMask;
+
+        //The exchanged trump card and the declared marriage cards stay in the opposing players hand until they are played
+        int opponentKnown = Card_Bits_Schnapsen.cardBit(board.getOldTrumpCard()) | Card_Bits_Schnapsen.toMask(marriageCards);
+        opponentKnown &= notPlayed;
+
+        this.cardsLeftInPile = board.playingCardsLeftInPile();
+
+        //The trump card lies at the bottom of the pile, if the pile is empty it was drawn by one of the players
+        if (cardsLeftInPile == 0) {
+            opponentKnown |= trumpMask & notPlayed;
+        }
+
+        this.opponentKnownMask = opponentKnown;
+        this.unknownMask = notPlayed & ~opponentKnown & ~trumpMask;
+
+        int handSize = playerCards.size();
+        //other player has one Card less, because they led the trick
+        if (board.getLeadingCard() != null) {
+            handSize--;
+        }
+        this.opponentHandSize = handSize;
+
+        //the remaining cards should fit into the opponents hand
+        int pileDraws = Math.max(cardsLeftInPile - 1, 0);
+        int calculatedHandSize = Integer.bitCount(opponentKnown) + Integer.bitCount(unknownMask) - pileDraws;
+        if (calculatedHandSize != opponentHandSize) {
+            throw new IllegalStateException("Calculated wrong: Opponent has " +
+                    calculatedHandSize +
+                    " but should have " + opponentHandSize);
+        }
+
+        this.unknownCards = toCards(unknownMask);
+        int unknownTrumpMask = unknownMask & Card_Bits_Schnapsen.SUIT_MASKS[Card_Bits_Schnapsen.suitOf(trumpIndex)];
+        this.unknownTrumpCards = toCards(unknownTrumpMask);
+        this.unknownOtherCards = toCards(unknownMask & ~unknownTrumpMask);
+
+        //The unknown part of the opponents hand is a uniformly random subset of the unknown cards, so its number of trumps is hypergeometric
+        int unknownInHand = unknownCards.length - pileDraws;
+        this.trumpStrataCumulative = new double[unknownTrumpCards.length + 1];
+        double total = binomial(unknownCards.length, unknownInHand);
+        double cumulative = 0.0;
+        for (int trumps = 0; trumps <= unknownTrumpCards.length; trumps++) {
+            cumulative += binomial(unknownTrumpCards.length, trumps) * binomial(unknownOtherCards.length, unknownInHand - trumps) / total;
+            trumpStrataCumulative[trumps] = cumulative;
+        }
+    }
+
+    /**
+     * This method randomizes the unknown cards into the drafting pile and opposing players hand
+     * @return a new deep copied board with the given information and randomized cards for all unknown cards in the pile and opposing players hand
+     */
+    public SchnapsenBoard generateMissingInformation() {
+        return generateMissingInformation(ThreadLocalRandom.current(), null);
+    }
+
+    /**
+     * This method randomizes the unknown cards into the drafting pile and opposing players hand
+     * @param random the source of randomness for the distribution of the unknown cards
+     * @return a new deep copied board with the given information and randomized cards for all unknown cards in the pile and opposing players hand
+     */
+    public SchnapsenBoard generateMissingInformation(Random random) {
+        return generateMissingInformation(random, null);
+    }
+
+    /**
+     * This method randomizes the unknown cards into the drafting pile and opposing players hand.
+     * Only the cards that are drawn into the pile are shuffled with a partial Fisher-Yates shuffle, the rest belongs to the opponents hand.
+     * @param random the source of randomness for the distribution of the unknown cards
+     * @param pileOrder if not null, the card indices of the generated pile are written into it in drawing order (the trump card last)
+     * @return a new deep copied board with the given information and randomized cards for all unknown cards in the pile and opposing players hand
+     */
+    public SchnapsenBoard generateMissingInformation(Random random, int[] pileOrder) {
+        int[] cards = unknownCards.clone();
+        int pileDraws = Math.max(cardsLeftInPile - 1, 0);
+
+        //partial Fisher-Yates shuffle: the first pileDraws positions become a uniformly random ordered selection
+        shuffle(cards, 0, pileDraws, cards.length, random);
+        return toBoard(cards, pileDraws, pileOrder);
+    }
+
+    /**
+     * This method randomizes the unknown cards into the drafting pile and opposing players hand, with a given number of unknown trumps in the opponents hand.
+     * Sampling every number of trumps as often as its probability (stratified sampling) removes the variance of the trump split from an average over the worlds,
+     * the worlds of one number of trumps are uniformly distributed among themselves.
+     * @param random the source of randomness for the distribution of the unknown cards
+     * @param pileOrder if not null, the card indices of the generated pile are written into it in drawing order (the trump card last)
+     * @param trumpsInHand the number of unknown trumps that the opponent holds, a stratum with a probability larger than 0
+     * @return a new deep copied board with the given information and randomized cards for all unknown cards in the pile and opposing players hand
+     */
+    public SchnapsenBoard generateMissingInformation(Random random, int[] pileOrder, int trumpsInHand) {
+        int pileDraws = Math.max(cardsLeftInPile - 1, 0);
+        int otherCardsInHand = unknownCards.length - pileDraws - trumpsInHand;
+        if (trumpsInHand < 0 || trumpsInHand > unknownTrumpCards.length || otherCardsInHand < 0 || otherCardsInHand > unknownOtherCards.length) {
+            throw new IllegalArgumentException("The opponent cannot hold " + trumpsInHand + " unknown trumps");
+        }
+
+        //the selected cards of both groups go to the end, which is the opponents hand
+        int[] trumps = unknownTrumpCards.clone();
+        int[] others = unknownOtherCards.clone();
+        shuffle(trumps, 0, trumpsInHand, trumps.length, random);
+        shuffle(others, 0, otherCardsInHand, others.length, random);
+
+        int[] cards = new int[unknownCards.length];
+        int pileCards = 0;
+        for (int i = trumpsInHand; i < trumps.length; i++) {
+            cards[pileCards++] = trumps[i];
+        }
+        for (int i = otherCardsInHand; i < others.length; i++) {
+            cards[pileCards++] = others[i];
+        }
+        System.arraycopy(trumps, 0, cards, pileCards, trumpsInHand);
+        System.arraycopy(others, 0, cards, pileCards + trumpsInHand, otherCardsInHand);
+
+        //the pile cards are drawn in a uniformly random order
+        shuffle(cards, 0, pileDraws, pileDraws, random);
+        return toBoard(cards, pileDraws, pileOrder);
+    }
+
+    /**
+     * Copies a generated world, so that a search can apply actions to the copy and reuse the world for further iterations.
+     * This skips the distribution of the unknown cards, only the board itself is built again.
+     * @param world a board generated by this determinizer, possibly advanced by actions that are not part of the copy
+     * @param pileOrder the pile order that was written when the world was generated
+     * @return a new deep copied board with the same cards as the world
+     */
+    public SchnapsenBoard copyWorld(SchnapsenBoard world, int[] pileOrder) {
+        //the world may have drawn cards since it was generated, its pile is the end of the pile order
+        //the trump card at the bottom is taken from the world, because it changes with an exchange
+        LinkedList<PlayingCard> playingCardPile = new LinkedList<>();
+        int worldPileSize = world.playingCardsLeftInPile();
+        for (int i = cardsLeftInPile - worldPileSize; i < cardsLeftInPile - 1; i++) {
+            playingCardPile.add(deckOfCards[pileOrder[i]]);
+        }
+        if (worldPileSize > 0) {
+            playingCardPile.addLast(world.getTrumpCard());
+        }
+        return new SchnapsenBoard(world, world.getPlayer0Cards(), world.getPlayer1Cards(), playingCardPile);
+    }
+
+    /**
+     * Maps a position in [0, 1) to the number of unknown trumps in the opponents hand, so that evenly spread positions select every stratum as often as its probability
+     * @param position a value between 0 (inclusive) and 1 (exclusive)
+     * @return the number of unknown trumps in the opponents hand, whose stratum contains the position
+     */
+    public int trumpStratumAt(double position) {
+        for (int trumps = 0; trumps < trumpStrataCumulative.length - 1; trumps++) {
+            if (position < trumpStrataCumulative[trumps]) {
+                return trumps;
+            }
+        }
+        //the last stratum also takes the rounding error of the cumulative probabilities, unless it is impossible
+        int last = trumpStrataCumulative.length - 1;
+        while (last > 0 && trumpStrataCumulative[last] == trumpStrataCumulative[last - 1]) {
+            last--;
+        }
+        return last;
+    }
+
+    /**
+     * Builds the board of a distribution of the unknown cards
+     * @param cards the unknown cards, the first pileDraws cards are the pile in drawing order and the rest belongs to the opponents hand
+     * @param pileDraws the number of pile cards above the trump card
+     * @param pileOrder if not null, the card indices of the generated pile are written into it in drawing order (the trump card last)
+     * @return a new deep copied board
+     */
+    private SchnapsenBoard toBoard(int[] cards, int pileDraws, int[] pileOrder) {
+        //first fill up the playingCardPile and add the trumpCard as last if pile was not empty yet
+        LinkedList<PlayingCard> playingCardPile = new LinkedList<>();
+        for (int i = 0; i < pileDraws; i++) {
+            playingCardPile.add(deckOfCards[cards[i]]);
+            if (pileOrder != null) {
+                pileOrder[i] = cards[i];
+            }
+        }
+        if (cardsLeftInPile > 0) {
+            playingCardPile.addLast(board.getTrumpCard());
+            if (pileOrder != null) {
+                pileOrder[pileDraws] = trumpIndex;
+            }
+        }
+
+        //the known cards and the remaining unknown cards make up the opponents hand
+        List<PlayingCard> otherPlayersCards = new ArrayList<>(opponentHandSize);
+        int known = opponentKnownMask;
+        while (known != 0) {
+            otherPlayersCards.add(deckOfCards[Integer.numberOfTrailingZeros(known)]);
+            known &= known - 1;
+        }
+        for (int i = pileDraws; i < cards.length; i++) {
+            otherPlayersCards.add(deckOfCards[cards[i]]);
+        }
+
+        //create a board based on the findings and randomly assumed cards
+        if (playerId == 0) {
+            return new SchnapsenBoard(board, playerCards, otherPlayersCards, playingCardPile);
+        } else {
+            return new SchnapsenBoard(board, otherPlayersCards, playerCards, playingCardPile);
+        }
+    }
+
+    /**
+     * Moves a uniformly random ordered selection of the positions from until length of an array to the positions from until to, with a partial Fisher-Yates shuffle
+     * @param cards the array to be shuffled in place
+     * @param from the first position of the selection
+     * @param to the position after the selection
+     * @param length the number of positions the selection is taken from
+     * @param random the source of randomness
+     */
+    private static void shuffle(int[] cards, int from, int to, int length, Random random) {
+        for (int i = from; i < to; i++) {
+            int j = i + random.nextInt(length - i);
+            int swap = cards[i];
+            cards[i] = cards[j];
+            cards[j] = swap;
+        }
+    }
+
+    /**
+     * Lists the cards of a bitmask
+     * @param mask a bitmask of cards
+     * @return the card indices in increasing order
+     */
+    private static int[] toCards(int mask) {
+        int[] cards = new int[Integer.bitCount(mask)];
+        for (int i = 0; mask != 0; i++) {
+            cards[i] = Integer.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+        }
+        return cards;
+    }
+
+    /**
+     * Computes a binomial coefficient, the numbers of a deck of 20 cards are exact as double
+     * @param n the number of elements
+     * @param k the size of the subsets
+     * @return n over k, 0 if k is negative or larger than n
+     */
+    private static double binomial(int n, int k) {
+        if (k < 0 || k > n) {
+            return 0.0;
+        }
+        double result = 1.0;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the deck used for the generated boards, indexed by card index
+     * @return an array of all 20 cards with correctly set trump status
+     */
+    public PlayingCard[] getDeckOfCards() {
+        return deckOfCards;
+    }
+
+    /**
+     * Returns the number of cards in the pile of every generated board, including the trump card
+     * @return the number of cards left in the pile
+     */
+    public int getCardsLeftInPile() {
+        return cardsLeftInPile;
+    }
+
+    /**
+     * Returns the bitmask of the cards in the agents hand
+     * @return a bitmask of the known hand
+     */
+    public int getPlayerMask() {
+        return playerMask;
+    }
+
+    /**
+     * Returns the bitmask of all cards that were already taken in a trick by either player
+     * @return a bitmask of the played cards
+     */
+    public int getTrickMask() {
+        return trickMask;
+    }
+
+    /**
+     * Returns the bitmask of the cards that are known to be in the opponents hand
+     * @return a bitmask of the known opponent cards
+     */
+    public int getOpponentKnownMask() {
+        return opponentKnownMask;
+    }
+
+    /**
+     * Returns the bitmask of all cards whose location is unknown to the agent
+     * @return a bitmask of the unknown cards
+     */
+    public int getUnknownMask() {
+        return unknownMask;
+    }
+
+    /**
+     * Returns the number of cards the opponent holds in their hand
+     * @return the opponents hand size
+     */
+    public int getOpponentHandSize() {
+        return opponentHandSize;
+    }
+}
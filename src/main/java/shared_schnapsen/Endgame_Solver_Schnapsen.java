@@ -0,0 +1,295 @@
+package shared_schnapsen;
+
+public class Endgame_Solver_Schnapsen {
+
+    //The result of a round is at most 3 game points for either player, a line reaching them ends the search of a position
+    private static final int MAX_GAME_POINTS = 3;
+
+    //The position that is searched, moves are applied to these bitmasks and values in place and undone afterward
+    private final int[] hands = new int[2];
+    private final int[] points = new int[2];
+    private final int[] pendingMarriagePoints = new int[2];
+    private final int[] tricks = new int[2];
+    private int trumpSuit;
+
+    //Talon state, the closing player is -1 if the pile was exhausted, a closed talon with an unknown closer is not solved
+    private int closingPlayer;
+    private int opponentPointsAtClosing;
+    private int opponentTricksAtClosing;
+
+    //This variable is used to track how many positions were searched
+    private long nodesSearched;
+
+    /**
+     * Checks if a position can be solved, which is the case once the talon is closed or the pile is exhausted.
+     * From then on no more cards are drawn, every player holds at most five cards and both hands are known in a determinized world.
+     * A closed talon whose closer is unknown is not solvable, as the closer decides the result of the round.
+     * @param state the position to be checked
+     * @return true if the round is ongoing, the strict rules apply and the closer of a closed talon is known
+     */
+    public static boolean isSolvable(Playout_State_Schnapsen state) {
+        return !state.isRoundOver() && state.isStrictPlay() && !state.isClosingPlayerUnknown();
+    }
+
+    /**
+     * Calculates the outcome of a round under perfect play of both players with an alpha-beta search over the remaining tricks.
+     * Player 0 maximizes and player 1 minimizes the game points of player 0, therefore both players first try to win the round
+     * and then try to win as many game points as possible.
+     * @param state a solvable position, see isSolvable
+     * @return the game points of the winner, positive if player 0 wins the round and negative if player 1 wins it
+     */
+    public int solve(Playout_State_Schnapsen state) {
+        for (int player = 0; player < 2; player++) {
+            hands[player] = state.getHand(player);
+            points[player] = state.getPoints(player);
+            pendingMarriagePoints[player] = state.getPendingMarriagePoints(player);
+            tricks[player] = state.getTricks(player);
+        }
+        trumpSuit = state.getTrumpSuit();
+        closingPlayer = state.getClosingPlayer();
+        opponentPointsAtClosing = state.getOpponentPointsAtClosing();
+        opponentTricksAtClosing = state.getOpponentTricksAtClosing();
+
+        //the position may be in the middle of a trick
+        if (state.getLeadingCard() >= 0) {
+            return follow(state.getLeadingPlayer(), state.getLeadingCard(), -MAX_GAME_POINTS, MAX_GAME_POINTS);
+        }
+        return lead(state.getCurrentPlayer(), -MAX_GAME_POINTS, MAX_GAME_POINTS);
+    }
+
+    /**
+     * Solves a position of the endgame tablebase: trump suit 0, no trick in progress and both players have already won a trick.
+     * A closing player wins and loses 2 game points, the tablebase only needs to know whether the closing player wins.
+     * @param hand0 the hand of player 0 as bitmask
+     * @param hand1 the hand of player 1 as bitmask
+     * @param leader the player who leads the next trick
+     * @param points0 the points of player 0
+     * @param points1 the points of player 1
+     * @param closingPlayer the player who closed the talon, -1 if the pile is exhausted
+     * @return the game points of the winner, positive if player 0 wins the round and negative if player 1 wins it
+     */
+    int solveTablebasePosition(int hand0, int hand1, int leader, int points0, int points1, int closingPlayer) {
+        hands[0] = hand0;
+        hands[1] = hand1;
+        points[0] = points0;
+        points[1] = points1;
+        pendingMarriagePoints[0] = 0;
+        pendingMarriagePoints[1] = 0;
+        tricks[0] = 1;
+        tricks[1] = 1;
+        trumpSuit = 0;
+        this.closingPlayer = closingPlayer;
+        opponentPointsAtClosing = 0;
+        opponentTricksAtClosing = 1;
+        return lead(leader, -MAX_GAME_POINTS, MAX_GAME_POINTS);
+    }
+
+    /**
+     * Returns the winner of a solved round
+     * @param result the result of solve
+     * @return the player id of the winner
+     */
+    public static int getWinner(int result) {
+        return result > 0 ? 0 : 1;
+    }
+
+    /**
+     * Returns the game points the winner of a solved round receives
+     * @param result the result of solve
+     * @return 1 to 3 game points
+     */
+    public static int getGamePoints(int result) {
+        return Math.abs(result);
+    }
+
+    /**
+     * Returns how many positions were searched by this solver
+     * @return the number of searched positions
+     */
+    public long getNodesSearched() {
+        return nodesSearched;
+    }
+
+    /**
+     * Searches all cards the leading player can play, with and without declaring a marriage
+     * @param leader the player who leads the trick
+     * @param alpha the value player 0 can already reach
+     * @param beta the value player 1 can already reach
+     * @return the game points of player 0 under perfect play
+     */
+    private int lead(int leader, int alpha, int beta) {
+        nodesSearched++;
+        boolean maximizing = leader == 0;
+        int bestValue = maximizing ? -MAX_GAME_POINTS : MAX_GAME_POINTS;
+        int hand = hands[leader];
+
+        for (int cards = hand; cards != 0; cards &= cards - 1) {
+            int card = Integer.numberOfTrailingZeros(cards);
+            int rank = Card_Bits_Schnapsen.rankOf(card);
+            int partnerRank = rank == Card_Bits_Schnapsen.RANK_QUEEN ? Card_Bits_Schnapsen.RANK_KING : Card_Bits_Schnapsen.RANK_QUEEN;
+            boolean canDeclare = (rank == Card_Bits_Schnapsen.RANK_QUEEN || rank == Card_Bits_Schnapsen.RANK_KING)
+                    && (hand & (1 << Card_Bits_Schnapsen.cardOf(Card_Bits_Schnapsen.suitOf(card), partnerRank))) != 0;
+
+            for (int declare = 0; declare <= (canDeclare ? 1 : 0); declare++) {
+                int value = leadCard(leader, card, declare == 1, alpha, beta);
+                if (maximizing) {
+                    bestValue = Math.max(bestValue, value);
+                    alpha = Math.max(alpha, bestValue);
+                } else {
+                    bestValue = Math.min(bestValue, value);
+                    beta = Math.min(beta, bestValue);
+                }
+                if (alpha >= beta) {
+                    return bestValue;
+                }
+            }
+        }
+        return bestValue;
+    }
+
+    /**
+     * Plays a card to lead the trick and searches the answers of the follower
+     * @param leader the player who leads the trick
+     * @param card the card index of the led card
+     * @param declare true if a marriage is declared with the card
+     * @param alpha the value player 0 can already reach
+     * @param beta the value player 1 can already reach
+     * @return the game points of player 0 under perfect play
+     */
+    private int leadCard(int leader, int card, boolean declare, int alpha, int beta) {
+        int savedPoints = points[leader];
+        int savedPendingMarriagePoints = pendingMarriagePoints[leader];
+        int value;
+
+        //declared marriages only count after the first trick was won, they can end the round immediately
+        if (declare) {
+            int marriagePoints = Card_Bits_Schnapsen.suitOf(card) == trumpSuit ? 40 : 20;
+            if (tricks[leader] > 0) {
+                points[leader] += marriagePoints;
+            } else {
+                pendingMarriagePoints[leader] += marriagePoints;
+            }
+        }
+
+        if (points[leader] >= Playout_State_Schnapsen.WINNING_POINTS) {
+            value = result(leader);
+        } else {
+            hands[leader] &= ~(1 << card);
+            value = follow(leader, card, alpha, beta);
+            hands[leader] |= 1 << card;
+        }
+
+        points[leader] = savedPoints;
+        pendingMarriagePoints[leader] = savedPendingMarriagePoints;
+        return value;
+    }
+
+    /**
+     * Searches all legal answers of the follower to the led card. The follower has to follow suit with a higher card if possible,
+     * otherwise with any card of the suit, otherwise has to play a trump.
+     * @param leader the player who led the trick
+     * @param leadingCard the card index of the led card
+     * @param alpha the value player 0 can already reach
+     * @param beta the value player 1 can already reach
+     * @return the game points of player 0 under perfect play
+     */
+    private int follow(int leader, int leadingCard, int alpha, int beta) {
+        nodesSearched++;
+        int follower = 1 - leader;
+        boolean maximizing = follower == 0;
+        int bestValue = maximizing ? -MAX_GAME_POINTS : MAX_GAME_POINTS;
+
+        int hand = hands[follower];
+        int replies;
+        int sameSuit = hand & Card_Bits_Schnapsen.SUIT_MASKS[Card_Bits_Schnapsen.suitOf(leadingCard)];
+        if (sameSuit != 0) {
+            int higher = sameSuit & ~((2 << leadingCard) - 1);
+            replies = higher != 0 ? higher : sameSuit;
+        } else {
+            int trumps = hand & Card_Bits_Schnapsen.SUIT_MASKS[trumpSuit];
+            replies = trumps != 0 ? trumps : hand;
+        }
+
+        for (; replies != 0; replies &= replies - 1) {
+            int value = resolveTrick(leader, leadingCard, Integer.numberOfTrailingZeros(replies), alpha, beta);
+            if (maximizing) {
+                bestValue = Math.max(bestValue, value);
+                alpha = Math.max(alpha, bestValue);
+            } else {
+                bestValue = Math.min(bestValue, value);
+                beta = Math.min(beta, bestValue);
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        return bestValue;
+    }
+
+    /**
+     * Plays the answer of the follower, gives the trick to its winner and searches the rest of the round
+     * @param leader the player who led the trick
+     * @param leadingCard the card index of the led card
+     * @param card the card index of the answer
+     * @param alpha the value player 0 can already reach
+     * @param beta the value player 1 can already reach
+     * @return the game points of player 0 under perfect play
+     */
+    private int resolveTrick(int leader, int leadingCard, int card, int alpha, int beta) {
+        int follower = 1 - leader;
+        boolean followerWins = Card_Bits_Schnapsen.suitOf(card) == Card_Bits_Schnapsen.suitOf(leadingCard)
+                ? card > leadingCard
+                : Card_Bits_Schnapsen.suitOf(card) == trumpSuit;
+        int winner = followerWins ? follower : leader;
+
+        int savedPoints = points[winner];
+        int savedPendingMarriagePoints = pendingMarriagePoints[winner];
+        int savedTricks = tricks[winner];
+
+        hands[follower] &= ~(1 << card);
+        points[winner] += Card_Bits_Schnapsen.CARD_POINTS[leadingCard] + Card_Bits_Schnapsen.CARD_POINTS[card];
+        if (tricks[winner] == 0) {
+            points[winner] += pendingMarriagePoints[winner];
+            pendingMarriagePoints[winner] = 0;
+        }
+        tricks[winner]++;
+
+        int value;
+        if (points[winner] >= Playout_State_Schnapsen.WINNING_POINTS) {
+            value = result(winner);
+        } else if (hands[0] == 0 && hands[1] == 0) {
+            //after the last trick a player who closed the talon has lost, otherwise the pile was exhausted and the last trick decides the round
+            value = result(closingPlayer >= 0 ? 1 - closingPlayer : winner);
+        } else {
+            value = lead(winner, alpha, beta);
+        }
+
+        hands[follower] |= 1 << card;
+        points[winner] = savedPoints;
+        pendingMarriagePoints[winner] = savedPendingMarriagePoints;
+        tricks[winner] = savedTricks;
+        return value;
+    }
+
+    /**
+     * Calculates the game points of a finished round the same way as the playout state does
+     * @param winner the player who won the round
+     * @return the game points of the winner, positive if player 0 won and negative if player 1 won
+     */
+    private int result(int winner) {
+        int loser = 1 - winner;
+        int gamePoints;
+        if (closingPlayer >= 0) {
+            if (winner == closingPlayer) {
+                gamePoints = Playout_State_Schnapsen.gamePointsFor(opponentPointsAtClosing, opponentTricksAtClosing);
+            } else {
+                gamePoints = opponentTricksAtClosing == 0 ? 3 : 2;
+            }
+        } else if (points[winner] < Playout_State_Schnapsen.WINNING_POINTS) {
+            gamePoints = 1;
+        } else {
+            gamePoints = Playout_State_Schnapsen.gamePointsFor(points[loser], tricks[loser]);
+        }
+        return winner == 0 ? gamePoints : -gamePoints;
+    }
+}
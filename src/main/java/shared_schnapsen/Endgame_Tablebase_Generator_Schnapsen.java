@@ -0,0 +1,212 @@
+package shared_schnapsen;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+public final class Endgame_Tablebase_Generator_Schnapsen {
+
+    //Offsets and record sizes are ints, five cards per hand would exceed the size of a single mapped file
+    private static final int MAX_SUPPORTED_CARDS = 4;
+    private static final int DEFAULT_MAX_CARDS = 3;
+
+    private Endgame_Tablebase_Generator_Schnapsen() {
+    }
+
+    /**
+     * Generates the endgame tablebase and writes it into a file.
+     * Usage: Endgame_Tablebase_Generator_Schnapsen [file] [max cards per hand] [threads]
+     * @param args the output file (endgame-tablebase.bin), the maximum number of cards per hand (3) and the number of threads (all processors)
+     * @throws IOException if the file can not be written
+     * @throws InterruptedException if the generation is interrupted
+     * @throws ExecutionException if a worker fails
+     */
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        Path file = Paths.get(args.length > 0 ? args[0] : "endgame-tablebase.bin");
+        int maxCards = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_CARDS;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        if (maxCards < 1 || maxCards > MAX_SUPPORTED_CARDS) {
+            throw new IllegalArgumentException("The maximum number of cards per hand has to be between 1 and " + MAX_SUPPORTED_CARDS);
+        }
+
+        long start = System.nanoTime();
+        long[] keys = enumeratePositions(maxCards);
+        System.out.printf("Solving %d positions with up to %d cards per hand on %d threads%n", keys.length, maxCards, threads);
+
+        byte[] records = generateRecords(keys, Math.max(threads, 1));
+        write(file, maxCards, keys, records);
+        System.out.printf("Wrote %s (%d bytes) in %.1f s%n", file, (long) Endgame_Tablebase_Schnapsen.HEADER_SIZE
+                + (long) keys.length * Long.BYTES + records.length, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Enumerates all pairs of hands with the same amount of cards, up to suit isomorphism, for both leading players
+     * @param maxCards the maximum number of cards per hand
+     * @return the sorted canonical keys of all positions
+     */
+    static long[] enumeratePositions(int maxCards) {
+        long[] keys = new long[1024];
+        int count = 0;
+        for (int cards = 1; cards <= maxCards; cards++) {
+            int lastHand = ((1 << cards) - 1) << (Card_Bits_Schnapsen.DECK_SIZE - cards);
+            for (int hand0 = (1 << cards) - 1; hand0 <= lastHand; hand0 = nextCombination(hand0)) {
+                for (int hand1 = (1 << cards) - 1; hand1 <= lastHand; hand1 = nextCombination(hand1)) {
+                    if ((hand0 & hand1) != 0) {
+                        continue;
+                    }
+                    for (int leader = 0; leader < 2; leader++) {
+                        long key = Endgame_Tablebase_Schnapsen.key(hand0, hand1, leader);
+                        //only the canonical representative of every isomorphic position is stored
+                        if (Endgame_Tablebase_Schnapsen.canonicalKey(0, hand0, hand1, leader) != key) {
+                            continue;
+                        }
+                        if (count == keys.length) {
+                            keys = Arrays.copyOf(keys, keys.length * 2);
+                        }
+                        keys[count++] = key;
+                    }
+                }
+            }
+        }
+        keys = Arrays.copyOf(keys, count);
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    /**
+     * Solves the records of all positions in parallel, every worker thread uses its own solver
+     * @param keys the sorted keys of the positions
+     * @param threads the number of worker threads
+     * @return the records in the order of the keys
+     * @throws InterruptedException if the generation is interrupted
+     * @throws ExecutionException if a worker fails
+     */
+    private static byte[] generateRecords(long[] keys, int threads) throws InterruptedException, ExecutionException {
+        byte[] records = new byte[keys.length * Endgame_Tablebase_Schnapsen.RECORD_SIZE];
+        ThreadLocal<Endgame_Solver_Schnapsen> solvers = ThreadLocal.withInitial(Endgame_Solver_Schnapsen::new);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.submit(() -> IntStream.range(0, keys.length).parallel()
+                    .forEach(i -> writeRecord(solvers.get(), keys[i], records, i * Endgame_Tablebase_Schnapsen.RECORD_SIZE))).get();
+        } finally {
+            pool.shutdown();
+        }
+        return records;
+    }
+
+    /**
+     * Calculates the thresholds of one position. The outcome only gets better for a player with more points of its own and worse with more points
+     * of the opponent, therefore every threshold is found by a binary search that starts at the threshold of the previous points value.
+     * @param solver the solver of the worker thread
+     * @param key the key of the position
+     * @param records the records of all positions
+     * @param offset the offset of the record of this position
+     */
+    private static void writeRecord(Endgame_Solver_Schnapsen solver, long key, byte[] records, int offset) {
+        int hand0 = (int) key & Card_Bits_Schnapsen.FULL_DECK;
+        int hand1 = (int) (key >>> Card_Bits_Schnapsen.DECK_SIZE) & Card_Bits_Schnapsen.FULL_DECK;
+        int leader = (int) (key >>> (2 * Card_Bits_Schnapsen.DECK_SIZE));
+
+        //pile exhausted: the points player 0 needs for every level of game points, for every points value of player 1
+        int[] levels = Endgame_Tablebase_Schnapsen.OPEN_TALON_LEVELS;
+        int[] lowerBounds = new int[levels.length];
+        for (int points1 = 0; points1 < Endgame_Tablebase_Schnapsen.POINT_VALUES; points1++) {
+            int previousLevel = 0;
+            for (int level = 0; level < levels.length; level++) {
+                int points1Value = points1;
+                int gamePoints = levels[level];
+                int threshold = threshold(Math.max(lowerBounds[level], previousLevel),
+                        points0 -> solver.solveTablebasePosition(hand0, hand1, leader, points0, points1Value, -1) >= gamePoints);
+                records[offset + points1 * levels.length + level] = (byte) threshold;
+                lowerBounds[level] = threshold;
+                previousLevel = threshold;
+            }
+        }
+
+        //talon closed: the points the closing player needs to win, for every points value of the opponent
+        for (int closingPlayer = 0; closingPlayer < 2; closingPlayer++) {
+            int closer = closingPlayer;
+            int recordOffset = offset + (closer == 0 ? Endgame_Tablebase_Schnapsen.CLOSED_BY_PLAYER_0_OFFSET : Endgame_Tablebase_Schnapsen.CLOSED_BY_PLAYER_1_OFFSET);
+            int lowerBound = 0;
+            for (int opponentPoints = 0; opponentPoints < Endgame_Tablebase_Schnapsen.POINT_VALUES; opponentPoints++) {
+                int opponentPointsValue = opponentPoints;
+                int threshold = threshold(lowerBound, closerPoints -> {
+                    int points0 = closer == 0 ? closerPoints : opponentPointsValue;
+                    int points1 = closer == 0 ? opponentPointsValue : closerPoints;
+                    int result = solver.solveTablebasePosition(hand0, hand1, leader, points0, points1, closer);
+                    return Endgame_Solver_Schnapsen.getWinner(result) == closer;
+                });
+                records[recordOffset + opponentPoints] = (byte) threshold;
+                lowerBound = threshold;
+            }
+        }
+    }
+
+    /**
+     * Finds the lowest points value for which a condition holds, assuming that it holds for all higher values
+     * @param low the lowest points value that has to be checked
+     * @param reached the condition, tested with points values below the winning points
+     * @return the lowest points value for which the condition holds, UNREACHABLE if it holds for none
+     */
+    private static int threshold(int low, IntPredicate reached) {
+        int high = Endgame_Tablebase_Schnapsen.UNREACHABLE;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (reached.test(middle)) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Writes the header, the keys and the records into the file
+     * @param file the output file
+     * @param maxCards the maximum number of cards per hand
+     * @param keys the sorted keys of the positions
+     * @param records the records in the order of the keys
+     * @throws IOException if the file can not be written
+     */
+    private static void write(Path file, int maxCards, long[] keys, byte[] records) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(Endgame_Tablebase_Schnapsen.HEADER_SIZE + keys.length * Long.BYTES).order(ByteOrder.BIG_ENDIAN);
+        header.putInt(Endgame_Tablebase_Schnapsen.MAGIC);
+        header.putInt(Endgame_Tablebase_Schnapsen.VERSION);
+        header.putInt(maxCards);
+        header.putInt(keys.length);
+        for (long key : keys) {
+            header.putLong(key);
+        }
+        header.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            ByteBuffer body = ByteBuffer.wrap(records);
+            while (body.hasRemaining()) {
+                channel.write(body);
+            }
+        }
+    }
+
+    /**
+     * Returns the next larger bitmask with the same amount of set bits (Gosper's hack)
+     * @param combination a bitmask
+     * @return the next combination
+     */
+    private static int nextCombination(int combination) {
+        int lowest = combination & -combination;
+        int ripple = combination + lowest;
+        return (((ripple ^ combination) >>> 2) / lowest) | ripple;
+    }
+}
@@ -0,0 +1,280 @@
+package shared_schnapsen;
+
+import at.ac.tuwien.ifs.sge.engine.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public final class Endgame_Tablebase_Schnapsen {
+
+    //Returned by probe if the position is not covered by the tablebase, a solved round always has at least one game point
+    public static final int NOT_FOUND = 0;
+
+    //The system property with the path of the tablebase file, which is mapped once and shared by all agents of the JVM
+    public static final String FILE_PROPERTY = "schnapsen.tablebase";
+
+    //File layout: header (magic, version, max cards per hand, number of positions), sorted position keys, one record per key
+    static final int MAGIC = 0x534E5442;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 4 * Integer.BYTES;
+
+    //Points of a player in an ongoing round range from 0 to 65, a threshold of 66 can never be reached
+    static final int POINT_VALUES = Playout_State_Schnapsen.WINNING_POINTS;
+    static final int UNREACHABLE = Playout_State_Schnapsen.WINNING_POINTS;
+
+    //The game points of player 0 without a closing player are -2, -1, 1 or 2, the record holds the thresholds of the three upper levels
+    static final int[] OPEN_TALON_LEVELS = {-1, 1, 2};
+
+    //A record holds for every points value of player 1 the points player 0 needs for each level,
+    //then for a talon closed by player 0 and by player 1 the points the closing player needs to win for every points value of its opponent
+    static final int CLOSED_BY_PLAYER_0_OFFSET = POINT_VALUES * OPEN_TALON_LEVELS.length;
+    static final int CLOSED_BY_PLAYER_1_OFFSET = CLOSED_BY_PLAYER_0_OFFSET + POINT_VALUES;
+    static final int RECORD_SIZE = CLOSED_BY_PLAYER_1_OFFSET + POINT_VALUES;
+
+    private final ByteBuffer buffer;
+    private final int maxCards;
+    private final int positionCount;
+    private final int recordsOffset;
+
+    /**
+     * Maps a tablebase file into memory. The records are read directly from the mapped file, so that opening it does not deserialize anything.
+     * @param file the path of a file written by Endgame_Tablebase_Generator_Schnapsen
+     * @throws IOException if the file can not be read or is not a tablebase
+     */
+    public Endgame_Tablebase_Schnapsen(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.BIG_ENDIAN);
+        }
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a Schnapsen endgame tablebase: " + file);
+        }
+        this.maxCards = buffer.getInt(8);
+        this.positionCount = buffer.getInt(12);
+        this.recordsOffset = HEADER_SIZE + positionCount * Long.BYTES;
+        if ((long) recordsOffset + (long) positionCount * RECORD_SIZE != buffer.capacity()) {
+            throw new IOException("Truncated Schnapsen endgame tablebase: " + file);
+        }
+    }
+
+    /**
+     * Returns the tablebase of the file named by the system property schnapsen.tablebase. It is mapped on the first call and shared by all callers,
+     * the reads of the mapped buffer do not change its state and are therefore safe from any thread.
+     * @return the shared tablebase, null if the property is not set or the file can not be read
+     */
+    public static Endgame_Tablebase_Schnapsen getShared() {
+        return Shared_Tablebase.TABLEBASE;
+    }
+
+    /**
+     * Reports a tablebase that was named by the system property but could not be mapped, the agents call it with their logger when they are set up
+     * @param log the logger of the agent
+     */
+    public static void reportShared(Logger log) {
+        if (Shared_Tablebase.TABLEBASE == null && Shared_Tablebase.loadError != null) {
+            log.warn("Endgame tablebase not loaded: " + Shared_Tablebase.loadError);
+        }
+    }
+
+    /**
+     * Looks up the outcome of a position under perfect play of both players. Covered are positions with the strict rules
+     * (talon closed or pile exhausted) at the start of a trick, in which both players have already won a trick and hold at most getMaxCards() cards.
+     * A closed talon whose closer is unknown is not covered, the closer decides the result of the round.
+     * @param state the position to be looked up
+     * @return the game points of the winner, positive if player 0 wins the round and negative if player 1 wins it, NOT_FOUND if the position is not covered
+     */
+    public int probe(Playout_State_Schnapsen state) {
+        if (state.isRoundOver() || !state.isStrictPlay() || state.isClosingPlayerUnknown() || state.getLeadingCard() >= 0 || state.getTricks(0) == 0 || state.getTricks(1) == 0) {
+            return NOT_FOUND;
+        }
+        int hand0 = state.getHand(0);
+        int hand1 = state.getHand(1);
+        int cards = Integer.bitCount(hand0);
+        if (cards == 0 || cards > maxCards || Integer.bitCount(hand1) != cards) {
+            return NOT_FOUND;
+        }
+        int index = find(canonicalKey(state.getTrumpSuit(), hand0, hand1, state.getCurrentPlayer()));
+        if (index < 0) {
+            return NOT_FOUND;
+        }
+        int record = recordsOffset + index * RECORD_SIZE;
+
+        int closingPlayer = state.getClosingPlayer();
+        if (closingPlayer < 0) {
+            int thresholds = record + state.getPoints(1) * OPEN_TALON_LEVELS.length;
+            int points0 = state.getPoints(0);
+            for (int level = OPEN_TALON_LEVELS.length - 1; level >= 0; level--) {
+                if (points0 >= buffer.get(thresholds + level)) {
+                    return OPEN_TALON_LEVELS[level];
+                }
+            }
+            return -2;
+        }
+
+        //the closing player only has to reach the winning points, the game points depend on the opponent at the time of closing
+        int opponent = 1 - closingPlayer;
+        int offset = closingPlayer == 0 ? CLOSED_BY_PLAYER_0_OFFSET : CLOSED_BY_PLAYER_1_OFFSET;
+        boolean closerWins = state.getPoints(closingPlayer) >= buffer.get(record + offset + state.getPoints(opponent));
+        int winner = closerWins ? closingPlayer : opponent;
+        int gamePoints = closerWins
+                ? Playout_State_Schnapsen.gamePointsFor(state.getOpponentPointsAtClosing(), state.getOpponentTricksAtClosing())
+                : state.getOpponentTricksAtClosing() == 0 ? 3 : 2;
+        return winner == 0 ? gamePoints : -gamePoints;
+    }
+
+    /**
+     * Returns the maximum number of cards per hand of the covered positions
+     * @return the maximum hand size
+     */
+    public int getMaxCards() {
+        return maxCards;
+    }
+
+    /**
+     * Returns the number of positions that are stored, every position is a pair of hands up to suit isomorphism and the leading player
+     * @return the number of stored positions
+     */
+    public int getPositionCount() {
+        return positionCount;
+    }
+
+    /**
+     * Binary search of a key in the sorted keys of the file
+     * @param key a canonical key
+     * @return the index of the key, -1 if it is not stored
+     */
+    private int find(long key) {
+        int low = 0;
+        int high = positionCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleKey = buffer.getLong(HEADER_SIZE + middle * Long.BYTES);
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Maps a position to the key of its canonical form. Only the trump suit differs from the other suits, therefore the trump suit
+     * becomes suit 0 and the other suits are ordered by the cards both players hold in them.
+     * @param trumpSuit the trump suit of the position
+     * @param hand0 the hand of player 0 as bitmask
+     * @param hand1 the hand of player 1 as bitmask
+     * @param leader the player who leads the next trick
+     * @return the key of the canonical position
+     */
+    static long canonicalKey(int trumpSuit, int hand0, int hand1, int leader) {
+        //the three other suits sorted by their pattern, equal patterns can be swapped without changing the position
+        int first = -1;
+        int second = -1;
+        int third = -1;
+        for (int suit = 0; suit < Card_Bits_Schnapsen.NUMBER_OF_SUITS; suit++) {
+            if (suit == trumpSuit) {
+                continue;
+            }
+            if (first < 0) {
+                first = suit;
+            } else if (second < 0) {
+                second = suit;
+            } else {
+                third = suit;
+            }
+        }
+        if (suitPattern(second, hand0, hand1) > suitPattern(first, hand0, hand1)) {
+            int swap = first;
+            first = second;
+            second = swap;
+        }
+        if (suitPattern(third, hand0, hand1) > suitPattern(second, hand0, hand1)) {
+            int swap = second;
+            second = third;
+            third = swap;
+            if (suitPattern(second, hand0, hand1) > suitPattern(first, hand0, hand1)) {
+                swap = first;
+                first = second;
+                second = swap;
+            }
+        }
+
+        int canonicalHand0 = moveSuit(hand0, trumpSuit, 0) | moveSuit(hand0, first, 1) | moveSuit(hand0, second, 2) | moveSuit(hand0, third, 3);
+        int canonicalHand1 = moveSuit(hand1, trumpSuit, 0) | moveSuit(hand1, first, 1) | moveSuit(hand1, second, 2) | moveSuit(hand1, third, 3);
+        return key(canonicalHand0, canonicalHand1, leader);
+    }
+
+    /**
+     * Packs a position with trump suit 0 into a key
+     * @param hand0 the hand of player 0 as bitmask
+     * @param hand1 the hand of player 1 as bitmask
+     * @param leader the player who leads the next trick
+     * @return the key of the position
+     */
+    static long key(int hand0, int hand1, int leader) {
+        return hand0 | ((long) hand1 << Card_Bits_Schnapsen.DECK_SIZE) | ((long) leader << (2 * Card_Bits_Schnapsen.DECK_SIZE));
+    }
+
+    /**
+     * Returns the cards of both players in a suit as a number, which orders the suits of a position
+     * @param suit the suit index
+     * @param hand0 the hand of player 0 as bitmask
+     * @param hand1 the hand of player 1 as bitmask
+     * @return the cards of player 0 in the lower and of player 1 in the upper five bits
+     */
+    private static int suitPattern(int suit, int hand0, int hand1) {
+        int shift = suit * Card_Bits_Schnapsen.CARDS_PER_SUIT;
+        int suitBits = (1 << Card_Bits_Schnapsen.CARDS_PER_SUIT) - 1;
+        return ((hand0 >>> shift) & suitBits) | (((hand1 >>> shift) & suitBits) << Card_Bits_Schnapsen.CARDS_PER_SUIT);
+    }
+
+    /**
+     * Moves the cards of a suit to another suit
+     * @param hand the hand as bitmask
+     * @param fromSuit the suit of the cards
+     * @param toSuit the suit the cards are moved to
+     * @return the moved cards as bitmask
+     */
+    private static int moveSuit(int hand, int fromSuit, int toSuit) {
+        int suitBits = (1 << Card_Bits_Schnapsen.CARDS_PER_SUIT) - 1;
+        return ((hand >>> (fromSuit * Card_Bits_Schnapsen.CARDS_PER_SUIT)) & suitBits) << (toSuit * Card_Bits_Schnapsen.CARDS_PER_SUIT);
+    }
+
+    /**
+     * Loads the shared tablebase when it is used for the first time
+     */
+    private static final class Shared_Tablebase {
+        //The reason the named file could not be mapped, null if it was mapped or no file was named
+        private static String loadError;
+        private static final Endgame_Tablebase_Schnapsen TABLEBASE = load();
+
+        /**
+         * Maps the file named by the system property
+         * @return the tablebase, null if there is none
+         */
+        private static Endgame_Tablebase_Schnapsen load() {
+            String file = System.getProperty(FILE_PROPERTY);
+            if (file == null || file.isEmpty()) {
+                return null;
+            }
+            if (!Files.isReadable(Paths.get(file))) {
+                loadError = file + " is not readable";
+                return null;
+            }
+            try {
+                return new Endgame_Tablebase_Schnapsen(Paths.get(file));
+            } catch (IOException e) {
+                loadError = e.getMessage();
+                return null;
+            }
+        }
+    }
+}
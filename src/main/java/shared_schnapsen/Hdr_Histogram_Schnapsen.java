@@ -0,0 +1,138 @@
+package shared_schnapsen;
+
+public final class Hdr_Histogram_Schnapsen {
+
+    //Every power of two is split into SUB_BUCKETS linear buckets, so that a bucket is at most 1/32 of its values wide
+    //Values below SUB_BUCKETS get a bucket of their own
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * Records a value with a relative precision of about 3%, the exact minimum, maximum and mean are kept as well
+     * @param value the value to be recorded, negative values are recorded as 0
+     */
+    public void record(long value) {
+        value = Math.max(value, 0);
+        counts[bucketOf(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Returns the number of recorded values
+     * @return the count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the smallest recorded value
+     * @return the minimum, 0 if nothing was recorded
+     */
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * Returns the largest recorded value
+     * @return the maximum, 0 if nothing was recorded
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the mean of the recorded values
+     * @return the mean, 0 if nothing was recorded
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Finds the value, at or below which the given percentage of the recorded values lie
+     * @param percentile the percentage between 0 and 100, e.g. 99.9
+     * @return the upper bound of the bucket of the percentile capped by the maximum, 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max((long) Math.ceil(percentile / 100 * count), 1);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.max(Math.min(getUpperBound(bucket), max), min);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the number of buckets, which are indexed from 0 to getNumberOfBuckets() - 1 in increasing order of their values
+     * @return the number of buckets
+     */
+    public int getNumberOfBuckets() {
+        return BUCKETS;
+    }
+
+    /**
+     * Returns how many recorded values fell into a bucket
+     * @param bucket the index of the bucket
+     * @return the count of the bucket
+     */
+    public long getBucketCount(int bucket) {
+        return counts[bucket];
+    }
+
+    /**
+     * Returns the smallest value of a bucket
+     * @param bucket the index of the bucket
+     * @return the lower bound of the bucket, inclusive
+     */
+    public long getLowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    }
+
+    /**
+     * Returns the largest value of a bucket
+     * @param bucket the index of the bucket
+     * @return the upper bound of the bucket, inclusive
+     */
+    public long getUpperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return getLowerBound(bucket) + (1L << shift) - 1;
+    }
+
+    /**
+     * Finds the bucket of a value: the highest bit selects the power of two, the following SUB_BUCKET_BITS bits the bucket within it
+     * @param value a value of at least 0
+     * @return the index of the bucket
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int highestBit = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = highestBit - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+}
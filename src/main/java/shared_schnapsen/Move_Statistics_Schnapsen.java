@@ -0,0 +1,272 @@
+package shared_schnapsen;
+
+import at.ac.tuwien.ifs.sge.engine.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class Move_Statistics_Schnapsen {
+
+    //The system property with the directory, into which every agent writes its statistics as CSV and JSON when the match is torn down
+    public static final String DIRECTORY_PROPERTY = "schnapsen.moveStatistics";
+
+    //Several agents of the same class can be torn down in one JVM, e.g. in a tournament, the sequence keeps their files apart
+    private static final AtomicInteger EXPORT_SEQUENCE = new AtomicInteger();
+
+    private final String agentName;
+
+    private final Hdr_Histogram_Schnapsen latencyNanos = new Hdr_Histogram_Schnapsen();
+    //The budget minus the latency, moves that missed the deadline are recorded with a slack of 0
+    private final Hdr_Histogram_Schnapsen slackNanos = new Hdr_Histogram_Schnapsen();
+    private final Hdr_Histogram_Schnapsen iterations = new Hdr_Histogram_Schnapsen();
+    private long deadlineMisses;
+    private long maxOverrunNanos;
+    //The moves by the reason their search ended, and the time left over by the moves that were stopped early
+    private final long[] stopCounts = new long[Time_Manager_Schnapsen.Stop_Reason.values().length];
+    private final Hdr_Histogram_Schnapsen savedNanos = new Hdr_Histogram_Schnapsen();
+    //The phase that was running when the budget of a missed move ran out
+    private final long[] missCounts = new long[Deadline_Controller_Schnapsen.Miss_Cause.values().length];
+
+    //The number of moves at the last export, tearDown and destroy of the same match only export once
+    private long exportedMoves;
+
+    /**
+     * Creates the empty statistics of an agent
+     * @param agentName the name used for the exported files
+     */
+    public Move_Statistics_Schnapsen(String agentName) {
+        this.agentName = agentName;
+    }
+
+    /**
+     * Records one call of computeNextAction
+     * @param latencyNanos the time the agent took for the move
+     * @param budgetNanos the computation time the engine gave the agent
+     * @param moveIterations the iterations, sampled worlds or searched nodes of the move, 0 if it did not search
+     */
+    public void recordMove(long latencyNanos, long budgetNanos, long moveIterations) {
+        this.latencyNanos.record(latencyNanos);
+        this.slackNanos.record(budgetNanos - latencyNanos);
+        this.iterations.record(moveIterations);
+        if (latencyNanos > budgetNanos) {
+            deadlineMisses++;
+            maxOverrunNanos = Math.max(maxOverrunNanos, latencyNanos - budgetNanos);
+        }
+    }
+
+    /**
+     * Records why the search of a move ended
+     * @param reason the reason from the time manager
+     * @param latencyNanos the time the agent took for the move
+     * @param budgetNanos the computation time the engine gave the agent
+     */
+    public void recordStop(Time_Manager_Schnapsen.Stop_Reason reason, long latencyNanos, long budgetNanos) {
+        stopCounts[reason.ordinal()]++;
+        if (reason != Time_Manager_Schnapsen.Stop_Reason.DEADLINE) {
+            savedNanos.record(budgetNanos - latencyNanos);
+        }
+    }
+
+    /**
+     * Records the phase of a move that missed its deadline
+     * @param cause the cause from the deadline controller
+     */
+    public void recordMissCause(Deadline_Controller_Schnapsen.Miss_Cause cause) {
+        missCounts[cause.ordinal()]++;
+    }
+
+    /**
+     * Returns how many deadline misses had a cause
+     * @param cause the cause from the deadline controller
+     * @return the number of missed moves
+     */
+    public long getMissCount(Deadline_Controller_Schnapsen.Miss_Cause cause) {
+        return missCounts[cause.ordinal()];
+    }
+
+    /**
+     * Returns how many moves ended for a reason
+     * @param reason the reason from the time manager
+     * @return the number of moves
+     */
+    public long getStopCount(Time_Manager_Schnapsen.Stop_Reason reason) {
+        return stopCounts[reason.ordinal()];
+    }
+
+    /**
+     * Returns the histogram of the time left over by the moves that were stopped early
+     * @return the saved time in nanoseconds
+     */
+    public Hdr_Histogram_Schnapsen getSavedNanos() {
+        return savedNanos;
+    }
+
+    /**
+     * Returns the histogram of the move latencies
+     * @return the latencies in nanoseconds
+     */
+    public Hdr_Histogram_Schnapsen getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    /**
+     * Returns the histogram of the time left over from the budget
+     * @return the slack in nanoseconds
+     */
+    public Hdr_Histogram_Schnapsen getSlackNanos() {
+        return slackNanos;
+    }
+
+    /**
+     * Returns the histogram of the iterations per move
+     * @return the iteration counts
+     */
+    public Hdr_Histogram_Schnapsen getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Returns how many moves took longer than their budget
+     * @return the number of deadline misses
+     */
+    public long getDeadlineMisses() {
+        return deadlineMisses;
+    }
+
+    /**
+     * Returns how far the worst deadline miss exceeded its budget
+     * @return the overrun in nanoseconds, 0 if no deadline was missed
+     */
+    public long getMaxOverrunNanos() {
+        return maxOverrunNanos;
+    }
+
+    /**
+     * Formats the tail of the latencies and the smallest slack in one line
+     * @return the summary line
+     */
+    public String getSummary() {
+        return String.format(Locale.ROOT, "%s moves %d  latency p50 %.1f ms p99 %.1f ms p99.9 %.1f ms max %.1f ms  slack min %.1f ms p1 %.1f ms  iterations p50 %d  deadline misses %d (max overrun %.1f ms, search %d join %d merge %d result %d collection %d)  early stops stable %d decided %d (saved p50 %.1f ms)",
+                agentName, latencyNanos.getCount(), latencyNanos.getValueAtPercentile(50) / 1e6, latencyNanos.getValueAtPercentile(99) / 1e6,
+                latencyNanos.getValueAtPercentile(99.9) / 1e6, latencyNanos.getMax() / 1e6, slackNanos.getMin() / 1e6,
+                slackNanos.getValueAtPercentile(1) / 1e6, iterations.getValueAtPercentile(50), deadlineMisses, maxOverrunNanos / 1e6,
+                getMissCount(Deadline_Controller_Schnapsen.Miss_Cause.SEARCH), getMissCount(Deadline_Controller_Schnapsen.Miss_Cause.JOIN),
+                getMissCount(Deadline_Controller_Schnapsen.Miss_Cause.MERGE), getMissCount(Deadline_Controller_Schnapsen.Miss_Cause.RESULT),
+                getMissCount(Deadline_Controller_Schnapsen.Miss_Cause.COLLECTION),
+                getStopCount(Time_Manager_Schnapsen.Stop_Reason.STABLE), getStopCount(Time_Manager_Schnapsen.Stop_Reason.DECIDED), savedNanos.getValueAtPercentile(50) / 1e6);
+    }
+
+    /**
+     * Formats the non-empty buckets of all histograms, the cumulative percentage allows to plot the distribution directly
+     * @return CSV with the columns metric, lower, upper, count and percentile
+     */
+    public String toCsv() {
+        StringBuilder csv = new StringBuilder("metric,lower,upper,count,percentile\n");
+        appendCsv(csv, "latency_ns", latencyNanos);
+        appendCsv(csv, "slack_ns", slackNanos);
+        appendCsv(csv, "iterations", iterations);
+        appendCsv(csv, "saved_ns", savedNanos);
+        return csv.toString();
+    }
+
+    /**
+     * Formats the summary values and the non-empty buckets of all histograms
+     * @param playerId the seat of the agent in the match
+     * @return a JSON object
+     */
+    public String toJson(int playerId) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"agent\": \"").append(agentName).append("\",\n");
+        json.append("  \"player\": ").append(playerId).append(",\n");
+        json.append("  \"moves\": ").append(latencyNanos.getCount()).append(",\n");
+        json.append("  \"deadlineMisses\": ").append(deadlineMisses).append(",\n");
+        json.append("  \"maxOverrunNs\": ").append(maxOverrunNanos).append(",\n");
+        json.append("  \"missCauses\": {");
+        for (Deadline_Controller_Schnapsen.Miss_Cause cause : Deadline_Controller_Schnapsen.Miss_Cause.values()) {
+            json.append(cause.ordinal() == 0 ? "" : ", ").append('"').append(cause.name().toLowerCase(Locale.ROOT)).append("\": ").append(getMissCount(cause));
+        }
+        json.append("},\n");
+        json.append("  \"stableStops\": ").append(getStopCount(Time_Manager_Schnapsen.Stop_Reason.STABLE)).append(",\n");
+        json.append("  \"decidedStops\": ").append(getStopCount(Time_Manager_Schnapsen.Stop_Reason.DECIDED)).append(",\n");
+        appendJson(json, "latencyNs", latencyNanos);
+        json.append(",\n");
+        appendJson(json, "slackNs", slackNanos);
+        json.append(",\n");
+        appendJson(json, "iterations", iterations);
+        json.append(",\n");
+        appendJson(json, "savedNs", savedNanos);
+        json.append("\n}\n");
+        return json.toString();
+    }
+
+    /**
+     * Writes the statistics as CSV and JSON into the directory of the system property and logs the summary.
+     * Nothing is written if the property is not set or no move was recorded since the last export.
+     * @param playerId the seat of the agent in the match
+     * @param log the logger of the agent, which receives the summary and a failed export, null to export silently
+     */
+    public void export(int playerId, Logger log) {
+        String directory = System.getProperty(DIRECTORY_PROPERTY);
+        if (directory == null || directory.isEmpty() || latencyNanos.getCount() == exportedMoves) {
+            return;
+        }
+        exportedMoves = latencyNanos.getCount();
+        String fileName = String.format(Locale.ROOT, "%s-player%d-%d-%d", agentName, playerId, ProcessHandle.current().pid(), EXPORT_SEQUENCE.getAndIncrement());
+        try {
+            Path directoryPath = Files.createDirectories(Paths.get(directory));
+            Files.writeString(directoryPath.resolve(fileName + ".csv"), toCsv());
+            Files.writeString(directoryPath.resolve(fileName + ".json"), toJson(playerId));
+            if (log != null) {
+                log.info(getSummary());
+            }
+        } catch (IOException e) {
+            if (log != null) {
+                log.warn("Move statistics not exported: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Appends the non-empty buckets of a histogram as CSV rows
+     * @param csv the CSV to be extended
+     * @param metric the name in the first column
+     * @param histogram the histogram to be appended
+     */
+    private static void appendCsv(StringBuilder csv, String metric, Hdr_Histogram_Schnapsen histogram) {
+        long seen = 0;
+        for (int bucket = 0; bucket < histogram.getNumberOfBuckets(); bucket++) {
+            long bucketCount = histogram.getBucketCount(bucket);
+            if (bucketCount == 0) {
+                continue;
+            }
+            seen += bucketCount;
+            csv.append(String.format(Locale.ROOT, "%s,%d,%d,%d,%.4f%n", metric, histogram.getLowerBound(bucket), histogram.getUpperBound(bucket),
+                    bucketCount, 100.0 * seen / histogram.getCount()));
+        }
+    }
+
+    /**
+     * Appends a histogram as JSON member with its percentiles and its non-empty buckets as [lower, upper, count]
+     * @param json the JSON to be extended
+     * @param name the name of the member
+     * @param histogram the histogram to be appended
+     */
+    private static void appendJson(StringBuilder json, String name, Hdr_Histogram_Schnapsen histogram) {
+        json.append(String.format(Locale.ROOT, "  \"%s\": {\"count\": %d, \"min\": %d, \"mean\": %.1f, \"p1\": %d, \"p50\": %d, \"p90\": %d, \"p99\": %d, \"p99.9\": %d, \"max\": %d, \"buckets\": [",
+                name, histogram.getCount(), histogram.getMin(), histogram.getMean(), histogram.getValueAtPercentile(1), histogram.getValueAtPercentile(50),
+                histogram.getValueAtPercentile(90), histogram.getValueAtPercentile(99), histogram.getValueAtPercentile(99.9), histogram.getMax()));
+        String separator = "";
+        for (int bucket = 0; bucket < histogram.getNumberOfBuckets(); bucket++) {
+            if (histogram.getBucketCount(bucket) > 0) {
+                json.append(separator).append('[').append(histogram.getLowerBound(bucket)).append(", ")
+                        .append(histogram.getUpperBound(bucket)).append(", ").append(histogram.getBucketCount(bucket)).append(']');
+                separator = ", ";
+            }
+        }
+        json.append("]}");
+    }
+}
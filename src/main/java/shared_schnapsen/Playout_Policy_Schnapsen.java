@@ -0,0 +1,101 @@
+package shared_schnapsen;
+
+import java.util.Random;
+
+public final class Playout_Policy_Schnapsen {
+
+    private Playout_Policy_Schnapsen() {
+    }
+
+    /**
+     * Selects a uniformly random legal move of the current player
+     * @param state the current playout state
+     * @param random the source of randomness
+     * @return a random legal move
+     */
+    public static int randomMove(Playout_State_Schnapsen state, Random random) {
+        return Playout_State_Schnapsen.selectRandomMove(state.getLegalMoves(), random);
+    }
+
+    /**
+     * This method checks the current games situation for the best move based on some rules (heuristics)
+     * <p>
+     * Rule 1: Always exchange trump or declare marriage if possible (only possible if leading).
+     * Rule 2: Passive leading with a low valued non-trump card.
+     * Rule 3: Try taking 10 or Aces from non-trump color by also using trump cards, as long as the talon is not closed.
+     * @param state the current playout state
+     * @param random the source of randomness for the fallback if no rule applies
+     * @return a legal move of the current player, selected based on some rules
+     */
+    public static int heuristicMove(Playout_State_Schnapsen state, Random random) {
+        long legalMoves = state.getLegalMoves();
+
+        //if only one move is available instantly return it
+        if (Long.bitCount(legalMoves) == 1) {
+            return Long.numberOfTrailingZeros(legalMoves);
+        }
+
+        int hand = state.getHand(state.getCurrentPlayer());
+        int trumpMask = Card_Bits_Schnapsen.SUIT_MASKS[state.getTrumpSuit()];
+        int leadingCard = state.getLeadingCard();
+
+        if (leadingCard < 0) {
+            //Rule 1: marriages and the trump exchange are encoded above the plain card moves
+            long specialMoves = legalMoves & ~((long) Card_Bits_Schnapsen.FULL_DECK) & ~(1L << Playout_State_Schnapsen.MOVE_CLOSE_TALON);
+            if (specialMoves != 0) {
+                return Long.numberOfTrailingZeros(specialMoves);
+            }
+
+            //Rule 2: the lowest valued non-trump card
+            int lowestLead = lowestCard(hand & ~trumpMask);
+            if (lowestLead >= 0 && (legalMoves & (1L << lowestLead)) != 0) {
+                return lowestLead;
+            }
+        } else if (!state.isTalonClosed()) {
+            //Rule 3: take a Ten or Ace of a non-trump suit
+            int leadSuit = Card_Bits_Schnapsen.suitOf(leadingCard);
+            if (Card_Bits_Schnapsen.rankOf(leadingCard) >= Card_Bits_Schnapsen.RANK_TEN && leadSuit != state.getTrumpSuit()) {
+                //If having the Ace over the Ten just take the trick with the Ace, otherwise we use the lowest trump
+                int higherSameSuit = hand & Card_Bits_Schnapsen.SUIT_MASKS[leadSuit] & ~((2 << leadingCard) - 1);
+                int takeTA = higherSameSuit != 0 ? Integer.numberOfTrailingZeros(higherSameSuit) : lowestCard(hand & trumpMask);
+                if (takeTA >= 0 && (legalMoves & (1L << takeTA)) != 0) {
+                    return takeTA;
+                }
+            }
+        }
+
+        // Fallback if no rule is applied we select a random move
+        return Playout_State_Schnapsen.selectRandomMove(legalMoves, random);
+    }
+
+    /**
+     * Selects a move with an epsilon greedy approach, where we play our heuristic move if the random number between 0.0 and 1.0 is higher than epsilon
+     * @param state the current playout state
+     * @param epsilon the probability of playing a random move
+     * @param random the source of randomness
+     * @return a legal move of the current player
+     */
+    public static int epsilonGreedyMove(Playout_State_Schnapsen state, double epsilon, Random random) {
+        if (random.nextDouble() < epsilon) {
+            return randomMove(state, random);
+        }
+        return heuristicMove(state, random);
+    }
+
+    /**
+     * Finds the card with the lowest value in a set of cards
+     * @param cards a bitmask of cards
+     * @return the card index of the lowest valued card, -1 if the set is empty
+     */
+    private static int lowestCard(int cards) {
+        int lowest = -1;
+        while (cards != 0) {
+            int card = Integer.numberOfTrailingZeros(cards);
+            if (lowest < 0 || Card_Bits_Schnapsen.rankOf(card) < Card_Bits_Schnapsen.rankOf(lowest)) {
+                lowest = card;
+            }
+            cards &= cards - 1;
+        }
+        return lowest;
+    }
+}
@@ -0,0 +1,633 @@
+package shared_schnapsen;
+
+import game.Schnapsen;
+import game.board.PlayingCard;
+import game.board.SchnapsenBoard;
+
+import java.util.List;
+import java.util.Random;
+
+public class Playout_State_Schnapsen {
+
+    //Moves are encoded as small ints: a played card is its card index, a played card with a declared marriage is offset by 20
+    public static final int MOVE_MARRIAGE_OFFSET = Card_Bits_Schnapsen.DECK_SIZE;
+    public static final int MOVE_EXCHANGE_TRUMP = 2 * Card_Bits_Schnapsen.DECK_SIZE;
+    public static final int MOVE_CLOSE_TALON = MOVE_EXCHANGE_TRUMP + 1;
+    public static final int NUMBER_OF_MOVES = MOVE_CLOSE_TALON + 1;
+
+    //The points needed to win a round
+    public static final int WINNING_POINTS = 66;
+
+    //Exchanging the trump jack and closing the talon are only allowed while more than this amount of cards are left in the pile
+    private static final int MIN_PILE_FOR_TALON_ACTIONS = 2;
+
+    //Lookup table if the following card wins the trick, indexed by the trump suit and leadingCard * 20 + followingCard
+    private static final boolean[][] FOLLOWER_WINS = new boolean[Card_Bits_Schnapsen.NUMBER_OF_SUITS][Card_Bits_Schnapsen.DECK_SIZE * Card_Bits_Schnapsen.DECK_SIZE];
+
+    //Lookup table of the marriage points, indexed by the trump suit and the suit of the marriage
+    private static final int[][] MARRIAGE_POINTS = new int[Card_Bits_Schnapsen.NUMBER_OF_SUITS][Card_Bits_Schnapsen.NUMBER_OF_SUITS];
+
+    static {
+        for (int trumpSuit = 0; trumpSuit < Card_Bits_Schnapsen.NUMBER_OF_SUITS; trumpSuit++) {
+            for (int lead = 0; lead < Card_Bits_Schnapsen.DECK_SIZE; lead++) {
+                for (int follow = 0; follow < Card_Bits_Schnapsen.DECK_SIZE; follow++) {
+                    boolean sameSuit = Card_Bits_Schnapsen.suitOf(lead) == Card_Bits_Schnapsen.suitOf(follow);
+                    boolean followerWins;
+                    if (sameSuit) {
+                        followerWins = Card_Bits_Schnapsen.rankOf(follow) > Card_Bits_Schnapsen.rankOf(lead);
+                    } else {
+                        followerWins = Card_Bits_Schnapsen.suitOf(follow) == trumpSuit;
+                    }
+                    FOLLOWER_WINS[trumpSuit][lead * Card_Bits_Schnapsen.DECK_SIZE + follow] = followerWins;
+                }
+            }
+            for (int suit = 0; suit < Card_Bits_Schnapsen.NUMBER_OF_SUITS; suit++) {
+                MARRIAGE_POINTS[trumpSuit][suit] = suit == trumpSuit ? 40 : 20;
+            }
+        }
+    }
+
+    //The cards of both players as bitmasks
+    private final int[] hands = new int[2];
+    //The points of both players, declared marriages only count after the first trick was won
+    private final int[] points = new int[2];
+    private final int[] pendingMarriagePoints = new int[2];
+    private final int[] tricks = new int[2];
+
+    //The pile in drawing order, the trump card lies at the bottom (pileEnd - 1)
+    private final int[] pile = new int[Card_Bits_Schnapsen.DECK_SIZE];
+    private int pileStart;
+    private int pileEnd;
+
+    private int trumpSuit;
+    private int trumpCard;
+    private int playedCards;
+
+    //The card on the table, -1 if the current player has to lead
+    private int leadingCard;
+    private int leadingPlayer;
+    private int currentPlayer;
+
+    //Talon state, the closing player is -1 if the talon is open or if it is unknown who closed it
+    private boolean talonClosed;
+    private int closingPlayer;
+    private int opponentPointsAtClosing;
+    private int opponentTricksAtClosing;
+
+    //Result of the round, the winner is -1 while the round is ongoing
+    private int roundWinner;
+    private int gamePoints;
+
+    //Moves applied since the state was loaded, the length of the playout for the search profiler
+    private int movesApplied;
+
+    //Solves the rest of the round once the strict rules apply, created on first use as every worker has its own playout state
+    private Endgame_Solver_Schnapsen endgameSolver;
+
+    /**
+     * This constructor creates an empty state, it has to be filled with loadFrom or copyFrom before it can be played.
+     * The state is meant to be created once and re-used for every playout, so that playouts do not allocate.
+     */
+    public Playout_State_Schnapsen() {
+        this.leadingCard = -1;
+        this.closingPlayer = -1;
+        this.roundWinner = -1;
+    }
+
+    /**
+     * Loads a perfect information game into this state.
+     * As the board does not expose the order of the pile, the pile order of the determinization is used.
+     * Cards of this order that have already been drawn are skipped, the current trump card is placed at the bottom.
+     * @param game a game without hidden information, e.g. created from a determinized board
+     * @param pileOrder the card indices of the pile when the world was sampled, in drawing order
+     * @param pileOrderLength the number of valid entries in pileOrder
+     */
+    public void loadFrom(Schnapsen game, int[] pileOrder, int pileOrderLength) {
+        loadFrom(game, pileOrder, pileOrderLength, null);
+    }
+
+    /**
+     * Loads a perfect information game into this state, see loadFrom. The board does not tell who closed the talon,
+     * therefore a closed talon takes its closer and the points and tricks of the closers opponent at the closing from an observed closing.
+     * @param game a game without hidden information, e.g. created from a determinized board
+     * @param pileOrder the card indices of the pile when the world was sampled, in drawing order
+     * @param pileOrderLength the number of valid entries in pileOrder
+     * @param closing the observed closing of the talon of the game, null if it is unknown who closed a closed talon
+     */
+    public void loadFrom(Schnapsen game, int[] pileOrder, int pileOrderLength, Talon_Closing_Schnapsen closing) {
+        SchnapsenBoard board = game.getBoard();
+
+        hands[0] = Card_Bits_Schnapsen.toMask(board.getPlayer0Cards());
+        hands[1] = Card_Bits_Schnapsen.toMask(board.getPlayer1Cards());
+        points[0] = board.getPlayer0Score();
+        points[1] = board.getPlayer1Score();
+        tricks[0] = board.getPlayer0Tricks().size();
+        tricks[1] = board.getPlayer1Tricks().size();
+        playedCards = Card_Bits_Schnapsen.trickMask(board.getPlayer0Tricks()) | Card_Bits_Schnapsen.trickMask(board.getPlayer1Tricks());
+
+        trumpCard = Card_Bits_Schnapsen.cardIndex(board.getTrumpCard());
+        trumpSuit = Card_Bits_Schnapsen.suitOf(trumpCard);
+
+        //marriage points of a player without a trick are not yet part of their score
+        pendingMarriagePoints[0] = tricks[0] == 0 ? marriagePoints(board.getPlayer0Marriages()) : 0;
+        pendingMarriagePoints[1] = tricks[1] == 0 ? marriagePoints(board.getPlayer1Marriages()) : 0;
+
+        PlayingCard lead = board.getLeadingCard();
+        currentPlayer = game.getCurrentPlayer();
+        if (lead == null) {
+            leadingCard = -1;
+            leadingPlayer = currentPlayer;
+        } else {
+            leadingCard = Card_Bits_Schnapsen.cardIndex(lead);
+            leadingPlayer = 1 - currentPlayer;
+        }
+
+        talonClosed = board.isTalonClosed();
+        closingPlayer = -1;
+        opponentPointsAtClosing = 0;
+        opponentTricksAtClosing = 0;
+        if (talonClosed && closing != null && closing.getClosingPlayer() >= 0) {
+            closingPlayer = closing.getClosingPlayer();
+            opponentPointsAtClosing = closing.getOpponentPointsAtClosing();
+            opponentTricksAtClosing = closing.getOpponentTricksAtClosing();
+        }
+        roundWinner = -1;
+        gamePoints = 0;
+        movesApplied = 0;
+
+        //every card that is not in a hand, on the table or played has to be in the pile
+        int pileMask = Card_Bits_Schnapsen.FULL_DECK & ~hands[0] & ~hands[1] & ~playedCards;
+        if (leadingCard >= 0) {
+            pileMask &= ~(1 << leadingCard);
+        }
+        pileStart = 0;
+        pileEnd = 0;
+        int trumpBit = 1 << trumpCard;
+        for (int i = 0; i < pileOrderLength; i++) {
+            int card = pileOrder[i];
+            if (card != trumpCard && (pileMask & (1 << card)) != 0) {
+                pile[pileEnd++] = card;
+                pileMask &= ~(1 << card);
+            }
+        }
+        //cards missing in the pile order (should not happen with a consistent order) are added in card order
+        int missing = pileMask & ~trumpBit;
+        while (missing != 0) {
+            pile[pileEnd++] = Integer.numberOfTrailingZeros(missing);
+            missing &= missing - 1;
+        }
+        if ((pileMask & trumpBit) != 0) {
+            pile[pileEnd++] = trumpCard;
+        }
+    }
+
+    /**
+     * Copies all values of another state into this state without allocating
+     * @param other the state to be copied
+     */
+    public void copyFrom(Playout_State_Schnapsen other) {
+        System.arraycopy(other.hands, 0, hands, 0, 2);
+        System.arraycopy(other.points, 0, points, 0, 2);
+        System.arraycopy(other.pendingMarriagePoints, 0, pendingMarriagePoints, 0, 2);
+        System.arraycopy(other.tricks, 0, tricks, 0, 2);
+        System.arraycopy(other.pile, 0, pile, 0, Card_Bits_Schnapsen.DECK_SIZE);
+        pileStart = other.pileStart;
+        pileEnd = other.pileEnd;
+        trumpSuit = other.trumpSuit;
+        trumpCard = other.trumpCard;
+        playedCards = other.playedCards;
+        leadingCard = other.leadingCard;
+        leadingPlayer = other.leadingPlayer;
+        currentPlayer = other.currentPlayer;
+        talonClosed = other.talonClosed;
+        closingPlayer = other.closingPlayer;
+        opponentPointsAtClosing = other.opponentPointsAtClosing;
+        opponentTricksAtClosing = other.opponentTricksAtClosing;
+        roundWinner = other.roundWinner;
+        gamePoints = other.gamePoints;
+        movesApplied = other.movesApplied;
+    }
+
+    /**
+     * Generates all legal moves of the current player as a bitmask, where bit i is set if move i is legal.
+     * While the talon is open every card may be followed. After the talon is closed or the pile is exhausted the follower
+     * has to follow suit with a higher card if possible, otherwise with any card of the suit, otherwise has to play a trump.
+     * @return a bitmask of all legal moves, 0 if the round is over
+     */
+    public long getLegalMoves() {
+        if (roundWinner >= 0) {
+            return 0L;
+        }
+        int hand = hands[currentPlayer];
+
+        if (leadingCard < 0) {
+            long moves = hand;
+            //a marriage can be declared with the Queen or the King if both are in the hand
+            for (int suit = 0; suit < Card_Bits_Schnapsen.NUMBER_OF_SUITS; suit++) {
+                int queen = 1 << Card_Bits_Schnapsen.cardOf(suit, Card_Bits_Schnapsen.RANK_QUEEN);
+                int king = 1 << Card_Bits_Schnapsen.cardOf(suit, Card_Bits_Schnapsen.RANK_KING);
+                if ((hand & queen) != 0 && (hand & king) != 0) {
+                    moves |= ((long) (queen | king)) << MOVE_MARRIAGE_OFFSET;
+                }
+            }
+            if (!talonClosed && getPileSize() > MIN_PILE_FOR_TALON_ACTIONS) {
+                int trumpJack = 1 << Card_Bits_Schnapsen.cardOf(trumpSuit, Card_Bits_Schnapsen.RANK_JACK);
+                if ((hand & trumpJack) != 0) {
+                    moves |= 1L << MOVE_EXCHANGE_TRUMP;
+                }
+                moves |= 1L << MOVE_CLOSE_TALON;
+            }
+            return moves;
+        }
+
+        //As long as cards can be drawn there is no obligation to follow suit
+        if (!talonClosed && getPileSize() > 0) {
+            return hand;
+        }
+
+        int sameSuit = hand & Card_Bits_Schnapsen.SUIT_MASKS[Card_Bits_Schnapsen.suitOf(leadingCard)];
+        if (sameSuit != 0) {
+            int higher = sameSuit & ~((2 << leadingCard) - 1);
+            return higher != 0 ? higher : sameSuit;
+        }
+        int trumps = hand & Card_Bits_Schnapsen.SUIT_MASKS[trumpSuit];
+        return trumps != 0 ? trumps : hand;
+    }
+
+    /**
+     * Applies a move in place. The move has to be legal in the current state.
+     * @param move the encoded move, see getLegalMoves
+     */
+    public void applyMove(int move) {
+        int player = currentPlayer;
+        movesApplied++;
+
+        if (move == MOVE_EXCHANGE_TRUMP) {
+            //the trump jack takes the place of the trump card at the bottom of the pile
+            int trumpJack = Card_Bits_Schnapsen.cardOf(trumpSuit, Card_Bits_Schnapsen.RANK_JACK);
+            hands[player] = (hands[player] & ~(1 << trumpJack)) | (1 << trumpCard);
+            pile[pileEnd - 1] = trumpJack;
+            trumpCard = trumpJack;
+            return;
+        }
+
+        if (move == MOVE_CLOSE_TALON) {
+            talonClosed = true;
+            closingPlayer = player;
+            opponentPointsAtClosing = points[1 - player];
+            opponentTricksAtClosing = tricks[1 - player];
+            return;
+        }
+
+        int card = move;
+        if (move >= MOVE_MARRIAGE_OFFSET) {
+            card = move - MOVE_MARRIAGE_OFFSET;
+            int marriagePoints = MARRIAGE_POINTS[trumpSuit][Card_Bits_Schnapsen.suitOf(card)];
+            if (tricks[player] > 0) {
+                points[player] += marriagePoints;
+                if (points[player] >= WINNING_POINTS) {
+                    endRound(player);
+                    return;
+                }
+            } else {
+                pendingMarriagePoints[player] += marriagePoints;
+            }
+        }
+
+        hands[player] &= ~(1 << card);
+
+        if (leadingCard < 0) {
+            leadingCard = card;
+            leadingPlayer = player;
+            currentPlayer = 1 - player;
+            return;
+        }
+
+        //The second card of the trick was played, the trick can be resolved
+        int winner = FOLLOWER_WINS[trumpSuit][leadingCard * Card_Bits_Schnapsen.DECK_SIZE + card] ? player : leadingPlayer;
+        points[winner] += Card_Bits_Schnapsen.CARD_POINTS[leadingCard] + Card_Bits_Schnapsen.CARD_POINTS[card];
+        if (tricks[winner] == 0) {
+            points[winner] += pendingMarriagePoints[winner];
+            pendingMarriagePoints[winner] = 0;
+        }
+        tricks[winner]++;
+        playedCards |= (1 << leadingCard) | (1 << card);
+        leadingCard = -1;
+        leadingPlayer = winner;
+        currentPlayer = winner;
+
+        if (points[winner] >= WINNING_POINTS) {
+            endRound(winner);
+            return;
+        }
+
+        //the winner of the trick draws first
+        if (!talonClosed && pileStart < pileEnd) {
+            hands[winner] |= 1 << pile[pileStart++];
+            hands[1 - winner] |= 1 << pile[pileStart++];
+        }
+
+        //after the last trick the round ends without anyone reaching the winning points
+        if (hands[0] == 0 && hands[1] == 0) {
+            if (closingPlayer >= 0) {
+                endRound(1 - closingPlayer);
+            } else if (isClosingPlayerUnknown()) {
+                //the closer failed, but it is unknown who closed, the player with fewer points is taken as the closer
+                endRound(points[0] >= points[1] ? 0 : 1);
+            } else {
+                endRound(winner);
+            }
+        }
+    }
+
+    /**
+     * Plays random moves until the round is over
+     * @param random the source of randomness for the move selection
+     */
+    public void playRandomly(Random random) {
+        while (roundWinner < 0) {
+            applyMove(selectRandomMove(getLegalMoves(), random));
+        }
+    }
+
+    /**
+     * Ends the round with the result of perfect play of both players, which replaces the random moves of a playout once the
+     * talon is closed or the pile is exhausted. The remaining cards stay in the hands, only the winner and the game points are set.
+     * Positions of the shared endgame tablebase are looked up, all others are searched by the endgame solver.
+     * The state has to be solvable, see Endgame_Solver_Schnapsen.isSolvable.
+     */
+    public void solveEndgame() {
+        Endgame_Tablebase_Schnapsen tablebase = Endgame_Tablebase_Schnapsen.getShared();
+        int result = tablebase != null ? tablebase.probe(this) : Endgame_Tablebase_Schnapsen.NOT_FOUND;
+        if (result == Endgame_Tablebase_Schnapsen.NOT_FOUND) {
+            if (endgameSolver == null) {
+                endgameSolver = new Endgame_Solver_Schnapsen();
+            }
+            result = endgameSolver.solve(this);
+        }
+        roundWinner = Endgame_Solver_Schnapsen.getWinner(result);
+        gamePoints = Endgame_Solver_Schnapsen.getGamePoints(result);
+    }
+
+    /**
+     * Selects a uniformly random move out of a bitmask of moves
+     * @param moves a non-empty bitmask of moves
+     * @param random the source of randomness
+     * @return the selected move
+     */
+    public static int selectRandomMove(long moves, Random random) {
+        int skip = random.nextInt(Long.bitCount(moves));
+        for (int i = 0; i < skip; i++) {
+            moves &= moves - 1;
+        }
+        return Long.numberOfTrailingZeros(moves);
+    }
+
+    /**
+     * This method calculates a score in the range of 0.0 and 1.0 to represent the winning state of the player
+     * @param playerId the player whose score is calculated
+     * @return a score representing either a win (1.0) or a loss (0.0). If the round is not over the score is based on the difference in the current round score of the players
+     */
+    public double getScore(int playerId) {
+        if (roundWinner >= 0) {
+            return roundWinner == playerId ? 1.0 : 0.0;
+        }
+        double difference = (points[playerId] - points[1 - playerId]) / (double) WINNING_POINTS;
+        return Math.max(0.0, Math.min(1.0, (difference + 1.0) / 2.0));
+    }
+
+    /**
+     * Ends the round and calculates the game points of the winner.
+     * A player who closed the talon and did not reach the winning points loses the round.
+     * @param winner the player who won the round
+     */
+    private void endRound(int winner) {
+        int loser = 1 - winner;
+        roundWinner = winner;
+        if (closingPlayer >= 0) {
+            if (winner == closingPlayer) {
+                gamePoints = gamePointsFor(opponentPointsAtClosing, opponentTricksAtClosing);
+            } else {
+                gamePoints = opponentTricksAtClosing == 0 ? 3 : 2;
+            }
+        } else if (points[winner] < WINNING_POINTS) {
+            //the last trick decided the round, or the unknown closer failed
+            gamePoints = 1;
+        } else {
+            gamePoints = gamePointsFor(points[loser], tricks[loser]);
+        }
+    }
+
+    /**
+     * Returns the game points for winning a round against a player with the given points and tricks
+     * @param loserPoints the points of the losing player
+     * @param loserTricks the number of tricks of the losing player
+     * @return 3 if the loser has no trick, 2 if the loser has less than 33 points, otherwise 1
+     */
+    static int gamePointsFor(int loserPoints, int loserTricks) {
+        if (loserTricks == 0) {
+            return 3;
+        }
+        return loserPoints < WINNING_POINTS / 2 ? 2 : 1;
+    }
+
+    /**
+     * Sums up the points of the declared marriages. Each suit is only counted once, no matter if one or both cards are listed.
+     * @param marriageCards the declared marriage cards of a player
+     * @return the points of all declared marriages
+     */
+    private int marriagePoints(List<PlayingCard> marriageCards) {
+        int suits = 0;
+        for (PlayingCard card : marriageCards) {
+            suits |= 1 << Card_Bits_Schnapsen.suitOf(Card_Bits_Schnapsen.cardIndex(card));
+        }
+        int marriagePoints = 0;
+        for (int suit = 0; suit < Card_Bits_Schnapsen.NUMBER_OF_SUITS; suit++) {
+            if ((suits & (1 << suit)) != 0) {
+                marriagePoints += MARRIAGE_POINTS[trumpSuit][suit];
+            }
+        }
+        return marriagePoints;
+    }
+
+    /**
+     * Checks if the round has been decided
+     * @return true if a player has won the round
+     */
+    public boolean isRoundOver() {
+        return roundWinner >= 0;
+    }
+
+    /**
+     * Returns the winner of the round
+     * @return the player id of the winner, -1 if the round is still ongoing
+     */
+    public int getRoundWinner() {
+        return roundWinner;
+    }
+
+    /**
+     * Returns the game points the winner of the round receives
+     * @return 1 to 3 game points, 0 if the round is still ongoing
+     */
+    public int getGamePoints() {
+        return gamePoints;
+    }
+
+    /**
+     * Returns the number of moves applied since the state was loaded with loadFrom
+     * @return the number of applied moves, copied along with copyFrom
+     */
+    public int getMovesApplied() {
+        return movesApplied;
+    }
+
+    /**
+     * Returns the player who has to make the next move
+     * @return the id of the current player
+     */
+    public int getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    /**
+     * Returns the hand of a player
+     * @param player the player id
+     * @return a bitmask of the cards in the hand
+     */
+    public int getHand(int player) {
+        return hands[player];
+    }
+
+    /**
+     * Returns the points of a player in the current round, without marriages that are not yet counted
+     * @param player the player id
+     * @return the points of the player
+     */
+    public int getPoints(int player) {
+        return points[player];
+    }
+
+    /**
+     * Returns the amount of tricks a player has won in the current round
+     * @param player the player id
+     * @return the number of tricks
+     */
+    public int getTricks(int player) {
+        return tricks[player];
+    }
+
+    /**
+     * Returns the marriage points of a player that are counted as soon as they win a trick
+     * @param player the player id
+     * @return the pending marriage points
+     */
+    public int getPendingMarriagePoints(int player) {
+        return pendingMarriagePoints[player];
+    }
+
+    /**
+     * Returns the card on the table
+     * @return the card index of the leading card, -1 if no card has been led yet
+     */
+    public int getLeadingCard() {
+        return leadingCard;
+    }
+
+    /**
+     * Returns the player who leads the current trick
+     * @return the id of the leading player
+     */
+    public int getLeadingPlayer() {
+        return leadingPlayer;
+    }
+
+    /**
+     * Returns the trump suit of the round
+     * @return the suit index of the trump suit
+     */
+    public int getTrumpSuit() {
+        return trumpSuit;
+    }
+
+    /**
+     * Returns the card at the bottom of the pile
+     * @return the card index of the trump card
+     */
+    public int getTrumpCard() {
+        return trumpCard;
+    }
+
+    /**
+     * Returns all cards that have been taken in a trick
+     * @return a bitmask of the played cards
+     */
+    public int getPlayedCards() {
+        return playedCards;
+    }
+
+    /**
+     * Returns the number of cards that can still be drawn
+     * @return the number of cards in the pile including the trump card
+     */
+    public int getPileSize() {
+        return pileEnd - pileStart;
+    }
+
+    /**
+     * Returns a card of the pile counted from the bottom, so that the position of a card does not change while cards are drawn
+     * @param positionFromBottom 0 for the trump card at the bottom, up to getPileSize() - 1 for the next card to be drawn
+     * @return the card index at this position
+     */
+    public int getPileCard(int positionFromBottom) {
+        return pile[pileEnd - 1 - positionFromBottom];
+    }
+
+    /**
+     * Checks if the talon has been closed
+     * @return true if the talon is closed
+     */
+    public boolean isTalonClosed() {
+        return talonClosed;
+    }
+
+    /**
+     * Checks if the strict rules apply, which is the case if the talon is closed or the pile is exhausted
+     * @return true if the follower has to follow suit and trump
+     */
+    public boolean isStrictPlay() {
+        return talonClosed || pileEnd == pileStart;
+    }
+
+    /**
+     * Checks if the talon is closed, but it is not known who closed it. Then the result of the round is only estimated, the endgame is not solved exactly.
+     * @return true if the talon was closed before the state was loaded without an observed closing
+     */
+    public boolean isClosingPlayerUnknown() {
+        return talonClosed && closingPlayer < 0 && pileStart < pileEnd;
+    }
+
+    /**
+     * Returns the player who closed the talon
+     * @return the id of the closing player, -1 if the talon is open or if it was closed before the state was loaded without an observed closing
+     */
+    public int getClosingPlayer() {
+        return closingPlayer;
+    }
+
+    /**
+     * Returns the points the opponent of the closing player had when the talon was closed
+     * @return the points of the opponent at closing, 0 if the talon was not closed in this state
+     */
+    public int getOpponentPointsAtClosing() {
+        return opponentPointsAtClosing;
+    }
+
+    /**
+     * Returns the amount of tricks the opponent of the closing player had when the talon was closed
+     * @return the tricks of the opponent at closing, 0 if the talon was not closed in this state
+     */
+    public int getOpponentTricksAtClosing() {
+        return opponentTricksAtClosing;
+    }
+}
@@ -0,0 +1,117 @@
+package shared_schnapsen;
+
+public final class Root_Statistics_Schnapsen {
+
+    private final int[] actionIds = new int[Action_Ids_Schnapsen.NUMBER_OF_ACTIONS];
+    private final long[] visits = new long[Action_Ids_Schnapsen.NUMBER_OF_ACTIONS];
+    private final double[] scoreSums = new double[Action_Ids_Schnapsen.NUMBER_OF_ACTIONS];
+    private final double[] squareSums = new double[Action_Ids_Schnapsen.NUMBER_OF_ACTIONS];
+    private int size;
+
+    /**
+     * Removes all actions, so that the statistics of the next checkpoint can be collected into the same object
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Adds the statistics of a root action, the statistics of an action that was already added are summed up, e.g. over the trees of several workers
+     * @param actionId the id of the action
+     * @param actionVisits the number of playouts of the action
+     * @param scoreSum the summed up scores of the playouts, every score between 0 and 1
+     * @param squareSum the summed up squared scores, NaN if the search does not track them
+     */
+    public void add(int actionId, long actionVisits, double scoreSum, double squareSum) {
+        for (int index = 0; index < size; index++) {
+            if (actionIds[index] == actionId) {
+                visits[index] += actionVisits;
+                scoreSums[index] += scoreSum;
+                squareSums[index] += squareSum;
+                return;
+            }
+        }
+        actionIds[size] = actionId;
+        visits[size] = actionVisits;
+        scoreSums[size] = scoreSum;
+        squareSums[size] = squareSum;
+        size++;
+    }
+
+    /**
+     * Returns the number of root actions
+     * @return the number of added actions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the id of a root action
+     * @param index the index of the action, in the order they were added
+     * @return the action id
+     */
+    public int getActionId(int index) {
+        return actionIds[index];
+    }
+
+    /**
+     * Returns the number of playouts of a root action
+     * @param index the index of the action
+     * @return the visits of the action
+     */
+    public long getVisits(int index) {
+        return visits[index];
+    }
+
+    /**
+     * Returns the average score of a root action
+     * @param index the index of the action
+     * @return the mean score, 0 if the action has no playouts
+     */
+    public double getMean(int index) {
+        return visits[index] > 0 ? scoreSums[index] / visits[index] : 0.0;
+    }
+
+    /**
+     * Returns the sample variance of the scores of a root action
+     * @param index the index of the action
+     * @return the unbiased variance, NaN if the squares are not tracked or the action has less than two playouts
+     */
+    public double getVariance(int index) {
+        long n = visits[index];
+        if (n < 2 || Double.isNaN(squareSums[index])) {
+            return Double.NaN;
+        }
+        double mean = scoreSums[index] / n;
+        return Math.max((squareSums[index] - n * mean * mean) / (n - 1), 0.0);
+    }
+
+    /**
+     * Finds the action with the most playouts, the choice of the tree searches
+     * @return the index of the most visited action, -1 if there are no actions
+     */
+    public int getMostVisited() {
+        int best = -1;
+        for (int i = 0; i < size; i++) {
+            if (best < 0 || visits[i] > visits[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Finds the action with the highest average score, the choice of the flat Monte Carlo searches
+     * @return the index of the best action with at least one playout, -1 if no action has a playout
+     */
+    public int getBestMean() {
+        int best = -1;
+        for (int i = 0; i < size; i++) {
+            if (visits[i] > 0 && (best < 0 || getMean(i) > getMean(best))) {
+                best = i;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,296 @@
+package shared_schnapsen;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public final class Search_Profiler_Schnapsen {
+
+    //The phases of a search iteration, each lap adds the time and the allocations since the previous lap to one phase
+    public static final int DETERMINIZATION = 0;
+    public static final int SELECTION = 1;
+    public static final int EXPANSION = 2;
+    public static final int SIMULATION = 3;
+    public static final int BACKPROPAGATION = 4;
+    private static final String[] PHASE_NAMES = {"determinization", "selection", "expansion", "simulation", "backpropagation"};
+
+    //Starting the JVM with -Dschnapsen.profile=true profiles every agent, setEnabled switches a single agent at runtime
+    public static final String PROFILE_PROPERTY = "schnapsen.profile";
+
+    //Tree depths and playout lengths from the last bucket on are counted together, a round never has more moves
+    private static final int HISTOGRAM_SIZE = 48;
+
+    //Null if the JVM cannot measure the allocations of a thread, the profiler then only measures the time
+    private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = allocationBean();
+
+    private volatile boolean enabled = Boolean.getBoolean(PROFILE_PROPERTY);
+
+    //Every search thread records into its own recorder, the report sums them up after the search threads are joined
+    private final List<Recorder> recorders = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Recorder> threadRecorder = ThreadLocal.withInitial(() -> {
+        Recorder recorder = new Recorder(true);
+        recorders.add(recorder);
+        return recorder;
+    });
+
+    private long moveStartNanos;
+
+    /**
+     * Switches the profiler on or off, a search that already fetched its recorder keeps it until the next move
+     * @param enabled true to record the next searches
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Checks if the profiler records searches
+     * @return true if the profiler is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Clears the recordings of the previous move, has to be called before the search threads fetch their recorders
+     */
+    public void startMove() {
+        if (!enabled) {
+            return;
+        }
+        for (Recorder recorder : recorders) {
+            recorder.clear();
+        }
+        moveStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Returns the recorder of the calling thread. It is fetched once per search, so that a disabled profiler costs one branch per call of the recorder.
+     * @return the recorder of the calling thread, Recorder.DISABLED if the profiler is disabled
+     */
+    public Recorder getRecorder() {
+        return enabled ? threadRecorder.get() : Recorder.DISABLED;
+    }
+
+    /**
+     * Sums up the recorders of all search threads since startMove
+     * @param searchName the name of the search at the start of the report
+     * @return a multi line report of the phases, the tree and the playouts
+     */
+    public String getReport(String searchName) {
+        long[] phaseNanos = new long[PHASE_NAMES.length];
+        long[] phaseBytes = new long[PHASE_NAMES.length];
+        long[] depths = new long[HISTOGRAM_SIZE];
+        long[] playoutLengths = new long[HISTOGRAM_SIZE];
+        long iterations = 0;
+        long expandedNodes = 0;
+        for (Recorder recorder : recorders) {
+            for (int phase = 0; phase < PHASE_NAMES.length; phase++) {
+                phaseNanos[phase] += recorder.phaseNanos[phase];
+                phaseBytes[phase] += recorder.phaseBytes[phase];
+            }
+            for (int i = 0; i < HISTOGRAM_SIZE; i++) {
+                depths[i] += recorder.depths[i];
+                playoutLengths[i] += recorder.playoutLengths[i];
+            }
+            iterations += recorder.iterations;
+            expandedNodes += recorder.expandedNodes;
+        }
+
+        long totalNanos = 0;
+        for (long nanos : phaseNanos) {
+            totalNanos += nanos;
+        }
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%s profile: %.1f ms wall, %d iterations, %d nodes added, depth avg %.2f max %d, playout length avg %.2f p50 %d p90 %d max %d",
+                searchName, (System.nanoTime() - moveStartNanos) / 1e6, iterations, expandedNodes,
+                mean(depths), max(depths), mean(playoutLengths), percentile(playoutLengths, 0.5), percentile(playoutLengths, 0.9), max(playoutLengths)));
+        for (int phase = 0; phase < PHASE_NAMES.length; phase++) {
+            report.append(String.format("%n  %-16s %9.1f ms %5.1f%%", PHASE_NAMES[phase], phaseNanos[phase] / 1e6,
+                    totalNanos == 0 ? 0 : 100.0 * phaseNanos[phase] / totalNanos));
+            if (ALLOCATION_BEAN != null) {
+                report.append(String.format(" %9.1f KB allocated", phaseBytes[phase] / 1024.0));
+            }
+        }
+        report.append(String.format("%n  playout lengths %s", histogram(playoutLengths)));
+        return report.toString();
+    }
+
+    /**
+     * Calculates the mean of a histogram
+     * @param histogram the counts by value
+     * @return the mean value, 0 for an empty histogram
+     */
+    private static double mean(long[] histogram) {
+        long count = 0;
+        long sum = 0;
+        for (int value = 0; value < histogram.length; value++) {
+            count += histogram[value];
+            sum += value * histogram[value];
+        }
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Finds the largest value of a histogram
+     * @param histogram the counts by value
+     * @return the largest value with a count, 0 for an empty histogram
+     */
+    private static int max(long[] histogram) {
+        for (int value = histogram.length - 1; value > 0; value--) {
+            if (histogram[value] > 0) {
+                return value;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Finds a percentile of a histogram
+     * @param histogram the counts by value
+     * @param fraction the fraction of the counts that lie at or below the percentile
+     * @return the smallest value, below which the fraction of the counts lies
+     */
+    private static int percentile(long[] histogram, double fraction) {
+        long count = 0;
+        for (long c : histogram) {
+            count += c;
+        }
+        long seen = 0;
+        for (int value = 0; value < histogram.length; value++) {
+            seen += histogram[value];
+            if (seen > 0 && seen >= fraction * count) {
+                return value;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Formats the non-empty buckets of a histogram
+     * @param histogram the counts by value
+     * @return the buckets as value:count, separated by spaces
+     */
+    private static String histogram(long[] histogram) {
+        StringBuilder buckets = new StringBuilder();
+        for (int value = 0; value < histogram.length; value++) {
+            if (histogram[value] > 0) {
+                buckets.append(value).append(':').append(histogram[value]).append(' ');
+            }
+        }
+        return buckets.length() == 0 ? "-" : buckets.toString().trim();
+    }
+
+    /**
+     * Looks up the HotSpot extension of the thread bean, which measures the bytes allocated by the current thread
+     * @return the thread bean, null if the measurement is not supported
+     */
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled() ? bean : null;
+    }
+
+    public static final class Recorder {
+
+        //Handed out while the profiler is disabled, every method returns right away
+        public static final Recorder DISABLED = new Recorder(false);
+
+        private final boolean active;
+
+        private final long[] phaseNanos = new long[PHASE_NAMES.length];
+        private final long[] phaseBytes = new long[PHASE_NAMES.length];
+        private final long[] depths = new long[HISTOGRAM_SIZE];
+        private final long[] playoutLengths = new long[HISTOGRAM_SIZE];
+        private long iterations;
+        private long expandedNodes;
+
+        private long lapNanos;
+        private long lapBytes;
+
+        /**
+         * Creates an empty recorder
+         * @param active false for the recorder of a disabled profiler
+         */
+        private Recorder(boolean active) {
+            this.active = active;
+        }
+
+        /**
+         * Starts an iteration, the first lap measures from here
+         */
+        public void start() {
+            if (!active) {
+                return;
+            }
+            lapNanos = System.nanoTime();
+            lapBytes = allocatedBytes();
+        }
+
+        /**
+         * Adds the time and the allocations since the previous lap or start to a phase
+         * @param phase one of the phase constants
+         */
+        public void lap(int phase) {
+            if (!active) {
+                return;
+            }
+            long nanos = System.nanoTime();
+            long bytes = allocatedBytes();
+            phaseNanos[phase] += nanos - lapNanos;
+            phaseBytes[phase] += bytes - lapBytes;
+            lapNanos = nanos;
+            lapBytes = bytes;
+        }
+
+        /**
+         * Counts a finished iteration
+         * @param depth the depth of the node the iteration ended in, 0 for the root or a search without tree
+         * @param expanded true if the iteration added a node to the tree
+         */
+        public void recordIteration(int depth, boolean expanded) {
+            if (!active) {
+                return;
+            }
+            iterations++;
+            depths[Math.min(depth, HISTOGRAM_SIZE - 1)]++;
+            if (expanded) {
+                expandedNodes++;
+            }
+        }
+
+        /**
+         * Counts the length of a playout
+         * @param length the number of moves of the playout
+         */
+        public void recordPlayout(int length) {
+            if (!active) {
+                return;
+            }
+            playoutLengths[Math.min(length, HISTOGRAM_SIZE - 1)]++;
+        }
+
+        /**
+         * Clears all recordings
+         */
+        private void clear() {
+            Arrays.fill(phaseNanos, 0);
+            Arrays.fill(phaseBytes, 0);
+            Arrays.fill(depths, 0);
+            Arrays.fill(playoutLengths, 0);
+            iterations = 0;
+            expandedNodes = 0;
+        }
+
+        /**
+         * Measures the bytes the current thread allocated since it was started
+         * @return the allocated bytes, 0 if the JVM cannot measure them
+         */
+        private static long allocatedBytes() {
+            return ALLOCATION_BEAN == null ? 0 : ALLOCATION_BEAN.getCurrentThreadAllocatedBytes();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package shared_schnapsen;
+
+import game.Schnapsen;
+import game.board.PlayingCard;
+import game.board.SchnapsenBoard;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+public final class Seeded_Deal_Schnapsen {
+
+    private static final int HAND_SIZE = 5;
+    //Mixes the number of a round into the seed of the game, the first round keeps the seed itself
+    private static final long ROUND_SEED_STEP = 0x9E3779B97F4A7C15L;
+
+    private Seeded_Deal_Schnapsen() {
+    }
+
+    /**
+     * Creates a new game whose first round is dealt from a seed, the same seed always leads to the same trump card, hands and pile.
+     * The following rounds are dealt from the seeds of roundSeed with dealNextRound.
+     * @param seed the seed of the distribution
+     * @return a game at the start of the first round
+     */
+    public static Schnapsen dealRound(long seed) {
+        Random random = new Random(seed);
+        int trumpCard = random.nextInt(Card_Bits_Schnapsen.DECK_SIZE);
+        //the engine deals the trump card at random, new games are created until the seeded one turns up
+        Schnapsen game = new Schnapsen(2);
+        while (Card_Bits_Schnapsen.cardIndex(game.getBoard().getTrumpCard()) != trumpCard) {
+            game = new Schnapsen(2);
+        }
+        return deal(game.getBoard(), trumpCard, random);
+    }
+
+    /**
+     * Deals a round that the engine has just started again from a seed, the bummerl and every other state of the game are kept.
+     * The trump card of the engine cannot be replaced within a game, therefore the seeded deal is mapped onto it: the suits are rotated so that
+     * the seeded trump suit becomes the dealt one, and within the trump suit the seeded and the dealt trump card swap their ranks.
+     * Two games of the same seed get the same deal up to the names of the suits if the engine dealt trump cards of the same rank.
+     * @param game a game at the start of a round that was dealt by the engine
+     * @param seed the seed of the distribution
+     * @return the game with the seeded hands and pile
+     */
+    public static Schnapsen dealNextRound(Schnapsen game, long seed) {
+        Random random = new Random(seed);
+        return deal(game.getBoard(), random.nextInt(Card_Bits_Schnapsen.DECK_SIZE), random);
+    }
+
+    /**
+     * Derives the seed of a round from the seed of the game
+     * @param seed the seed of the game, which deals the first round
+     * @param round the number of the round, starting with 1
+     * @return the seed of the round
+     */
+    public static long roundSeed(long seed, int round) {
+        return seed + (round - 1) * ROUND_SEED_STEP;
+    }
+
+    /**
+     * Checks whether an action of the game started a new round, the tricks of both players are then collected again
+     * @param previousBoard the board before the action
+     * @param board the board after the action
+     * @return true if the board after the action is the deal of a new round
+     */
+    public static boolean isNewRound(SchnapsenBoard previousBoard, SchnapsenBoard board) {
+        return countTricks(previousBoard) > 0 && countTricks(board) == 0;
+    }
+
+    /**
+     * Counts the tricks of both players
+     * @param board the board of the round
+     * @return the number of tricks won so far in the round
+     */
+    private static int countTricks(SchnapsenBoard board) {
+        return board.getPlayer0Tricks().size() + board.getPlayer1Tricks().size();
+    }
+
+    /**
+     * Distributes the cards in a seeded order onto a board, the trump card of the board is the last card of the pile
+     * @param board the board at the start of a round
+     * @param seededTrump the card index of the trump card drawn from the seed
+     * @param random the seeded random numbers, the trump card is already drawn from it
+     * @return a game with the seeded hands and pile
+     */
+    private static Schnapsen deal(SchnapsenBoard board, int seededTrump, Random random) {
+        int dealtTrump = Card_Bits_Schnapsen.cardIndex(board.getTrumpCard());
+        PlayingCard[] deckOfCards = Card_Bits_Schnapsen.generateFullDeck(board.getTrumpCard().getSuit());
+
+        //all cards except the trump card in a seeded order
+        int[] cards = new int[Card_Bits_Schnapsen.DECK_SIZE - 1];
+        int count = 0;
+        for (int card = 0; card < Card_Bits_Schnapsen.DECK_SIZE; card++) {
+            if (card != seededTrump) {
+                cards[count++] = card;
+            }
+        }
+        for (int i = cards.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = cards[i];
+            cards[i] = cards[j];
+            cards[j] = swap;
+        }
+
+        List<PlayingCard> player0Cards = new ArrayList<>(HAND_SIZE);
+        List<PlayingCard> player1Cards = new ArrayList<>(HAND_SIZE);
+        LinkedList<PlayingCard> playingCardPile = new LinkedList<>();
+        for (int i = 0; i < cards.length; i++) {
+            PlayingCard card = deckOfCards[toDealtCard(cards[i], seededTrump, dealtTrump)];
+            if (i < HAND_SIZE) {
+                player0Cards.add(card);
+            } else if (i < 2 * HAND_SIZE) {
+                player1Cards.add(card);
+            } else {
+                playingCardPile.add(card);
+            }
+        }
+        playingCardPile.addLast(board.getTrumpCard());
+        return new Schnapsen(new SchnapsenBoard(board, player0Cards, player1Cards, playingCardPile));
+    }
+
+    /**
+     * Maps a card of the seeded deal onto the trump card the engine dealt, the seeded trump card becomes the dealt one
+     * @param card the card index in the seeded deal
+     * @param seededTrump the card index of the seeded trump card
+     * @param dealtTrump the card index of the trump card on the board
+     * @return the card index on the board
+     */
+    private static int toDealtCard(int card, int seededTrump, int dealtTrump) {
+        int suit = Math.floorMod(Card_Bits_Schnapsen.suitOf(card) - Card_Bits_Schnapsen.suitOf(seededTrump) + Card_Bits_Schnapsen.suitOf(dealtTrump),
+                Card_Bits_Schnapsen.NUMBER_OF_SUITS);
+        int rank = Card_Bits_Schnapsen.rankOf(card);
+        if (Card_Bits_Schnapsen.suitOf(card) == Card_Bits_Schnapsen.suitOf(seededTrump)) {
+            if (rank == Card_Bits_Schnapsen.rankOf(seededTrump)) {
+                rank = Card_Bits_Schnapsen.rankOf(dealtTrump);
+            } else if (rank == Card_Bits_Schnapsen.rankOf(dealtTrump)) {
+                rank = Card_Bits_Schnapsen.rankOf(seededTrump);
+            }
+        }
+        return Card_Bits_Schnapsen.cardOf(suit, rank);
+    }
+}
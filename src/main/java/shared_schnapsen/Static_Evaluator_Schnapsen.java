@@ -0,0 +1,72 @@
+package shared_schnapsen;
+
+public final class Static_Evaluator_Schnapsen {
+
+    //A heuristic value never reaches a certain win or loss, so that searched wins and losses are always preferred
+    private static final double MIN_VALUE = 0.02;
+    private static final double MAX_VALUE = 0.98;
+
+    //Expected points that a card in the hand will still bring, indexed by rank (Jack, Queen, King, Ten, Ace)
+    private static final int[] RANK_POTENTIAL = {0, 1, 1, 4, 6};
+    //Trumps win tricks of other suits, therefore they are worth more
+    private static final int TRUMP_BONUS = 4;
+    //Marriages in the hand can be declared when leading, but the opponent might end the round before
+    private static final double MARRIAGE_WEIGHT = 0.5;
+    //Pending marriage points only count after the first trick was won
+    private static final double PENDING_MARRIAGE_WEIGHT = 0.75;
+    //Leading gives the choice of marriages, the trump exchange and closing the talon
+    private static final int LEADING_BONUS = 3;
+
+    private Static_Evaluator_Schnapsen() {
+    }
+
+    /**
+     * Estimates the winning chance of a player in a position that was not searched until the end of the round.
+     * The estimation is based on the point difference, the pending marriage points and the strength of the hands.
+     * @param state the position to be evaluated
+     * @param playerId the player whose winning chance is estimated
+     * @return 1.0 or 0.0 if the round is over, otherwise a heuristic score between 0.02 and 0.98, where 0.5 is an even position
+     */
+    public static double evaluate(Playout_State_Schnapsen state, int playerId) {
+        if (state.isRoundOver()) {
+            return state.getScore(playerId);
+        }
+
+        double difference = playerValue(state, playerId) - playerValue(state, 1 - playerId);
+        double score = 0.5 + difference / (2.0 * Playout_State_Schnapsen.WINNING_POINTS);
+        return Math.max(MIN_VALUE, Math.min(MAX_VALUE, score));
+    }
+
+    /**
+     * Sums up the points and the expected points of a player
+     * @param state the position to be evaluated
+     * @param player the player id
+     * @return the heuristic value of the player in points
+     */
+    private static double playerValue(Playout_State_Schnapsen state, int player) {
+        int trumpSuit = state.getTrumpSuit();
+        int hand = state.getHand(player);
+        double value = state.getPoints(player) + PENDING_MARRIAGE_WEIGHT * state.getPendingMarriagePoints(player);
+
+        for (int cards = hand; cards != 0; cards &= cards - 1) {
+            int card = Integer.numberOfTrailingZeros(cards);
+            value += RANK_POTENTIAL[Card_Bits_Schnapsen.rankOf(card)];
+            if (Card_Bits_Schnapsen.suitOf(card) == trumpSuit) {
+                value += TRUMP_BONUS;
+            }
+        }
+
+        for (int suit = 0; suit < Card_Bits_Schnapsen.NUMBER_OF_SUITS; suit++) {
+            int queen = 1 << Card_Bits_Schnapsen.cardOf(suit, Card_Bits_Schnapsen.RANK_QUEEN);
+            int king = 1 << Card_Bits_Schnapsen.cardOf(suit, Card_Bits_Schnapsen.RANK_KING);
+            if ((hand & queen) != 0 && (hand & king) != 0) {
+                value += MARRIAGE_WEIGHT * (suit == trumpSuit ? 40 : 20);
+            }
+        }
+
+        if (state.getLeadingCard() < 0 && state.getCurrentPlayer() == player) {
+            value += LEADING_BONUS;
+        }
+        return value;
+    }
+}
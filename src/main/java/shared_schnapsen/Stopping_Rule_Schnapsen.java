@@ -0,0 +1,12 @@
+package shared_schnapsen;
+
+public interface Stopping_Rule_Schnapsen {
+
+    /**
+     * Checks if the search can stop because more playouts would not change the chosen root action
+     * @param root the statistics of the root actions at a checkpoint
+     * @param remainingPlayouts the estimated number of playouts the search could still run until the deadline
+     * @return true if the search can stop now
+     */
+    boolean isDecided(Root_Statistics_Schnapsen root, long remainingPlayouts);
+}
@@ -0,0 +1,116 @@
+package shared_schnapsen;
+
+import game.action.SchnapsenAction;
+import game.board.SchnapsenBoard;
+
+public final class Talon_Closing_Schnapsen {
+
+    //-1 while the talon is open, or if it is closed and it was not observed who closed it
+    private int closingPlayer = -1;
+    //The points and tricks of the closers opponent when the talon was closed, they decide the game points of the round
+    private int opponentPointsAtClosing;
+    private int opponentTricksAtClosing;
+    //True once the talon was seen open in the current round, a talon that is closed at a later turn was then closed by the opponent unless we closed it
+    private boolean seenOpen;
+    //The tricks of both players at the last observed turn, they only grow within a round
+    private int lastTricks;
+
+    /**
+     * Observes the board of a turn of the agent. If the talon was open at an earlier turn of the round and was not closed by the agent, the opponent closed it
+     * since then. The closer leads right after closing, so the points and tricks of the agent are still the ones at the closing.
+     * A closing of an earlier round is forgotten once the tricks on the board were reset by a new round.
+     * @param board the board of the agent's turn as given by the engine
+     * @param playerId the id of the agent's player
+     */
+    public void observeTurn(SchnapsenBoard board, int playerId) {
+        int tricks = board.getPlayer0Tricks().size() + board.getPlayer1Tricks().size();
+        if (tricks < lastTricks) {
+            clear();
+        }
+        lastTricks = tricks;
+        //a closed talon keeps the rest of the pile, a talon without a pile was exhausted
+        if (!board.isTalonClosed() || board.playingCardsLeftInPile() == 0) {
+            closingPlayer = -1;
+            seenOpen = true;
+            return;
+        }
+        if (closingPlayer < 0 && seenOpen) {
+            record(1 - playerId, board);
+        }
+    }
+
+    /**
+     * Observes an action before it is applied, if it closes the talon the player to move becomes the closer
+     * @param currentPlayer the player who takes the action
+     * @param board the board before the action is applied
+     * @param action the action
+     */
+    public void observeAction(int currentPlayer, SchnapsenBoard board, SchnapsenAction action) {
+        if (Action_Ids_Schnapsen.idOf(action) == Playout_State_Schnapsen.MOVE_CLOSE_TALON) {
+            record(currentPlayer, board);
+        }
+    }
+
+    /**
+     * Copies the closing of another tracker, e.g. of the agent's turn into the tracker of a search descent
+     * @param other the tracker to be copied
+     */
+    public void copyFrom(Talon_Closing_Schnapsen other) {
+        closingPlayer = other.closingPlayer;
+        opponentPointsAtClosing = other.opponentPointsAtClosing;
+        opponentTricksAtClosing = other.opponentTricksAtClosing;
+        seenOpen = other.seenOpen;
+        lastTricks = other.lastTricks;
+    }
+
+    /**
+     * Forgets the closing, e.g. when the agent starts a new game
+     */
+    public void clear() {
+        closingPlayer = -1;
+        opponentPointsAtClosing = 0;
+        opponentTricksAtClosing = 0;
+        seenOpen = false;
+        lastTricks = 0;
+    }
+
+    /**
+     * Returns the player who closed the talon
+     * @return the id of the closer, -1 if the talon is open or if it is unknown who closed it
+     */
+    public int getClosingPlayer() {
+        return closingPlayer;
+    }
+
+    /**
+     * Returns the points of the closers opponent when the talon was closed
+     * @return the points, 0 if no closing was observed
+     */
+    public int getOpponentPointsAtClosing() {
+        return opponentPointsAtClosing;
+    }
+
+    /**
+     * Returns the tricks of the closers opponent when the talon was closed
+     * @return the number of tricks, 0 if no closing was observed
+     */
+    public int getOpponentTricksAtClosing() {
+        return opponentTricksAtClosing;
+    }
+
+    /**
+     * Records a closing
+     * @param closer the player who closed the talon
+     * @param board the board at the closing
+     */
+    private void record(int closer, SchnapsenBoard board) {
+        closingPlayer = closer;
+        if (closer == 0) {
+            opponentPointsAtClosing = board.getPlayer1Score();
+            opponentTricksAtClosing = board.getPlayer1Tricks().size();
+        } else {
+            opponentPointsAtClosing = board.getPlayer0Score();
+            opponentTricksAtClosing = board.getPlayer0Tricks().size();
+        }
+    }
+}
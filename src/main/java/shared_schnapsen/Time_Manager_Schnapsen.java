@@ -0,0 +1,232 @@
+package shared_schnapsen;
+
+import game.board.SchnapsenBoard;
+
+public final class Time_Manager_Schnapsen {
+
+    /**
+     * How much a move is worth thinking about, which decides after which share of the computation time a stable search may stop
+     */
+    public enum Move_Class {
+        EASY(0.3),
+        NORMAL(0.5),
+        CRITICAL(1.0);
+
+        private final double softShare;
+
+        Move_Class(double softShare) {
+            this.softShare = softShare;
+        }
+
+        /**
+         * Returns the share of the computation time, after which the search stops once its best action is stable
+         * @return a share between 0 and 1, 1 if the whole time is always used
+         */
+        public double getSoftShare() {
+            return softShare;
+        }
+    }
+
+    /**
+     * Why the search of a move ended
+     */
+    public enum Stop_Reason {
+        //the search ran until the deadline, or there was no search
+        DEADLINE,
+        //the best action did not change for a while after the soft share of the computation time
+        STABLE,
+        //the stopping rule found that further playouts would not change the chosen action
+        DECIDED
+    }
+
+    //The search reports its best action at most this many times per move
+    public static final int CHECKPOINTS = 32;
+
+    //A round is won with 66 points, a player at 46 or more can reach it with a single marriage or a good trick
+    private static final int POINTS_NEAR_WIN = 46;
+    //The leader of the last tricks before the pile runs out decides who gets the trump card and the last unknown card
+    private static final int LAST_PILE_CARDS = 2;
+    //A follow with at most this many options is easy as long as the talon is open
+    private static final int FEW_ACTIONS = 2;
+
+    //After the soft share the search stops once its best action is unchanged for this share of the time already searched
+    private static final double STABLE_SHARE = 0.25;
+    //The playout rate grows while the tree gets deeper and the playouts shorter, the remaining playouts are estimated generously
+    private static final double REMAINING_SAFETY = 2.0;
+
+    private final Deadline_Controller_Schnapsen deadline;
+    //Null if moves are only stopped early by the stability of their best action
+    private Stopping_Rule_Schnapsen stoppingRule;
+
+    private Move_Class moveClass = Move_Class.CRITICAL;
+    private long startNanos;
+    private long softDeadlineNanos;
+    private long checkpointIntervalNanos;
+    private long nextCheckpointNanos = Long.MAX_VALUE;
+    private long lastChangeNanos;
+    private int bestActionId;
+    private Stop_Reason stopReason = Stop_Reason.DEADLINE;
+
+    /**
+     * Creates the time manager of an agent
+     * @param deadline the deadline controller of the agent, whose deadline is brought forward when the search stops early
+     * @param stoppingRule the rule that ends a move once its chosen action is decided, null to stop moves early only by the stability of their best action
+     */
+    public Time_Manager_Schnapsen(Deadline_Controller_Schnapsen deadline, Stopping_Rule_Schnapsen stoppingRule) {
+        this.deadline = deadline;
+        this.stoppingRule = stoppingRule;
+    }
+
+    /**
+     * Classifies a move by the phase of the round and the available actions
+     * @param board the board of the agent's turn
+     * @param availableMask the bitmask of the available action ids
+     * @return CRITICAL for talon actions and marriages, EASY otherwise for a round without hidden cards or a follow with few options,
+     * CRITICAL for a score near 66 or one of the last leads before the pile runs out, NORMAL otherwise
+     */
+    public static Move_Class classify(SchnapsenBoard board, long availableMask) {
+        long talonActions = Action_Ids_Schnapsen.bitOf(Playout_State_Schnapsen.MOVE_EXCHANGE_TRUMP) | Action_Ids_Schnapsen.bitOf(Playout_State_Schnapsen.MOVE_CLOSE_TALON);
+        long marriageActions = ((1L << Card_Bits_Schnapsen.DECK_SIZE) - 1) << Playout_State_Schnapsen.MOVE_MARRIAGE_OFFSET;
+        //a marriage can still be announced once the pile is exhausted, it is worth the whole time in every phase
+        if ((availableMask & (talonActions | marriageActions)) != 0) {
+            return Move_Class.CRITICAL;
+        }
+        int cardsLeftInPile = board.playingCardsLeftInPile();
+        //without a pile every card is known and the endgame solver plays the round exactly
+        if (cardsLeftInPile == 0) {
+            return Move_Class.EASY;
+        }
+        boolean leading = board.getLeadingCard() == null;
+        if (Math.max(board.getPlayer0Score(), board.getPlayer1Score()) >= POINTS_NEAR_WIN
+                || (leading && !board.isTalonClosed() && cardsLeftInPile <= LAST_PILE_CARDS)) {
+            return Move_Class.CRITICAL;
+        }
+        if (!leading && !board.isTalonClosed() && Long.bitCount(availableMask) <= FEW_ACTIONS) {
+            return Move_Class.EASY;
+        }
+        return Move_Class.NORMAL;
+    }
+
+    /**
+     * Sets the rule that ends a move once its chosen action is decided, it is asked at every checkpoint, also of critical moves
+     * @param stoppingRule the rule, null to stop moves early only by the stability of their best action
+     */
+    public void setStoppingRule(Stopping_Rule_Schnapsen stoppingRule) {
+        this.stoppingRule = stoppingRule;
+    }
+
+    /**
+     * Starts the time management of a move, has to be called after the deadline of the move was started
+     * @param moveClass the class of the move, e.g. from classify
+     * @param startNanos the System.nanoTime value when the engine called computeNextAction
+     * @param budgetNanos the computation time of the move
+     */
+    public void startMove(Move_Class moveClass, long startNanos, long budgetNanos) {
+        this.moveClass = moveClass;
+        this.startNanos = startNanos;
+        softDeadlineNanos = startNanos + (long) (budgetNanos * moveClass.getSoftShare());
+        checkpointIntervalNanos = Math.max(budgetNanos / CHECKPOINTS, 1);
+        nextCheckpointNanos = startNanos + checkpointIntervalNanos;
+        lastChangeNanos = startNanos;
+        bestActionId = -1;
+        stopReason = Stop_Reason.DEADLINE;
+    }
+
+    /**
+     * Ends the time management of a move
+     * @return why the search of the move ended, DEADLINE if no move was started
+     */
+    public Stop_Reason finishMove() {
+        Stop_Reason reason = stopReason;
+        stopReason = Stop_Reason.DEADLINE;
+        nextCheckpointNanos = Long.MAX_VALUE;
+        return reason;
+    }
+
+    /**
+     * Checks if the search should report its best action, the check costs a clock read
+     * @return true if the next checkpoint is reached
+     */
+    public boolean isCheckpointDue() {
+        return System.nanoTime() >= nextCheckpointNanos;
+    }
+
+    /**
+     * Takes the current best action of the search. After the soft share of the computation time, the deadline of the move is brought forward to now
+     * if the best action has not changed for a while, so that every search thread stops. Critical moves are not stopped for stability.
+     * Has to be called by one thread only.
+     * @param actionId the id of the action the search would choose now
+     * @return true if the search was stopped early
+     */
+    public boolean checkpoint(int actionId) {
+        if (stopReason != Stop_Reason.DEADLINE) {
+            return true;
+        }
+        long now = System.nanoTime();
+        nextCheckpointNanos = now + checkpointIntervalNanos;
+        if (actionId != bestActionId) {
+            bestActionId = actionId;
+            lastChangeNanos = now;
+            return false;
+        }
+        if (moveClass != Move_Class.CRITICAL && now >= softDeadlineNanos && now - lastChangeNanos >= STABLE_SHARE * (now - startNanos)) {
+            stop(Stop_Reason.STABLE, now);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Asks the stopping rule if the chosen action is decided and stops the search if so, otherwise the best action is checked for stability
+     * @param actionId the id of the action the search would choose now
+     * @param root the statistics of the root actions
+     * @param playouts the playouts of the move so far, the remaining playouts are extrapolated from their rate
+     * @return true if the search was stopped early
+     */
+    public boolean checkpoint(int actionId, Root_Statistics_Schnapsen root, long playouts) {
+        if (stopReason == Stop_Reason.DEADLINE && stoppingRule != null && stoppingRule.isDecided(root, estimateRemainingPlayouts(playouts))) {
+            stop(Stop_Reason.DECIDED, System.nanoTime());
+            return true;
+        }
+        return checkpoint(actionId);
+    }
+
+    /**
+     * Returns the class of the current or last move
+     * @return the move class
+     */
+    public Move_Class getMoveClass() {
+        return moveClass;
+    }
+
+    /**
+     * Returns why the search of the current move stopped so far
+     * @return STABLE or DECIDED if it was stopped early, DEADLINE otherwise
+     */
+    public Stop_Reason getStopReason() {
+        return stopReason;
+    }
+
+    /**
+     * Extrapolates the playouts until the deadline from the rate of the move so far
+     * @param playouts the playouts of the move so far
+     * @return the estimated remaining playouts, with a safety factor
+     */
+    private long estimateRemainingPlayouts(long playouts) {
+        long now = System.nanoTime();
+        long elapsed = Math.max(now - startNanos, 1);
+        long remaining = Math.max(deadline.getDeadlineNanos() - now, 0);
+        return (long) Math.ceil(REMAINING_SAFETY * playouts * ((double) remaining / elapsed));
+    }
+
+    /**
+     * Brings the deadline forward, so that every search thread stops
+     * @param reason why the search stops early
+     * @param now the current System.nanoTime value
+     */
+    private void stop(Stop_Reason reason, long now) {
+        stopReason = reason;
+        nextCheckpointNanos = Long.MAX_VALUE;
+        deadline.limitTo(now);
+    }
+}
@@ -0,0 +1,180 @@
+package shared_schnapsen;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+public class Transposition_Table_Schnapsen {
+
+    //The kind of value that is stored: the exact value, or a bound after a cutoff
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+
+    //An empty or mismatching slot is returned as this entry
+    public static final long NO_ENTRY = 0L;
+
+    //Layout of an entry: value (float bits 0-31), depth (32-39), flag (40-41), best move + 1 (42-47), generation (48-55)
+    private static final int DEPTH_SHIFT = 32;
+    private static final int FLAG_SHIFT = 40;
+    private static final int MOVE_SHIFT = 42;
+    private static final int GENERATION_SHIFT = 48;
+
+    public static final int MAX_DEPTH = 0xFF;
+
+    //The key is stored xor-ed with the entry, a slot that was torn by a concurrent write does not match its key anymore
+    private final long[] keys;
+    private final long[] entries;
+    private final int indexMask;
+
+    //Entries of older searches can always be replaced
+    private volatile int generation;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Creates a table with a fixed amount of slots
+     * @param log2Size the table has 2^log2Size slots, each slot takes 16 bytes
+     */
+    public Transposition_Table_Schnapsen(int log2Size) {
+        int size = 1 << log2Size;
+        this.keys = new long[size];
+        this.entries = new long[size];
+        this.indexMask = size - 1;
+    }
+
+    /**
+     * Looks up the entry of a position
+     * @param hash the Zobrist hash of the position
+     * @return the stored entry, NO_ENTRY if the position is not in the table
+     */
+    public long probe(long hash) {
+        probes.increment();
+        int index = (int) hash & indexMask;
+        long entry = entries[index];
+        if (entry == NO_ENTRY || (keys[index] ^ entry) != hash) {
+            return NO_ENTRY;
+        }
+        hits.increment();
+        return entry;
+    }
+
+    /**
+     * Stores the result of a search. A slot is replaced if it is empty, belongs to an older search,
+     * holds the same position or holds a position that was searched less deep.
+     * @param hash the Zobrist hash of the position
+     * @param value the value of the position
+     * @param depth the remaining depth the position was searched with
+     * @param flag EXACT, LOWER_BOUND or UPPER_BOUND
+     * @param bestMove the best move of the position, -1 if it is unknown
+     */
+    public void store(long hash, double value, int depth, int flag, int bestMove) {
+        int index = (int) hash & indexMask;
+        long oldEntry = entries[index];
+        if (oldEntry != NO_ENTRY && getGeneration(oldEntry) == (generation & 0xFF)
+                && (keys[index] ^ oldEntry) != hash && getDepth(oldEntry) > depth) {
+            return;
+        }
+        long entry = (Float.floatToRawIntBits((float) value) & 0xFFFFFFFFL)
+                | ((long) Math.min(Math.max(depth, 0), MAX_DEPTH) << DEPTH_SHIFT)
+                | ((long) flag << FLAG_SHIFT)
+                | ((long) (bestMove + 1) << MOVE_SHIFT)
+                | ((long) (generation & 0xFF) << GENERATION_SHIFT);
+        keys[index] = hash ^ entry;
+        entries[index] = entry;
+    }
+
+    /**
+     * Starts a new search, the entries of previous searches are kept but may be replaced by any new entry
+     */
+    public void newSearch() {
+        generation++;
+    }
+
+    /**
+     * Removes all entries and resets the statistics
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(entries, NO_ENTRY);
+        resetStatistics();
+    }
+
+    /**
+     * Resets the counters of probes and hits
+     */
+    public void resetStatistics() {
+        probes.reset();
+        hits.reset();
+    }
+
+    /**
+     * Returns how many lookups were made since the last reset
+     * @return the number of probes
+     */
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    /**
+     * Returns how many lookups found their position since the last reset
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the share of lookups that found their position
+     * @return the hit rate between 0.0 and 1.0
+     */
+    public double getHitRate() {
+        long probeCount = getProbes();
+        return probeCount == 0 ? 0.0 : getHits() / (double) probeCount;
+    }
+
+    /**
+     * Returns the stored value of an entry
+     * @param entry an entry returned by probe
+     * @return the value of the position
+     */
+    public static double getValue(long entry) {
+        return Float.intBitsToFloat((int) entry);
+    }
+
+    /**
+     * Returns the depth the position of an entry was searched with
+     * @param entry an entry returned by probe
+     * @return the remaining depth
+     */
+    public static int getDepth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    /**
+     * Returns the kind of value of an entry
+     * @param entry an entry returned by probe
+     * @return EXACT, LOWER_BOUND or UPPER_BOUND
+     */
+    public static int getFlag(long entry) {
+        return (int) (entry >>> FLAG_SHIFT) & 0x3;
+    }
+
+    /**
+     * Returns the best move of an entry
+     * @param entry an entry returned by probe
+     * @return the best move, -1 if it is unknown
+     */
+    public static int getBestMove(long entry) {
+        return ((int) (entry >>> MOVE_SHIFT) & 0x3F) - 1;
+    }
+
+    /**
+     * Returns the search generation an entry was stored in
+     * @param entry an entry of the table
+     * @return the generation modulo 256
+     */
+    private static int getGeneration(long entry) {
+        return (int) (entry >>> GENERATION_SHIFT) & 0xFF;
+    }
+}
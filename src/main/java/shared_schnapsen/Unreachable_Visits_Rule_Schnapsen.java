@@ -0,0 +1,26 @@
+package shared_schnapsen;
+
+public final class Unreachable_Visits_Rule_Schnapsen implements Stopping_Rule_Schnapsen {
+
+    /**
+     * The most visited root action is chosen by the tree searches, it is decided once no other action can catch up even if it received every remaining playout.
+     * This never changes the chosen action, as long as the remaining playouts are not underestimated.
+     * @param root the statistics of the root actions at a checkpoint
+     * @param remainingPlayouts the estimated number of playouts the search could still run until the deadline
+     * @return true if the lead of the most visited action is larger than the remaining playouts
+     */
+    @Override
+    public boolean isDecided(Root_Statistics_Schnapsen root, long remainingPlayouts) {
+        int best = root.getMostVisited();
+        if (best < 0) {
+            return false;
+        }
+        long runnerUp = 0;
+        for (int i = 0; i < root.size(); i++) {
+            if (i != best) {
+                runnerUp = Math.max(runnerUp, root.getVisits(i));
+            }
+        }
+        return root.getVisits(best) - runnerUp > remainingPlayouts;
+    }
+}
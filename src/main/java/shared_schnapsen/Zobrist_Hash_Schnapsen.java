@@ -0,0 +1,159 @@
+package shared_schnapsen;
+
+import java.util.SplittableRandom;
+
+public final class Zobrist_Hash_Schnapsen {
+
+    //Points above this limit are hashed with the same key, the round is decided long before
+    private static final int POINTS_LIMIT = 192;
+
+    //Fixed seed, so that hashes are equal between agents and runs
+    private static final long SEED = 0x5C4A7053E9L;
+
+    //One random key for every card location and every value of the other parts of the state
+    private static final long[][] HAND_KEYS = new long[2][Card_Bits_Schnapsen.DECK_SIZE];
+    //The pile is hashed by the position counted from the bottom, which does not change while cards are drawn
+    private static final long[][] PILE_KEYS = new long[Card_Bits_Schnapsen.DECK_SIZE][Card_Bits_Schnapsen.DECK_SIZE];
+    private static final long[] LEADING_CARD_KEYS = new long[Card_Bits_Schnapsen.DECK_SIZE];
+    private static final long[][] POINTS_KEYS = new long[2][POINTS_LIMIT];
+    private static final long[][] PENDING_MARRIAGE_KEYS = new long[2][POINTS_LIMIT];
+    private static final long[] HAS_TRICK_KEYS = new long[2];
+    private static final long[] TRUMP_SUIT_KEYS = new long[Card_Bits_Schnapsen.NUMBER_OF_SUITS];
+    //indexed by the closing player + 1, as the closer may be unknown (-1)
+    private static final long[] TALON_CLOSED_KEYS = new long[3];
+    private static final long CURRENT_PLAYER_KEY;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int player = 0; player < 2; player++) {
+            for (int card = 0; card < Card_Bits_Schnapsen.DECK_SIZE; card++) {
+                HAND_KEYS[player][card] = random.nextLong();
+            }
+            for (int points = 0; points < POINTS_LIMIT; points++) {
+                POINTS_KEYS[player][points] = random.nextLong();
+                PENDING_MARRIAGE_KEYS[player][points] = random.nextLong();
+            }
+            HAS_TRICK_KEYS[player] = random.nextLong();
+        }
+        for (int position = 0; position < Card_Bits_Schnapsen.DECK_SIZE; position++) {
+            for (int card = 0; card < Card_Bits_Schnapsen.DECK_SIZE; card++) {
+                PILE_KEYS[position][card] = random.nextLong();
+            }
+        }
+        for (int card = 0; card < Card_Bits_Schnapsen.DECK_SIZE; card++) {
+            LEADING_CARD_KEYS[card] = random.nextLong();
+        }
+        for (int suit = 0; suit < Card_Bits_Schnapsen.NUMBER_OF_SUITS; suit++) {
+            TRUMP_SUIT_KEYS[suit] = random.nextLong();
+        }
+        for (int i = 0; i < TALON_CLOSED_KEYS.length; i++) {
+            TALON_CLOSED_KEYS[i] = random.nextLong();
+        }
+        CURRENT_PLAYER_KEY = random.nextLong();
+    }
+
+    private Zobrist_Hash_Schnapsen() {
+    }
+
+    /**
+     * Calculates the hash of a state from scratch. It covers the card locations, the trick on the table, the talon and the points.
+     * @param state the state to be hashed
+     * @return the Zobrist hash of the state
+     */
+    public static long hash(Playout_State_Schnapsen state) {
+        long hash = TRUMP_SUIT_KEYS[state.getTrumpSuit()];
+        for (int player = 0; player < 2; player++) {
+            hash ^= maskKeys(HAND_KEYS[player], state.getHand(player));
+            hash ^= POINTS_KEYS[player][pointsIndex(state.getPoints(player))];
+            hash ^= PENDING_MARRIAGE_KEYS[player][pointsIndex(state.getPendingMarriagePoints(player))];
+            if (state.getTricks(player) > 0) {
+                hash ^= HAS_TRICK_KEYS[player];
+            }
+        }
+        for (int position = 0; position < state.getPileSize(); position++) {
+            hash ^= PILE_KEYS[position][state.getPileCard(position)];
+        }
+        if (state.getLeadingCard() >= 0) {
+            hash ^= LEADING_CARD_KEYS[state.getLeadingCard()];
+        }
+        if (state.isTalonClosed()) {
+            hash ^= TALON_CLOSED_KEYS[state.getClosingPlayer() + 1];
+        }
+        if (state.getCurrentPlayer() == 1) {
+            hash ^= CURRENT_PLAYER_KEY;
+        }
+        return hash;
+    }
+
+    /**
+     * Updates the hash of a state after a move was applied. Only the keys of the parts that changed between the two states are toggled,
+     * which are just a few cards and values for a single move.
+     * @param hash the hash of the state before the move
+     * @param before the state before the move
+     * @param after the state after the move
+     * @return the Zobrist hash of the state after the move
+     */
+    public static long update(long hash, Playout_State_Schnapsen before, Playout_State_Schnapsen after) {
+        for (int player = 0; player < 2; player++) {
+            hash ^= maskKeys(HAND_KEYS[player], before.getHand(player) ^ after.getHand(player));
+            if (before.getPoints(player) != after.getPoints(player)) {
+                hash ^= POINTS_KEYS[player][pointsIndex(before.getPoints(player))] ^ POINTS_KEYS[player][pointsIndex(after.getPoints(player))];
+            }
+            if (before.getPendingMarriagePoints(player) != after.getPendingMarriagePoints(player)) {
+                hash ^= PENDING_MARRIAGE_KEYS[player][pointsIndex(before.getPendingMarriagePoints(player))]
+                        ^ PENDING_MARRIAGE_KEYS[player][pointsIndex(after.getPendingMarriagePoints(player))];
+            }
+            if ((before.getTricks(player) > 0) != (after.getTricks(player) > 0)) {
+                hash ^= HAS_TRICK_KEYS[player];
+            }
+        }
+
+        //drawn cards leave the top of the pile, the trump exchange replaces the card at the bottom
+        for (int position = after.getPileSize(); position < before.getPileSize(); position++) {
+            hash ^= PILE_KEYS[position][before.getPileCard(position)];
+        }
+        if (after.getPileSize() > 0 && before.getPileCard(0) != after.getPileCard(0)) {
+            hash ^= PILE_KEYS[0][before.getPileCard(0)] ^ PILE_KEYS[0][after.getPileCard(0)];
+        }
+
+        if (before.getLeadingCard() != after.getLeadingCard()) {
+            if (before.getLeadingCard() >= 0) {
+                hash ^= LEADING_CARD_KEYS[before.getLeadingCard()];
+            }
+            if (after.getLeadingCard() >= 0) {
+                hash ^= LEADING_CARD_KEYS[after.getLeadingCard()];
+            }
+        }
+        if (!before.isTalonClosed() && after.isTalonClosed()) {
+            hash ^= TALON_CLOSED_KEYS[after.getClosingPlayer() + 1];
+        }
+        if (before.getCurrentPlayer() != after.getCurrentPlayer()) {
+            hash ^= CURRENT_PLAYER_KEY;
+        }
+        return hash;
+    }
+
+    /**
+     * Combines the keys of all cards in a bitmask
+     * @param keys the keys indexed by card index
+     * @param cards a bitmask of cards
+     * @return the xor of the keys of all set cards
+     */
+    private static long maskKeys(long[] keys, int cards) {
+        long hash = 0L;
+        while (cards != 0) {
+            hash ^= keys[Integer.numberOfTrailingZeros(cards)];
+            cards &= cards - 1;
+        }
+        return hash;
+    }
+
+    /**
+     * Limits points to the range of the point keys
+     * @param points the points of a player
+     * @return the index of the points key
+     */
+    private static int pointsIndex(int points) {
+        return Math.min(points, POINTS_LIMIT - 1);
+    }
+}
@@ -0,0 +1,111 @@
+package tournament_schnapsen;
+
+public class Agent_Statistics_Schnapsen {
+
+    private final String agentName;
+
+    private int games;
+    private int wins;
+    private int draws;
+    private int forfeits;
+    private long bummerlAmount;
+
+    private long moves;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+    private long timeouts;
+
+    /**
+     * Creates the empty statistics of an agent
+     * @param agentName the name of the agent
+     */
+    public Agent_Statistics_Schnapsen(String agentName) {
+        this.agentName = agentName;
+    }
+
+    /**
+     * Adds the result of a game, in which the agent played on the given seat
+     * @param result the result of the game
+     * @param player the seat of the agent
+     */
+    public void add(Match_Result_Schnapsen result, int player) {
+        games++;
+        if (result.getWinner() == player) {
+            wins++;
+        } else if (result.getWinner() < 0) {
+            draws++;
+        }
+        if (result.getForfeitingPlayer() == player) {
+            forfeits++;
+        }
+        bummerlAmount += result.getBummerlAmount(player);
+        moves += result.getMoves(player);
+        totalLatencyNanos += result.getTotalLatencyNanos(player);
+        maxLatencyNanos = Math.max(maxLatencyNanos, result.getMaxLatencyNanos(player));
+        timeouts += result.getTimeouts(player);
+    }
+
+    /**
+     * Returns the score of the agent, where a win counts 1 and a game without winner counts 0.5
+     * @return the score in the range of 0 to 1, 0.5 if no game was played
+     */
+    public double getScore() {
+        return games == 0 ? 0.5 : (wins + 0.5 * draws) / games;
+    }
+
+    /**
+     * Returns the half width of the 95% confidence interval of the score
+     * @return the margin of error of getScore
+     */
+    public double getScoreMargin() {
+        if (games == 0) {
+            return 0.5;
+        }
+        double score = getScore();
+        return 1.96 * Math.sqrt(score * (1 - score) / games);
+    }
+
+    /**
+     * Returns the name of the agent
+     * @return the agent name
+     */
+    public String getAgentName() {
+        return agentName;
+    }
+
+    /**
+     * Returns the number of games the agent played
+     * @return the number of games
+     */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * Returns the number of games the agent won
+     * @return the number of wins
+     */
+    public int getWins() {
+        return wins;
+    }
+
+    /**
+     * Returns the number of moves that took longer than the computation time
+     * @return the number of timeouts
+     */
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    /**
+     * Formats the statistics as one line of the tournament summary
+     * @return the summary line
+     */
+    @Override
+    public String toString() {
+        double averageLatencyMillis = moves == 0 ? 0 : totalLatencyNanos / 1e6 / moves;
+        return String.format("%-26s games %5d  wins %5d  draws %3d  score %.3f +- %.3f  avg Bummerl %.2f  moves %7d  avg move %.1f ms  max move %.1f ms  timeouts %d  forfeits %d",
+                agentName, games, wins, draws, getScore(), getScoreMargin(), games == 0 ? 0 : (double) bummerlAmount / games,
+                moves, averageLatencyMillis, maxLatencyNanos / 1e6, timeouts, forfeits);
+    }
+}
@@ -0,0 +1,178 @@
+package tournament_schnapsen;
+
+public class Match_Result_Schnapsen {
+
+    //The result is kept per seat, seat 0 is player 0 of the game
+    private final String[] agentNames;
+    private final int firstAgentSeat;
+    private final long dealSeed;
+
+    private final int[] moves = new int[2];
+    private final long[] totalLatencyNanos = new long[2];
+    private final long[] maxLatencyNanos = new long[2];
+    private final int[] timeouts = new int[2];
+
+    //-1 as long as the game has no winner, which stays so if it was stopped after the maximum number of actions
+    private int winner = -1;
+    private int forfeitingPlayer = -1;
+    private String forfeitReason;
+    private final int[] bummerlAmounts = new int[2];
+
+    /**
+     * Creates the empty result of a game
+     * @param agentNames the names of the agents by seat
+     * @param firstAgentSeat the seat of the first agent of the tournament
+     * @param dealSeed the seed of the deals of the game
+     */
+    public Match_Result_Schnapsen(String[] agentNames, int firstAgentSeat, long dealSeed) {
+        this.agentNames = agentNames.clone();
+        this.firstAgentSeat = firstAgentSeat;
+        this.dealSeed = dealSeed;
+    }
+
+    /**
+     * Records the time an agent took for one of its moves
+     * @param player the seat of the agent
+     * @param latencyNanos the duration of computeNextAction in nanoseconds
+     * @param timeoutNanos the computation time of a move in nanoseconds, a longer move counts as timeout
+     */
+    void recordMove(int player, long latencyNanos, long timeoutNanos) {
+        moves[player]++;
+        totalLatencyNanos[player] += latencyNanos;
+        maxLatencyNanos[player] = Math.max(maxLatencyNanos[player], latencyNanos);
+        if (latencyNanos > timeoutNanos) {
+            timeouts[player]++;
+        }
+    }
+
+    /**
+     * Ends the game with a loss of a player who failed to return a legal action
+     * @param player the seat of the agent
+     * @param reason the description of the failure
+     */
+    void forfeit(int player, String reason) {
+        this.forfeitingPlayer = player;
+        this.forfeitReason = reason;
+        this.winner = 1 - player;
+    }
+
+    /**
+     * Sets the winner and the Bummerl amounts of a finished game, a player has won if the Bummerl amount is below the maximum
+     * @param player0BummerlAmount the Bummerl amount of player 0
+     * @param player1BummerlAmount the Bummerl amount of player 1
+     * @param bummerlMax the Bummerl amount that ends the game
+     */
+    void finish(int player0BummerlAmount, int player1BummerlAmount, int bummerlMax) {
+        bummerlAmounts[0] = player0BummerlAmount;
+        bummerlAmounts[1] = player1BummerlAmount;
+        if (forfeitingPlayer < 0) {
+            winner = player0BummerlAmount < bummerlMax ? 0 : 1;
+        }
+    }
+
+    /**
+     * Returns the name of the agent on a seat
+     * @param player the seat
+     * @return the agent name
+     */
+    public String getAgentName(int player) {
+        return agentNames[player];
+    }
+
+    /**
+     * Returns the seat of the first agent of the tournament, which tells the agents apart when an agent plays against itself
+     * @return 0 or 1
+     */
+    public int getFirstAgentSeat() {
+        return firstAgentSeat;
+    }
+
+    /**
+     * Returns the seed of the deals, both games of a seat-swapped pair have the same seed
+     * @return the seed
+     */
+    public long getDealSeed() {
+        return dealSeed;
+    }
+
+    /**
+     * Returns the number of moves an agent computed
+     * @param player the seat
+     * @return the number of moves
+     */
+    public int getMoves(int player) {
+        return moves[player];
+    }
+
+    /**
+     * Returns the summed duration of all moves of an agent
+     * @param player the seat
+     * @return the total latency in nanoseconds
+     */
+    public long getTotalLatencyNanos(int player) {
+        return totalLatencyNanos[player];
+    }
+
+    /**
+     * Returns the duration of the slowest move of an agent
+     * @param player the seat
+     * @return the maximum latency in nanoseconds
+     */
+    public long getMaxLatencyNanos(int player) {
+        return maxLatencyNanos[player];
+    }
+
+    /**
+     * Returns the number of moves that took longer than the computation time
+     * @param player the seat
+     * @return the number of timeouts
+     */
+    public int getTimeouts(int player) {
+        return timeouts[player];
+    }
+
+    /**
+     * Returns the seat of the winner
+     * @return 0 or 1, -1 if the game was stopped without a winner
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    /**
+     * Returns the score of a player, where a win counts 1 and a game without winner counts 0.5
+     * @param player the seat
+     * @return 1, 0.5 or 0
+     */
+    public double getScore(int player) {
+        if (winner < 0) {
+            return 0.5;
+        }
+        return winner == player ? 1 : 0;
+    }
+
+    /**
+     * Returns the seat of the agent that forfeited the game
+     * @return 0 or 1, -1 if no agent forfeited
+     */
+    public int getForfeitingPlayer() {
+        return forfeitingPlayer;
+    }
+
+    /**
+     * Returns why an agent forfeited the game
+     * @return the reason, null if no agent forfeited
+     */
+    public String getForfeitReason() {
+        return forfeitReason;
+    }
+
+    /**
+     * Returns the Bummerl amount of a player at the end of the game
+     * @param player the seat
+     * @return the Bummerl amount
+     */
+    public int getBummerlAmount(int player) {
+        return bummerlAmounts[player];
+    }
+}
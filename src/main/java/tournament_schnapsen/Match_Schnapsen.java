@@ -0,0 +1,111 @@
+package tournament_schnapsen;
+
+import at.ac.tuwien.ifs.sge.agent.GameAgent;
+import at.ac.tuwien.ifs.sge.engine.Logger;
+import game.Schnapsen;
+import game.action.SchnapsenAction;
+import game.board.SchnapsenBoard;
+import shared_schnapsen.Seeded_Deal_Schnapsen;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+public class Match_Schnapsen implements Callable<Match_Result_Schnapsen> {
+
+    //A game of Schnapsen ends long before, the limit only stops agents that never finish a game
+    private static final int MAX_ACTIONS = 10000;
+
+    private final String[] agentNames;
+    private final int firstAgentSeat;
+    private final long dealSeed;
+    private final long computationTime;
+    private final TimeUnit timeUnit;
+    private final int agentThreads;
+    private final Logger log;
+
+    /**
+     * Creates a game between two agents of Tournament_Runner_Schnapsen.AGENTS
+     * @param agentNames the names of the agents, the first one is player 0
+     * @param firstAgentSeat the seat of the first agent of the tournament
+     * @param dealSeed the seed of the game, every round is dealt from a seed derived from it
+     * @param computationTime the computation time of every move
+     * @param timeUnit the unit of the computation time
+     * @param agentThreads the number of search threads of every agent
+     * @param log the logger passed to the agents
+     */
+    public Match_Schnapsen(String[] agentNames, int firstAgentSeat, long dealSeed, long computationTime, TimeUnit timeUnit, int agentThreads, Logger log) {
+        this.agentNames = agentNames.clone();
+        this.firstAgentSeat = firstAgentSeat;
+        this.dealSeed = dealSeed;
+        this.computationTime = computationTime;
+        this.timeUnit = timeUnit;
+        this.agentThreads = agentThreads;
+        this.log = log;
+    }
+
+    /**
+     * Plays the game in the calling thread the same way as the engine does: every agent gets the game from its own point of view
+     * and the time of computeNextAction is measured. An agent that throws or returns an illegal action forfeits the game.
+     * Every round the engine starts is dealt again from the seed of the round, so that both games of a pair get the same deals.
+     * @return the result of the game
+     */
+    @Override
+    public Match_Result_Schnapsen call() {
+        Match_Result_Schnapsen result = new Match_Result_Schnapsen(agentNames, firstAgentSeat, dealSeed);
+        long timeoutNanos = timeUnit.toNanos(computationTime);
+
+        @SuppressWarnings("unchecked")
+        GameAgent<Schnapsen, SchnapsenAction>[] agents = new GameAgent[2];
+        try {
+            for (int player = 0; player < 2; player++) {
+                agents[player] = Tournament_Runner_Schnapsen.createAgent(agentNames[player], log, agentThreads);
+                agents[player].setUp(2, player);
+            }
+
+            Schnapsen game = Seeded_Deal_Schnapsen.dealRound(dealSeed);
+            int round = 1;
+            int actions = 0;
+            //a tournament that is decided early interrupts the games that are still running
+            while (!game.isGameOver() && actions < MAX_ACTIONS && !Thread.currentThread().isInterrupted()) {
+                int player = game.getCurrentPlayer();
+                SchnapsenAction action;
+                if (player < 0) {
+                    action = game.determineNextAction();
+                } else {
+                    long start = System.nanoTime();
+                    try {
+                        action = agents[player].computeNextAction((Schnapsen) game.getGame(player), computationTime, timeUnit);
+                    } catch (RuntimeException e) {
+                        result.recordMove(player, System.nanoTime() - start, timeoutNanos);
+                        result.forfeit(player, e.toString());
+                        break;
+                    }
+                    result.recordMove(player, System.nanoTime() - start, timeoutNanos);
+                    if (action == null || !game.getPossibleActions().contains(action)) {
+                        result.forfeit(player, "illegal action " + action);
+                        break;
+                    }
+                }
+                SchnapsenBoard previousBoard = game.getBoard();
+                game = (Schnapsen) game.doAction(action);
+                if (!game.isGameOver() && Seeded_Deal_Schnapsen.isNewRound(previousBoard, game.getBoard())) {
+                    game = Seeded_Deal_Schnapsen.dealNextRound(game, Seeded_Deal_Schnapsen.roundSeed(dealSeed, ++round));
+                }
+                actions++;
+            }
+
+            if (game.isGameOver() || result.getForfeitingPlayer() >= 0) {
+                SchnapsenBoard board = game.getBoard();
+                result.finish(board.getPlayer0BummerlAmount(), board.getPlayer1BummerlAmount(), board.getBummerlMax());
+            }
+        } finally {
+            for (GameAgent<Schnapsen, SchnapsenAction> agent : agents) {
+                if (agent != null) {
+                    agent.tearDown();
+                    agent.destroy();
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,131 @@
+package tournament_schnapsen;
+
+public class Sprt_Schnapsen {
+
+    /**
+     * The outcome of the test after the pairs seen so far
+     */
+    public enum Decision {
+        CONTINUE,
+        ACCEPT_H0,
+        ACCEPT_H1
+    }
+
+    //Pseudo count of every outcome in the variance, the weight of the prior vanishes once many pairs were played
+    private static final double PRIOR_COUNT = 1;
+
+    private final double elo0;
+    private final double elo1;
+    private final double lowerBound;
+    private final double upperBound;
+
+    //Pairs of games on the same deal by the points of the first agent: 0, 0.5, 1, 1.5 or 2 out of 2
+    private final int[] pairCounts = new int[5];
+    private int pairs;
+
+    /**
+     * Creates a sequential probability ratio test of H0: the Elo difference of the first agent is elo0, against H1: it is elo1
+     * @param elo0 the Elo difference of H0
+     * @param elo1 the Elo difference of H1, larger than elo0
+     * @param alpha the probability to accept H1 although H0 is true
+     * @param beta the probability to accept H0 although H1 is true
+     */
+    public Sprt_Schnapsen(double elo0, double elo1, double alpha, double beta) {
+        if (elo1 <= elo0) {
+            throw new IllegalArgumentException("elo1 has to be larger than elo0");
+        }
+        if (alpha <= 0 || alpha >= 1 || beta <= 0 || beta >= 1) {
+            throw new IllegalArgumentException("alpha and beta have to be between 0 and 1");
+        }
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.lowerBound = Math.log(beta / (1 - alpha));
+        this.upperBound = Math.log((1 - beta) / alpha);
+    }
+
+    /**
+     * Adds the result of a pair of games on the same deal with swapped seats. The pair is one sample, which removes the luck of the deal from the variance.
+     * @param firstScore the score of the first agent in the first game: 1 for a win, 0.5 for a game without winner, 0 for a loss
+     * @param secondScore the score of the first agent in the second game
+     */
+    public void addPair(double firstScore, double secondScore) {
+        pairCounts[(int) Math.round(2 * (firstScore + secondScore))]++;
+        pairs++;
+    }
+
+    /**
+     * Calculates the log-likelihood ratio of the pairs with the normal approximation of the generalized SPRT:
+     * LLR = N (s1 - s0) (2 mean - s0 - s1) / (2 variance), where s0 and s1 are the expected scores under both hypotheses
+     * @return the log-likelihood ratio, 0 before the first pair
+     */
+    public double getLogLikelihoodRatio() {
+        if (pairs == 0) {
+            return 0;
+        }
+        double mean = 0;
+        for (int i = 0; i < pairCounts.length; i++) {
+            mean += pairCounts[i] * i / 4.0;
+        }
+        mean /= pairs;
+
+        //the variance includes PRIOR_COUNT pairs of every outcome, the variance of a few pairs would otherwise be far too small
+        double priorMean = 0;
+        double priorTotal = pairs + pairCounts.length * PRIOR_COUNT;
+        for (int i = 0; i < pairCounts.length; i++) {
+            priorMean += (pairCounts[i] + PRIOR_COUNT) * i / 4.0;
+        }
+        priorMean /= priorTotal;
+        double variance = 0;
+        for (int i = 0; i < pairCounts.length; i++) {
+            double deviation = i / 4.0 - priorMean;
+            variance += (pairCounts[i] + PRIOR_COUNT) * deviation * deviation;
+        }
+        variance /= priorTotal;
+
+        double score0 = expectedScore(elo0);
+        double score1 = expectedScore(elo1);
+        return pairs * (score1 - score0) * (2 * mean - score0 - score1) / (2 * variance);
+    }
+
+    /**
+     * Compares the log-likelihood ratio with the bounds of the error rates
+     * @return ACCEPT_H1 at the upper bound, ACCEPT_H0 at the lower bound, otherwise CONTINUE
+     */
+    public Decision getDecision() {
+        double llr = getLogLikelihoodRatio();
+        if (llr >= upperBound) {
+            return Decision.ACCEPT_H1;
+        }
+        if (llr <= lowerBound) {
+            return Decision.ACCEPT_H0;
+        }
+        return Decision.CONTINUE;
+    }
+
+    /**
+     * Returns the number of pairs added to the test
+     * @return the number of pairs
+     */
+    public int getPairs() {
+        return pairs;
+    }
+
+    /**
+     * Formats the state of the test
+     * @return the hypotheses, the log-likelihood ratio with its bounds and the decision
+     */
+    @Override
+    public String toString() {
+        return String.format("SPRT elo0 %.1f elo1 %.1f  pairs %d  LLR %.2f [%.2f, %.2f]  %s",
+                elo0, elo1, pairs, getLogLikelihoodRatio(), lowerBound, upperBound, getDecision());
+    }
+
+    /**
+     * The logistic Elo model
+     * @param elo an Elo difference
+     * @return the expected score of the player with the higher rating
+     */
+    private static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+}
@@ -0,0 +1,192 @@
+package tournament_schnapsen;
+
+import alpha_beta_agent.Alpha_Beta_Agent_Schnapsen;
+import at.ac.tuwien.ifs.sge.agent.GameAgent;
+import at.ac.tuwien.ifs.sge.engine.Logger;
+import game.Schnapsen;
+import game.action.SchnapsenAction;
+import iimc_Agent_Schnapsen.Iimc_Agent_Schnapsen;
+import iimc_Agent_Schnapsen.Iimc_H_Agent_Schnapsen;
+import is_mcts_agent.Is_Mcts_Agent_Schnapsen;
+import is_mcts_agent.Is_Mcts_H_Agent_Schnapsen;
+import mcts_agent.Mcts_Agent_Schnapsen;
+import random_agent.Random_Agent_Schnapsen;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+public final class Tournament_Runner_Schnapsen {
+
+    //All agents of this project by class name, created with the logger and the number of their search threads
+    private static final Map<String, BiFunction<Logger, Integer, GameAgent<Schnapsen, SchnapsenAction>>> AGENTS = new LinkedHashMap<>();
+
+    static {
+        AGENTS.put("Random_Agent_Schnapsen", (log, threads) -> new Random_Agent_Schnapsen(log));
+        AGENTS.put("Mcts_Agent_Schnapsen", (log, threads) -> new Mcts_Agent_Schnapsen(log));
+        AGENTS.put("Is_Mcts_Agent_Schnapsen", (log, threads) -> {
+            Is_Mcts_Agent_Schnapsen agent = new Is_Mcts_Agent_Schnapsen(log);
+            agent.setNumberOfThreads(threads);
+            return agent;
+        });
+        AGENTS.put("Is_Mcts_H_Agent_Schnapsen", (log, threads) -> {
+            Is_Mcts_H_Agent_Schnapsen agent = new Is_Mcts_H_Agent_Schnapsen(log);
+            agent.setNumberOfThreads(threads);
+            return agent;
+        });
+        AGENTS.put("Iimc_Agent_Schnapsen", (log, threads) -> {
+            Iimc_Agent_Schnapsen agent = new Iimc_Agent_Schnapsen(log);
+            agent.setNumberOfThreads(threads);
+            return agent;
+        });
+        AGENTS.put("Iimc_H_Agent_Schnapsen", (log, threads) -> {
+            Iimc_H_Agent_Schnapsen agent = new Iimc_H_Agent_Schnapsen(log);
+            agent.setNumberOfThreads(threads);
+            return agent;
+        });
+        AGENTS.put("Alpha_Beta_Agent_Schnapsen", (log, threads) -> {
+            Alpha_Beta_Agent_Schnapsen agent = new Alpha_Beta_Agent_Schnapsen(log);
+            agent.setNumberOfThreads(threads);
+            return agent;
+        });
+    }
+
+    //The engine logs with level 0 (info), the tournament only shows warnings and errors of the agents
+    private static final int LOG_LEVEL = 1;
+
+    private static final double DEFAULT_SPRT_ERROR = 0.05;
+
+    private Tournament_Runner_Schnapsen() {
+    }
+
+    /**
+     * Plays a tournament between two agents and prints the statistics of both.
+     * Usage: Tournament_Runner_Schnapsen agentA agentB [games] [computation time ms] [parallel games] [seed] [threads per agent] [elo0 elo1 [alpha] [beta]]
+     * @param args the class names of both agents, the number of games (100), the computation time per move in milliseconds (1000),
+     *             the number of games played at the same time (all processors), the seed of the deals (1), the search threads of every agent (1)
+     *             and optionally the Elo bounds of a sequential probability ratio test of agent A against agent B with its error rates (0.05, 0.05)
+     * @throws InterruptedException if the tournament is interrupted
+     * @throws ExecutionException if a game fails
+     */
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        if (args.length < 2 || !AGENTS.containsKey(args[0]) || !AGENTS.containsKey(args[1])) {
+            System.err.println("Usage: Tournament_Runner_Schnapsen agentA agentB [games] [computation time ms] [parallel games] [seed] [threads per agent] [elo0 elo1 [alpha] [beta]]");
+            System.err.println("Agents: " + String.join(", ", AGENTS.keySet()));
+            System.exit(1);
+        }
+        int games = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        long computationTime = args.length > 3 ? Long.parseLong(args[3]) : 1000;
+        int parallelGames = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 1;
+        int agentThreads = args.length > 6 ? Integer.parseInt(args[6]) : 1;
+        Sprt_Schnapsen sprt = null;
+        if (args.length > 8) {
+            sprt = new Sprt_Schnapsen(Double.parseDouble(args[7]), Double.parseDouble(args[8]),
+                    args.length > 9 ? Double.parseDouble(args[9]) : DEFAULT_SPRT_ERROR, args.length > 10 ? Double.parseDouble(args[10]) : DEFAULT_SPRT_ERROR);
+        }
+
+        Agent_Statistics_Schnapsen[] statistics = runTournament(args[0], args[1], games, computationTime, TimeUnit.MILLISECONDS,
+                parallelGames, seed, agentThreads, sprt);
+        System.out.println(statistics[0]);
+        System.out.println(statistics[1]);
+        if (sprt != null) {
+            System.out.println(sprt);
+        }
+    }
+
+    /**
+     * Plays games between two agents on a pool of worker threads, each worker plays one game at a time.
+     * The games are played in pairs on the same seeded deal with swapped seats, so that the luck of the deal cancels out.
+     * With a sequential probability ratio test the tournament stops as soon as the test is decided, the number of games is then the maximum.
+     * @param agentA the class name of the first agent
+     * @param agentB the class name of the second agent
+     * @param games the number of games, rounded up to an even number
+     * @param computationTime the computation time of every move
+     * @param timeUnit the unit of the computation time
+     * @param parallelGames the number of games played at the same time
+     * @param seed the seed of the deals
+     * @param agentThreads the number of search threads of every agent
+     * @param sprt the test that is updated with every finished pair, null to play all games
+     * @return the statistics of agent A and of agent B
+     * @throws InterruptedException if the tournament is interrupted
+     * @throws ExecutionException if a game fails
+     */
+    public static Agent_Statistics_Schnapsen[] runTournament(String agentA, String agentB, int games, long computationTime, TimeUnit timeUnit,
+                                                             int parallelGames, long seed, int agentThreads, Sprt_Schnapsen sprt) throws InterruptedException, ExecutionException {
+        Logger log = new Logger(LOG_LEVEL, "[tournament ", "", "trace]: ", System.out, "", "debug]: ", System.out, "",
+                "info]: ", System.out, "", "warn]: ", System.err, "", "error]: ", System.err, "");
+        int pairs = (games + 1) / 2;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(parallelGames, 1), runnable -> {
+            Thread thread = new Thread(runnable, "tournament-worker-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Agent_Statistics_Schnapsen[] statistics = {new Agent_Statistics_Schnapsen(agentA), new Agent_Statistics_Schnapsen(agentB)};
+        try {
+            CompletionService<Match_Result_Schnapsen> completionService = new ExecutorCompletionService<>(pool);
+            for (int pair = 0; pair < pairs; pair++) {
+                long dealSeed = seed * 1_000_003L + pair;
+                completionService.submit(new Match_Schnapsen(new String[]{agentA, agentB}, 0, dealSeed, computationTime, timeUnit, agentThreads, log));
+                completionService.submit(new Match_Schnapsen(new String[]{agentB, agentA}, 1, dealSeed, computationTime, timeUnit, agentThreads, log));
+            }
+
+            long start = System.nanoTime();
+            int progressStep = Math.max(pairs / 5, 1);
+            //the first finished game of a pair waits here for the game with swapped seats
+            Map<Long, Match_Result_Schnapsen> unpairedResults = new HashMap<>();
+            for (int played = 1; played <= 2 * pairs; played++) {
+                Match_Result_Schnapsen result = completionService.take().get();
+                statistics[0].add(result, result.getFirstAgentSeat());
+                statistics[1].add(result, 1 - result.getFirstAgentSeat());
+                if (result.getForfeitReason() != null) {
+                    log.warn(result.getAgentName(result.getForfeitingPlayer()) + " forfeited deal " + result.getDealSeed() + ": " + result.getForfeitReason());
+                }
+                if (played % (2 * progressStep) == 0) {
+                    System.out.printf("%d/%d games, %s score %.3f, %.1f s%n", played, 2 * pairs, agentA, statistics[0].getScore(),
+                            (System.nanoTime() - start) / 1e9);
+                }
+
+                if (sprt != null) {
+                    Match_Result_Schnapsen otherResult = unpairedResults.remove(result.getDealSeed());
+                    if (otherResult == null) {
+                        unpairedResults.put(result.getDealSeed(), result);
+                        continue;
+                    }
+                    sprt.addPair(result.getScore(result.getFirstAgentSeat()), otherResult.getScore(otherResult.getFirstAgentSeat()));
+                    if (sprt.getDecision() != Sprt_Schnapsen.Decision.CONTINUE) {
+                        System.out.printf("SPRT decided after %d games, %.1f s%n", played, (System.nanoTime() - start) / 1e9);
+                        break;
+                    }
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return statistics;
+    }
+
+    /**
+     * Creates an agent by its class name
+     * @param agentName the class name of the agent without package
+     * @param log the logger passed to the agent
+     * @param agentThreads the number of search threads, ignored by single threaded agents
+     * @return a new agent
+     */
+    static GameAgent<Schnapsen, SchnapsenAction> createAgent(String agentName, Logger log, int agentThreads) {
+        BiFunction<Logger, Integer, GameAgent<Schnapsen, SchnapsenAction>> factory = AGENTS.get(agentName);
+        if (factory == null) {
+            throw new IllegalArgumentException("Unknown agent " + agentName + ", known agents: " + String.join(", ", AGENTS.keySet()));
+        }
+        return factory.apply(log, agentThreads);
+    }
+}
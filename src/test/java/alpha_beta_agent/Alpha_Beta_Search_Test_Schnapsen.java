@@ -0,0 +1,108 @@
+package alpha_beta_agent;
+
+import org.junit.jupiter.api.Test;
+import shared_schnapsen.Endgame_Solver_Schnapsen;
+import shared_schnapsen.Playout_State_Schnapsen;
+import shared_schnapsen.Static_Evaluator_Schnapsen;
+import shared_schnapsen.Test_Fixtures_Schnapsen;
+import shared_schnapsen.Transposition_Table_Schnapsen;
+import shared_schnapsen.Zobrist_Hash_Schnapsen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Alpha_Beta_Search_Test_Schnapsen {
+
+    private static final int POSITIONS = 20;
+    private static final int MAX_DEPTH = 4;
+    private static final int TABLE_LOG2_SIZE = 16;
+    //The table stores the values as floats
+    private static final double VALUE_TOLERANCE = 1e-6;
+
+    /**
+     * Iterative deepening with a transposition table that is shared by all iterations and root moves, as in the agent,
+     * finds the same value for every root move and depth as a plain minimax search without pruning and table
+     */
+    @Test
+    void deepeningWithTableEqualsPlainMinimax() {
+        for (long seed = 0; seed < POSITIONS; seed++) {
+            //positions from the deal to the middle of the round, with drawing, a closed talon or an exhausted pile
+            int movesPlayed = (int) (seed % 12);
+            Playout_State_Schnapsen position = Test_Fixtures_Schnapsen.randomPosition(seed, state -> state.getMovesApplied() >= movesPlayed);
+            if (position != null) {
+                assertDeepeningEqualsMinimax(position, MAX_DEPTH, "seed " + seed);
+            }
+        }
+    }
+
+    /**
+     * Endgames searched without horizon get the exact result of the round, which the table may store for every depth
+     */
+    @Test
+    void solvedEndgamesEqualPlainMinimax() {
+        for (long seed = 0; seed < POSITIONS; seed++) {
+            Playout_State_Schnapsen position = Test_Fixtures_Schnapsen.randomPosition(seed, state -> state.getLeadingCard() < 0 && Endgame_Solver_Schnapsen.isSolvable(state));
+            if (position != null) {
+                assertDeepeningEqualsMinimax(position, Alpha_Beta_Search_Schnapsen.MAX_PLY, "seed " + seed);
+            }
+        }
+    }
+
+    /**
+     * Searches a position with iterative deepening up to a depth and compares every root move value with plain minimax
+     * @param position the root position
+     * @param maxDepth the depth of the last iteration
+     * @param description the description of the position for failed assertions
+     */
+    private static void assertDeepeningEqualsMinimax(Playout_State_Schnapsen position, int maxDepth, String description) {
+        int playerId = position.getCurrentPlayer();
+        Transposition_Table_Schnapsen table = new Transposition_Table_Schnapsen(TABLE_LOG2_SIZE);
+        Alpha_Beta_Search_Schnapsen search = new Alpha_Beta_Search_Schnapsen(table, () -> false);
+        search.newSearch(playerId);
+        table.newSearch();
+        search.getRootState().copyFrom(position);
+        long rootHash = Zobrist_Hash_Schnapsen.hash(position);
+        long legalMoves = position.getLegalMoves();
+
+        Playout_State_Schnapsen child = new Playout_State_Schnapsen();
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            search.newIteration();
+            for (long moves = legalMoves; moves != 0; moves &= moves - 1) {
+                int move = Long.numberOfTrailingZeros(moves);
+                child.copyFrom(position);
+                child.applyMove(move);
+                assertEquals(minimax(child, depth - 1, 1, playerId), search.searchRootMove(depth - 1, rootHash, move, -Double.MAX_VALUE, Double.MAX_VALUE),
+                        VALUE_TOLERANCE, description + " depth " + depth + " move " + move);
+            }
+            if (search.isSolved()) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Plain minimax with the leaves of the search: the result of a finished round, and the static evaluator at the horizon
+     * @param state the position
+     * @param depth the remaining depth
+     * @param ply the ply of the position below the root
+     * @param playerId the maximizing player
+     * @return the minimax value of the position
+     */
+    private static double minimax(Playout_State_Schnapsen state, int depth, int ply, int playerId) {
+        if (state.isRoundOver()) {
+            return state.getScore(playerId);
+        }
+        if (depth <= 0 || ply >= Alpha_Beta_Search_Schnapsen.MAX_PLY) {
+            return Static_Evaluator_Schnapsen.evaluate(state, playerId);
+        }
+        boolean maximizing = state.getCurrentPlayer() == playerId;
+        double bestValue = maximizing ? -Double.MAX_VALUE : Double.MAX_VALUE;
+        Playout_State_Schnapsen child = new Playout_State_Schnapsen();
+        for (long moves = state.getLegalMoves(); moves != 0; moves &= moves - 1) {
+            child.copyFrom(state);
+            child.applyMove(Long.numberOfTrailingZeros(moves));
+            double value = minimax(child, depth - 1, ply + 1, playerId);
+            bestValue = maximizing ? Math.max(bestValue, value) : Math.min(bestValue, value);
+        }
+        return bestValue;
+    }
+}
@@ -0,0 +1,69 @@
+package shared_schnapsen;
+
+import game.board.PlayingCard;
+import game.board.SchnapsenBoard;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class Action_Ids_Test_Schnapsen {
+
+    /**
+     * Every card is parsed from the string of a played card, whatever the trump suit
+     */
+    @Test
+    void playedCardIsItsCardIndex() {
+        for (SchnapsenBoard.cardSuits trumpSuit : SchnapsenBoard.cardSuits.values()) {
+            PlayingCard[] deckOfCards = Card_Bits_Schnapsen.generateFullDeck(trumpSuit);
+            for (int card = 0; card < Card_Bits_Schnapsen.DECK_SIZE; card++) {
+                assertEquals(card, Action_Ids_Schnapsen.parseId("Play card " + deckOfCards[card]));
+            }
+        }
+    }
+
+    /**
+     * A marriage is the first named card plus the marriage offset, also if the string names both cards
+     */
+    @Test
+    void marriageIsOffsetByItsFirstCard() {
+        PlayingCard[] deckOfCards = Card_Bits_Schnapsen.generateFullDeck(SchnapsenBoard.cardSuits.HEARTS);
+        for (int suit = 0; suit < Card_Bits_Schnapsen.NUMBER_OF_SUITS; suit++) {
+            PlayingCard queen = deckOfCards[Card_Bits_Schnapsen.cardOf(suit, Card_Bits_Schnapsen.RANK_QUEEN)];
+            PlayingCard king = deckOfCards[Card_Bits_Schnapsen.cardOf(suit, Card_Bits_Schnapsen.RANK_KING)];
+            assertEquals(Playout_State_Schnapsen.MOVE_MARRIAGE_OFFSET + Card_Bits_Schnapsen.cardOf(suit, Card_Bits_Schnapsen.RANK_QUEEN),
+                    Action_Ids_Schnapsen.parseId("Marriage " + queen + " with " + king));
+            assertEquals(Playout_State_Schnapsen.MOVE_MARRIAGE_OFFSET + Card_Bits_Schnapsen.cardOf(suit, Card_Bits_Schnapsen.RANK_KING),
+                    Action_Ids_Schnapsen.parseId("Marriage " + king + " with " + queen));
+        }
+    }
+
+    /**
+     * The trump exchange is recognized by its name, even though it names the trump jack
+     */
+    @Test
+    void exchangeIsRecognizedByName() {
+        PlayingCard[] deckOfCards = Card_Bits_Schnapsen.generateFullDeck(SchnapsenBoard.cardSuits.CLUBS);
+        PlayingCard trumpJack = deckOfCards[Card_Bits_Schnapsen.cardOf(Card_Bits_Schnapsen.suitIndex(SchnapsenBoard.cardSuits.CLUBS), Card_Bits_Schnapsen.RANK_JACK)];
+        assertEquals(Playout_State_Schnapsen.MOVE_EXCHANGE_TRUMP, Action_Ids_Schnapsen.parseId("Exchange trump with " + trumpJack));
+    }
+
+    /**
+     * Closing the talon names no card and is recognized in any case
+     */
+    @Test
+    void closingIsRecognizedInAnyCase() {
+        assertEquals(Playout_State_Schnapsen.MOVE_CLOSE_TALON, Action_Ids_Schnapsen.parseId("Close talon"));
+        assertEquals(Playout_State_Schnapsen.MOVE_CLOSE_TALON, Action_Ids_Schnapsen.parseId("CloseTalonAction"));
+    }
+
+    /**
+     * Strings outside of the contract are rejected instead of being mapped to a wrong id
+     */
+    @Test
+    void unknownStringsAreRejected() {
+        PlayingCard[] deckOfCards = Card_Bits_Schnapsen.generateFullDeck(SchnapsenBoard.cardSuits.SPADES);
+        assertThrows(IllegalArgumentException.class, () -> Action_Ids_Schnapsen.parseId("Pass"));
+        assertThrows(IllegalArgumentException.class, () -> Action_Ids_Schnapsen.parseId("Close talon and play " + deckOfCards[0]));
+    }
+}
@@ -0,0 +1,68 @@
+package shared_schnapsen;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Endgame_Solver_Test_Schnapsen {
+
+    private static final int DEALS = 300;
+
+    /**
+     * The first solvable position of random rounds, right after the talon was closed or the pile was exhausted,
+     * gets the same result from the solver as from a brute-force minimax over the moves of the playout state
+     */
+    @Test
+    void solverEqualsBruteForceAtTheStartOfTheEndgame() {
+        Endgame_Solver_Schnapsen solver = new Endgame_Solver_Schnapsen();
+        int positions = 0;
+        for (long seed = 0; seed < DEALS; seed++) {
+            Playout_State_Schnapsen position = Test_Fixtures_Schnapsen.randomPosition(seed, Endgame_Solver_Schnapsen::isSolvable);
+            if (position != null) {
+                assertEquals(bruteForce(position), solver.solve(position), "seed " + seed);
+                positions++;
+            }
+        }
+        assertTrue(positions > DEALS / 2);
+    }
+
+    /**
+     * Positions in the middle of a trick, where the follower has to answer the led card, are solved the same way
+     */
+    @Test
+    void solverEqualsBruteForceWithinATrick() {
+        Endgame_Solver_Schnapsen solver = new Endgame_Solver_Schnapsen();
+        int positions = 0;
+        for (long seed = 0; seed < DEALS; seed++) {
+            Playout_State_Schnapsen position = Test_Fixtures_Schnapsen.randomPosition(seed,
+                    state -> Endgame_Solver_Schnapsen.isSolvable(state) && state.getLeadingCard() >= 0);
+            if (position != null) {
+                assertEquals(bruteForce(position), solver.solve(position), "seed " + seed);
+                positions++;
+            }
+        }
+        assertTrue(positions > DEALS / 2);
+    }
+
+    /**
+     * Minimax over all legal moves of the playout state until the end of the round, without pruning
+     * @param state the position
+     * @return the game points of the winner, positive if player 0 wins the round and negative if player 1 wins it
+     */
+    private static int bruteForce(Playout_State_Schnapsen state) {
+        if (state.isRoundOver()) {
+            return state.getRoundWinner() == 0 ? state.getGamePoints() : -state.getGamePoints();
+        }
+        boolean maximizing = state.getCurrentPlayer() == 0;
+        int bestValue = maximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        Playout_State_Schnapsen child = new Playout_State_Schnapsen();
+        for (long moves = state.getLegalMoves(); moves != 0; moves &= moves - 1) {
+            child.copyFrom(state);
+            child.applyMove(Long.numberOfTrailingZeros(moves));
+            int value = bruteForce(child);
+            bestValue = maximizing ? Math.max(bestValue, value) : Math.min(bestValue, value);
+        }
+        return bestValue;
+    }
+}
@@ -0,0 +1,84 @@
+package shared_schnapsen;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Endgame_Tablebase_Test_Schnapsen {
+
+    private static final int DEALS = 2000;
+    //Two cards per hand are generated in a few seconds, the lookup does not depend on the size of the hands
+    private static final int MAX_CARDS = 2;
+
+    private static Endgame_Tablebase_Schnapsen tablebase;
+
+    /**
+     * Generates a small tablebase with the generator of the agents
+     * @param directory the temporary directory of the file
+     * @throws Exception if the generation or the mapping fails
+     */
+    @BeforeAll
+    static void generate(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("endgame-tablebase.bin");
+        Endgame_Tablebase_Generator_Schnapsen.main(new String[]{file.toString(), String.valueOf(MAX_CARDS)});
+        tablebase = new Endgame_Tablebase_Schnapsen(file);
+    }
+
+    /**
+     * Every covered position of random rounds, with an exhausted pile or a closed talon and any trump suit, is looked up with the result of the solver
+     */
+    @Test
+    void lookupEqualsSolver() {
+        assertEquals(MAX_CARDS, tablebase.getMaxCards());
+        Endgame_Solver_Schnapsen solver = new Endgame_Solver_Schnapsen();
+        int exhausted = 0;
+        int closed = 0;
+        for (long seed = 0; seed < DEALS; seed++) {
+            Playout_State_Schnapsen position = Test_Fixtures_Schnapsen.randomPosition(seed, Endgame_Tablebase_Test_Schnapsen::isCovered);
+            if (position == null) {
+                continue;
+            }
+            assertEquals(solver.solve(position), tablebase.probe(position), "seed " + seed);
+            if (position.getClosingPlayer() < 0) {
+                exhausted++;
+            } else {
+                closed++;
+            }
+        }
+        assertTrue(exhausted > 0 && closed > 0);
+    }
+
+    /**
+     * Positions outside of the tablebase are not found: larger hands, a trick in progress and a pile cards can still be drawn from
+     */
+    @Test
+    void uncoveredPositionsAreNotFound() {
+        for (long seed = 0; seed < DEALS / 10; seed++) {
+            Playout_State_Schnapsen largerHands = Test_Fixtures_Schnapsen.randomPosition(seed,
+                    state -> Endgame_Solver_Schnapsen.isSolvable(state) && state.getLeadingCard() < 0 && Integer.bitCount(state.getHand(0)) > MAX_CARDS);
+            if (largerHands != null) {
+                assertEquals(Endgame_Tablebase_Schnapsen.NOT_FOUND, tablebase.probe(largerHands), "seed " + seed);
+            }
+            Playout_State_Schnapsen withinTrick = Test_Fixtures_Schnapsen.randomPosition(seed, state -> state.getLeadingCard() >= 0);
+            if (withinTrick != null) {
+                assertEquals(Endgame_Tablebase_Schnapsen.NOT_FOUND, tablebase.probe(withinTrick), "seed " + seed);
+            }
+            assertEquals(Endgame_Tablebase_Schnapsen.NOT_FOUND, tablebase.probe(Test_Fixtures_Schnapsen.dealState(seed)), "seed " + seed);
+        }
+    }
+
+    /**
+     * Checks if a position lies within the generated tablebase
+     * @param state the position
+     * @return true if the strict rules apply at the start of a trick, both players have won a trick and hold at most MAX_CARDS cards
+     */
+    private static boolean isCovered(Playout_State_Schnapsen state) {
+        return Endgame_Solver_Schnapsen.isSolvable(state) && state.getLeadingCard() < 0 && state.getTricks(0) > 0 && state.getTricks(1) > 0
+                && Integer.bitCount(state.getHand(0)) <= MAX_CARDS && Integer.bitCount(state.getHand(1)) <= MAX_CARDS;
+    }
+}
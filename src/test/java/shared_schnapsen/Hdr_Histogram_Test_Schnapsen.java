@@ -0,0 +1,104 @@
+package shared_schnapsen;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Hdr_Histogram_Test_Schnapsen {
+
+    /**
+     * An empty histogram reports 0 for every statistic
+     */
+    @Test
+    void emptyHistogramIsZero() {
+        Hdr_Histogram_Schnapsen histogram = new Hdr_Histogram_Schnapsen();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    /**
+     * The values 1 to 100: below 64 every value has its own bucket, above the buckets are 2 wide and the maximum caps the last one
+     */
+    @Test
+    void percentilesOfOneToHundred() {
+        Hdr_Histogram_Schnapsen histogram = new Hdr_Histogram_Schnapsen();
+        for (int value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50.5, histogram.getMean());
+        assertEquals(1, histogram.getValueAtPercentile(0));
+        assertEquals(50, histogram.getValueAtPercentile(50));
+        assertEquals(91, histogram.getValueAtPercentile(90));
+        assertEquals(99, histogram.getValueAtPercentile(99));
+        assertEquals(100, histogram.getValueAtPercentile(100));
+    }
+
+    /**
+     * A single value is reported exactly, as the bucket bound is capped by the minimum and the maximum
+     */
+    @Test
+    void singleValueIsExact() {
+        Hdr_Histogram_Schnapsen histogram = new Hdr_Histogram_Schnapsen();
+        histogram.record(123_456_789L);
+        assertEquals(123_456_789L, histogram.getValueAtPercentile(50));
+        assertEquals(123_456_789L, histogram.getValueAtPercentile(99.99));
+    }
+
+    /**
+     * Negative values, e.g. the slack of a missed deadline, are recorded as 0
+     */
+    @Test
+    void negativeValuesAreZero() {
+        Hdr_Histogram_Schnapsen histogram = new Hdr_Histogram_Schnapsen();
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMin());
+        assertEquals(1, histogram.getBucketCount(0));
+    }
+
+    /**
+     * The buckets cover all values from 0 to Long.MAX_VALUE without gaps, and none is wider than 1/32 of its lower bound
+     */
+    @Test
+    void bucketsAreContiguousAndNarrow() {
+        Hdr_Histogram_Schnapsen histogram = new Hdr_Histogram_Schnapsen();
+        assertEquals(0, histogram.getLowerBound(0));
+        for (int bucket = 0; bucket < histogram.getNumberOfBuckets(); bucket++) {
+            long lower = histogram.getLowerBound(bucket);
+            long upper = histogram.getUpperBound(bucket);
+            assertTrue(lower <= upper);
+            assertTrue(upper - lower <= lower / 32);
+            if (bucket + 1 < histogram.getNumberOfBuckets()) {
+                assertEquals(upper + 1, histogram.getLowerBound(bucket + 1));
+            }
+        }
+        assertEquals(Long.MAX_VALUE, histogram.getUpperBound(histogram.getNumberOfBuckets() - 1));
+    }
+
+    /**
+     * Every value is counted in the bucket whose bounds enclose it
+     */
+    @Test
+    void valuesFallIntoTheirBucket() {
+        long[] values = {0, 31, 32, 63, 64, 65, 1_000, 999_999, 1L << 40, Long.MAX_VALUE};
+        for (long value : values) {
+            Hdr_Histogram_Schnapsen histogram = new Hdr_Histogram_Schnapsen();
+            histogram.record(value);
+            int counted = 0;
+            for (int bucket = 0; bucket < histogram.getNumberOfBuckets(); bucket++) {
+                if (histogram.getBucketCount(bucket) == 1) {
+                    assertTrue(histogram.getLowerBound(bucket) <= value && value <= histogram.getUpperBound(bucket));
+                    counted++;
+                }
+            }
+            assertEquals(1, counted);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package shared_schnapsen;
+
+import game.Schnapsen;
+import game.action.SchnapsenAction;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Playout_State_Test_Schnapsen {
+
+    private static final int DEALS = 200;
+
+    /**
+     * Plays random rounds in the engine and in the playout state side by side: before every action both have the same player to move,
+     * the same points and the same legal moves, and the round ends in both at the same action with the same winner
+     */
+    @Test
+    void legalMovesAndScoresMatchTheEngine() {
+        for (long seed = 0; seed < DEALS; seed++) {
+            int[] pileOrder = new int[Card_Bits_Schnapsen.DECK_SIZE];
+            Schnapsen game = Test_Fixtures_Schnapsen.dealWorld(seed, pileOrder);
+            Playout_State_Schnapsen state = new Playout_State_Schnapsen();
+            state.loadFrom(game, pileOrder, game.getBoard().playingCardsLeftInPile());
+            double utilityPlayer0 = game.getUtilityValue(0);
+            double utilityPlayer1 = game.getUtilityValue(1);
+            Random random = new Random(seed);
+
+            while (true) {
+                String position = "seed " + seed + " move " + state.getMovesApplied();
+                assertEquals(game.getCurrentPlayer(), state.getCurrentPlayer(), position);
+                assertEquals(game.getBoard().getPlayer0Score(), state.getPoints(0), position);
+                assertEquals(game.getBoard().getPlayer1Score(), state.getPoints(1), position);
+                assertEquals(Action_Ids_Schnapsen.toMask(game.getPossibleActions()), state.getLegalMoves(), position);
+
+                SchnapsenAction action = randomAction(game, random);
+                game = (Schnapsen) game.doAction(action);
+                state.applyMove(Action_Ids_Schnapsen.idOf(action));
+
+                //the round is over once the Bummerl values of a player changed, the same check as in the agents
+                long roundsWon0 = (long) game.getUtilityValue(0) - (long) utilityPlayer0;
+                long roundsWon1 = (long) game.getUtilityValue(1) - (long) utilityPlayer1;
+                if (game.isGameOver() || roundsWon0 != 0 || roundsWon1 != 0) {
+                    assertTrue(state.isRoundOver(), position);
+                    assertEquals(roundsWon0 > 0 ? 0 : 1, state.getRoundWinner(), position);
+                    break;
+                }
+                assertFalse(state.isRoundOver(), position);
+            }
+        }
+    }
+
+    /**
+     * Copying a state and applying the same moves to the copy and the original keeps both equal
+     */
+    @Test
+    void copyPlaysTheSameRound() {
+        for (long seed = 0; seed < DEALS; seed++) {
+            Playout_State_Schnapsen state = Test_Fixtures_Schnapsen.dealState(seed);
+            Playout_State_Schnapsen copy = new Playout_State_Schnapsen();
+            copy.copyFrom(state);
+            Random random = new Random(seed);
+            while (!state.isRoundOver()) {
+                assertEquals(state.getLegalMoves(), copy.getLegalMoves());
+                int move = Playout_State_Schnapsen.selectRandomMove(state.getLegalMoves(), random);
+                state.applyMove(move);
+                copy.applyMove(move);
+            }
+            assertTrue(copy.isRoundOver());
+            assertEquals(state.getRoundWinner(), copy.getRoundWinner());
+            assertEquals(state.getGamePoints(), copy.getGamePoints());
+        }
+    }
+
+    /**
+     * Chooses a random action, the actions are ordered by their ids first so that a seed always leads to the same action
+     * @param game the current state
+     * @param random the source of randomness
+     * @return one of the possible actions
+     */
+    private static SchnapsenAction randomAction(Schnapsen game, Random random) {
+        List<SchnapsenAction> actions = new ArrayList<>(game.getPossibleActions());
+        actions.sort(Comparator.comparingInt(Action_Ids_Schnapsen::idOf));
+        return actions.get(random.nextInt(actions.size()));
+    }
+}
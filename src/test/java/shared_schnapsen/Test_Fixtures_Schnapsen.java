@@ -0,0 +1,58 @@
+package shared_schnapsen;
+
+import game.Schnapsen;
+import game.board.SchnapsenBoard;
+
+import java.util.Random;
+import java.util.function.Predicate;
+
+public final class Test_Fixtures_Schnapsen {
+
+    private Test_Fixtures_Schnapsen() {
+    }
+
+    /**
+     * Deals a round and distributes the cards player 0 does not see from the same seed, the result is a game without hidden information
+     * whose pile order is known, as in the worlds of the agents
+     * @param seed the seed of the deal and of the distribution
+     * @param pileOrder receives the card indices of the pile in drawing order, the trump card last
+     * @return a game at the start of the round, player 0 has to move
+     */
+    public static Schnapsen dealWorld(long seed, int[] pileOrder) {
+        Schnapsen game = Seeded_Deal_Schnapsen.dealRound(seed);
+        Determinizer_Schnapsen determinizer = new Determinizer_Schnapsen(game.getBoard(), 0);
+        SchnapsenBoard generatedBoard = determinizer.generateMissingInformation(new Random(seed), pileOrder);
+        return new Schnapsen(generatedBoard);
+    }
+
+    /**
+     * Deals a round into a playout state
+     * @param seed the seed of the deal and of the distribution
+     * @return a state at the start of the round
+     */
+    public static Playout_State_Schnapsen dealState(long seed) {
+        int[] pileOrder = new int[Card_Bits_Schnapsen.DECK_SIZE];
+        Schnapsen game = dealWorld(seed, pileOrder);
+        Playout_State_Schnapsen state = new Playout_State_Schnapsen();
+        state.loadFrom(game, pileOrder, game.getBoard().playingCardsLeftInPile());
+        return state;
+    }
+
+    /**
+     * Deals a round and applies seeded random moves until a position is reached
+     * @param seed the seed of the deal and of the moves
+     * @param reached the condition of the wanted position
+     * @return the first state that fulfils the condition, null if the round ended before
+     */
+    public static Playout_State_Schnapsen randomPosition(long seed, Predicate<Playout_State_Schnapsen> reached) {
+        Playout_State_Schnapsen state = dealState(seed);
+        Random random = new Random(seed);
+        while (!state.isRoundOver()) {
+            if (reached.test(state)) {
+                return state;
+            }
+            state.applyMove(Playout_State_Schnapsen.selectRandomMove(state.getLegalMoves(), random));
+        }
+        return null;
+    }
+}
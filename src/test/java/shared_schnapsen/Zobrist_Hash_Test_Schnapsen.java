@@ -0,0 +1,52 @@
+package shared_schnapsen;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class Zobrist_Hash_Test_Schnapsen {
+
+    private static final int DEALS = 500;
+
+    /**
+     * The incrementally updated hash equals the hash computed from scratch after every move of random rounds,
+     * including draws from the pile, trump exchanges, marriages and the closing of the talon
+     */
+    @Test
+    void updateEqualsFullRecompute() {
+        Playout_State_Schnapsen before = new Playout_State_Schnapsen();
+        for (long seed = 0; seed < DEALS; seed++) {
+            Playout_State_Schnapsen state = Test_Fixtures_Schnapsen.dealState(seed);
+            Random random = new Random(seed);
+            long hash = Zobrist_Hash_Schnapsen.hash(state);
+            while (!state.isRoundOver()) {
+                before.copyFrom(state);
+                int move = Playout_State_Schnapsen.selectRandomMove(state.getLegalMoves(), random);
+                state.applyMove(move);
+                hash = Zobrist_Hash_Schnapsen.update(hash, before, state);
+                assertEquals(Zobrist_Hash_Schnapsen.hash(state), hash, "seed " + seed + " move " + move);
+            }
+        }
+    }
+
+    /**
+     * Every move of a round changes the hash, so that a position and the one after it do not share an entry of the transposition table
+     */
+    @Test
+    void everyMoveChangesTheHash() {
+        for (long seed = 0; seed < DEALS; seed++) {
+            Playout_State_Schnapsen state = Test_Fixtures_Schnapsen.dealState(seed);
+            Random random = new Random(seed);
+            long hash = Zobrist_Hash_Schnapsen.hash(state);
+            while (!state.isRoundOver()) {
+                state.applyMove(Playout_State_Schnapsen.selectRandomMove(state.getLegalMoves(), random));
+                long nextHash = Zobrist_Hash_Schnapsen.hash(state);
+                assertNotEquals(hash, nextHash, "seed " + seed);
+                hash = nextHash;
+            }
+        }
+    }
+}
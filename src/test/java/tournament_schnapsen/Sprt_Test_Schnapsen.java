@@ -0,0 +1,73 @@
+package tournament_schnapsen;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class Sprt_Test_Schnapsen {
+
+    /**
+     * Before the first pair there is no evidence, the ratio is 0 and the test goes on
+     */
+    @Test
+    void noPairsContinues() {
+        Sprt_Schnapsen sprt = new Sprt_Schnapsen(0, 5, 0.05, 0.05);
+        assertEquals(0, sprt.getLogLikelihoodRatio());
+        assertEquals(Sprt_Schnapsen.Decision.CONTINUE, sprt.getDecision());
+    }
+
+    /**
+     * Four won pairs against elo0 0 and elo1 5: the mean is 1, the prior of one pair per outcome gives the mean 13/18 and the variance 85/648,
+     * the expected scores are 0.5 and 0.50719, so the ratio is 4 * 0.00719 * 0.99281 / (2 * 85/648) = 0.10891
+     */
+    @Test
+    void wonPairsMatchTheNormalApproximation() {
+        Sprt_Schnapsen sprt = new Sprt_Schnapsen(0, 5, 0.05, 0.05);
+        for (int i = 0; i < 4; i++) {
+            sprt.addPair(1, 1);
+        }
+        assertEquals(4, sprt.getPairs());
+        assertEquals(0.108914506, sprt.getLogLikelihoodRatio(), 1e-8);
+        assertEquals(Sprt_Schnapsen.Decision.CONTINUE, sprt.getDecision());
+    }
+
+    /**
+     * With hypotheses symmetric around 0, pairs that split the points evenly are exactly in between them
+     */
+    @Test
+    void evenPairsBetweenSymmetricHypothesesAreNeutral() {
+        Sprt_Schnapsen sprt = new Sprt_Schnapsen(-5, 5, 0.05, 0.05);
+        for (int i = 0; i < 100; i++) {
+            sprt.addPair(1, 0);
+            sprt.addPair(0.5, 0.5);
+        }
+        assertEquals(0, sprt.getLogLikelihoodRatio(), 1e-12);
+        assertEquals(Sprt_Schnapsen.Decision.CONTINUE, sprt.getDecision());
+    }
+
+    /**
+     * A clearly stronger agent crosses the upper bound log(0.95 / 0.05), a clearly weaker one the lower bound
+     */
+    @Test
+    void clearResultsCrossTheBounds() {
+        Sprt_Schnapsen stronger = new Sprt_Schnapsen(0, 50, 0.05, 0.05);
+        Sprt_Schnapsen weaker = new Sprt_Schnapsen(0, 50, 0.05, 0.05);
+        for (int i = 0; i < 200; i++) {
+            stronger.addPair(1, i % 2);
+            weaker.addPair(0, i % 2);
+        }
+        assertEquals(Sprt_Schnapsen.Decision.ACCEPT_H1, stronger.getDecision());
+        assertEquals(Sprt_Schnapsen.Decision.ACCEPT_H0, weaker.getDecision());
+    }
+
+    /**
+     * The hypotheses have to be ordered and the error rates proper probabilities
+     */
+    @Test
+    void invalidParametersAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new Sprt_Schnapsen(5, 5, 0.05, 0.05));
+        assertThrows(IllegalArgumentException.class, () -> new Sprt_Schnapsen(0, 5, 0, 0.05));
+        assertThrows(IllegalArgumentException.class, () -> new Sprt_Schnapsen(0, 5, 0.05, 1));
+    }
+}